@@ -21,6 +21,7 @@
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
 import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
 import reactor.core.CoreSubscriber;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -126,6 +127,19 @@ public PayloadsPerfSubscriber requestResponse(Blackhole blackhole) throws Interr
     return subscriber;
   }
 
+  /**
+   * Request-response with a subscriber reused across operations, so that with {@code -prof gc}
+   * {@code gc.alloc.rate.norm} reports what a single call allocates on the requester side.
+   */
+  @Benchmark
+  public ReusableSubscriber requestResponseAllocation(ReusableSubscriber subscriber) {
+    subscriber.reset();
+    client.requestResponse(PAYLOAD).subscribe(subscriber);
+    subscriber.await();
+
+    return subscriber;
+  }
+
   @Benchmark
   public PayloadsPerfSubscriber requestStreamWithRequestByOneStrategy(Blackhole blackhole)
       throws InterruptedException {
@@ -165,4 +179,47 @@ public PayloadsMaxPerfSubscriber requestChannelWithRequestAllStrategy(Blackhole
 
     return subscriber;
   }
+
+  @State(Scope.Thread)
+  public static class ReusableSubscriber implements CoreSubscriber<Payload> {
+    Blackhole blackhole;
+    volatile boolean done;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    void reset() {
+      done = false;
+    }
+
+    void await() {
+      while (!done) {
+        Thread.yield();
+      }
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      s.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(Payload payload) {
+      payload.release();
+      blackhole.consume(payload);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      blackhole.consume(t);
+      done = true;
+    }
+
+    @Override
+    public void onComplete() {
+      done = true;
+    }
+  }
 }
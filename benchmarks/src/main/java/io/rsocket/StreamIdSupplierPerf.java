@@ -1,7 +1,5 @@
 package io.rsocket;
 
-import io.netty.util.collection.IntObjectMap;
-import io.rsocket.internal.SynchronizedIntObjectHashMap;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
 
@@ -15,21 +13,66 @@
 public class StreamIdSupplierPerf {
   @Benchmark
   public void benchmarkStreamId(Input input) {
-    int i = input.supplier.nextStreamId(input.map);
+    int i = input.supplier.nextStreamId();
     input.bh.consume(i);
+    input.supplier.release(i);
+    if (i > HELD_RANGE) {
+      input.rewind();
+    }
   }
 
+  static final int HELD_RANGE = 1 << 25;
+
   @State(Scope.Benchmark)
   public static class Input {
+    /**
+     * <ul>
+     *   <li>fresh: ids never wrapped, every candidate is free
+     *   <li>wrapped: ids wrapped, one of every 8 ids is held by a long living stream
+     *   <li>dense: ids wrapped, 15 of every 16 ids are held by long living streams
+     * </ul>
+     */
+    @Param({"fresh", "wrapped", "dense"})
+    String mode;
+
     Blackhole bh;
-    IntObjectMap map;
     StreamIdSupplier supplier;
+    StreamIdBitmap inUse;
 
     @Setup
     public void setup(Blackhole bh) {
-      this.supplier = StreamIdSupplier.clientSupplier();
       this.bh = bh;
-      this.map = new SynchronizedIntObjectHashMap();
+      this.inUse = new StreamIdBitmap();
+
+      int everyNth;
+      switch (mode) {
+        case "wrapped":
+          everyNth = 8;
+          break;
+        case "dense":
+          everyNth = -16;
+          break;
+        default:
+          everyNth = 0;
+      }
+
+      if (everyNth != 0) {
+        for (int i = 0; i < HELD_RANGE >>> 1; i++) {
+          boolean held = everyNth > 0 ? i % everyNth == 0 : i % -everyNth != 0;
+          if (held) {
+            inUse.tryAcquire(i * 2 + 1);
+          }
+        }
+      }
+    }
+
+    @Setup(Level.Iteration)
+    public void rewind() {
+      // restart right before the wrap-around, so allocations keep happening among held ids
+      this.supplier =
+          "fresh".equals(mode)
+              ? new StreamIdSupplier(-1, inUse)
+              : new StreamIdSupplier(Integer.MAX_VALUE - 2, inUse);
     }
   }
 }
@@ -0,0 +1,91 @@
+package io.rsocket.client;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Payload;
+import io.rsocket.PayloadsPerfSubscriber;
+import io.rsocket.RSocket;
+import io.rsocket.client.filter.RSocketSupplier;
+import io.rsocket.util.CachedTimeSource;
+import io.rsocket.util.Clock;
+import io.rsocket.util.EmptyPayload;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Mono;
+
+/**
+ * Per request overhead of {@link LoadBalancedRSocketMono}: selection of a socket, and latency
+ * accounting of its {@code WeightedSocket}, which reads {@link Clock} several times per request.
+ * Sockets respond synchronously, so the clock is a significant part of each request. Compares the
+ * system time source with a {@link CachedTimeSource}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class LoadBalancedRSocketMonoPerf {
+
+  @Param({"system", "cached"})
+  String timeSource;
+
+  @Param({"4", "32"})
+  int sockets;
+
+  LoadBalancedRSocketMono balancer;
+  CachedTimeSource cachedTimeSource;
+
+  @Setup
+  public void setUp() throws InterruptedException {
+    if ("cached".equals(timeSource)) {
+      cachedTimeSource = Clock.TimeSource.cached(Duration.ofMillis(1));
+      Clock.use(cachedTimeSource);
+    }
+    List<RSocketSupplier> suppliers = new ArrayList<>();
+    for (int i = 0; i < sockets; i++) {
+      RSocket rSocket =
+          new AbstractRSocket() {
+            @Override
+            public Mono<Payload> requestResponse(Payload payload) {
+              return Mono.just(payload);
+            }
+          };
+      suppliers.add(new RSocketSupplier(() -> Mono.just(rSocket)));
+    }
+    balancer = LoadBalancedRSocketMono.create(Mono.just(suppliers));
+    while (balancer.availability() == 0.0) {
+      Thread.sleep(1);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    balancer.dispose();
+    Clock.use(Clock.TimeSource.SYSTEM);
+    if (cachedTimeSource != null) {
+      cachedTimeSource.dispose();
+    }
+  }
+
+  @Benchmark
+  public void requestResponse(Blackhole blackhole) {
+    balancer
+        .flatMap(rSocket -> rSocket.requestResponse(EmptyPayload.INSTANCE))
+        .subscribe(new PayloadsPerfSubscriber(blackhole));
+  }
+}
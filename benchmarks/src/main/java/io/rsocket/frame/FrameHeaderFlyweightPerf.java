@@ -32,12 +32,46 @@ public void decode(Input input) {
     input.bh.consume(frameType);
   }
 
+  /** Same fields as {@link #decode(Input)}, read through a reused {@link FrameHeaderCursor} */
+  @Benchmark
+  public void decodeCursor(Input input) {
+    FrameHeaderCursor header = input.cursor.read(input.frame);
+    input.bh.consume(header.streamId());
+    input.bh.consume(header.flags());
+    input.bh.consume(header.frameType());
+  }
+
+  /** What a receive loop needs of a PAYLOAD frame: stream id, synthetic type and flags */
+  @Benchmark
+  public void decodePayload(Input input) {
+    ByteBuf frame = input.payloadFrame;
+    int streamId = FrameHeaderFlyweight.streamId(frame);
+    FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+    boolean hasMetadata = FrameHeaderFlyweight.hasMetadata(frame);
+    boolean hasFollows = FrameHeaderFlyweight.hasFollows(frame);
+    input.bh.consume(streamId);
+    input.bh.consume(frameType);
+    input.bh.consume(hasMetadata);
+    input.bh.consume(hasFollows);
+  }
+
+  @Benchmark
+  public void decodePayloadCursor(Input input) {
+    FrameHeaderCursor header = input.cursor.read(input.payloadFrame);
+    input.bh.consume(header.streamId());
+    input.bh.consume(header.frameType());
+    input.bh.consume(header.hasMetadata());
+    input.bh.consume(header.hasFollows());
+  }
+
   @State(Scope.Benchmark)
   public static class Input {
     Blackhole bh;
     FrameType frameType;
     ByteBufAllocator allocator;
     ByteBuf frame;
+    ByteBuf payloadFrame;
+    FrameHeaderCursor cursor;
 
     @Setup
     public void setup(Blackhole bh) {
@@ -45,11 +79,19 @@ public void setup(Blackhole bh) {
       this.frameType = FrameType.REQUEST_RESPONSE;
       allocator = ByteBufAllocator.DEFAULT;
       frame = FrameHeaderFlyweight.encode(allocator, 123, FrameType.SETUP, 0);
+      payloadFrame =
+          FrameHeaderFlyweight.encode(
+              allocator,
+              123,
+              FrameType.PAYLOAD,
+              FrameHeaderFlyweight.FLAGS_M | FrameHeaderFlyweight.FLAGS_N);
+      cursor = new FrameHeaderCursor();
     }
 
     @TearDown
     public void teardown() {
       frame.release();
+      payloadFrame.release();
     }
   }
 }
@@ -0,0 +1,51 @@
+package io.rsocket.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Encoding of a request-response frame followed by its length prefix, as done by the TCP
+ * transport. Run with {@code --profilers gc} to compare the allocation rate of wrapping every
+ * frame against writing the length into room reserved by {@link FrameHeaderFlyweight}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class FrameLengthFlyweightPerf {
+
+  @Param({"false", "true"})
+  boolean reserveFrameLength;
+
+  ByteBufAllocator allocator;
+  ByteBuf metadata;
+  ByteBuf data;
+
+  @Setup
+  public void setup() {
+    FrameHeaderFlyweight.reserveFrameLength = reserveFrameLength;
+    allocator = ByteBufAllocator.DEFAULT;
+    metadata = Unpooled.wrappedBuffer(new byte[16]);
+    data = Unpooled.wrappedBuffer(new byte[64]);
+  }
+
+  @Benchmark
+  public void encode(Blackhole bh) {
+    ByteBuf frame =
+        RequestResponseFrameFlyweight.encode(
+            allocator, 1, false, metadata.retainedSlice(), data.retainedSlice());
+
+    ByteBuf encoded =
+        FrameLengthFlyweight.hasReservedLength(frame)
+            ? FrameLengthFlyweight.encodeReserved(frame)
+            : FrameLengthFlyweight.encode(allocator, frame.readableBytes(), frame);
+
+    bh.consume(encoded.release());
+  }
+}
@@ -1,5 +1,7 @@
 package io.rsocket.frame;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
 
@@ -24,15 +26,77 @@ public void lookup(Input input) {
     input.bh.consume(b);
   }
 
+  /**
+   * Resolution of the synthetic type of PAYLOAD frames as it was done before the switch table:
+   * enum lookup by encoded type, then branches on the NEXT and COMPLETE flags.
+   */
+  @Benchmark
+  public void fromEncodedType(Input input) {
+    ByteBuf frame = input.frames[input.next()];
+    int typeAndFlags = frame.getUnsignedShort(frame.readerIndex() + Integer.BYTES);
+    FrameType result = FrameType.fromEncodedType(typeAndFlags >> 10);
+    if (result == FrameType.PAYLOAD) {
+      boolean complete = (typeAndFlags & FrameHeaderFlyweight.FLAGS_C) != 0;
+      boolean next = (typeAndFlags & FrameHeaderFlyweight.FLAGS_N) != 0;
+      if (next && complete) {
+        result = FrameType.NEXT_COMPLETE;
+      } else if (complete) {
+        result = FrameType.COMPLETE;
+      } else {
+        result = FrameType.NEXT;
+      }
+    }
+    input.bh.consume(result);
+  }
+
+  @Benchmark
+  public void switchTable(Input input) {
+    ByteBuf frame = input.frames[input.next()];
+    input.bh.consume(FrameHeaderFlyweight.frameType(frame));
+  }
+
   @State(Scope.Benchmark)
   public static class Input {
     Blackhole bh;
     FrameType frameType;
+    ByteBuf[] frames;
+    int index;
 
     @Setup
     public void setup(Blackhole bh) {
       this.bh = bh;
       this.frameType = FrameType.REQUEST_RESPONSE;
+
+      // a mix of types, as seen by a receive loop
+      ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+      frames =
+          new ByteBuf[] {
+            FrameHeaderFlyweight.encode(
+                allocator, 1, FrameType.PAYLOAD, FrameHeaderFlyweight.FLAGS_N),
+            FrameHeaderFlyweight.encode(allocator, 1, FrameType.REQUEST_N, 0),
+            FrameHeaderFlyweight.encode(
+                allocator,
+                1,
+                FrameType.PAYLOAD,
+                FrameHeaderFlyweight.FLAGS_N | FrameHeaderFlyweight.FLAGS_C),
+            FrameHeaderFlyweight.encode(allocator, 3, FrameType.REQUEST_RESPONSE, 0),
+            FrameHeaderFlyweight.encode(
+                allocator, 1, FrameType.PAYLOAD, FrameHeaderFlyweight.FLAGS_C),
+            FrameHeaderFlyweight.encode(allocator, 0, FrameType.KEEPALIVE, 0),
+            FrameHeaderFlyweight.encode(allocator, 5, FrameType.CANCEL, 0),
+            FrameHeaderFlyweight.encode(allocator, 7, FrameType.REQUEST_STREAM, 0)
+          };
+    }
+
+    int next() {
+      return index = (index + 1) & (frames.length - 1);
+    }
+
+    @TearDown
+    public void teardown() {
+      for (ByteBuf frame : frames) {
+        frame.release();
+      }
     }
   }
 }
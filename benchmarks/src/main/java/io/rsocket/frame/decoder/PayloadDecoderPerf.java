@@ -0,0 +1,68 @@
+package io.rsocket.frame.decoder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.frame.PayloadFrameFlyweight;
+import io.rsocket.util.ByteBufPayload;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decodes a NEXT frame into a payload and releases it, as a responder or a requester does for every
+ * inbound payload. Run with {@code -prof gc} to compare the allocation rates of the decoders.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class PayloadDecoderPerf {
+
+  @Param({"default", "zeroCopy", "pooled"})
+  String decoder;
+
+  @Param({"64", "1024", "65536"})
+  int payloadSize;
+
+  PayloadDecoder payloadDecoder;
+  ByteBuf frame;
+
+  @Setup
+  public void setup() {
+    switch (decoder) {
+      case "zeroCopy":
+        payloadDecoder = PayloadDecoder.ZERO_COPY;
+        break;
+      case "pooled":
+        payloadDecoder = PayloadDecoder.POOLED;
+        break;
+      default:
+        payloadDecoder = PayloadDecoder.DEFAULT;
+    }
+
+    Payload payload =
+        ByteBufPayload.create(
+            Unpooled.wrappedBuffer(new byte[payloadSize]), Unpooled.wrappedBuffer(new byte[16]));
+    ByteBuf encoded = PayloadFrameFlyweight.encodeNext(ByteBufAllocator.DEFAULT, 1, payload);
+    payload.release();
+    // a contiguous frame, as received from a transport
+    frame = Unpooled.directBuffer(encoded.readableBytes()).writeBytes(encoded);
+    encoded.release();
+  }
+
+  @TearDown
+  public void tearDown() {
+    frame.release();
+  }
+
+  @Benchmark
+  public void decode(Blackhole bh) {
+    Payload payload = payloadDecoder.apply(frame);
+    bh.consume(payload.data());
+    bh.consume(payload.release());
+  }
+}
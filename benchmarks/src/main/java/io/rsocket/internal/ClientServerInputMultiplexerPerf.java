@@ -0,0 +1,118 @@
+package io.rsocket.internal;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.PayloadsMaxPerfSubscriber;
+import io.rsocket.PayloadsPerfSubscriber;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.transport.local.LocalClientTransport;
+import io.rsocket.transport.local.LocalServerTransport;
+import io.rsocket.util.EmptyPayload;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Time spent per inbound frame over the local transport, where the cost of splitting the received
+ * frames between requester and responder is not hidden behind network latency. {@code
+ * requestResponse} is the round trip of a single frame each way, {@code requestStream} the
+ * amortized time of each frame of a long stream.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 10)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ClientServerInputMultiplexerPerf {
+
+  static final int STREAM_SIZE = 10000;
+
+  static final Payload PAYLOAD = EmptyPayload.INSTANCE;
+  static final Mono<Payload> PAYLOAD_MONO = Mono.just(PAYLOAD);
+  static final Flux<Payload> PAYLOAD_FLUX =
+      Flux.fromArray(
+          IntStream.range(0, STREAM_SIZE).mapToObj(__ -> PAYLOAD).toArray(Payload[]::new));
+
+  RSocket client;
+  Closeable server;
+
+  @Setup
+  public void setUp() {
+    server =
+        RSocketFactory.receive()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .acceptor(
+                (setup, sendingSocket) ->
+                    Mono.just(
+                        new AbstractRSocket() {
+                          @Override
+                          public Mono<Payload> requestResponse(Payload payload) {
+                            payload.release();
+                            return PAYLOAD_MONO;
+                          }
+
+                          @Override
+                          public Flux<Payload> requestStream(Payload payload) {
+                            payload.release();
+                            return PAYLOAD_FLUX;
+                          }
+                        }))
+            .transport(LocalServerTransport.create("multiplexer"))
+            .start()
+            .block();
+
+    client =
+        RSocketFactory.connect()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .transport(LocalClientTransport.create("multiplexer"))
+            .start()
+            .block();
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.dispose();
+    server.dispose();
+  }
+
+  @Benchmark
+  public PayloadsPerfSubscriber requestResponse(Blackhole blackhole) throws InterruptedException {
+    PayloadsPerfSubscriber subscriber = new PayloadsPerfSubscriber(blackhole);
+    client.requestResponse(PAYLOAD).subscribe(subscriber);
+    subscriber.await();
+
+    return subscriber;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OperationsPerInvocation(STREAM_SIZE)
+  public PayloadsMaxPerfSubscriber requestStream(Blackhole blackhole)
+      throws InterruptedException {
+    PayloadsMaxPerfSubscriber subscriber = new PayloadsMaxPerfSubscriber(blackhole);
+    client.requestStream(PAYLOAD).subscribe(subscriber);
+    subscriber.await();
+
+    return subscriber;
+  }
+}
@@ -0,0 +1,91 @@
+package io.rsocket.internal;
+
+import io.netty.util.collection.IntObjectMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the stream registries used by {@code RSocketRequester} and {@code RSocketResponder}.
+ * Every operation mimics a request-response lifecycle: register the stream, look it up once for
+ * the inbound frame and remove it on termination.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class IntObjectMapPerf {
+
+  @Param({"synchronized", "striped"})
+  String type;
+
+  IntObjectMap<Object> map;
+
+  @Setup
+  public void setup() {
+    map =
+        "striped".equals(type)
+            ? new StripedIntObjectHashMap<>()
+            : new SynchronizedIntObjectHashMap<>();
+    // pre-populate with long living streams so lookups are not done on an empty table
+    for (int i = 1; i < 2048; i += 2) {
+      map.put(i, Boolean.TRUE);
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void writers01(Writer writer, Blackhole bh) {
+    writer.lifecycle(map, bh);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void writers04(Writer writer, Blackhole bh) {
+    writer.lifecycle(map, bh);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public void writers16(Writer writer, Blackhole bh) {
+    writer.lifecycle(map, bh);
+  }
+
+  @Benchmark
+  @Threads(64)
+  public void writers64(Writer writer, Blackhole bh) {
+    writer.lifecycle(map, bh);
+  }
+
+  @State(Scope.Thread)
+  public static class Writer {
+    static final AtomicInteger THREADS = new AtomicInteger();
+
+    int base;
+    int next;
+
+    @Setup
+    public void setup() {
+      // keeps keys of different threads disjoint, as stream ids are unique per connection
+      base = 4096 + THREADS.getAndIncrement() * (1 << 20);
+    }
+
+    void lifecycle(IntObjectMap<Object> map, Blackhole bh) {
+      int key = base + ((next += 2) & 0xFFFFF);
+      map.put(key, this);
+      bh.consume(map.get(key));
+      bh.consume(map.remove(key));
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package io.rsocket.lease;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.transport.local.LocalClientTransport;
+import io.rsocket.transport.local.LocalServerTransport;
+import io.rsocket.util.EmptyPayload;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Simulated overload over the local transport: the responder handles {@link #CAPACITY} requests
+ * concurrently within {@link #LATENCY}, and every request beyond that queues, so latency grows with
+ * the number of requests in flight. Each invocation sends a burst of {@code burst} concurrent
+ * requests, with no lease or with leases of {@link ConcurrencyLimitLeaseSender}. Requests rejected
+ * for lack of a lease are counted separately from completed ones, so the benchmark reports both the
+ * time a burst takes and how much of it was shed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ConcurrencyLimitLeasePerf {
+
+  static final int CAPACITY = 16;
+  static final Duration LATENCY = Duration.ofMillis(1);
+
+  @Param({"none", "aimd", "vegas"})
+  String strategy;
+
+  @Param({"64", "512"})
+  int burst;
+
+  Closeable server;
+  RSocket client;
+  final AtomicInteger inFlight = new AtomicInteger();
+
+  @Setup
+  public void setUp() {
+    RSocketFactory.ServerRSocketFactory serverFactory = RSocketFactory.receive();
+    RSocketFactory.ClientRSocketFactory clientFactory = RSocketFactory.connect();
+    if (!"none".equals(strategy)) {
+      serverFactory.lease(() -> ConcurrencyLimitLeaseSender.leases(concurrencyLimit()));
+      clientFactory.lease();
+    }
+    server =
+        serverFactory
+            .acceptor((setup, sendingSocket) -> Mono.just(new SimulatedResponder()))
+            .transport(LocalServerTransport.create("lease-concurrency-limit"))
+            .start()
+            .block();
+    client =
+        clientFactory
+            .transport(LocalClientTransport.create("lease-concurrency-limit"))
+            .start()
+            .block();
+    /* first lease */
+    Mono.delay(Duration.ofMillis(100)).block();
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.dispose();
+    server.dispose();
+  }
+
+  @Benchmark
+  public void burst(Counters counters) {
+    Flux.range(0, burst)
+        .flatMap(
+            i ->
+                client
+                    .requestResponse(EmptyPayload.INSTANCE)
+                    .doOnNext(
+                        payload -> {
+                          payload.release();
+                          counters.completed++;
+                        })
+                    .onErrorResume(
+                        err -> {
+                          counters.rejected++;
+                          return Mono.empty();
+                        }),
+            burst)
+        .blockLast();
+  }
+
+  ConcurrencyLimit concurrencyLimit() {
+    return "aimd".equals(strategy)
+        ? new AimdConcurrencyLimit(CAPACITY, 1, 1000, LATENCY.multipliedBy(2), 0.9)
+        : new VegasConcurrencyLimit(CAPACITY, 1, 1000, Duration.ofSeconds(1));
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Counters {
+    public long completed;
+    public long rejected;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      completed = 0;
+      rejected = 0;
+    }
+  }
+
+  class SimulatedResponder extends AbstractRSocket {
+    @Override
+    public Mono<Payload> requestResponse(Payload payload) {
+      payload.release();
+      return Mono.defer(
+          () -> {
+            int queued = inFlight.incrementAndGet() / CAPACITY;
+            return Mono.delay(LATENCY.multipliedBy(1 + queued))
+                .thenReturn(EmptyPayload.INSTANCE)
+                .doFinally(s -> inFlight.decrementAndGet());
+          });
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package io.rsocket.lease;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.Disposable;
+import reactor.core.publisher.EmitterProcessor;
+
+/**
+ * Throughput of {@link ResponderLeaseHandler#useLease()} of a single connection used by all
+ * available threads, with a lease allowance held in one counter or striped among {@code stripes}
+ * counters. A lease is sent before each iteration with enough allowed requests for it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Threads(Threads.MAX)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ResponderLeaseHandlerPerf {
+
+  @Param({"1", "8", "64"})
+  int stripes;
+
+  final EmitterProcessor<Lease> leases = EmitterProcessor.create();
+  ResponderLeaseHandler leaseHandler;
+  Disposable sending;
+
+  @Setup
+  public void setUp() {
+    leaseHandler =
+        new ResponderLeaseHandler.Impl<>(
+            "perf",
+            ByteBufAllocator.DEFAULT,
+            stats -> leases,
+            err -> {},
+            Optional.empty(),
+            stripes);
+    sending = leaseHandler.send(ReferenceCountUtil::safeRelease);
+  }
+
+  @Setup(Level.Iteration)
+  public void sendLease() {
+    leases.onNext(Lease.create(60_000, Integer.MAX_VALUE));
+  }
+
+  @TearDown
+  public void tearDown() {
+    sending.dispose();
+  }
+
+  @Benchmark
+  public boolean useLease() {
+    return leaseHandler.useLease();
+  }
+}
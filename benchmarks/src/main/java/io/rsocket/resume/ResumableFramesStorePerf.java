@@ -0,0 +1,153 @@
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.PayloadsMaxPerfSubscriber;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.transport.local.LocalClientTransport;
+import io.rsocket.transport.local.LocalServerTransport;
+import io.rsocket.util.ByteBufPayload;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Retaining frames in {@link InMemoryResumableFramesStore} against copying them into {@link
+ * RingBufferResumableFramesStore}: throughput of saving and releasing frames from the pooled
+ * allocator, and of a stream over the local transport with resume enabled. The direct memory held
+ * by the pooled allocator is reported as the {@code pooledDirectMemoryKb} counter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 10)
+@State(Scope.Benchmark)
+public class ResumableFramesStorePerf {
+
+  static final int WINDOW_SIZE = 1 << 20;
+  static final int STREAM_SIZE = 10000;
+
+  @Param({"inMemory", "ringBuffer"})
+  String store;
+
+  @Param({"128", "1024"})
+  int frameSize;
+
+  PooledByteBufAllocator allocator;
+  ResumableFramesStore framesStore;
+  long saved;
+
+  RSocket client;
+  Closeable server;
+  ByteBuf data;
+
+  @Setup
+  public void setUp() {
+    allocator = PooledByteBufAllocator.DEFAULT;
+    framesStore = newStore("perf");
+    data = Unpooled.directBuffer(frameSize).writerIndex(frameSize);
+
+    Function<ByteBuf, ResumableFramesStore> storeFactory = token -> newStore("session");
+    server =
+        RSocketFactory.receive()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .resume()
+            .resumeStore(storeFactory)
+            .acceptor(
+                (setup, sendingSocket) ->
+                    Mono.just(
+                        new AbstractRSocket() {
+                          @Override
+                          public Flux<Payload> requestStream(Payload payload) {
+                            payload.release();
+                            return Flux.range(0, STREAM_SIZE)
+                                .map(i -> ByteBufPayload.create(data.retainedSlice()));
+                          }
+                        }))
+            .transport(LocalServerTransport.create("resume-store"))
+            .start()
+            .block();
+
+    client =
+        RSocketFactory.connect()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .resume()
+            .resumeStore(storeFactory)
+            .transport(LocalClientTransport.create("resume-store"))
+            .start()
+            .block();
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.dispose();
+    server.dispose();
+    framesStore.dispose();
+    data.release();
+  }
+
+  /** Saves a frame, and every 64 frames acknowledges all but the latest half window */
+  @Benchmark
+  public void saveAndRelease(PooledMemory memory) {
+    ByteBuf frame = allocator.directBuffer(frameSize);
+    frame.writerIndex(frameSize);
+    if (framesStore instanceof RingBufferResumableFramesStore) {
+      ((RingBufferResumableFramesStore) framesStore).saveFrame(frame);
+    } else {
+      ((InMemoryResumableFramesStore) framesStore).saveFrame(frame);
+    }
+    frame.release();
+
+    saved += frameSize;
+    if ((saved / frameSize & 63) == 0) {
+      framesStore.releaseFrames(Math.max(framesStore.framePosition(), saved - WINDOW_SIZE / 2));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(STREAM_SIZE)
+  public PayloadsMaxPerfSubscriber requestStreamWithResume(
+      Blackhole blackhole, PooledMemory memory) throws InterruptedException {
+    PayloadsMaxPerfSubscriber subscriber = new PayloadsMaxPerfSubscriber(blackhole);
+    client.requestStream(ByteBufPayload.create("stream")).subscribe(subscriber);
+    subscriber.await();
+
+    return subscriber;
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class PooledMemory {
+    public long pooledDirectMemoryKb() {
+      return PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory() / 1024;
+    }
+  }
+
+  ResumableFramesStore newStore(String tag) {
+    return "ringBuffer".equals(store)
+        ? new RingBufferResumableFramesStore(tag, WINDOW_SIZE)
+        : new InMemoryResumableFramesStore(tag, WINDOW_SIZE);
+  }
+}
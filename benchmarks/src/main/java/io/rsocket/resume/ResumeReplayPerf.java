@@ -0,0 +1,129 @@
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Closeable;
+import io.rsocket.DuplexConnection;
+import io.rsocket.frame.PayloadFrameFlyweight;
+import io.rsocket.transport.ClientTransport;
+import io.rsocket.transport.ServerTransport;
+import io.rsocket.transport.local.LocalClientTransport;
+import io.rsocket.transport.local.LocalServerTransport;
+import io.rsocket.transport.netty.client.TcpClientTransport;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * Time to resume: from {@link ResumableDuplexConnection#resume} until the peer has received every
+ * frame of a full {@link InMemoryResumableFramesStore}, for several window sizes over the local and
+ * TCP transports. The peer is a bare transport server which only counts the bytes it receives.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ResumeReplayPerf {
+
+  static final int FRAME_SIZE = 1024;
+
+  @Param({"local", "tcp"})
+  String transport;
+
+  @Param({"1", "16", "128"})
+  int windowMegabytes;
+
+  Closeable server;
+  ClientTransport clientTransport;
+  ByteBuf data;
+
+  final AtomicLong remaining = new AtomicLong();
+  volatile MonoProcessor<Void> received;
+  ResumableDuplexConnection connection;
+
+  @Setup
+  public void setUp() {
+    ServerTransport.ConnectionAcceptor acceptor =
+        c -> c.receive().doOnNext(this::count).then();
+    if ("tcp".equals(transport)) {
+      CloseableChannel channel =
+          TcpServerTransport.create("localhost", 0).start(acceptor, 0).block();
+      server = channel;
+      clientTransport = TcpClientTransport.create(channel.address());
+    } else {
+      server = LocalServerTransport.create("resume-replay").start(acceptor, 0).block();
+      clientTransport = LocalClientTransport.create("resume-replay");
+    }
+    ByteBuf header = PayloadFrameFlyweight.encodeComplete(ByteBufAllocator.DEFAULT, 1);
+    int dataSize = FRAME_SIZE - header.readableBytes();
+    header.release();
+    data = Unpooled.directBuffer(dataSize).writerIndex(dataSize);
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.dispose();
+    data.release();
+  }
+
+  /** Fills the store of a new connection with a full window which the peer has not received */
+  @Setup(Level.Invocation)
+  public void disconnected() {
+    int windowSize = windowMegabytes << 20;
+    InMemoryResumableFramesStore store = new InMemoryResumableFramesStore("client", windowSize);
+    for (int i = 0; i < windowSize / FRAME_SIZE; i++) {
+      ByteBuf frame =
+          PayloadFrameFlyweight.encode(
+              ByteBufAllocator.DEFAULT, 1, false, false, true, null, data.retainedSlice());
+      store.saveFrame(frame);
+      frame.release();
+    }
+
+    remaining.set(store.cacheSize());
+    received = MonoProcessor.create();
+
+    DuplexConnection duplexConnection = clientTransport.connect(0).block();
+    connection =
+        new ResumableDuplexConnection(
+            "client", duplexConnection, store, Duration.ofMinutes(1), false);
+    connection.send(Flux.never()).subscribe();
+  }
+
+  @TearDown(Level.Invocation)
+  public void closeConnection() {
+    connection.dispose();
+  }
+
+  @Benchmark
+  public void resume() {
+    connection.resume(0, 0, impliedPosition -> impliedPosition.then());
+    received.block();
+  }
+
+  void count(ByteBuf frame) {
+    if (remaining.addAndGet(-frame.readableBytes()) == 0) {
+      received.onComplete();
+    }
+    frame.release();
+  }
+}
@@ -0,0 +1,167 @@
+package io.rsocket.transport.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Closeable;
+import io.rsocket.OutboundPriorities;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.metadata.CompositeMetadataFlyweight;
+import io.rsocket.metadata.TaggingMetadataFlyweight;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.transport.netty.client.TcpClientTransport;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import io.rsocket.util.ByteBufPayload;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Latency of small request-response interactions while bulk streams saturate the same TCP
+ * connection. Without priorities, every response queues behind the bulk frames already buffered by
+ * the server; with {@link OutboundPriorities} the bulk route gets a lane of its own.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 10)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MixedWorkloadPerf {
+
+  static final String BULK_ROUTE = "bulk";
+  static final String INTERACTIVE_ROUTE = "interactive";
+
+  @Param({"none", "weighted"})
+  String priorities;
+
+  @Param({"2"})
+  int bulkStreams;
+
+  @Param({"65536"})
+  int bulkFrameSize;
+
+  RSocket client;
+  Closeable server;
+  Disposable bulk;
+
+  ByteBuf bulkData;
+  ByteBuf interactiveMetadata;
+  ByteBuf interactiveData;
+
+  @Setup
+  public void setUp() {
+    OutboundPriorities outboundPriorities =
+        "weighted".equals(priorities)
+            ? OutboundPriorities.byRoute(Collections.singletonMap(BULK_ROUTE, 1), 8, 1)
+            : OutboundPriorities.NONE;
+
+    bulkData = Unpooled.directBuffer(bulkFrameSize).writerIndex(bulkFrameSize);
+    interactiveMetadata = route(INTERACTIVE_ROUTE);
+    interactiveData = Unpooled.wrappedBuffer(new byte[64]);
+
+    CloseableChannel channel =
+        RSocketFactory.receive()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .outboundPriorities(outboundPriorities)
+            .acceptor(
+                (setup, sendingSocket) ->
+                    Mono.just(
+                        new AbstractRSocket() {
+                          @Override
+                          public Mono<Payload> requestResponse(Payload payload) {
+                            payload.release();
+                            return Mono.just(
+                                ByteBufPayload.create(interactiveData.retainedSlice()));
+                          }
+
+                          @Override
+                          public Flux<Payload> requestStream(Payload payload) {
+                            payload.release();
+                            return Flux.range(0, Integer.MAX_VALUE)
+                                .map(i -> ByteBufPayload.create(bulkData.retainedSlice()));
+                          }
+                        }))
+            .transport(TcpServerTransport.create("localhost", 0))
+            .start()
+            .block();
+    server = channel;
+
+    client =
+        RSocketFactory.connect()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .metadataMimeType(WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString())
+            .outboundPriorities(outboundPriorities)
+            .transport(TcpClientTransport.create(channel.address()))
+            .start()
+            .block();
+
+    ByteBuf bulkMetadata = route(BULK_ROUTE);
+    bulk =
+        Flux.range(0, bulkStreams)
+            .flatMap(
+                i ->
+                    client
+                        .requestStream(
+                            ByteBufPayload.create(
+                                Unpooled.EMPTY_BUFFER, bulkMetadata.retainedSlice()))
+                        .limitRate(256),
+                bulkStreams)
+            .subscribe(Payload::release);
+    bulkMetadata.release();
+  }
+
+  @TearDown
+  public void tearDown() {
+    bulk.dispose();
+    client.dispose();
+    server.dispose();
+    bulkData.release();
+    interactiveMetadata.release();
+    interactiveData.release();
+  }
+
+  @Benchmark
+  public Payload interactiveRequestResponse() {
+    Payload response =
+        client
+            .requestResponse(
+                ByteBufPayload.create(
+                    interactiveData.retainedSlice(), interactiveMetadata.retainedSlice()))
+            .block();
+    response.release();
+    return response;
+  }
+
+  static ByteBuf route(String route) {
+    ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+    CompositeByteBuf metadata = allocator.compositeBuffer();
+    CompositeMetadataFlyweight.encodeAndAddMetadata(
+        metadata,
+        allocator,
+        WellKnownMimeType.MESSAGE_RSOCKET_ROUTING,
+        TaggingMetadataFlyweight.createRoutingMetadata(allocator, Collections.singletonList(route))
+            .getContent());
+    return metadata;
+  }
+}
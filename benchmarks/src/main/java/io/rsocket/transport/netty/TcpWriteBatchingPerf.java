@@ -0,0 +1,107 @@
+package io.rsocket.transport.netty;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.PayloadsMaxPerfSubscriber;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.transport.netty.client.TcpClientTransport;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import io.rsocket.util.ByteBufPayload;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Small-message request-response over TCP loopback, with and without write batching. Each
+ * operation is a burst of concurrent requests, which is where coalescing frames into fewer writes
+ * pays off. {@link Mode#SampleTime} reports the p99 of a burst.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 10)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TcpWriteBatchingPerf {
+
+  @Param({"0", "16384"})
+  int maxBatchBytes;
+
+  @Param({"1", "64"})
+  int concurrency;
+
+  RSocket client;
+  Closeable server;
+
+  @Setup
+  public void setUp() {
+    TcpServerTransport serverTransport = TcpServerTransport.create("localhost", 0);
+    if (maxBatchBytes > 0) {
+      serverTransport = serverTransport.writeBatching(maxBatchBytes);
+    }
+
+    CloseableChannel channel =
+        RSocketFactory.receive()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .acceptor(
+                (setup, sendingSocket) ->
+                    Mono.just(
+                        new AbstractRSocket() {
+                          @Override
+                          public Mono<Payload> requestResponse(Payload payload) {
+                            return Mono.just(payload);
+                          }
+                        }))
+            .transport(serverTransport)
+            .start()
+            .block();
+    server = channel;
+
+    TcpClientTransport clientTransport = TcpClientTransport.create(channel.address());
+    if (maxBatchBytes > 0) {
+      clientTransport = clientTransport.writeBatching(maxBatchBytes);
+    }
+
+    client =
+        RSocketFactory.connect()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .transport(clientTransport)
+            .start()
+            .block();
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.dispose();
+    server.dispose();
+  }
+
+  @Benchmark
+  public PayloadsMaxPerfSubscriber requestResponseBurst(Blackhole blackhole)
+      throws InterruptedException {
+    PayloadsMaxPerfSubscriber subscriber = new PayloadsMaxPerfSubscriber(blackhole);
+    Flux.range(0, concurrency)
+        .flatMap(i -> client.requestResponse(ByteBufPayload.create("hello")), concurrency)
+        .subscribe(subscriber);
+    subscriber.await();
+
+    return subscriber;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket;
+
+import io.netty.buffer.ByteBuf;
+import io.rsocket.internal.UnboundedProcessor;
+import io.rsocket.metadata.CompositeMetadata;
+import io.rsocket.metadata.RoutingMetadata;
+import io.rsocket.metadata.WellKnownMimeType;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * Weighted scheduling of the frames a connection sends. Every stream is assigned a class, by
+ * applying a classifier to the payload which starts it, and the frames of each class are sent
+ * through their own lane. Lanes share the connection with deficit round robin in proportion to
+ * their weights, so a bulk stream cannot hold small interactive frames of another class behind its
+ * own. Keep-alive, lease and metadata push frames are always sent before any lane.
+ *
+ * <p>Streams started by the requester are classified by their request payload. Streams served by
+ * the responder are classified by the payload of the request frame, before it is handed to the
+ * handler, so a server can prioritize its responses from routing metadata alone.
+ *
+ * @see RSocketFactory.ClientRSocketFactory#outboundPriorities(OutboundPriorities)
+ * @see RSocketFactory.ServerRSocketFactory#outboundPriorities(OutboundPriorities)
+ */
+public final class OutboundPriorities {
+
+  /** Single lane, every frame is sent in order */
+  public static final OutboundPriorities NONE = new OutboundPriorities(null, null);
+
+  private static final String ROUTING_MIME_TYPE =
+      WellKnownMimeType.MESSAGE_RSOCKET_ROUTING.getString();
+
+  private final int[] weights;
+  private final ToIntFunction<Payload> classifier;
+
+  private OutboundPriorities(int[] weights, ToIntFunction<Payload> classifier) {
+    this.weights = weights;
+    this.classifier = classifier;
+  }
+
+  /**
+   * @param classifier returns the class of the stream started by a payload, an index into {@code
+   *     weights}. Out of range classes fall back to class {@code 0}. It must neither retain nor
+   *     release the payload
+   * @param weights relative share of the connection of each class
+   */
+  public static OutboundPriorities of(ToIntFunction<Payload> classifier, int... weights) {
+    Objects.requireNonNull(classifier, "classifier");
+    if (weights.length == 0) {
+      throw new IllegalArgumentException("at least one class weight is required");
+    }
+    for (int weight : weights) {
+      if (weight <= 0) {
+        throw new IllegalArgumentException("class weight must be > 0: " + weight);
+      }
+    }
+    return new OutboundPriorities(weights.clone(), classifier);
+  }
+
+  /**
+   * Classifies streams by the first route of their {@code message/x.rsocket.routing.v0} entry,
+   * which requires composite metadata. Streams without a known route are in class {@code 0}.
+   *
+   * @param classes class of each route
+   * @param weights relative share of the connection of each class
+   */
+  public static OutboundPriorities byRoute(Map<String, Integer> classes, int... weights) {
+    Objects.requireNonNull(classes, "classes");
+    return of(payload -> routeClass(classes, payload), weights);
+  }
+
+  static int routeClass(Map<String, Integer> classes, Payload payload) {
+    if (!payload.hasMetadata()) {
+      return 0;
+    }
+    try {
+      for (CompositeMetadata.Entry entry :
+          new CompositeMetadata(payload.sliceMetadata(), false)) {
+        if (ROUTING_MIME_TYPE.equals(entry.getMimeType())) {
+          for (String route : new RoutingMetadata(entry.getContent())) {
+            Integer clazz = classes.get(route);
+            return clazz != null ? clazz : 0;
+          }
+          return 0;
+        }
+      }
+    } catch (IllegalStateException | IllegalArgumentException | IndexOutOfBoundsException e) {
+      // not composite metadata
+    }
+    return 0;
+  }
+
+  int classify(Payload payload) {
+    ToIntFunction<Payload> classifier = this.classifier;
+    if (classifier == null) {
+      return 0;
+    }
+    int clazz = classifier.applyAsInt(payload);
+    return clazz > 0 && clazz < weights.length ? clazz : 0;
+  }
+
+  UnboundedProcessor<ByteBuf> newSendProcessor() {
+    return weights == null ? new UnboundedProcessor<>() : new UnboundedProcessor<>(weights);
+  }
+}
@@ -31,6 +31,7 @@
 import io.rsocket.internal.ClientSetup;
 import io.rsocket.internal.ServerSetup;
 import io.rsocket.keepalive.KeepAliveHandler;
+import io.rsocket.lease.LeaseCoordinator;
 import io.rsocket.lease.LeaseStats;
 import io.rsocket.lease.Leases;
 import io.rsocket.lease.RequesterLeaseHandler;
@@ -109,6 +110,7 @@ public static class ClientRSocketFactory implements ClientTransportAcceptor {
 
     private Payload setupPayload = EmptyPayload.INSTANCE;
     private PayloadDecoder payloadDecoder = PayloadDecoder.DEFAULT;
+    private OutboundPriorities outboundPriorities = OutboundPriorities.NONE;
 
     private Duration tickPeriod = Duration.ofSeconds(20);
     private Duration ackTimeout = Duration.ofSeconds(30);
@@ -127,6 +129,9 @@ public static class ClientRSocketFactory implements ClientTransportAcceptor {
     private Supplier<ResumeStrategy> resumeStrategySupplier =
         () ->
             new ExponentialBackoffResumeStrategy(Duration.ofSeconds(1), Duration.ofSeconds(16), 2);
+    private int resumeRacedConnections = 1;
+    private boolean resumeStandbyConnection;
+    private int resumeWindowBytes;
 
     private boolean multiSubscriberRequester = true;
     private boolean leaseEnabled;
@@ -328,6 +333,13 @@ public ClientRSocketFactory resumeToken(Supplier<ByteBuf> resumeTokenSupplier) {
       return this;
     }
 
+    /**
+     * Store of the frames kept for resumption, created for each session from its resume token.
+     * Defaults to an {@link InMemoryResumableFramesStore} of 100KB. {@link
+     * RingBufferResumableFramesStore} copies frames into a single off-heap ring instead of
+     * retaining them, {@link MappedFileResumableFramesStore} keeps larger windows in memory-mapped
+     * files and {@link CompressedResumableFramesStore} keeps frames compressed.
+     */
     public ClientRSocketFactory resumeStore(
         Function<? super ByteBuf, ? extends ResumableFramesStore> resumeStoreFactory) {
       this.resumeStoreFactory = resumeStoreFactory;
@@ -354,6 +366,48 @@ public ClientRSocketFactory resumeCleanupOnKeepAlive() {
       return this;
     }
 
+    /**
+     * Holds resumable frames back while frames of {@code windowBytes} are sent but not
+     * acknowledged by the server, instead of letting the resume store drop frames which are still
+     * needed to resume. Frames are acknowledged by the implied position of keep-alive frames, which
+     * are sent regardless of the window, as are lease and metadata push frames. The window should
+     * be smaller than the cache size of the store, see {@link #resumeStore(Function)}, as it may be
+     * exceeded by the frame which fills it. The time frames are held back is reported to the
+     * store, see {@link ResumableFramesStore#windowBlocked(long)}.
+     */
+    public ClientRSocketFactory resumeWindow(int windowBytes) {
+      if (windowBytes <= 0) {
+        throw new IllegalArgumentException("windowBytes must be positive: " + windowBytes);
+      }
+      this.resumeWindowBytes = windowBytes;
+      return this;
+    }
+
+    /**
+     * Keeps a spare connection established while the session is connected. After a disconnect,
+     * resumption starts on it right away instead of after the delay of the {@link
+     * ResumeStrategy}, so resuming takes a single round trip. A new spare connection is
+     * established once resumed.
+     */
+    public ClientRSocketFactory resumeStandbyConnection() {
+      this.resumeStandbyConnection = true;
+      return this;
+    }
+
+    /**
+     * Establishes {@code candidates} connections concurrently for each resumption attempt, and
+     * for the standby connection, and resumes on the first one established. The others are
+     * disposed. The transport supplier is called for each candidate, so it may return transports
+     * to different addresses of the server.
+     */
+    public ClientRSocketFactory resumeRacedConnections(int candidates) {
+      if (candidates < 1) {
+        throw new IllegalArgumentException("candidates must be positive: " + candidates);
+      }
+      this.resumeRacedConnections = candidates;
+      return this;
+    }
+
     @Override
     public Start<RSocket> transport(Supplier<ClientTransport> transportClient) {
       return new StartClient(transportClient);
@@ -392,6 +446,15 @@ public ClientRSocketFactory frameDecoder(PayloadDecoder payloadDecoder) {
       return this;
     }
 
+    /**
+     * Schedules the frames sent on each connection by stream class, see {@link
+     * OutboundPriorities}.
+     */
+    public ClientRSocketFactory outboundPriorities(OutboundPriorities outboundPriorities) {
+      this.outboundPriorities = Objects.requireNonNull(outboundPriorities);
+      return this;
+    }
+
     private class StartClient implements Start<RSocket> {
       private final Supplier<ClientTransport> transportClient;
 
@@ -416,7 +479,12 @@ public Mono<RSocket> start() {
                   Leases<?> leases = leasesSupplier.get();
                   RequesterLeaseHandler requesterLeaseHandler =
                       isLeaseEnabled
-                          ? new RequesterLeaseHandler.Impl(CLIENT_TAG, leases.receiver())
+                          ? new RequesterLeaseHandler.Impl(
+                              CLIENT_TAG,
+                              leases.receiver(),
+                              leases.maxPendingRequests(),
+                              leases.maxPendingTime(),
+                              leases.pendingTimeRecorder())
                           : RequesterLeaseHandler.None;
 
                   RSocket rSocketRequester =
@@ -429,7 +497,8 @@ public Mono<RSocket> start() {
                           keepAliveTickPeriod(),
                           keepAliveTimeout(),
                           keepAliveHandler,
-                          requesterLeaseHandler);
+                          requesterLeaseHandler,
+                          outboundPriorities);
 
                   if (multiSubscriberRequester) {
                     rSocketRequester = new MultiSubscriberRSocket(rSocketRequester);
@@ -464,7 +533,8 @@ public Mono<RSocket> start() {
                                         allocator,
                                         leases.sender(),
                                         errorConsumer,
-                                        leases.stats())
+                                        leases.stats(),
+                                        leases.allowanceStripes())
                                     : ResponderLeaseHandler.None;
 
                             RSocket rSocketResponder =
@@ -474,7 +544,8 @@ public Mono<RSocket> start() {
                                     wrappedRSocketHandler,
                                     payloadDecoder,
                                     errorConsumer,
-                                    responderLeaseHandler);
+                                    responderLeaseHandler,
+                                    outboundPriorities);
 
                             return wrappedConnection
                                 .sendOne(setupFrame)
@@ -512,7 +583,10 @@ private ClientSetup clientSetup(DuplexConnection startConnection) {
               resumeSessionDuration,
               resumeStreamTimeout,
               resumeStrategySupplier,
-              resumeCleanupStoreOnKeepAlive);
+              resumeCleanupStoreOnKeepAlive,
+              resumeRacedConnections,
+              resumeStandbyConnection,
+              resumeWindowBytes);
         } else {
           return new DefaultClientSetup(startConnection);
         }
@@ -529,6 +603,7 @@ public static class ServerRSocketFactory {
 
     private SocketAcceptor acceptor;
     private PayloadDecoder payloadDecoder = PayloadDecoder.DEFAULT;
+    private OutboundPriorities outboundPriorities = OutboundPriorities.NONE;
     private Consumer<Throwable> errorConsumer = Throwable::printStackTrace;
     private int mtu = 0;
     private PluginRegistry plugins = new PluginRegistry(Plugins.defaultPlugins());
@@ -545,6 +620,8 @@ public static class ServerRSocketFactory {
 
     private ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
     private boolean resumeCleanupStoreOnKeepAlive;
+    private ResumableSessionRepository resumeSessionRepository;
+    private int resumeWindowBytes;
 
     private ServerRSocketFactory() {}
 
@@ -595,6 +672,15 @@ public ServerRSocketFactory frameDecoder(PayloadDecoder payloadDecoder) {
       return this;
     }
 
+    /**
+     * Schedules the frames sent on each connection by stream class, see {@link
+     * OutboundPriorities}.
+     */
+    public ServerRSocketFactory outboundPriorities(OutboundPriorities outboundPriorities) {
+      this.outboundPriorities = Objects.requireNonNull(outboundPriorities);
+      return this;
+    }
+
     public ServerRSocketFactory fragment(int mtu) {
       this.mtu = mtu;
       return this;
@@ -611,6 +697,15 @@ public ServerRSocketFactory lease(Supplier<Leases<?>> leasesSupplier) {
       return this;
     }
 
+    /**
+     * Enables leases granted from a server-wide budget, which {@code coordinator} splits among
+     * connections according to their demand
+     */
+    public ServerRSocketFactory lease(LeaseCoordinator coordinator) {
+      Objects.requireNonNull(coordinator);
+      return lease(coordinator::leases);
+    }
+
     public ServerRSocketFactory lease() {
       this.leaseEnabled = true;
       return this;
@@ -626,6 +721,13 @@ public ServerRSocketFactory resume() {
       return this;
     }
 
+    /**
+     * Store of the frames kept for resumption, created for each session from its resume token.
+     * Defaults to an {@link InMemoryResumableFramesStore} of 100KB. {@link
+     * RingBufferResumableFramesStore} copies frames into a single off-heap ring instead of
+     * retaining them, {@link MappedFileResumableFramesStore} keeps larger windows in memory-mapped
+     * files and {@link CompressedResumableFramesStore} keeps frames compressed.
+     */
     public ServerRSocketFactory resumeStore(
         Function<? super ByteBuf, ? extends ResumableFramesStore> resumeStoreFactory) {
       this.resumeStoreFactory = resumeStoreFactory;
@@ -637,6 +739,18 @@ public ServerRSocketFactory resumeSessionDuration(Duration sessionDuration) {
       return this;
     }
 
+    /**
+     * Keeps resumable sessions across restarts of the server: sessions still resumable when the
+     * server is disposed are saved to {@code sessionRepository}, and a restarted server accepts
+     * {@code RESUME} for them. The acceptor is invoked again with the original setup payload. See
+     * {@link FileResumableSessionRepository}.
+     */
+    public ServerRSocketFactory resumeSessionRepository(
+        ResumableSessionRepository sessionRepository) {
+      this.resumeSessionRepository = Objects.requireNonNull(sessionRepository);
+      return this;
+    }
+
     public ServerRSocketFactory resumeStreamTimeout(Duration resumeStreamTimeout) {
       this.resumeStreamTimeout = Objects.requireNonNull(resumeStreamTimeout);
       return this;
@@ -647,6 +761,23 @@ public ServerRSocketFactory resumeCleanupOnKeepAlive() {
       return this;
     }
 
+    /**
+     * Holds resumable frames back while frames of {@code windowBytes} are sent but not
+     * acknowledged by the client, instead of letting the resume store drop frames which are still
+     * needed to resume. Frames are acknowledged by the implied position of keep-alive frames, which
+     * are sent regardless of the window, as are lease and metadata push frames. The window should
+     * be smaller than the cache size of the store, see {@link #resumeStore(Function)}, as it may be
+     * exceeded by the frame which fills it. The time frames are held back is reported to the
+     * store, see {@link ResumableFramesStore#windowBlocked(long)}.
+     */
+    public ServerRSocketFactory resumeWindow(int windowBytes) {
+      if (windowBytes <= 0) {
+        throw new IllegalArgumentException("windowBytes must be positive: " + windowBytes);
+      }
+      this.resumeWindowBytes = windowBytes;
+      return this;
+    }
+
     private class ServerStart<T extends Closeable> implements Start<T>, ServerTransportAcceptor {
       private Supplier<ServerTransport<T>> transportServer;
 
@@ -682,7 +813,17 @@ private Mono<Void> acceptor(ServerSetup serverSetup, DuplexConnection connection
 
       private Mono<Void> acceptResume(
           ServerSetup serverSetup, ByteBuf resumeFrame, ClientServerInputMultiplexer multiplexer) {
-        return serverSetup.acceptRSocketResume(resumeFrame, multiplexer);
+        return serverSetup.acceptRSocketResume(
+            resumeFrame,
+            multiplexer,
+            (setupFrame, lastStreamId) ->
+                (keepAliveHandler, wrappedMultiplexer) ->
+                    setupRSocket(
+                        setupFrame,
+                        lastStreamId,
+                        keepAliveHandler,
+                        wrappedMultiplexer,
+                        multiplexer));
       }
 
       private Mono<Void> accept(
@@ -727,63 +868,84 @@ private Mono<Void> acceptSetup(
         return serverSetup.acceptRSocketSetup(
             setupFrame,
             multiplexer,
-            (keepAliveHandler, wrappedMultiplexer) -> {
-              ConnectionSetupPayload setupPayload = ConnectionSetupPayload.create(setupFrame);
-
-              Leases<?> leases = leasesSupplier.get();
-              RequesterLeaseHandler requesterLeaseHandler =
-                  isLeaseEnabled
-                      ? new RequesterLeaseHandler.Impl(SERVER_TAG, leases.receiver())
-                      : RequesterLeaseHandler.None;
-
-              RSocket rSocketRequester =
-                  new RSocketRequester(
-                      allocator,
-                      wrappedMultiplexer.asServerConnection(),
-                      payloadDecoder,
-                      errorConsumer,
-                      StreamIdSupplier.serverSupplier(),
-                      setupPayload.keepAliveInterval(),
-                      setupPayload.keepAliveMaxLifetime(),
-                      keepAliveHandler,
-                      requesterLeaseHandler);
-
-              if (multiSubscriberRequester) {
-                rSocketRequester = new MultiSubscriberRSocket(rSocketRequester);
-              }
-              RSocket wrappedRSocketRequester = plugins.applyRequester(rSocketRequester);
-
-              return plugins
-                  .applySocketAcceptorInterceptor(acceptor)
-                  .accept(setupPayload, wrappedRSocketRequester)
-                  .onErrorResume(
-                      err -> sendError(multiplexer, rejectedSetupError(err)).then(Mono.error(err)))
-                  .doOnNext(
-                      rSocketHandler -> {
-                        RSocket wrappedRSocketHandler = plugins.applyResponder(rSocketHandler);
-
-                        ResponderLeaseHandler responderLeaseHandler =
-                            isLeaseEnabled
-                                ? new ResponderLeaseHandler.Impl<>(
-                                    SERVER_TAG,
-                                    allocator,
-                                    leases.sender(),
-                                    errorConsumer,
-                                    leases.stats())
-                                : ResponderLeaseHandler.None;
-
-                        RSocket rSocketResponder =
-                            new RSocketResponder(
-                                allocator,
-                                wrappedMultiplexer.asClientConnection(),
-                                wrappedRSocketHandler,
-                                payloadDecoder,
-                                errorConsumer,
-                                responderLeaseHandler);
-                      })
-                  .doFinally(signalType -> setupPayload.release())
-                  .then();
-            });
+            (keepAliveHandler, wrappedMultiplexer) ->
+                setupRSocket(setupFrame, 0, keepAliveHandler, wrappedMultiplexer, multiplexer));
+      }
+
+      /*
+       * creates requester and responder of a connection from its SETUP frame, the requester
+       * requests streams with ids above lastStreamId
+       */
+      private Mono<Void> setupRSocket(
+          ByteBuf setupFrame,
+          int lastStreamId,
+          KeepAliveHandler keepAliveHandler,
+          ClientServerInputMultiplexer wrappedMultiplexer,
+          ClientServerInputMultiplexer multiplexer) {
+        boolean isLeaseEnabled = leaseEnabled;
+        ConnectionSetupPayload setupPayload = ConnectionSetupPayload.create(setupFrame);
+
+        Leases<?> leases = leasesSupplier.get();
+        RequesterLeaseHandler requesterLeaseHandler =
+            isLeaseEnabled
+                ? new RequesterLeaseHandler.Impl(
+                    SERVER_TAG,
+                    leases.receiver(),
+                    leases.maxPendingRequests(),
+                    leases.maxPendingTime(),
+                    leases.pendingTimeRecorder())
+                : RequesterLeaseHandler.None;
+
+        RSocket rSocketRequester =
+            new RSocketRequester(
+                allocator,
+                wrappedMultiplexer.asServerConnection(),
+                payloadDecoder,
+                errorConsumer,
+                StreamIdSupplier.serverSupplier(lastStreamId),
+                setupPayload.keepAliveInterval(),
+                setupPayload.keepAliveMaxLifetime(),
+                keepAliveHandler,
+                requesterLeaseHandler,
+                outboundPriorities);
+
+        if (multiSubscriberRequester) {
+          rSocketRequester = new MultiSubscriberRSocket(rSocketRequester);
+        }
+        RSocket wrappedRSocketRequester = plugins.applyRequester(rSocketRequester);
+
+        return plugins
+            .applySocketAcceptorInterceptor(acceptor)
+            .accept(setupPayload, wrappedRSocketRequester)
+            .onErrorResume(
+                err -> sendError(multiplexer, rejectedSetupError(err)).then(Mono.error(err)))
+            .doOnNext(
+                rSocketHandler -> {
+                  RSocket wrappedRSocketHandler = plugins.applyResponder(rSocketHandler);
+
+                  ResponderLeaseHandler responderLeaseHandler =
+                      isLeaseEnabled
+                          ? new ResponderLeaseHandler.Impl<>(
+                              SERVER_TAG,
+                              allocator,
+                              leases.sender(),
+                              errorConsumer,
+                              leases.stats(),
+                              leases.allowanceStripes())
+                          : ResponderLeaseHandler.None;
+
+                  RSocket rSocketResponder =
+                      new RSocketResponder(
+                          allocator,
+                          wrappedMultiplexer.asClientConnection(),
+                          wrappedRSocketHandler,
+                          payloadDecoder,
+                          errorConsumer,
+                          responderLeaseHandler,
+                          outboundPriorities);
+                })
+            .doFinally(signalType -> setupPayload.release())
+            .then();
       }
 
       @Override
@@ -809,11 +971,12 @@ private ServerSetup serverSetup() {
         return resumeSupported
             ? new ServerSetup.ResumableServerSetup(
                 allocator,
-                new SessionManager(),
+                new SessionManager(resumeSessionRepository),
                 resumeSessionDuration,
                 resumeStreamTimeout,
                 resumeStoreFactory,
-                resumeCleanupStoreOnKeepAlive)
+                resumeCleanupStoreOnKeepAlive,
+                resumeWindowBytes)
             : new ServerSetup.DefaultServerSetup(allocator);
       }
 
@@ -25,9 +25,10 @@
 import io.netty.util.collection.IntObjectMap;
 import io.rsocket.exceptions.ConnectionErrorException;
 import io.rsocket.exceptions.Exceptions;
+import io.rsocket.exceptions.MissingLeaseException;
 import io.rsocket.frame.CancelFrameFlyweight;
 import io.rsocket.frame.ErrorFrameFlyweight;
-import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.FrameHeaderCursor;
 import io.rsocket.frame.FrameType;
 import io.rsocket.frame.MetadataPushFrameFlyweight;
 import io.rsocket.frame.PayloadFrameFlyweight;
@@ -38,31 +39,33 @@
 import io.rsocket.frame.RequestStreamFrameFlyweight;
 import io.rsocket.frame.decoder.PayloadDecoder;
 import io.rsocket.internal.RateLimitableRequestPublisher;
-import io.rsocket.internal.SynchronizedIntObjectHashMap;
+import io.rsocket.internal.StripedIntObjectHashMap;
 import io.rsocket.internal.UnboundedProcessor;
 import io.rsocket.internal.UnicastMonoEmpty;
-import io.rsocket.internal.UnicastMonoProcessor;
 import io.rsocket.keepalive.KeepAliveFramesAcceptor;
 import io.rsocket.keepalive.KeepAliveHandler;
 import io.rsocket.keepalive.KeepAliveSupport;
 import io.rsocket.lease.RequesterLeaseHandler;
-import io.rsocket.util.MonoLifecycleHandler;
 import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Consumer;
 import java.util.function.LongConsumer;
 import java.util.function.Supplier;
-import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.reactivestreams.Processor;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
 import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Operators;
 import reactor.core.publisher.UnicastProcessor;
 import reactor.util.concurrent.Queues;
+import reactor.util.context.Context;
 
 /**
  * Requester Side of a RSocket socket. Sends {@link ByteBuf}s to a {@link RSocketResponder} of peer
@@ -71,6 +74,8 @@ class RSocketRequester implements RSocket {
   private static final AtomicReferenceFieldUpdater<RSocketRequester, Throwable> TERMINATION_ERROR =
       AtomicReferenceFieldUpdater.newUpdater(
           RSocketRequester.class, Throwable.class, "terminationError");
+  private static final AtomicIntegerFieldUpdater<RequestResponseMono> REQUEST_RESPONSE_STATE =
+      AtomicIntegerFieldUpdater.newUpdater(RequestResponseMono.class, "state");
   private static final Exception CLOSED_CHANNEL_EXCEPTION = new ClosedChannelException();
 
   static {
@@ -84,9 +89,11 @@ class RSocketRequester implements RSocket {
   private final IntObjectMap<RateLimitableRequestPublisher> senders;
   private final IntObjectMap<Processor<Payload, Payload>> receivers;
   private final UnboundedProcessor<ByteBuf> sendProcessor;
+  private final OutboundPriorities priorities;
   private final RequesterLeaseHandler leaseHandler;
   private final ByteBufAllocator allocator;
   private final KeepAliveFramesAcceptor keepAliveFramesAcceptor;
+  private final FrameHeaderCursor header = new FrameHeaderCursor();
   private volatile Throwable terminationError;
 
   RSocketRequester(
@@ -99,17 +106,42 @@ class RSocketRequester implements RSocket {
       int keepAliveAckTimeout,
       @Nullable KeepAliveHandler keepAliveHandler,
       RequesterLeaseHandler leaseHandler) {
+    this(
+        allocator,
+        connection,
+        payloadDecoder,
+        errorConsumer,
+        streamIdSupplier,
+        keepAliveTickPeriod,
+        keepAliveAckTimeout,
+        keepAliveHandler,
+        leaseHandler,
+        OutboundPriorities.NONE);
+  }
+
+  RSocketRequester(
+      ByteBufAllocator allocator,
+      DuplexConnection connection,
+      PayloadDecoder payloadDecoder,
+      Consumer<Throwable> errorConsumer,
+      StreamIdSupplier streamIdSupplier,
+      int keepAliveTickPeriod,
+      int keepAliveAckTimeout,
+      @Nullable KeepAliveHandler keepAliveHandler,
+      RequesterLeaseHandler leaseHandler,
+      OutboundPriorities priorities) {
     this.allocator = allocator;
     this.connection = connection;
     this.payloadDecoder = payloadDecoder;
     this.errorConsumer = errorConsumer;
     this.streamIdSupplier = streamIdSupplier;
     this.leaseHandler = leaseHandler;
-    this.senders = new SynchronizedIntObjectHashMap<>();
-    this.receivers = new SynchronizedIntObjectHashMap<>();
+    this.priorities = priorities;
+    this.senders = new StripedIntObjectHashMap<>();
+    this.receivers = new StripedIntObjectHashMap<>();
 
     // DO NOT Change the order here. The Send processor must be subscribed to before receiving
-    this.sendProcessor = new UnboundedProcessor<>();
+    this.sendProcessor = priorities.newSendProcessor();
 
     connection
         .onClose()
@@ -178,14 +210,21 @@ public Mono<Void> onClose() {
   private Mono<Void> handleFireAndForget(Payload payload) {
     Throwable err = checkAvailable();
     if (err != null) {
+      if (awaitsLease(err)) {
+        return awaitLease(payload).then(Mono.defer(() -> sendFireAndForget(payload)));
+      }
       payload.release();
       return Mono.error(err);
     }
 
-    final int streamId = streamIdSupplier.nextStreamId(receivers);
+    return sendFireAndForget(payload);
+  }
 
+  private Mono<Void> sendFireAndForget(Payload payload) {
     return UnicastMonoEmpty.newInstance(
         () -> {
+          final int streamId = streamIdSupplier.nextStreamId();
+          final int lane = priorities.classify(payload);
           ByteBuf requestFrame =
               RequestFireAndForgetFrameFlyweight.encode(
                   allocator,
@@ -195,63 +234,42 @@ private Mono<Void> handleFireAndForget(Payload payload) {
                   payload.sliceData().retain());
           payload.release();
 
-          sendProcessor.onNext(requestFrame);
+          sendProcessor.onNext(requestFrame, lane);
+          // nothing is expected back on a fire-and-forget stream
+          streamIdSupplier.release(streamId);
         });
   }
 
   private Mono<Payload> handleRequestResponse(final Payload payload) {
     Throwable err = checkAvailable();
     if (err != null) {
+      if (awaitsLease(err)) {
+        return awaitLease(payload)
+            .then(Mono.defer(() -> new RequestResponseMono(payload, priorities.classify(payload))));
+      }
       payload.release();
       return Mono.error(err);
     }
 
-    int streamId = streamIdSupplier.nextStreamId(receivers);
-    final UnboundedProcessor<ByteBuf> sendProcessor = this.sendProcessor;
-
-    UnicastMonoProcessor<Payload> receiver =
-        UnicastMonoProcessor.create(
-            new MonoLifecycleHandler<Payload>() {
-              @Override
-              public void doOnSubscribe() {
-                final ByteBuf requestFrame =
-                    RequestResponseFrameFlyweight.encode(
-                        allocator,
-                        streamId,
-                        false,
-                        payload.sliceMetadata().retain(),
-                        payload.sliceData().retain());
-                payload.release();
-
-                sendProcessor.onNext(requestFrame);
-              }
-
-              @Override
-              public void doOnTerminal(
-                  @Nonnull SignalType signalType,
-                  @Nullable Payload element,
-                  @Nullable Throwable e) {
-                if (signalType == SignalType.ON_ERROR) {
-                  sendProcessor.onNext(ErrorFrameFlyweight.encode(allocator, streamId, e));
-                } else if (signalType == SignalType.CANCEL) {
-                  sendProcessor.onNext(CancelFrameFlyweight.encode(allocator, streamId));
-                }
-                removeStreamReceiver(streamId);
-              }
-            });
-    receivers.put(streamId, receiver);
-
-    return receiver;
+    return new RequestResponseMono(payload, priorities.classify(payload));
   }
 
   private Flux<Payload> handleRequestStream(final Payload payload) {
     Throwable err = checkAvailable();
     if (err != null) {
+      if (awaitsLease(err)) {
+        return awaitLease(payload).thenMany(Flux.defer(() -> sendRequestStream(payload)));
+      }
       payload.release();
       return Flux.error(err);
     }
 
-    int streamId = streamIdSupplier.nextStreamId(receivers);
+    return sendRequestStream(payload);
+  }
+
+  private Flux<Payload> sendRequestStream(final Payload payload) {
+    int streamId = streamIdSupplier.nextStreamId();
+    final int lane = priorities.classify(payload);
 
     final UnboundedProcessor<ByteBuf> sendProcessor = this.sendProcessor;
     final UnicastProcessor<Payload> receiver = UnicastProcessor.create();
@@ -275,23 +293,25 @@ public void accept(long n) {
                           false,
                           n,
                           payload.sliceMetadata().retain(),
-                          payload.sliceData().retain()));
+                          payload.sliceData().retain()),
+                      lane);
                   payload.release();
                 } else if (contains(streamId) && !receiver.isDisposed()) {
-                  sendProcessor.onNext(RequestNFrameFlyweight.encode(allocator, streamId, n));
+                  sendProcessor.onNext(
+                      RequestNFrameFlyweight.encode(allocator, streamId, n), lane);
                 }
               }
             })
         .doOnError(
             t -> {
               if (contains(streamId) && !receiver.isDisposed()) {
-                sendProcessor.onNext(ErrorFrameFlyweight.encode(allocator, streamId, t));
+                sendProcessor.onNext(ErrorFrameFlyweight.encode(allocator, streamId, t), lane);
               }
             })
         .doOnCancel(
             () -> {
               if (contains(streamId) && !receiver.isDisposed()) {
-                sendProcessor.onNext(CancelFrameFlyweight.encode(allocator, streamId));
+                sendProcessor.onNext(CancelFrameFlyweight.encode(allocator, streamId), lane);
               }
             })
         .doFinally(s -> removeStreamReceiver(streamId));
@@ -300,12 +320,21 @@ public void accept(long n) {
   private Flux<Payload> handleChannel(Flux<Payload> request) {
     Throwable err = checkAvailable();
     if (err != null) {
+      if (awaitsLease(err)) {
+        return awaitLease(null).thenMany(Flux.defer(() -> sendChannel(request)));
+      }
       return Flux.error(err);
     }
 
+    return sendChannel(request);
+  }
+
+  private Flux<Payload> sendChannel(Flux<Payload> request) {
     final UnboundedProcessor<ByteBuf> sendProcessor = this.sendProcessor;
     final UnicastProcessor<Payload> receiver = UnicastProcessor.create();
-    final int streamId = streamIdSupplier.nextStreamId(receivers);
+    final int streamId = streamIdSupplier.nextStreamId();
+    // a channel is classified by its first payload, which is only known once it is sent
+    final AtomicInteger lane = new AtomicInteger();
 
     return receiver
         .doOnRequest(
@@ -340,6 +369,7 @@ protected void hookOnNext(Payload payload) {
 
                               if (firstPayload) {
                                 firstPayload = false;
+                                lane.set(priorities.classify(payload));
                                 frame =
                                     RequestChannelFrameFlyweight.encode(
                                         allocator,
@@ -355,7 +385,7 @@ protected void hookOnNext(Payload payload) {
                                         allocator, streamId, false, false, true, payload);
                               }
 
-                              sendProcessor.onNext(frame);
+                              sendProcessor.onNext(frame, lane.get());
                               payload.release();
                             }
 
@@ -363,7 +393,8 @@ protected void hookOnNext(Payload payload) {
                             protected void hookOnComplete() {
                               if (contains(streamId) && !receiver.isDisposed()) {
                                 sendProcessor.onNext(
-                                    PayloadFrameFlyweight.encodeComplete(allocator, streamId));
+                                    PayloadFrameFlyweight.encodeComplete(allocator, streamId),
+                                    lane.get());
                               }
                               if (firstPayload) {
                                 receiver.onComplete();
@@ -378,7 +409,8 @@ protected void hookOnError(Throwable t) {
                           });
                 } else {
                   if (contains(streamId) && !receiver.isDisposed()) {
-                    sendProcessor.onNext(RequestNFrameFlyweight.encode(allocator, streamId, n));
+                    sendProcessor.onNext(
+                        RequestNFrameFlyweight.encode(allocator, streamId, n), lane.get());
                   }
                 }
               }
@@ -386,13 +418,15 @@ protected void hookOnError(Throwable t) {
         .doOnError(
             t -> {
               if (contains(streamId) && !receiver.isDisposed()) {
-                sendProcessor.onNext(ErrorFrameFlyweight.encode(allocator, streamId, t));
+                sendProcessor.onNext(
+                    ErrorFrameFlyweight.encode(allocator, streamId, t), lane.get());
               }
             })
         .doOnCancel(
             () -> {
               if (contains(streamId) && !receiver.isDisposed()) {
-                sendProcessor.onNext(CancelFrameFlyweight.encode(allocator, streamId));
+                sendProcessor.onNext(
+                    CancelFrameFlyweight.encode(allocator, streamId), lane.get());
               }
             })
         .doFinally(s -> removeStreamReceiverAndSender(streamId));
@@ -427,14 +461,36 @@ private Throwable checkAvailable() {
     return null;
   }
 
+  private boolean awaitsLease(Throwable err) {
+    return err instanceof MissingLeaseException && leaseHandler.isQueueing();
+  }
+
+  /** @return completes once the request is allowed by a lease, unless the requester terminates */
+  private Mono<Void> awaitLease(@Nullable Payload payload) {
+    Mono<Void> lease =
+        leaseHandler
+            .awaitLease()
+            .then(
+                Mono.defer(
+                    () -> {
+                      Throwable err = this.terminationError;
+                      return err == null ? Mono.<Void>empty() : Mono.error(err);
+                    }));
+    if (payload == null) {
+      return lease;
+    }
+    return lease.doOnError(t -> payload.release()).doOnCancel(payload::release);
+  }
+
   private boolean contains(int streamId) {
     return receivers.containsKey(streamId);
   }
 
   private void handleIncomingFrames(ByteBuf frame) {
     try {
-      int streamId = FrameHeaderFlyweight.streamId(frame);
-      FrameType type = FrameHeaderFlyweight.frameType(frame);
+      FrameHeaderCursor header = this.header.read(frame);
+      int streamId = header.streamId();
+      FrameType type = header.frameType();
       if (streamId == 0) {
         handleStreamZero(type, frame);
       } else {
@@ -565,30 +621,26 @@ private void terminate(Exception e) {
     connection.dispose();
     leaseHandler.dispose();
 
-    synchronized (receivers) {
-      receivers
-          .values()
-          .forEach(
-              receiver -> {
-                try {
-                  receiver.onError(e);
-                } catch (Throwable t) {
-                  errorConsumer.accept(t);
-                }
-              });
-    }
-    synchronized (senders) {
-      senders
-          .values()
-          .forEach(
-              sender -> {
-                try {
-                  sender.cancel();
-                } catch (Throwable t) {
-                  errorConsumer.accept(t);
-                }
-              });
-    }
+    receivers
+        .values()
+        .forEach(
+            receiver -> {
+              try {
+                receiver.onError(e);
+              } catch (Throwable t) {
+                errorConsumer.accept(t);
+              }
+            });
+    senders
+        .values()
+        .forEach(
+            sender -> {
+              try {
+                sender.cancel();
+              } catch (Throwable t) {
+                errorConsumer.accept(t);
+              }
+            });
     senders.clear();
     receivers.clear();
     sendProcessor.dispose();
@@ -601,6 +653,7 @@ private void removeStreamReceiver(int streamId) {
     if (terminationError == null) {
       receivers.remove(streamId);
     }
+    streamIdSupplier.release(streamId);
   }
 
   private void removeStreamReceiverAndSender(int streamId) {
@@ -613,9 +666,185 @@ private void removeStreamReceiverAndSender(int streamId) {
         sender.cancel();
       }
     }
+    streamIdSupplier.release(streamId);
   }
 
   private void handleSendProcessorError(Throwable t) {
     connection.dispose();
   }
+
+  /**
+   * Fused request-response interaction. A single object per call is the returned {@link Mono}, the
+   * {@link Subscription} handed to its subscriber and the receiver registered for the stream, so a
+   * call allocates nothing else besides its frames. The stream id is only allocated and the request
+   * sent once the subscriber requests, hence the response never has to be buffered.
+   */
+  final class RequestResponseMono extends Mono<Payload>
+      implements Processor<Payload, Payload>, Subscription {
+    static final int UNSUBSCRIBED = 0;
+    static final int SUBSCRIBED = 1;
+    /* the request is being sent, a cancel is left to request() which sends the CANCEL after it */
+    static final int REQUESTING = 2;
+    static final int REQUESTED = 3;
+    static final int TERMINATED = 4;
+    static final int CANCELLED = 5;
+
+    final Payload payload;
+    final int lane;
+
+    CoreSubscriber<? super Payload> actual;
+    int streamId;
+
+    volatile int state;
+
+    RequestResponseMono(Payload payload, int lane) {
+      this.payload = payload;
+      this.lane = lane;
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super Payload> actual) {
+      if (state == UNSUBSCRIBED && REQUEST_RESPONSE_STATE.compareAndSet(this, UNSUBSCRIBED, -1)) {
+        this.actual = actual;
+        REQUEST_RESPONSE_STATE.lazySet(this, SUBSCRIBED);
+        actual.onSubscribe(this);
+      } else {
+        Operators.error(
+            actual,
+            new IllegalStateException("RequestResponseMono allows only a single Subscriber"));
+      }
+    }
+
+    @Override
+    public void request(long n) {
+      if (!Operators.validate(n)
+          || !REQUEST_RESPONSE_STATE.compareAndSet(this, SUBSCRIBED, REQUESTING)) {
+        return;
+      }
+
+      final Payload payload = this.payload;
+      Throwable err = terminationError;
+      if (err != null) {
+        payload.release();
+        if (REQUEST_RESPONSE_STATE.compareAndSet(this, REQUESTING, TERMINATED)) {
+          actual.onError(err);
+        }
+        return;
+      }
+
+      final int streamId = streamIdSupplier.nextStreamId();
+      this.streamId = streamId;
+      receivers.put(streamId, this);
+
+      final ByteBuf requestFrame;
+      try {
+        requestFrame =
+            RequestResponseFrameFlyweight.encode(
+                allocator,
+                streamId,
+                false,
+                payload.hasMetadata() ? payload.metadata().retain() : null,
+                payload.data().retain());
+      } catch (Throwable t) {
+        payload.release();
+        if (REQUEST_RESPONSE_STATE.compareAndSet(this, REQUESTING, TERMINATED)) {
+          removeStreamReceiver(streamId);
+          actual.onError(t);
+        } else if (state == CANCELLED) {
+          removeStreamReceiver(streamId);
+        }
+        return;
+      }
+      payload.release();
+
+      sendProcessor.onNext(requestFrame, lane);
+
+      if (!REQUEST_RESPONSE_STATE.compareAndSet(this, REQUESTING, REQUESTED)) {
+        // cancelled while the request was sent, so the cancel follows it, or already answered
+        if (state == CANCELLED) {
+          sendProcessor.onNext(CancelFrameFlyweight.encode(allocator, streamId), lane);
+          removeStreamReceiver(streamId);
+        }
+        return;
+      }
+
+      // the requester may have been terminated before this receiver was registered
+      err = terminationError;
+      if (err != null) {
+        onError(err);
+      }
+    }
+
+    @Override
+    public void cancel() {
+      for (; ; ) {
+        int previous = state;
+        if (previous != SUBSCRIBED && previous != REQUESTING && previous != REQUESTED) {
+          return;
+        }
+        if (REQUEST_RESPONSE_STATE.compareAndSet(this, previous, CANCELLED)) {
+          if (previous == SUBSCRIBED) {
+            payload.release();
+          } else if (previous == REQUESTED) {
+            sendProcessor.onNext(CancelFrameFlyweight.encode(allocator, streamId), lane);
+            removeStreamReceiver(streamId);
+          }
+          // while REQUESTING, request() sends the cancel once it sent the request
+          return;
+        }
+      }
+    }
+
+    boolean tryTerminate() {
+      for (; ; ) {
+        int previous = state;
+        if (previous != REQUESTING && previous != REQUESTED) {
+          return false;
+        }
+        if (REQUEST_RESPONSE_STATE.compareAndSet(this, previous, TERMINATED)) {
+          return true;
+        }
+      }
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      s.cancel();
+    }
+
+    @Override
+    public void onNext(Payload value) {
+      if (tryTerminate()) {
+        removeStreamReceiver(streamId);
+        final CoreSubscriber<? super Payload> a = actual;
+        a.onNext(value);
+        a.onComplete();
+      } else {
+        value.release();
+      }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      if (tryTerminate()) {
+        removeStreamReceiver(streamId);
+        actual.onError(t);
+      } else {
+        Operators.onErrorDropped(t, currentContext());
+      }
+    }
+
+    @Override
+    public void onComplete() {
+      if (tryTerminate()) {
+        removeStreamReceiver(streamId);
+        actual.onComplete();
+      }
+    }
+
+    Context currentContext() {
+      CoreSubscriber<? super Payload> actual = this.actual;
+      return actual != null ? actual.currentContext() : Context.empty();
+    }
+  }
 }
@@ -24,10 +24,12 @@
 import io.rsocket.frame.*;
 import io.rsocket.frame.decoder.PayloadDecoder;
 import io.rsocket.internal.RateLimitableRequestPublisher;
-import io.rsocket.internal.SynchronizedIntObjectHashMap;
+import io.rsocket.internal.StripedIntObjectHashMap;
 import io.rsocket.internal.UnboundedProcessor;
 import io.rsocket.lease.ResponderLeaseHandler;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.function.Consumer;
+import javax.annotation.Nullable;
 import org.reactivestreams.Processor;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
@@ -47,12 +49,12 @@ class RSocketResponder implements ResponderRSocket {
   private final Consumer<Throwable> errorConsumer;
   private final ResponderLeaseHandler leaseHandler;
 
-  private final IntObjectMap<RateLimitableRequestPublisher> sendingLimitableSubscriptions;
-  private final IntObjectMap<Subscription> sendingSubscriptions;
-  private final IntObjectMap<Processor<Payload, Payload>> channelProcessors;
+  private final IntObjectMap<StreamState> streams;
 
   private final UnboundedProcessor<ByteBuf> sendProcessor;
+  private final OutboundPriorities priorities;
   private final ByteBufAllocator allocator;
+  private final FrameHeaderCursor header = new FrameHeaderCursor();
 
   RSocketResponder(
       ByteBufAllocator allocator,
@@ -61,6 +63,24 @@ class RSocketResponder implements ResponderRSocket {
       PayloadDecoder payloadDecoder,
       Consumer<Throwable> errorConsumer,
       ResponderLeaseHandler leaseHandler) {
+    this(
+        allocator,
+        connection,
+        requestHandler,
+        payloadDecoder,
+        errorConsumer,
+        leaseHandler,
+        OutboundPriorities.NONE);
+  }
+
+  RSocketResponder(
+      ByteBufAllocator allocator,
+      DuplexConnection connection,
+      RSocket requestHandler,
+      PayloadDecoder payloadDecoder,
+      Consumer<Throwable> errorConsumer,
+      ResponderLeaseHandler leaseHandler,
+      OutboundPriorities priorities) {
     this.allocator = allocator;
     this.connection = connection;
 
@@ -71,13 +91,12 @@ class RSocketResponder implements ResponderRSocket {
     this.payloadDecoder = payloadDecoder;
     this.errorConsumer = errorConsumer;
     this.leaseHandler = leaseHandler;
-    this.sendingLimitableSubscriptions = new SynchronizedIntObjectHashMap<>();
-    this.sendingSubscriptions = new SynchronizedIntObjectHashMap<>();
-    this.channelProcessors = new SynchronizedIntObjectHashMap<>();
+    this.priorities = priorities;
+    this.streams = new StripedIntObjectHashMap<>();
 
     // DO NOT Change the order here. The Send processor must be subscribed to before receiving
     // connections
-    this.sendProcessor = new UnboundedProcessor<>();
+    this.sendProcessor = priorities.newSendProcessor();
 
     connection
         .send(sendProcessor)
@@ -99,38 +118,7 @@ class RSocketResponder implements ResponderRSocket {
   }
 
   private void handleSendProcessorError(Throwable t) {
-    sendingSubscriptions
-        .values()
-        .forEach(
-            subscription -> {
-              try {
-                subscription.cancel();
-              } catch (Throwable e) {
-                errorConsumer.accept(e);
-              }
-            });
-
-    sendingLimitableSubscriptions
-        .values()
-        .forEach(
-            subscription -> {
-              try {
-                subscription.cancel();
-              } catch (Throwable e) {
-                errorConsumer.accept(e);
-              }
-            });
-
-    channelProcessors
-        .values()
-        .forEach(
-            subscription -> {
-              try {
-                subscription.onError(t);
-              } catch (Throwable e) {
-                errorConsumer.accept(e);
-              }
-            });
+    terminateStreams(t);
   }
 
   private void handleSendProcessorCancel(SignalType t) {
@@ -138,45 +126,14 @@ private void handleSendProcessorCancel(SignalType t) {
       return;
     }
 
-    sendingSubscriptions
-        .values()
-        .forEach(
-            subscription -> {
-              try {
-                subscription.cancel();
-              } catch (Throwable e) {
-                errorConsumer.accept(e);
-              }
-            });
-
-    sendingLimitableSubscriptions
-        .values()
-        .forEach(
-            subscription -> {
-              try {
-                subscription.cancel();
-              } catch (Throwable e) {
-                errorConsumer.accept(e);
-              }
-            });
-
-    channelProcessors
-        .values()
-        .forEach(
-            subscription -> {
-              try {
-                subscription.onComplete();
-              } catch (Throwable e) {
-                errorConsumer.accept(e);
-              }
-            });
+    terminateStreams(null);
   }
 
   @Override
   public Mono<Void> fireAndForget(Payload payload) {
     try {
       if (leaseHandler.useLease()) {
-        return requestHandler.fireAndForget(payload);
+        return leaseHandler.track(FrameType.REQUEST_FNF, requestHandler.fireAndForget(payload));
       } else {
         payload.release();
         return Mono.error(leaseHandler.leaseError());
@@ -190,7 +147,8 @@ public Mono<Void> fireAndForget(Payload payload) {
   public Mono<Payload> requestResponse(Payload payload) {
     try {
       if (leaseHandler.useLease()) {
-        return requestHandler.requestResponse(payload);
+        return leaseHandler.track(
+            FrameType.REQUEST_RESPONSE, requestHandler.requestResponse(payload));
       } else {
         payload.release();
         return Mono.error(leaseHandler.leaseError());
@@ -204,7 +162,7 @@ public Mono<Payload> requestResponse(Payload payload) {
   public Flux<Payload> requestStream(Payload payload) {
     try {
       if (leaseHandler.useLease()) {
-        return requestHandler.requestStream(payload);
+        return leaseHandler.track(FrameType.REQUEST_STREAM, requestHandler.requestStream(payload));
       } else {
         payload.release();
         return Flux.error(leaseHandler.leaseError());
@@ -218,7 +176,8 @@ public Flux<Payload> requestStream(Payload payload) {
   public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
     try {
       if (leaseHandler.useLease()) {
-        return requestHandler.requestChannel(payloads);
+        return leaseHandler.track(
+            FrameType.REQUEST_CHANNEL, requestHandler.requestChannel(payloads));
       } else {
         return Flux.error(leaseHandler.leaseError());
       }
@@ -231,7 +190,8 @@ public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
   public Flux<Payload> requestChannel(Payload payload, Publisher<Payload> payloads) {
     try {
       if (leaseHandler.useLease()) {
-        return responderRSocket.requestChannel(payload, payloads);
+        return leaseHandler.track(
+            FrameType.REQUEST_CHANNEL, responderRSocket.requestChannel(payload, payloads));
       } else {
         payload.release();
         return Flux.error(leaseHandler.leaseError());
@@ -266,48 +226,92 @@ public Mono<Void> onClose() {
   }
 
   private void cleanup() {
-    cleanUpSendingSubscriptions();
-    cleanUpChannelProcessors();
+    terminateStreams(null);
 
     requestHandler.dispose();
     sendProcessor.dispose();
   }
 
-  private synchronized void cleanUpSendingSubscriptions() {
-    sendingSubscriptions.values().forEach(Subscription::cancel);
-    sendingSubscriptions.clear();
+  /**
+   * Terminates all active streams in one pass: outbound subscriptions are cancelled and inbound
+   * channel processors are completed, or errored if {@code t} is not {@code null}.
+   */
+  private void terminateStreams(@Nullable Throwable t) {
+    for (StreamState state : streams.values()) {
+      if (state.terminate(StreamState.TERMINATED)) {
+        streams.remove(state.streamId);
+      }
 
-    sendingLimitableSubscriptions.values().forEach(Subscription::cancel);
-    sendingLimitableSubscriptions.clear();
+      try {
+        Subscription outbound = state.outbound;
+        if (outbound != null) {
+          outbound.cancel();
+        }
+      } catch (Throwable e) {
+        errorConsumer.accept(e);
+      }
+
+      try {
+        Processor<Payload, Payload> inbound = state.inbound;
+        if (inbound != null) {
+          if (t == null) {
+            inbound.onComplete();
+          } else {
+            inbound.onError(t);
+          }
+        }
+      } catch (Throwable e) {
+        errorConsumer.accept(e);
+      }
+    }
+  }
+
+  private void terminateOutbound(StreamState state) {
+    if (state.terminate(StreamState.OUTBOUND_TERMINATED)) {
+      streams.remove(state.streamId);
+    }
   }
 
-  private synchronized void cleanUpChannelProcessors() {
-    channelProcessors.values().forEach(Processor::onComplete);
-    channelProcessors.clear();
+  private void terminateInbound(StreamState state) {
+    if (state.terminate(StreamState.INBOUND_TERMINATED)) {
+      streams.remove(state.streamId);
+    }
   }
 
   private void handleFrame(ByteBuf frame) {
     try {
-      int streamId = FrameHeaderFlyweight.streamId(frame);
+      FrameHeaderCursor header = this.header.read(frame);
+      int streamId = header.streamId();
+      StreamState state;
       Subscriber<Payload> receiver;
-      FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+      FrameType frameType = header.frameType();
       switch (frameType) {
         case REQUEST_FNF:
           handleFireAndForget(streamId, fireAndForget(payloadDecoder.apply(frame)));
           break;
         case REQUEST_RESPONSE:
-          handleRequestResponse(streamId, requestResponse(payloadDecoder.apply(frame)));
+          Payload responsePayload = payloadDecoder.apply(frame);
+          handleRequestResponse(
+              streamId, priorities.classify(responsePayload), requestResponse(responsePayload));
           break;
         case CANCEL:
-          handleCancelFrame(streamId);
+          state = streams.get(streamId);
+          if (state != null) {
+            handleCancelFrame(state);
+          }
           break;
         case REQUEST_N:
-          handleRequestN(streamId, frame);
+          state = streams.get(streamId);
+          if (state != null) {
+            handleRequestN(state, frame);
+          }
           break;
         case REQUEST_STREAM:
           int streamInitialRequestN = RequestStreamFrameFlyweight.initialRequestN(frame);
           Payload streamPayload = payloadDecoder.apply(frame);
-          handleStream(streamId, requestStream(streamPayload), streamInitialRequestN);
+          StreamState streamState =
+              new StreamState(streamId, priorities.classify(streamPayload), null);
+          handleStream(streamId, requestStream(streamPayload), streamInitialRequestN, streamState);
           break;
         case REQUEST_CHANNEL:
           int channelInitialRequestN = RequestChannelFrameFlyweight.initialRequestN(frame);
@@ -321,37 +325,38 @@ private void handleFrame(ByteBuf frame) {
           // TODO: Hook in receiving socket.
           break;
         case NEXT:
-          receiver = channelProcessors.get(streamId);
+          receiver = inbound(streamId);
           if (receiver != null) {
             receiver.onNext(payloadDecoder.apply(frame));
           }
           break;
         case COMPLETE:
-          receiver = channelProcessors.get(streamId);
+          receiver = inbound(streamId);
           if (receiver != null) {
             receiver.onComplete();
           }
           break;
         case ERROR:
-          receiver = channelProcessors.get(streamId);
+          receiver = inbound(streamId);
           if (receiver != null) {
             receiver.onError(new ApplicationErrorException(ErrorFrameFlyweight.dataUtf8(frame)));
           }
           break;
         case NEXT_COMPLETE:
-          receiver = channelProcessors.get(streamId);
+          receiver = inbound(streamId);
           if (receiver != null) {
             receiver.onNext(payloadDecoder.apply(frame));
             receiver.onComplete();
           }
           break;
         case SETUP:
-          handleError(streamId, new IllegalStateException("Setup frame received post setup."));
+          handleError(streamId, 0, new IllegalStateException("Setup frame received post setup."));
           break;
         case LEASE:
         default:
           handleError(
               streamId,
+              0,
               new IllegalStateException("ServerRSocket: Unexpected frame type: " + frameType));
           break;
       }
@@ -362,12 +367,20 @@ private void handleFrame(ByteBuf frame) {
     }
   }
 
+  @Nullable
+  private Subscriber<Payload> inbound(int streamId) {
+    StreamState state = streams.get(streamId);
+    return state != null ? state.inbound : null;
+  }
+
   private void handleFireAndForget(int streamId, Mono<Void> result) {
+    StreamState state = new StreamState(streamId, 0, null);
     result.subscribe(
         new BaseSubscriber<Void>() {
           @Override
           protected void hookOnSubscribe(Subscription subscription) {
-            sendingSubscriptions.put(streamId, subscription);
+            state.outbound = subscription;
+            streams.put(streamId, state);
             subscription.request(Long.MAX_VALUE);
           }
 
@@ -378,19 +391,21 @@ protected void hookOnError(Throwable throwable) {
 
           @Override
           protected void hookFinally(SignalType type) {
-            sendingSubscriptions.remove(streamId);
+            terminateOutbound(state);
           }
         });
   }
 
-  private void handleRequestResponse(int streamId, Mono<Payload> response) {
+  private void handleRequestResponse(int streamId, int lane, Mono<Payload> response) {
+    StreamState state = new StreamState(streamId, lane, null);
     response.subscribe(
         new BaseSubscriber<Payload>() {
           private boolean isEmpty = true;
 
           @Override
           protected void hookOnSubscribe(Subscription subscription) {
-            sendingSubscriptions.put(streamId, subscription);
+            state.outbound = subscription;
+            streams.put(streamId, state);
             subscription.request(Long.MAX_VALUE);
           }
 
@@ -410,35 +425,39 @@ protected void hookOnNext(Payload payload) {
 
             payload.release();
 
-            sendProcessor.onNext(byteBuf);
+            sendProcessor.onNext(byteBuf, lane);
           }
 
           @Override
           protected void hookOnError(Throwable throwable) {
-            handleError(streamId, throwable);
+            handleError(streamId, lane, throwable);
           }
 
           @Override
           protected void hookOnComplete() {
             if (isEmpty) {
-              sendProcessor.onNext(PayloadFrameFlyweight.encodeComplete(allocator, streamId));
+              sendProcessor.onNext(PayloadFrameFlyweight.encodeComplete(allocator, streamId), lane);
             }
           }
 
           @Override
           protected void hookFinally(SignalType type) {
-            sendingSubscriptions.remove(streamId);
+            terminateOutbound(state);
           }
         });
   }
 
-  private void handleStream(int streamId, Flux<Payload> response, int initialRequestN) {
+  private void handleStream(
+      int streamId, Flux<Payload> response, int initialRequestN, StreamState state) {
     response
         .transform(
             frameFlux -> {
               RateLimitableRequestPublisher<Payload> payloads =
                   RateLimitableRequestPublisher.wrap(frameFlux, Queues.SMALL_BUFFER_SIZE);
-              sendingLimitableSubscriptions.put(streamId, payloads);
+              state.outbound = payloads;
+              if (state.inbound == null) {
+                streams.put(streamId, state);
+              }
               payloads.request(
                   initialRequestN >= Integer.MAX_VALUE ? Long.MAX_VALUE : initialRequestN);
               return payloads;
@@ -458,38 +477,43 @@ protected void hookOnNext(Payload payload) {
 
                 payload.release();
 
-                sendProcessor.onNext(byteBuf);
+                sendProcessor.onNext(byteBuf, state.lane);
               }
 
               @Override
               protected void hookOnComplete() {
-                sendProcessor.onNext(PayloadFrameFlyweight.encodeComplete(allocator, streamId));
+                sendProcessor.onNext(
+                    PayloadFrameFlyweight.encodeComplete(allocator, streamId), state.lane);
               }
 
               @Override
               protected void hookOnError(Throwable throwable) {
-                handleError(streamId, throwable);
+                handleError(streamId, state.lane, throwable);
               }
 
               @Override
               protected void hookFinally(SignalType type) {
-                sendingLimitableSubscriptions.remove(streamId);
+                terminateOutbound(state);
               }
             });
   }
 
   private void handleChannel(int streamId, Payload payload, int initialRequestN) {
     UnicastProcessor<Payload> frames = UnicastProcessor.create();
-    channelProcessors.put(streamId, frames);
+    int lane = priorities.classify(payload);
+    StreamState state = new StreamState(streamId, lane, frames);
+    streams.put(streamId, state);
 
     Flux<Payload> payloads =
         frames
             .doOnCancel(
-                () -> sendProcessor.onNext(CancelFrameFlyweight.encode(allocator, streamId)))
-            .doOnError(t -> handleError(streamId, t))
+                () -> sendProcessor.onNext(CancelFrameFlyweight.encode(allocator, streamId), lane))
+            .doOnError(t -> handleError(streamId, lane, t))
             .doOnRequest(
-                l -> sendProcessor.onNext(RequestNFrameFlyweight.encode(allocator, streamId, l)))
-            .doFinally(signalType -> channelProcessors.remove(streamId));
+                l ->
+                    sendProcessor.onNext(
+                        RequestNFrameFlyweight.encode(allocator, streamId, l), lane))
+            .doFinally(signalType -> terminateInbound(state));
 
     // not chained, as the payload should be enqueued in the Unicast processor before this method
     // returns
@@ -497,9 +521,9 @@ private void handleChannel(int streamId, Payload payload, int initialRequestN) {
     frames.onNext(payload);
 
     if (responderRSocket != null) {
-      handleStream(streamId, requestChannel(payload, payloads), initialRequestN);
+      handleStream(streamId, requestChannel(payload, payloads), initialRequestN, state);
     } else {
-      handleStream(streamId, requestChannel(payloads), initialRequestN);
+      handleStream(streamId, requestChannel(payloads), initialRequestN, state);
     }
   }
 
@@ -518,33 +542,77 @@ protected void hookOnError(Throwable throwable) {
         });
   }
 
-  private void handleCancelFrame(int streamId) {
-    Subscription subscription = sendingSubscriptions.remove(streamId);
-
-    if (subscription == null) {
-      subscription = sendingLimitableSubscriptions.remove(streamId);
-    }
+  private void handleCancelFrame(StreamState state) {
+    Subscription subscription = state.outbound;
 
     if (subscription != null) {
+      terminateOutbound(state);
       subscription.cancel();
     }
   }
 
-  private void handleError(int streamId, Throwable t) {
+  private void handleError(int streamId, int lane, Throwable t) {
     errorConsumer.accept(t);
-    sendProcessor.onNext(ErrorFrameFlyweight.encode(allocator, streamId, t));
+    sendProcessor.onNext(ErrorFrameFlyweight.encode(allocator, streamId, t), lane);
   }
 
-  private void handleRequestN(int streamId, ByteBuf frame) {
-    Subscription subscription = sendingSubscriptions.get(streamId);
-
-    if (subscription == null) {
-      subscription = sendingLimitableSubscriptions.get(streamId);
-    }
+  private void handleRequestN(StreamState state, ByteBuf frame) {
+    Subscription subscription = state.outbound;
 
     if (subscription != null) {
       int n = RequestNFrameFlyweight.requestN(frame);
       subscription.request(n >= Integer.MAX_VALUE ? Long.MAX_VALUE : n);
     }
   }
+
+  /**
+   * State of a single stream served by this responder. Inbound frames of a stream are routed with
+   * one lookup of this object, which holds the outbound {@link Subscription} (a {@link
+   * RateLimitableRequestPublisher} for streams and channels) and, for channels, the inbound {@link
+   * Processor}.
+   *
+   * <p>Its lifecycle is tracked as two independent halves. A stream is removed once both of them
+   * are terminated; streams without an inbound half start with it already terminated.
+   */
+  static final class StreamState {
+    static final int OUTBOUND_TERMINATED = 0b01;
+    static final int INBOUND_TERMINATED = 0b10;
+    static final int TERMINATED = OUTBOUND_TERMINATED | INBOUND_TERMINATED;
+
+    static final AtomicIntegerFieldUpdater<StreamState> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(StreamState.class, "state");
+
+    final int streamId;
+    /** outbound lane of every frame of this stream */
+    final int lane;
+
+    @Nullable final Processor<Payload, Payload> inbound;
+
+    @Nullable volatile Subscription outbound;
+    volatile int state;
+
+    StreamState(int streamId, int lane, @Nullable Processor<Payload, Payload> inbound) {
+      this.streamId = streamId;
+      this.lane = lane;
+      this.inbound = inbound;
+      this.state = inbound == null ? INBOUND_TERMINATED : 0;
+    }
+
+    /**
+     * Marks the given halves as terminated.
+     *
+     * @return {@code true} if this call terminated the last remaining half
+     */
+    boolean terminate(int halves) {
+      for (; ; ) {
+        int state = this.state;
+        if ((state & halves) == halves) {
+          return false;
+        }
+        if (STATE.compareAndSet(this, state, state | halves)) {
+          return (state | halves) == TERMINATED;
+        }
+      }
+    }
+  }
 }
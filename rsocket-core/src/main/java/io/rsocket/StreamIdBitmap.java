@@ -0,0 +1,216 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket;
+
+import io.netty.util.collection.IntObjectHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sparse bitmap of the stream ids in use by a {@link StreamIdSupplier}. A supplier hands out ids
+ * of a single parity only, so stream id {@code n} is tracked by bit {@code n >>> 1}.
+ *
+ * <p>Bits are grouped in pages of {@value #PAGE_BITS} ids which only exist while at least one of
+ * their ids is in use or while they are the page allocations currently happen in. Memory is
+ * therefore proportional to the spread of live streams rather than to the 31-bit id space. Bits
+ * are set and cleared with CAS; the page directory is only locked when allocations move to another
+ * page and when a page is released.
+ */
+final class StreamIdBitmap {
+  static final int PAGE_SHIFT = 12;
+  static final int PAGE_BITS = 1 << PAGE_SHIFT;
+  static final int PAGE_MASK = PAGE_BITS - 1;
+  static final int PAGE_WORDS = PAGE_BITS >>> 6;
+  static final int MAX_PAGE = (Integer.MAX_VALUE >>> 1) >>> PAGE_SHIFT;
+
+  /** guarded by this */
+  private final IntObjectHashMap<Page> pages = new IntObjectHashMap<>();
+
+  private volatile Page current;
+
+  /**
+   * Marks the given stream id as in use.
+   *
+   * @return {@code true} if the id was free and is now owned by the caller
+   */
+  boolean tryAcquire(int streamId) {
+    int index = streamId >>> 1;
+    Page page = retainPage(index >>> PAGE_SHIFT);
+    int word = (index & PAGE_MASK) >>> 6;
+    long bit = 1L << index;
+
+    for (; ; ) {
+      long w = page.words.get(word);
+      if ((w & bit) != 0) {
+        releasePage(page);
+        return false;
+      }
+      if (page.words.compareAndSet(word, w, w | bit)) {
+        return true;
+      }
+    }
+  }
+
+  /** Marks the given stream id as free. Releasing an id that is not in use is a no-op. */
+  void release(int streamId) {
+    int index = streamId >>> 1;
+    int key = index >>> PAGE_SHIFT;
+    Page page = current;
+    if (page == null || page.key != key) {
+      synchronized (this) {
+        page = pages.get(key);
+      }
+      if (page == null) {
+        return;
+      }
+    }
+
+    int word = (index & PAGE_MASK) >>> 6;
+    long bit = 1L << index;
+    for (; ; ) {
+      long w = page.words.get(word);
+      if ((w & bit) == 0) {
+        return;
+      }
+      if (page.words.compareAndSet(word, w, w & ~bit)) {
+        break;
+      }
+    }
+
+    releasePage(page);
+  }
+
+  boolean isInUse(int streamId) {
+    int index = streamId >>> 1;
+    Page page = find(index >>> PAGE_SHIFT);
+    return page != null && (page.words.get((index & PAGE_MASK) >>> 6) & (1L << index)) != 0;
+  }
+
+  /**
+   * Finds the first stream id, of the same parity and not lower than the given one, which is not in
+   * use. The search never goes beyond the page of {@code streamId}, so it takes bounded time.
+   *
+   * @return the first free stream id of the page or, if the page is full, the first id of the next
+   *     page. {@code -1} if the page is the last one and it is full.
+   */
+  int nextFree(int streamId) {
+    int parity = streamId & 1;
+    int index = streamId >>> 1;
+    int key = index >>> PAGE_SHIFT;
+    Page page = find(key);
+    if (page == null) {
+      return streamId;
+    }
+
+    int word = (index & PAGE_MASK) >>> 6;
+    long free = ~page.words.get(word) & (-1L << index);
+    while (free == 0) {
+      if (++word == PAGE_WORDS) {
+        return key == MAX_PAGE ? -1 : ((key + 1) << PAGE_SHIFT << 1) | parity;
+      }
+      free = ~page.words.get(word);
+    }
+
+    int freeIndex = (key << PAGE_SHIFT) | (word << 6) | Long.numberOfTrailingZeros(free);
+    return (freeIndex << 1) | parity;
+  }
+
+  private Page find(int key) {
+    Page page = current;
+    if (page != null && page.key == key) {
+      return page;
+    }
+    synchronized (this) {
+      return pages.get(key);
+    }
+  }
+
+  private Page retainPage(int key) {
+    Page page = current;
+    if (page != null && page.key == key && page.retain()) {
+      return page;
+    }
+    return moveTo(key);
+  }
+
+  /**
+   * Makes the page for {@code key} the current one. The current page holds one extra reference so
+   * that it survives while ids keep being allocated from it one at a time.
+   */
+  private synchronized Page moveTo(int key) {
+    Page previous = current;
+    if (previous != null && previous.key == key && previous.retain()) {
+      return previous;
+    }
+
+    Page page = pages.get(key);
+    if (page == null || !page.retain()) {
+      // absent or being released concurrently, which means all of its ids are free
+      page = new Page(key);
+      pages.put(key, page);
+    }
+
+    page.retain();
+    current = page;
+
+    if (previous != null && previous.release() && pages.get(previous.key) == previous) {
+      pages.remove(previous.key);
+    }
+
+    return page;
+  }
+
+  private void releasePage(Page page) {
+    if (page.release()) {
+      synchronized (this) {
+        if (pages.get(page.key) == page) {
+          pages.remove(page.key);
+        }
+      }
+    }
+  }
+
+  private static final class Page {
+    static final AtomicIntegerFieldUpdater<Page> REFS =
+        AtomicIntegerFieldUpdater.newUpdater(Page.class, "refs");
+
+    final int key;
+    final AtomicLongArray words = new AtomicLongArray(PAGE_WORDS);
+
+    /** ids in use, plus one while this is the current page. Never revived once it reaches 0 */
+    volatile int refs = 1;
+
+    Page(int key) {
+      this.key = key;
+    }
+
+    boolean retain() {
+      for (; ; ) {
+        int refs = this.refs;
+        if (refs == 0) {
+          return false;
+        }
+        if (REFS.compareAndSet(this, refs, refs + 1)) {
+          return true;
+        }
+      }
+    }
+
+    boolean release() {
+      return REFS.decrementAndGet(this) == 0;
+    }
+  }
+}
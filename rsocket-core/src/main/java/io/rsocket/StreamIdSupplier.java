@@ -15,19 +15,31 @@
  */
 package io.rsocket;
 
-import io.netty.util.collection.IntObjectMap;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
+/**
+ * Allocates stream ids of a single parity. Ids in use are tracked in a {@link StreamIdBitmap}, so
+ * that once the 31-bit id space wraps around, ids of long living streams are skipped without
+ * consulting the stream registry of the requester. Every id returned by {@link #nextStreamId()}
+ * must eventually be given back with {@link #release(int)}.
+ */
 final class StreamIdSupplier {
   private static final int MASK = 0x7FFFFFFF;
 
   private static final AtomicLongFieldUpdater<StreamIdSupplier> STREAM_ID =
       AtomicLongFieldUpdater.newUpdater(StreamIdSupplier.class, "streamId");
+  private final StreamIdBitmap inUse;
   private volatile long streamId;
 
   // Visible for testing
   StreamIdSupplier(int streamId) {
+    this(streamId, new StreamIdBitmap());
+  }
+
+  // Visible for testing
+  StreamIdSupplier(int streamId, StreamIdBitmap inUse) {
     this.streamId = streamId;
+    this.inUse = inUse;
   }
 
   static StreamIdSupplier clientSupplier() {
@@ -35,15 +47,35 @@ static StreamIdSupplier clientSupplier() {
   }
 
   static StreamIdSupplier serverSupplier() {
-    return new StreamIdSupplier(0);
+    return serverSupplier(0);
+  }
+
+  /** @param lastStreamId even id after which ids are allocated */
+  static StreamIdSupplier serverSupplier(int lastStreamId) {
+    return new StreamIdSupplier(lastStreamId);
+  }
+
+  int nextStreamId() {
+    for (; ; ) {
+      long next = STREAM_ID.addAndGet(this, 2);
+      int streamId = (int) next & MASK;
+      if (streamId == 0) {
+        continue;
+      }
+      if (inUse.tryAcquire(streamId)) {
+        return streamId;
+      }
+
+      // only happens after a wrap-around: skip the whole run of ids still in use
+      int free = inUse.nextFree(streamId);
+      if (free > streamId) {
+        STREAM_ID.compareAndSet(this, next, next + (free - streamId) - 2);
+      }
+    }
   }
 
-  int nextStreamId(IntObjectMap<?> streamIds) {
-    int streamId;
-    do {
-      streamId = (int) STREAM_ID.addAndGet(this, 2) & MASK;
-    } while (streamId == 0 || streamIds.containsKey(streamId));
-    return streamId;
+  void release(int streamId) {
+    inUse.release(streamId);
   }
 
   boolean isBeforeOrCurrent(int streamId) {
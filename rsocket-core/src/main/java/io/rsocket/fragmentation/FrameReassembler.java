@@ -48,6 +48,7 @@ final class FrameReassembler extends AtomicBoolean implements Disposable {
   final IntObjectMap<CompositeByteBuf> data;
 
   private final ByteBufAllocator allocator;
+  private final FrameHeaderCursor header = new FrameHeaderCursor();
 
   public FrameReassembler(ByteBufAllocator allocator) {
     this.allocator = allocator;
@@ -230,8 +231,9 @@ void handleFollowsFlag(ByteBuf frame, int streamId, FrameType frameType) {
 
   void reassembleFrame(ByteBuf frame, SynchronousSink<ByteBuf> sink) {
     try {
-      FrameType frameType = FrameHeaderFlyweight.frameType(frame);
-      int streamId = FrameHeaderFlyweight.streamId(frame);
+      FrameHeaderCursor header = this.header.read(frame);
+      FrameType frameType = header.frameType();
+      int streamId = header.streamId();
       switch (frameType) {
         case CANCEL:
         case ERROR:
@@ -244,7 +246,7 @@ void reassembleFrame(ByteBuf frame, SynchronousSink<ByteBuf> sink) {
         return;
       }
 
-      boolean hasFollows = FrameHeaderFlyweight.hasFollows(frame);
+      boolean hasFollows = header.hasFollows();
 
       if (hasFollows) {
         handleFollowsFlag(frame, streamId, frameType);
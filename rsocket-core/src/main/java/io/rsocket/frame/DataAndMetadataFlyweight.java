@@ -32,11 +32,11 @@ private static int decodeLength(final ByteBuf byteBuf) {
 
   static ByteBuf encodeOnlyMetadata(
       ByteBufAllocator allocator, final ByteBuf header, ByteBuf metadata) {
-    return allocator.compositeBuffer(2).addComponents(true, header, metadata);
+    return FrameLengthFlyweight.compose(allocator, header, metadata);
   }
 
   static ByteBuf encodeOnlyData(ByteBufAllocator allocator, final ByteBuf header, ByteBuf data) {
-    return allocator.compositeBuffer(2).addComponents(true, header, data);
+    return FrameLengthFlyweight.compose(allocator, header, data);
   }
 
   static ByteBuf encode(
@@ -44,7 +44,7 @@ static ByteBuf encode(
 
     int length = metadata.readableBytes();
     encodeLength(header, length);
-    return allocator.compositeBuffer(3).addComponents(true, header, metadata, data);
+    return FrameLengthFlyweight.compose(allocator, header, metadata, data);
   }
 
   static ByteBuf metadataWithoutMarking(ByteBuf byteBuf, boolean hasMetadata) {
@@ -32,7 +32,7 @@ public static ByteBuf encode(
 
     header.writeInt(errorCode);
 
-    return allocator.compositeBuffer(2).addComponents(true, header, data);
+    return FrameLengthFlyweight.compose(allocator, header, data);
   }
 
   public static ByteBuf encode(ByteBufAllocator allocator, int streamId, Throwable t) {
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.frame;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Reusable view of a frame header. {@link #read(ByteBuf)} decodes stream id, frame type and flags
+ * with a single read of the header, so that a receive loop can dispatch on them without going back
+ * to the frame through {@link FrameHeaderFlyweight} for each field.
+ *
+ * <p>Not thread-safe. Meant to be owned by a single receive loop and reused for every frame.
+ */
+public final class FrameHeaderCursor {
+  private static final int FRAME_FLAGS_MASK = 0b0000_0011_1111_1111;
+
+  private int streamId;
+  private int typeAndFlags;
+  private FrameType frameType;
+
+  /**
+   * Decodes the header of {@code frame} without moving its reader index.
+   *
+   * @return this cursor
+   * @throws IllegalArgumentException if the frame type is unknown or a PAYLOAD frame has neither
+   *     NEXT nor COMPLETE set
+   */
+  public FrameHeaderCursor read(ByteBuf frame) {
+    int index = frame.readerIndex();
+    int streamId = frame.getInt(index);
+    int typeAndFlags = frame.getUnsignedShort(index + Integer.BYTES);
+
+    this.frameType = FrameHeaderFlyweight.frameType(typeAndFlags);
+    this.streamId = streamId;
+    this.typeAndFlags = typeAndFlags;
+    return this;
+  }
+
+  public int streamId() {
+    return streamId;
+  }
+
+  /** @return the frame type, with PAYLOAD replaced by its synthetic type */
+  public FrameType frameType() {
+    return frameType;
+  }
+
+  public int flags() {
+    return typeAndFlags & FRAME_FLAGS_MASK;
+  }
+
+  public boolean hasMetadata() {
+    return (typeAndFlags & FrameHeaderFlyweight.FLAGS_M) != 0;
+  }
+
+  public boolean hasFollows() {
+    return (typeAndFlags & FrameHeaderFlyweight.FLAGS_F) != 0;
+  }
+
+  public boolean canBeIgnored() {
+    return (typeAndFlags & FrameHeaderFlyweight.FLAGS_I) != 0;
+  }
+
+  @Override
+  public String toString() {
+    return "FrameHeaderCursor{"
+        + "streamId="
+        + streamId
+        + ", frameType="
+        + frameType
+        + ", flags="
+        + Integer.toBinaryString(flags())
+        + '}';
+  }
+}
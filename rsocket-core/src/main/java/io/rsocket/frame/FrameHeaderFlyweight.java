@@ -28,14 +28,24 @@ public final class FrameHeaderFlyweight {
   public static final int FLAGS_N = 0b00_0010_0000;
 
   public static final String DISABLE_FRAME_TYPE_CHECK = "io.rsocket.frames.disableFrameTypeCheck";
+  /**
+   * When set, frame headers are allocated with {@link FrameLengthFlyweight#FRAME_LENGTH_SIZE} bytes
+   * of headroom, so that transports which need a length prefix can fill it in place instead of
+   * wrapping every frame. See {@link FrameLengthFlyweight#encodeReserved(ByteBuf)}.
+   */
+  public static final String RESERVE_FRAME_LENGTH = "io.rsocket.frames.reserveFrameLength";
   private static final int FRAME_FLAGS_MASK = 0b0000_0011_1111_1111;
   private static final int FRAME_TYPE_BITS = 6;
   private static final int FRAME_TYPE_SHIFT = 16 - FRAME_TYPE_BITS;
   private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
+  private static final int NEXT_COMPLETE_SHIFT = 5;
+  private static final FrameType[] FRAME_TYPES_BY_TYPE_AND_FLAGS = frameTypesByTypeAndFlags();
   private static boolean disableFrameTypeCheck;
+  static boolean reserveFrameLength;
 
   static {
     disableFrameTypeCheck = Boolean.getBoolean(DISABLE_FRAME_TYPE_CHECK);
+    reserveFrameLength = Boolean.getBoolean(RESERVE_FRAME_LENGTH);
   }
 
   private FrameHeaderFlyweight() {}
@@ -53,7 +63,13 @@ public static ByteBuf encode(
 
     short typeAndFlags = (short) (frameType.getEncodedType() << FRAME_TYPE_SHIFT | (short) flags);
 
-    return allocator.buffer().writeInt(streamId).writeShort(typeAndFlags);
+    ByteBuf header = allocator.buffer();
+    if (reserveFrameLength) {
+      int reserved = FrameLengthFlyweight.FRAME_LENGTH_SIZE;
+      header.writerIndex(reserved).readerIndex(reserved);
+    }
+
+    return header.writeInt(streamId).writeShort(typeAndFlags);
   }
 
   public static boolean hasFollows(ByteBuf byteBuf) {
@@ -61,18 +77,11 @@ public static boolean hasFollows(ByteBuf byteBuf) {
   }
 
   public static int streamId(ByteBuf byteBuf) {
-    byteBuf.markReaderIndex();
-    int streamId = byteBuf.readInt();
-    byteBuf.resetReaderIndex();
-    return streamId;
+    return byteBuf.getInt(byteBuf.readerIndex());
   }
 
   public static int flags(final ByteBuf byteBuf) {
-    byteBuf.markReaderIndex();
-    byteBuf.skipBytes(Integer.BYTES);
-    short typeAndFlags = byteBuf.readShort();
-    byteBuf.resetReaderIndex();
-    return typeAndFlags & FRAME_FLAGS_MASK;
+    return typeAndFlags(byteBuf) & FRAME_FLAGS_MASK;
   }
 
   public static boolean hasMetadata(ByteBuf byteBuf) {
@@ -84,42 +93,60 @@ public static boolean hasMetadata(ByteBuf byteBuf) {
    * type
    */
   public static FrameType nativeFrameType(ByteBuf byteBuf) {
-    byteBuf.markReaderIndex();
-    byteBuf.skipBytes(Integer.BYTES);
-    int typeAndFlags = byteBuf.readShort() & 0xFFFF;
-    FrameType result = FrameType.fromEncodedType(typeAndFlags >> FRAME_TYPE_SHIFT);
-    byteBuf.resetReaderIndex();
-    return result;
+    return FrameType.fromEncodedType(typeAndFlags(byteBuf) >> FRAME_TYPE_SHIFT);
   }
 
   public static FrameType frameType(ByteBuf byteBuf) {
-    byteBuf.markReaderIndex();
-    byteBuf.skipBytes(Integer.BYTES);
-    int typeAndFlags = byteBuf.readShort() & 0xFFFF;
-
-    FrameType result = FrameType.fromEncodedType(typeAndFlags >> FRAME_TYPE_SHIFT);
-
-    if (FrameType.PAYLOAD == result) {
-      final int flags = typeAndFlags & FRAME_FLAGS_MASK;
-
-      boolean complete = FLAGS_C == (flags & FLAGS_C);
-      boolean next = FLAGS_N == (flags & FLAGS_N);
-      if (next && complete) {
-        result = FrameType.NEXT_COMPLETE;
-      } else if (complete) {
-        result = FrameType.COMPLETE;
-      } else if (next) {
-        result = FrameType.NEXT;
-      } else {
+    return frameType(typeAndFlags(byteBuf));
+  }
+
+  static int typeAndFlags(ByteBuf byteBuf) {
+    return byteBuf.getUnsignedShort(byteBuf.readerIndex() + Integer.BYTES);
+  }
+
+  /**
+   * Resolves the frame type, replacing PAYLOAD with its synthetic type, with a single table lookup
+   * on the encoded type and the NEXT and COMPLETE flags.
+   */
+  static FrameType frameType(int typeAndFlags) {
+    FrameType result =
+        FRAME_TYPES_BY_TYPE_AND_FLAGS[
+            (typeAndFlags >> FRAME_TYPE_SHIFT) << 2
+                | (typeAndFlags >> NEXT_COMPLETE_SHIFT) & 0b11];
+
+    if (result == null) {
+      int encodedType = typeAndFlags >> FRAME_TYPE_SHIFT;
+      if (encodedType == FrameType.PAYLOAD.getEncodedType()) {
         throw new IllegalArgumentException("Payload must set either or both of NEXT and COMPLETE.");
       }
+      // throws for unknown types
+      return FrameType.fromEncodedType(encodedType);
     }
 
-    byteBuf.resetReaderIndex();
-
     return result;
   }
 
+  private static FrameType[] frameTypesByTypeAndFlags() {
+    FrameType[] frameTypes = new FrameType[1 << (FRAME_TYPE_BITS + 2)];
+    for (FrameType frameType : FrameType.values()) {
+      int encodedType = frameType.getEncodedType();
+      if (encodedType >= 1 << FRAME_TYPE_BITS) {
+        // synthetic
+        continue;
+      }
+      for (int nextComplete = 0; nextComplete < 4; nextComplete++) {
+        frameTypes[encodedType << 2 | nextComplete] = frameType;
+      }
+    }
+
+    int payload = FrameType.PAYLOAD.getEncodedType() << 2;
+    frameTypes[payload] = null;
+    frameTypes[payload | FLAGS_N >> NEXT_COMPLETE_SHIFT] = FrameType.NEXT;
+    frameTypes[payload | FLAGS_C >> NEXT_COMPLETE_SHIFT] = FrameType.COMPLETE;
+    frameTypes[payload | (FLAGS_N | FLAGS_C) >> NEXT_COMPLETE_SHIFT] = FrameType.NEXT_COMPLETE;
+    return frameTypes;
+  }
+
   public static void ensureFrameType(final FrameType frameType, ByteBuf byteBuf) {
     if (!disableFrameTypeCheck) {
       final FrameType typeInFrame = frameType(byteBuf);
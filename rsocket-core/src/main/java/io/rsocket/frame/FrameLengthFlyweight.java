@@ -2,6 +2,7 @@
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 
 /**
  * Some transports like TCP aren't framed, and require a length. This is used by DuplexConnections
@@ -37,6 +38,55 @@ public static ByteBuf encode(ByteBufAllocator allocator, int length, ByteBuf fra
     return allocator.compositeBuffer(2).addComponents(true, buffer, frame);
   }
 
+  /**
+   * Indicates if the frame was encoded with room for its length prefix, which happens for frames
+   * with metadata or data when {@link FrameHeaderFlyweight#RESERVE_FRAME_LENGTH} is set. Views of
+   * such a frame, as well as any other buffer, do not have room reserved.
+   */
+  public static boolean hasReservedLength(ByteBuf frame) {
+    return frame instanceof ReservedLengthFrame && frame.readerIndex() == FRAME_LENGTH_SIZE;
+  }
+
+  /**
+   * Writes the length of the frame into the bytes reserved in front of it. Unlike {@link
+   * #encode(ByteBufAllocator, int, ByteBuf)} no buffer is allocated, the returned view shares
+   * content and reference count with the given frame.
+   *
+   * @param frame a frame for which {@link #hasReservedLength(ByteBuf)} is {@code true}
+   * @return a view of the frame including its length prefix
+   */
+  public static ByteBuf encodeReserved(ByteBuf frame) {
+    if (!hasReservedLength(frame)) {
+      throw new IllegalArgumentException("Frame has no room reserved for its length");
+    }
+    int length = frame.readableBytes();
+    if ((length & ~FRAME_LENGTH_MASK) != 0) {
+      throw new IllegalArgumentException("Length is larger than 24 bits");
+    }
+
+    frame.setMedium(0, length);
+    // a duplicate keeps the indexes of the frame untouched when it is written, frames may be kept
+    // around for resumption
+    return frame.duplicate().readerIndex(0);
+  }
+
+  /**
+   * Creates a frame out of an encoded header and further parts. If room for the length prefix was
+   * reserved in the header, it is kept in front of the frame.
+   */
+  static ByteBuf compose(ByteBufAllocator allocator, ByteBuf header, ByteBuf... parts) {
+    if (FrameHeaderFlyweight.reserveFrameLength && header.readerIndex() == FRAME_LENGTH_SIZE) {
+      CompositeByteBuf frame = new ReservedLengthFrame(allocator, header, parts.length + 1);
+      header.readerIndex(0);
+      frame.addComponent(true, header).addComponents(true, parts);
+      frame.readerIndex(FRAME_LENGTH_SIZE);
+      return frame;
+    }
+
+    CompositeByteBuf frame = allocator.compositeBuffer(parts.length + 1);
+    return frame.addComponent(true, header).addComponents(true, parts);
+  }
+
   public static int length(ByteBuf byteBuf) {
     byteBuf.markReaderIndex();
     int length = decodeLength(byteBuf);
@@ -51,4 +101,14 @@ public static ByteBuf frame(ByteBuf byteBuf) {
     byteBuf.resetReaderIndex();
     return slice;
   }
+
+  /**
+   * Frame composed by {@link #compose(ByteBufAllocator, ByteBuf, ByteBuf...)} whose first {@link
+   * #FRAME_LENGTH_SIZE} bytes are reserved for its length prefix, in the header it owns.
+   */
+  private static final class ReservedLengthFrame extends CompositeByteBuf {
+    ReservedLengthFrame(ByteBufAllocator allocator, ByteBuf header, int maxNumComponents) {
+      super(allocator, header.isDirect(), maxNumComponents);
+    }
+  }
 }
@@ -8,7 +8,7 @@ public static ByteBuf encode(ByteBufAllocator allocator, ByteBuf metadata) {
     ByteBuf header =
         FrameHeaderFlyweight.encodeStreamZero(
             allocator, FrameType.METADATA_PUSH, FrameHeaderFlyweight.FLAGS_M);
-    return allocator.compositeBuffer(2).addComponents(true, header, metadata);
+    return FrameLengthFlyweight.compose(allocator, header, metadata);
   }
 
   public static ByteBuf metadata(ByteBuf byteBuf) {
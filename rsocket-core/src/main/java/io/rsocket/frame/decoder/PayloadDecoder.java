@@ -7,4 +7,5 @@
 public interface PayloadDecoder extends Function<ByteBuf, Payload> {
   PayloadDecoder DEFAULT = new DefaultPayloadDecoder();
   PayloadDecoder ZERO_COPY = new ZeroCopyPayloadDecoder();
+  PayloadDecoder POOLED = new PooledPayloadDecoder();
 }
@@ -0,0 +1,85 @@
+package io.rsocket.frame.decoder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.frame.*;
+import io.rsocket.util.ByteBufPayload;
+import java.util.Objects;
+
+/**
+ * Frame decoder that copies data and metadata into buffers of a pooled allocator, by default
+ * {@link PooledByteBufAllocator#DEFAULT} direct buffers, which are served from the size classes of
+ * the pool. Unlike {@link ZeroCopyPayloadDecoder} the payload does not pin the frame it came from,
+ * and unlike the default decoder it does not allocate fresh memory per frame. Payloads are recycled
+ * {@link ByteBufPayload}s, the caller is responsible for releasing them to give both the payload
+ * and its buffers back to their pools.
+ */
+public class PooledPayloadDecoder implements PayloadDecoder {
+  private final ByteBufAllocator allocator;
+
+  public PooledPayloadDecoder() {
+    this(PooledByteBufAllocator.DEFAULT);
+  }
+
+  public PooledPayloadDecoder(ByteBufAllocator allocator) {
+    this.allocator = Objects.requireNonNull(allocator, "allocator");
+  }
+
+  @Override
+  public Payload apply(ByteBuf byteBuf) {
+    ByteBuf m;
+    ByteBuf d;
+    FrameType type = FrameHeaderFlyweight.frameType(byteBuf);
+    switch (type) {
+      case REQUEST_FNF:
+        d = RequestFireAndForgetFrameFlyweight.data(byteBuf);
+        m = RequestFireAndForgetFrameFlyweight.metadata(byteBuf);
+        break;
+      case REQUEST_RESPONSE:
+        d = RequestResponseFrameFlyweight.data(byteBuf);
+        m = RequestResponseFrameFlyweight.metadata(byteBuf);
+        break;
+      case REQUEST_STREAM:
+        d = RequestStreamFrameFlyweight.data(byteBuf);
+        m = RequestStreamFrameFlyweight.metadata(byteBuf);
+        break;
+      case REQUEST_CHANNEL:
+        d = RequestChannelFrameFlyweight.data(byteBuf);
+        m = RequestChannelFrameFlyweight.metadata(byteBuf);
+        break;
+      case NEXT:
+      case NEXT_COMPLETE:
+        d = PayloadFrameFlyweight.data(byteBuf);
+        m = PayloadFrameFlyweight.metadata(byteBuf);
+        break;
+      case METADATA_PUSH:
+        d = Unpooled.EMPTY_BUFFER;
+        m = MetadataPushFrameFlyweight.metadata(byteBuf);
+        break;
+      default:
+        throw new IllegalArgumentException("unsupported frame type: " + type);
+    }
+
+    ByteBuf data = copy(d);
+    ByteBuf metadata;
+    try {
+      metadata = copy(m);
+    } catch (Throwable t) {
+      data.release();
+      throw t;
+    }
+
+    return ByteBufPayload.create(data, metadata);
+  }
+
+  private ByteBuf copy(ByteBuf source) {
+    int length = source.readableBytes();
+    if (length == 0) {
+      return Unpooled.EMPTY_BUFFER;
+    }
+    return allocator.directBuffer(length, length).writeBytes(source, source.readerIndex(), length);
+  }
+}
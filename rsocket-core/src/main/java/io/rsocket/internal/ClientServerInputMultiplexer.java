@@ -23,12 +23,19 @@
 import io.rsocket.frame.FrameUtil;
 import io.rsocket.plugins.DuplexConnectionInterceptor.Type;
 import io.rsocket.plugins.PluginRegistry;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.CoreSubscriber;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.MonoProcessor;
+import reactor.core.publisher.Operators;
+import reactor.util.concurrent.Queues;
 
 /**
  * {@link DuplexConnection#receive()} is a single stream on which the following type of frames
@@ -42,6 +49,10 @@
  * <p>The only way to differentiate these two frames is determining whether the stream Id is odd or
  * even. Even IDs are for the streams initiated by server and odds are for streams initiated by the
  * client.
+ *
+ * <p>Every inbound frame is classified once and pushed straight to the subscriber of its
+ * connection. Frames are only queued while that connection has no subscriber or no demand, e.g.
+ * before the responder of a client has been created.
  */
 public class ClientServerInputMultiplexer implements Closeable {
   private static final Logger LOGGER = LoggerFactory.getLogger("io.rsocket.FrameLogger");
@@ -53,6 +64,11 @@ public class ClientServerInputMultiplexer implements Closeable {
   private final DuplexConnection source;
   private final DuplexConnection clientServerConnection;
 
+  private final FrameSink setupFrames = new FrameSink();
+  private final FrameSink serverFrames = new FrameSink();
+  private final FrameSink clientFrames = new FrameSink();
+  private final boolean isClient;
+
   public ClientServerInputMultiplexer(DuplexConnection source) {
     this(source, emptyPluginRegistry, false);
   }
@@ -60,67 +76,59 @@ public ClientServerInputMultiplexer(DuplexConnection source) {
   public ClientServerInputMultiplexer(
       DuplexConnection source, PluginRegistry plugins, boolean isClient) {
     this.source = source;
-    final MonoProcessor<Flux<ByteBuf>> setup = MonoProcessor.create();
-    final MonoProcessor<Flux<ByteBuf>> server = MonoProcessor.create();
-    final MonoProcessor<Flux<ByteBuf>> client = MonoProcessor.create();
+    this.isClient = isClient;
 
     source = plugins.applyConnection(Type.SOURCE, source);
     setupConnection =
-        plugins.applyConnection(Type.SETUP, new InternalDuplexConnection(source, setup));
+        plugins.applyConnection(Type.SETUP, new InternalDuplexConnection(source, setupFrames));
     serverConnection =
-        plugins.applyConnection(Type.SERVER, new InternalDuplexConnection(source, server));
+        plugins.applyConnection(Type.SERVER, new InternalDuplexConnection(source, serverFrames));
     clientConnection =
-        plugins.applyConnection(Type.CLIENT, new InternalDuplexConnection(source, client));
-    clientServerConnection = new InternalDuplexConnection(source, client, server);
-
-    source
-        .receive()
-        .groupBy(
-            frame -> {
-              int streamId = FrameHeaderFlyweight.streamId(frame);
-              final Type type;
-              if (streamId == 0) {
-                switch (FrameHeaderFlyweight.frameType(frame)) {
-                  case SETUP:
-                  case RESUME:
-                  case RESUME_OK:
-                    type = Type.SETUP;
-                    break;
-                  case LEASE:
-                  case KEEPALIVE:
-                  case ERROR:
-                    type = isClient ? Type.CLIENT : Type.SERVER;
-                    break;
-                  default:
-                    type = isClient ? Type.SERVER : Type.CLIENT;
-                }
-              } else if ((streamId & 0b1) == 0) {
-                type = Type.SERVER;
-              } else {
-                type = Type.CLIENT;
-              }
-              return type;
-            })
-        .subscribe(
-            group -> {
-              switch (group.key()) {
-                case SETUP:
-                  setup.onNext(group);
-                  break;
-
-                case SERVER:
-                  server.onNext(group);
-                  break;
-
-                case CLIENT:
-                  client.onNext(group);
-                  break;
-              }
-            },
-            t -> {
-              LOGGER.error("Error receiving frame:", t);
-              dispose();
-            });
+        plugins.applyConnection(Type.CLIENT, new InternalDuplexConnection(source, clientFrames));
+    clientServerConnection =
+        new InternalDuplexConnection(source, Flux.merge(clientFrames, serverFrames));
+
+    source.receive().subscribe(this::dispatch, this::onReceiveError, this::onReceiveComplete);
+  }
+
+  private void dispatch(ByteBuf frame) {
+    int streamId = FrameHeaderFlyweight.streamId(frame);
+    final FrameSink sink;
+    if (streamId == 0) {
+      switch (FrameHeaderFlyweight.frameType(frame)) {
+        case SETUP:
+        case RESUME:
+        case RESUME_OK:
+          sink = setupFrames;
+          break;
+        case LEASE:
+        case KEEPALIVE:
+        case ERROR:
+          sink = isClient ? clientFrames : serverFrames;
+          break;
+        default:
+          sink = isClient ? serverFrames : clientFrames;
+      }
+    } else if ((streamId & 0b1) == 0) {
+      sink = serverFrames;
+    } else {
+      sink = clientFrames;
+    }
+    sink.onNext(frame);
+  }
+
+  private void onReceiveError(Throwable t) {
+    LOGGER.error("Error receiving frame:", t);
+    setupFrames.onError(t);
+    serverFrames.onError(t);
+    clientFrames.onError(t);
+    dispose();
+  }
+
+  private void onReceiveComplete() {
+    setupFrames.onComplete();
+    serverFrames.onComplete();
+    clientFrames.onComplete();
   }
 
   public DuplexConnection asClientServerConnection() {
@@ -156,13 +164,12 @@ public Mono<Void> onClose() {
 
   private static class InternalDuplexConnection implements DuplexConnection {
     private final DuplexConnection source;
-    private final MonoProcessor<Flux<ByteBuf>>[] processors;
+    private final Flux<ByteBuf> frames;
     private final boolean debugEnabled;
 
-    public InternalDuplexConnection(
-        DuplexConnection source, MonoProcessor<Flux<ByteBuf>>... processors) {
+    public InternalDuplexConnection(DuplexConnection source, Flux<ByteBuf> frames) {
       this.source = source;
-      this.processors = processors;
+      this.frames = frames;
       this.debugEnabled = LOGGER.isDebugEnabled();
     }
 
@@ -186,18 +193,11 @@ public Mono<Void> sendOne(ByteBuf frame) {
 
     @Override
     public Flux<ByteBuf> receive() {
-      return Flux.fromArray(processors)
-          .flatMap(
-              p ->
-                  p.flatMapMany(
-                      f -> {
-                        if (debugEnabled) {
-                          return f.doOnNext(
-                              frame -> LOGGER.debug("receiving -> " + FrameUtil.toString(frame)));
-                        } else {
-                          return f;
-                        }
-                      }));
+      if (debugEnabled) {
+        return frames.doOnNext(frame -> LOGGER.debug("receiving -> " + FrameUtil.toString(frame)));
+      } else {
+        return frames;
+      }
     }
 
     @Override
@@ -220,4 +220,185 @@ public double availability() {
       return source.availability();
     }
   }
+
+  /**
+   * Frames of one kind, for a single subscriber at a time. Frames are handed to the subscriber on
+   * the receiving thread whenever nothing is queued before them and there is demand; otherwise they
+   * are queued until the subscriber, possibly a later one, requests them. A subscriber may cancel
+   * and another one take over, as when the setup connection is only asked for its first frame.
+   * Frames still queued without a subscriber once the connection terminated are released.
+   */
+  static final class FrameSink extends Flux<ByteBuf> {
+    static final AtomicIntegerFieldUpdater<FrameSink> WIP =
+        AtomicIntegerFieldUpdater.newUpdater(FrameSink.class, "wip");
+    static final AtomicReferenceFieldUpdater<FrameSink, Inner> CURRENT =
+        AtomicReferenceFieldUpdater.newUpdater(FrameSink.class, Inner.class, "current");
+
+    final Queue<ByteBuf> queue = Queues.<ByteBuf>unbounded().get();
+
+    volatile Inner current;
+    volatile int wip;
+    volatile boolean done;
+    Throwable error;
+
+    @Override
+    public void subscribe(CoreSubscriber<? super ByteBuf> actual) {
+      Inner inner = new Inner(this, actual);
+      if (CURRENT.compareAndSet(this, null, inner)) {
+        actual.onSubscribe(inner);
+        drain();
+      } else {
+        Operators.error(
+            actual,
+            new IllegalStateException("Multiplexed connection allows only a single Subscriber"));
+      }
+    }
+
+    /** Called by the receiving thread only */
+    void onNext(ByteBuf frame) {
+      if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+        Inner inner = current;
+        if (inner != null && !inner.cancelled && inner.requested != 0 && queue.isEmpty()) {
+          inner.produced(1);
+          inner.actual.onNext(frame);
+        } else {
+          queue.offer(frame);
+        }
+        if (WIP.decrementAndGet(this) == 0) {
+          return;
+        }
+      } else {
+        queue.offer(frame);
+        if (WIP.getAndIncrement(this) != 0) {
+          return;
+        }
+      }
+      drainLoop();
+    }
+
+    void onError(Throwable t) {
+      error = t;
+      done = true;
+      drain();
+    }
+
+    void onComplete() {
+      done = true;
+      drain();
+    }
+
+    void drain() {
+      if (WIP.getAndIncrement(this) != 0) {
+        return;
+      }
+      drainLoop();
+    }
+
+    void drainLoop() {
+      final Queue<ByteBuf> q = queue;
+      int missed = 1;
+
+      for (; ; ) {
+        Inner inner = current;
+        if (inner == null) {
+          if (done) {
+            // no subscriber takes the frames left once the connection terminated
+            clear(q);
+          }
+        } else {
+          long r = inner.requested;
+          long e = 0L;
+
+          while (e != r && !inner.cancelled) {
+            boolean d = done;
+            ByteBuf frame = q.poll();
+            boolean empty = frame == null;
+
+            if (d && empty) {
+              terminate(inner);
+              return;
+            }
+
+            if (empty) {
+              break;
+            }
+
+            inner.actual.onNext(frame);
+            e++;
+          }
+
+          if (e == r && !inner.cancelled && done && q.isEmpty()) {
+            terminate(inner);
+            return;
+          }
+
+          if (e != 0) {
+            inner.produced(e);
+          }
+        }
+
+        missed = WIP.addAndGet(this, -missed);
+        if (missed == 0) {
+          break;
+        }
+      }
+    }
+
+    static void clear(Queue<ByteBuf> q) {
+      ByteBuf frame;
+      while ((frame = q.poll()) != null) {
+        frame.release();
+      }
+    }
+
+    void terminate(Inner inner) {
+      CURRENT.compareAndSet(this, inner, null);
+      Throwable e = error;
+      if (e != null) {
+        inner.actual.onError(e);
+      } else {
+        inner.actual.onComplete();
+      }
+    }
+
+    static final class Inner implements Subscription {
+      static final AtomicLongFieldUpdater<Inner> REQUESTED =
+          AtomicLongFieldUpdater.newUpdater(Inner.class, "requested");
+
+      final FrameSink parent;
+      final CoreSubscriber<? super ByteBuf> actual;
+
+      volatile long requested;
+      volatile boolean cancelled;
+
+      Inner(FrameSink parent, CoreSubscriber<? super ByteBuf> actual) {
+        this.parent = parent;
+        this.actual = actual;
+      }
+
+      @Override
+      public void request(long n) {
+        if (Operators.validate(n)) {
+          Operators.addCap(REQUESTED, this, n);
+          parent.drain();
+        }
+      }
+
+      @Override
+      public void cancel() {
+        if (!cancelled) {
+          cancelled = true;
+          // frames not taken yet are kept for the next subscriber
+          CURRENT.compareAndSet(parent, this, null);
+          parent.drain();
+        }
+      }
+
+      void produced(long n) {
+        if (requested != Long.MAX_VALUE) {
+          REQUESTED.addAndGet(this, -n);
+        }
+      }
+    }
+  }
 }
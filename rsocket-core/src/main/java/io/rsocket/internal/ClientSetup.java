@@ -76,7 +76,10 @@ public ResumableClientSetup(
         Duration resumeSessionDuration,
         Duration resumeStreamTimeout,
         Supplier<ResumeStrategy> resumeStrategySupplier,
-        boolean cleanupStoreOnKeepAlive) {
+        boolean cleanupStoreOnKeepAlive,
+        int racedConnections,
+        boolean standbyConnection,
+        long resumeWindowBytes) {
 
       ClientRSocketSession rSocketSession =
           new ClientRSocketSession(
@@ -86,7 +89,10 @@ public ResumableClientSetup(
                   resumeStrategySupplier,
                   resumableFramesStore,
                   resumeStreamTimeout,
-                  cleanupStoreOnKeepAlive)
+                  cleanupStoreOnKeepAlive,
+                  racedConnections,
+                  standbyConnection,
+                  resumeWindowBytes)
               .continueWith(newConnectionFactory)
               .resumeToken(resumeToken);
       this.duplexConnection = rSocketSession.resumableConnection();
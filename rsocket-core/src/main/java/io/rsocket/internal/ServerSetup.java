@@ -20,6 +20,7 @@
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.rsocket.exceptions.RejectedResumeException;
 import io.rsocket.exceptions.UnsupportedSetupException;
 import io.rsocket.frame.ResumeFrameFlyweight;
@@ -30,6 +31,7 @@
 import java.time.Duration;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import javax.annotation.Nullable;
 import reactor.core.publisher.Mono;
 
 public interface ServerSetup {
@@ -41,8 +43,29 @@ Mono<Void> acceptRSocketSetup(
 
   Mono<Void> acceptRSocketResume(ByteBuf frame, ClientServerInputMultiplexer multiplexer);
 
+  /**
+   * Accepts {@code RESUME}, and for sessions restored from before a restart of the server sets
+   * their RSocket up again with {@code setup}
+   */
+  default Mono<Void> acceptRSocketResume(
+      ByteBuf frame, ClientServerInputMultiplexer multiplexer, RestoredSetup setup) {
+    return acceptRSocketResume(frame, multiplexer);
+  }
+
   default void dispose() {}
 
+  /** Sets the RSocket of a session restored after a restart of the server up again */
+  interface RestoredSetup {
+
+    /**
+     * @param setupFrame {@code SETUP} frame the session was established with
+     * @param lastStreamId highest id of the streams requested by the previous server, the
+     *     requester of the restored session requests streams with higher ids
+     */
+    BiFunction<KeepAliveHandler, ClientServerInputMultiplexer, Mono<Void>> apply(
+        ByteBuf setupFrame, int lastStreamId);
+  }
+
   class DefaultServerSetup implements ServerSetup {
     private final ByteBufAllocator allocator;
 
@@ -91,6 +114,7 @@ class ResumableServerSetup implements ServerSetup {
     private final Duration resumeStreamTimeout;
     private final Function<? super ByteBuf, ? extends ResumableFramesStore> resumeStoreFactory;
     private final boolean cleanupStoreOnKeepAlive;
+    private final long resumeWindowBytes;
 
     public ResumableServerSetup(
         ByteBufAllocator allocator,
@@ -98,13 +122,15 @@ public ResumableServerSetup(
         Duration resumeSessionDuration,
         Duration resumeStreamTimeout,
         Function<? super ByteBuf, ? extends ResumableFramesStore> resumeStoreFactory,
-        boolean cleanupStoreOnKeepAlive) {
+        boolean cleanupStoreOnKeepAlive,
+        long resumeWindowBytes) {
       this.allocator = allocator;
       this.sessionManager = sessionManager;
       this.resumeSessionDuration = resumeSessionDuration;
       this.resumeStreamTimeout = resumeStreamTimeout;
       this.resumeStoreFactory = resumeStoreFactory;
       this.cleanupStoreOnKeepAlive = cleanupStoreOnKeepAlive;
+      this.resumeWindowBytes = resumeWindowBytes;
     }
 
     @Override
@@ -116,18 +142,20 @@ public Mono<Void> acceptRSocketSetup(
       if (SetupFrameFlyweight.resumeEnabled(frame)) {
         ByteBuf resumeToken = SetupFrameFlyweight.resumeToken(frame);
 
-        ResumableDuplexConnection connection =
-            sessionManager
-                .save(
-                    new ServerRSocketSession(
-                        multiplexer.asClientServerConnection(),
-                        allocator,
-                        resumeSessionDuration,
-                        resumeStreamTimeout,
-                        resumeStoreFactory,
-                        resumeToken,
-                        cleanupStoreOnKeepAlive))
-                .resumableConnection();
+        ServerRSocketSession session =
+            new ServerRSocketSession(
+                multiplexer.asClientServerConnection(),
+                allocator,
+                resumeSessionDuration,
+                resumeStreamTimeout,
+                resumeStoreFactory,
+                resumeToken,
+                cleanupStoreOnKeepAlive,
+                resumeWindowBytes);
+        if (sessionManager.isPersistent()) {
+          session.setupFrame(Unpooled.copiedBuffer(frame));
+        }
+        ResumableDuplexConnection connection = sessionManager.save(session).resumableConnection();
         return then.apply(
             new ResumableKeepAliveHandler(connection),
             new ClientServerInputMultiplexer(connection));
@@ -138,7 +166,20 @@ public Mono<Void> acceptRSocketSetup(
 
     @Override
     public Mono<Void> acceptRSocketResume(ByteBuf frame, ClientServerInputMultiplexer multiplexer) {
-      ServerRSocketSession session = sessionManager.get(ResumeFrameFlyweight.token(frame));
+      return acceptRSocketResume(frame, multiplexer, null);
+    }
+
+    @Override
+    public Mono<Void> acceptRSocketResume(
+        ByteBuf frame, ClientServerInputMultiplexer multiplexer, @Nullable RestoredSetup setup) {
+      ByteBuf token = ResumeFrameFlyweight.token(frame);
+      ServerRSocketSession session = sessionManager.get(token);
+      if (session == null && setup != null) {
+        ResumableSessionState state = sessionManager.restore(token);
+        if (state != null) {
+          return acceptRestoredResume(state, frame, multiplexer, setup);
+        }
+      }
       if (session != null) {
         return session
             .continueWith(multiplexer.asClientServerConnection())
@@ -155,6 +196,39 @@ public Mono<Void> acceptRSocketResume(ByteBuf frame, ClientServerInputMultiplexe
       }
     }
 
+    /* session saved by a previous server: restore its frames, set its RSocket up, then resume */
+    private Mono<Void> acceptRestoredResume(
+        ResumableSessionState state,
+        ByteBuf frame,
+        ClientServerInputMultiplexer multiplexer,
+        RestoredSetup setup) {
+      int lastStreamId = state.lastStreamId();
+      ServerRSocketSession session =
+          sessionManager.save(
+              ServerRSocketSession.restore(
+                  state,
+                  multiplexer.asClientServerConnection(),
+                  allocator,
+                  resumeSessionDuration,
+                  resumeStreamTimeout,
+                  resumeStoreFactory,
+                  cleanupStoreOnKeepAlive,
+                  resumeWindowBytes));
+      ResumableDuplexConnection connection = session.resumableConnection();
+
+      return setup
+          .apply(session.setupFrame().retainedDuplicate(), lastStreamId)
+          .apply(
+              new ResumableKeepAliveHandler(connection),
+              new ClientServerInputMultiplexer(connection))
+          .then(Mono.defer(() -> session.resumeWith(frame).onClose()))
+          .doOnError(
+              err -> {
+                frame.release();
+                session.dispose();
+              });
+    }
+
     private Mono<Void> sendError(ClientServerInputMultiplexer multiplexer, Exception exception) {
       return ConnectionUtils.sendError(allocator, multiplexer, exception);
     }
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.internal;
+
+import static io.netty.util.internal.MathUtil.safeFindNextPositivePowerOfTwo;
+
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A concurrent {@link IntObjectMap} keyed by stream id. Keys are spread over a fixed number of
+ * {@link IntObjectHashMap} stripes, each guarded by its own monitor, so that concurrent streams
+ * rarely contend on the same lock.
+ *
+ * <p>Stream ids issued by one {@code StreamIdSupplier} are consecutive odd (or even) numbers, hence
+ * keys are mixed before a stripe is selected.
+ *
+ * <p>Bulk views ({@link #entries()}, {@link #values()}, {@link #keySet()} and {@link #entrySet()})
+ * are read-only copies taken stripe by stripe. They are safe to iterate while other threads keep
+ * modifying the map, but do not reflect those modifications.
+ *
+ * @param <V> The value type stored in the map.
+ */
+public class StripedIntObjectHashMap<V> extends AbstractMap<Integer, V>
+    implements IntObjectMap<V> {
+
+  /** Default number of stripes. Used if not specified in the constructor */
+  public static final int DEFAULT_STRIPES =
+      Math.min(64, safeFindNextPositivePowerOfTwo(Runtime.getRuntime().availableProcessors() * 2));
+
+  /** Default initial capacity of each stripe. Used if not specified in the constructor */
+  public static final int DEFAULT_STRIPE_CAPACITY = 8;
+
+  private final IntObjectHashMap<V>[] stripes;
+  private final int mask;
+
+  public StripedIntObjectHashMap() {
+    this(DEFAULT_STRIPES, DEFAULT_STRIPE_CAPACITY);
+  }
+
+  @SuppressWarnings("unchecked")
+  public StripedIntObjectHashMap(int stripes, int stripeCapacity) {
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("stripes must be > 0");
+    }
+
+    int size = safeFindNextPositivePowerOfTwo(stripes);
+    this.mask = size - 1;
+    this.stripes = new IntObjectHashMap[size];
+    for (int i = 0; i < size; i++) {
+      this.stripes[i] = new IntObjectHashMap<>(stripeCapacity, Hashing.DEFAULT_LOAD_FACTOR);
+    }
+  }
+
+  private IntObjectHashMap<V> stripe(int key) {
+    int h = key * 0x9E3779B9;
+    return stripes[(h ^ (h >>> 16)) & mask];
+  }
+
+  @Override
+  public V get(int key) {
+    IntObjectHashMap<V> stripe = stripe(key);
+    synchronized (stripe) {
+      return stripe.get(key);
+    }
+  }
+
+  @Override
+  public V put(int key, V value) {
+    IntObjectHashMap<V> stripe = stripe(key);
+    synchronized (stripe) {
+      return stripe.put(key, value);
+    }
+  }
+
+  /**
+   * Associates {@code value} with {@code key} unless the key is already present.
+   *
+   * @return the value already associated with the key, or {@code null} if {@code value} was stored
+   */
+  public V putIfAbsent(int key, V value) {
+    IntObjectHashMap<V> stripe = stripe(key);
+    synchronized (stripe) {
+      V existing = stripe.get(key);
+      if (existing == null) {
+        stripe.put(key, value);
+      }
+      return existing;
+    }
+  }
+
+  @Override
+  public V remove(int key) {
+    IntObjectHashMap<V> stripe = stripe(key);
+    synchronized (stripe) {
+      return stripe.remove(key);
+    }
+  }
+
+  @Override
+  public boolean containsKey(int key) {
+    IntObjectHashMap<V> stripe = stripe(key);
+    synchronized (stripe) {
+      return stripe.containsKey(key);
+    }
+  }
+
+  @Override
+  public V get(Object key) {
+    return key instanceof Integer ? get((int) (Integer) key) : null;
+  }
+
+  @Override
+  public V put(Integer key, V value) {
+    return put((int) key, value);
+  }
+
+  @Override
+  public V remove(Object key) {
+    return key instanceof Integer ? remove((int) (Integer) key) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof Integer && containsKey((int) (Integer) key);
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (IntObjectHashMap<V> stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (IntObjectHashMap<V> stripe : stripes) {
+      synchronized (stripe) {
+        if (!stripe.isEmpty()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    for (IntObjectHashMap<V> stripe : stripes) {
+      synchronized (stripe) {
+        stripe.clear();
+      }
+    }
+  }
+
+  @Override
+  public Iterable<PrimitiveEntry<V>> entries() {
+    return snapshot().entries();
+  }
+
+  @Override
+  public Collection<V> values() {
+    List<V> values = new ArrayList<>();
+    for (IntObjectHashMap<V> stripe : stripes) {
+      synchronized (stripe) {
+        values.addAll(stripe.values());
+      }
+    }
+    return Collections.unmodifiableList(values);
+  }
+
+  @Override
+  public Set<Integer> keySet() {
+    return Collections.unmodifiableSet(snapshot().keySet());
+  }
+
+  @Override
+  public Set<Entry<Integer, V>> entrySet() {
+    return Collections.unmodifiableSet(snapshot().entrySet());
+  }
+
+  private IntObjectHashMap<V> snapshot() {
+    IntObjectHashMap<V> snapshot = new IntObjectHashMap<>();
+    for (IntObjectHashMap<V> stripe : stripes) {
+      synchronized (stripe) {
+        snapshot.putAll(stripe);
+      }
+    }
+    return snapshot;
+  }
+}
@@ -16,6 +16,7 @@
 
 package io.rsocket.internal;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.util.ReferenceCounted;
 import io.rsocket.internal.jctools.queues.MpscUnboundedArrayQueue;
 import java.util.Objects;
@@ -38,6 +39,12 @@
  *
  * <p>The implementation keeps the order of signals.
  *
+ * <p>Signals offered with {@link #onNextPrioritized(Object)} are always delivered first. A
+ * processor created with {@link #UnboundedProcessor(int...)} additionally has several lanes, which
+ * are served with deficit round robin: on its turn a lane may deliver up to {@value #QUANTUM} times
+ * its weight, where {@link ByteBuf}s count for their readable bytes and any other signal counts for
+ * one. The order of signals is kept within a lane only.
+ *
  * @param <T> the input and output type
  */
 public final class UnboundedProcessor<T> extends FluxProcessor<T, T>
@@ -55,8 +62,19 @@
   static final AtomicLongFieldUpdater<UnboundedProcessor> REQUESTED =
       AtomicLongFieldUpdater.newUpdater(UnboundedProcessor.class, "requested");
 
+  /** Share of a lane of weight 1 in a single round, in bytes for {@link ByteBuf}s */
+  public static final int QUANTUM = 1024;
+
   final Queue<T> queue;
   final Queue<T> priorityQueue;
+
+  /** lanes of a weighted processor, with {@link #queue} as lane 0. {@code null} otherwise */
+  @Nullable final Queue<T>[] lanes;
+
+  final int[] quanta;
+  final long[] deficits;
+  int lane;
+
   volatile boolean done;
   Throwable error;
   volatile CoreSubscriber<? super T> actual;
@@ -69,6 +87,39 @@
   public UnboundedProcessor() {
     this.queue = new MpscUnboundedArrayQueue<>(Queues.SMALL_BUFFER_SIZE);
     this.priorityQueue = new MpscUnboundedArrayQueue<>(Queues.SMALL_BUFFER_SIZE);
+    this.lanes = null;
+    this.quanta = null;
+    this.deficits = null;
+  }
+
+  /**
+   * Creates a processor with one lane per weight, see {@link #onNext(Object, int)}.
+   *
+   * @param weights relative share of each lane, all greater than zero
+   */
+  @SuppressWarnings("unchecked")
+  public UnboundedProcessor(int... weights) {
+    if (weights.length == 0) {
+      throw new IllegalArgumentException("at least one lane weight is required");
+    }
+    this.priorityQueue = new MpscUnboundedArrayQueue<>(Queues.SMALL_BUFFER_SIZE);
+    this.lanes = new Queue[weights.length];
+    this.quanta = new int[weights.length];
+    this.deficits = new long[weights.length];
+    for (int i = 0; i < weights.length; i++) {
+      if (weights[i] <= 0 || weights[i] > Integer.MAX_VALUE / QUANTUM) {
+        throw new IllegalArgumentException("lane weight must be in (0, 2^21): " + weights[i]);
+      }
+      this.lanes[i] = new MpscUnboundedArrayQueue<>(Queues.SMALL_BUFFER_SIZE);
+      this.quanta[i] = weights[i] * QUANTUM;
+    }
+    this.queue = lanes[0];
+  }
+
+  /** @return the number of lanes, {@code 1} for a processor without weights */
+  public int lanes() {
+    Queue<T>[] lanes = this.lanes;
+    return lanes != null ? lanes.length : 1;
   }
 
   @Override
@@ -78,7 +129,7 @@ public int getBufferSize() {
 
   @Override
   public Object scanUnsafe(Attr key) {
-    if (Attr.BUFFERED == key) return queue.size();
+    if (Attr.BUFFERED == key) return size();
     return super.scanUnsafe(key);
   }
 
@@ -103,7 +154,7 @@ void drainRegular(Subscriber<? super T> a) {
           t = pq.poll();
           empty = false;
         } else {
-          t = q.poll();
+          t = lanes == null ? q.poll() : pollLanes();
           empty = t == null;
         }
 
@@ -121,7 +172,7 @@ void drainRegular(Subscriber<? super T> a) {
       }
 
       if (r == e) {
-        if (checkTerminated(done, q.isEmpty() && pq.isEmpty(), a)) {
+        if (checkTerminated(done, isEmpty(), a)) {
           return;
         }
       }
@@ -137,6 +188,47 @@ void drainRegular(Subscriber<? super T> a) {
     }
   }
 
+  /**
+   * Polls the next signal of the weighted lanes. A lane keeps its turn while its deficit covers
+   * the cost of its head; otherwise the turn, together with a quantum, passes to the next lane. An
+   * empty lane forfeits its deficit, so idle lanes do not accumulate credit. Only called by the
+   * single consumer of this processor.
+   */
+  @Nullable
+  T pollLanes() {
+    final Queue<T>[] lanes = this.lanes;
+    final long[] deficits = this.deficits;
+    final int n = lanes.length;
+
+    int i = lane;
+    int idle = 0;
+    for (; ; ) {
+      T t = lanes[i].peek();
+      if (t == null) {
+        deficits[i] = 0;
+        if (++idle == n) {
+          lane = i;
+          return null;
+        }
+      } else {
+        idle = 0;
+        int cost = cost(t);
+        if (cost <= deficits[i]) {
+          deficits[i] -= cost;
+          lane = i;
+          return lanes[i].poll();
+        }
+      }
+
+      i = i + 1 == n ? 0 : i + 1;
+      deficits[i] += quanta[i];
+    }
+  }
+
+  static int cost(Object t) {
+    return t instanceof ByteBuf ? Math.max(((ByteBuf) t).readableBytes(), 1) : 1;
+  }
+
   void drainFused(Subscriber<? super T> a) {
     int missed = 1;
 
@@ -260,6 +352,19 @@ public void onNextPrioritized(T t) {
 
   @Override
   public void onNext(T t) {
+    onNext(t, queue);
+  }
+
+  /**
+   * Offers a signal to the given lane. Lanes which are out of range, including any lane but {@code
+   * 0} of a processor without weights, fall back to lane {@code 0}.
+   */
+  public void onNext(T t, int lane) {
+    Queue<T>[] lanes = this.lanes;
+    onNext(t, lanes != null && lane > 0 && lane < lanes.length ? lanes[lane] : queue);
+  }
+
+  void onNext(T t, Queue<T> queue) {
     if (done || cancelled) {
       Operators.onNextDropped(t, currentContext());
       release(t);
@@ -347,29 +452,55 @@ public T poll() {
     if (!pq.isEmpty()) {
       return pq.poll();
     }
-    return queue.poll();
+    return lanes == null ? queue.poll() : pollLanes();
   }
 
   @Override
   public int size() {
-    return priorityQueue.size() + queue.size();
+    Queue<T>[] lanes = this.lanes;
+    if (lanes == null) {
+      return priorityQueue.size() + queue.size();
+    }
+    int size = priorityQueue.size();
+    for (Queue<T> lane : lanes) {
+      size += lane.size();
+    }
+    return size;
   }
 
   @Override
   public boolean isEmpty() {
-    return priorityQueue.isEmpty() && queue.isEmpty();
+    Queue<T>[] lanes = this.lanes;
+    if (lanes == null) {
+      return priorityQueue.isEmpty() && queue.isEmpty();
+    }
+    if (!priorityQueue.isEmpty()) {
+      return false;
+    }
+    for (Queue<T> lane : lanes) {
+      if (!lane.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
   public void clear() {
-    while (!queue.isEmpty()) {
-      T t = queue.poll();
-      if (t != null) {
-        release(t);
+    Queue<T>[] lanes = this.lanes;
+    if (lanes == null) {
+      clear(queue);
+    } else {
+      for (Queue<T> lane : lanes) {
+        clear(lane);
       }
     }
-    while (!priorityQueue.isEmpty()) {
-      T t = priorityQueue.poll();
+    clear(priorityQueue);
+  }
+
+  void clear(Queue<T> queue) {
+    while (!queue.isEmpty()) {
+      T t = queue.poll();
       if (t != null) {
         release(t);
       }
@@ -21,6 +21,7 @@
 import io.netty.buffer.Unpooled;
 import io.rsocket.frame.KeepAliveFrameFlyweight;
 import io.rsocket.resume.ResumeStateHolder;
+import io.rsocket.util.Clock;
 import java.time.Duration;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
@@ -31,25 +32,25 @@ public abstract class KeepAliveSupport implements KeepAliveFramesAcceptor {
   final ByteBufAllocator allocator;
   private final Duration keepAliveInterval;
   private final Duration keepAliveTimeout;
-  private final long keepAliveTimeoutMillis;
+  private final long keepAliveTimeoutNanos;
   private volatile Consumer<KeepAlive> onTimeout;
   private volatile Consumer<ByteBuf> onFrameSent;
   private volatile Disposable ticksDisposable;
   private final AtomicBoolean started = new AtomicBoolean();
 
   private volatile ResumeStateHolder resumeStateHolder;
-  private volatile long lastReceivedMillis;
+  private volatile long lastReceivedNanos;
 
   private KeepAliveSupport(
       ByteBufAllocator allocator, int keepAliveInterval, int keepAliveTimeout) {
     this.allocator = allocator;
     this.keepAliveInterval = Duration.ofMillis(keepAliveInterval);
     this.keepAliveTimeout = Duration.ofMillis(keepAliveTimeout);
-    this.keepAliveTimeoutMillis = keepAliveTimeout;
+    this.keepAliveTimeoutNanos = this.keepAliveTimeout.toNanos();
   }
 
   public KeepAliveSupport start() {
-    this.lastReceivedMillis = System.currentTimeMillis();
+    this.lastReceivedNanos = Clock.nanoTime();
     if (started.compareAndSet(false, true)) {
       ticksDisposable = Flux.interval(keepAliveInterval).subscribe(v -> onIntervalTick());
     }
@@ -64,7 +65,7 @@ public void stop() {
 
   @Override
   public void receive(ByteBuf keepAliveFrame) {
-    this.lastReceivedMillis = System.currentTimeMillis();
+    this.lastReceivedNanos = Clock.nanoTime();
     if (resumeStateHolder != null) {
       long remoteLastReceivedPos = remoteLastReceivedPosition(keepAliveFrame);
       resumeStateHolder.onImpliedPosition(remoteLastReceivedPos);
@@ -104,8 +105,8 @@ void send(ByteBuf frame) {
   }
 
   void tryTimeout() {
-    long now = System.currentTimeMillis();
-    if (now - lastReceivedMillis >= keepAliveTimeoutMillis) {
+    long now = Clock.nanoTime();
+    if (now - lastReceivedNanos >= keepAliveTimeoutNanos) {
       if (onTimeout != null) {
         onTimeout.accept(new KeepAlive(keepAliveInterval, keepAliveTimeout));
       }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.lease;
+
+import java.time.Duration;
+
+/**
+ * Additive increase, multiplicative decrease {@link ConcurrencyLimit}: the limit is backed off
+ * whenever a request takes longer than a latency threshold, and is increased by one otherwise while
+ * the responder uses at least half of it.
+ */
+public class AimdConcurrencyLimit implements ConcurrencyLimit {
+  private final int minLimit;
+  private final int maxLimit;
+  private final long thresholdNanos;
+  private final double backoffRatio;
+
+  private volatile int limit;
+
+  /** AIMD limit starting at 20 requests, backed off by 10% for requests longer than 100 ms */
+  public AimdConcurrencyLimit() {
+    this(20, 1, 1000, Duration.ofMillis(100), 0.9);
+  }
+
+  /**
+   * @param initialLimit limit until samples are reported
+   * @param minLimit lower bound of the limit
+   * @param maxLimit upper bound of the limit
+   * @param threshold requests taking longer than this indicate an overloaded responder
+   * @param backoffRatio multiplier applied to the limit on overload, in range (0, 1)
+   */
+  public AimdConcurrencyLimit(
+      int initialLimit, int minLimit, int maxLimit, Duration threshold, double backoffRatio) {
+    if (minLimit < 1 || maxLimit < minLimit) {
+      throw new IllegalArgumentException(
+          String.format("Invalid limit bounds: [%d, %d]", minLimit, maxLimit));
+    }
+    if (backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("backoffRatio must be in range (0, 1): " + backoffRatio);
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.thresholdNanos = threshold.toNanos();
+    this.backoffRatio = backoffRatio;
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+  }
+
+  @Override
+  public int limit() {
+    return limit;
+  }
+
+  @Override
+  public synchronized void onSample(long rttNanos, int inFlight) {
+    int current = limit;
+    if (rttNanos > thresholdNanos) {
+      limit = Math.max(minLimit, (int) (current * backoffRatio));
+    } else if (inFlight * 2 >= current) {
+      limit = Math.min(maxLimit, current + 1);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "AimdConcurrencyLimit{limit=" + limit + '}';
+  }
+}
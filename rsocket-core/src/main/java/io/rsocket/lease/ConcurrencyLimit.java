@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.lease;
+
+/**
+ * Number of requests a responder handles concurrently before it is considered overloaded, adjusted
+ * from the latency of completed requests. Used by {@link ConcurrencyLimitLeaseSender}.
+ *
+ * <p>Implementations must be thread safe: samples are reported from the threads responses
+ * terminate on.
+ */
+public interface ConcurrencyLimit {
+
+  /** @return current concurrency limit, at least 1 */
+  int limit();
+
+  /**
+   * @param rttNanos time it took to handle a request
+   * @param inFlight requests handled concurrently when the request terminated, including it
+   */
+  void onSample(long rttNanos, int inFlight);
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.lease;
+
+import io.rsocket.frame.FrameType;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Lease sender of a single connection which sizes leases from a {@link ConcurrencyLimit}, so that
+ * an overloaded responder sheds load by sending smaller leases instead of queueing requests.
+ *
+ * <p>Latency and number of in-flight requests are measured for request-response and
+ * fire-and-forget requests through the {@link LeaseStats} hooks. Streams and channels are not
+ * sampled as their duration is set by the requester. By Little's law a responder handling {@code
+ * limit} requests concurrently completes {@code limit / rtt} requests per unit of time, so each
+ * lease allows that many requests over its time-to-live, plus the capacity not used by requests in
+ * flight. Time-to-live is a multiple of the smoothed latency, bounded by {@code minTtl} and {@code
+ * maxTtl}, and leases are renewed before they expire.
+ *
+ * <pre>{@code
+ * RSocketFactory.receive()
+ *     .lease(() -> ConcurrencyLimitLeaseSender.leases(new VegasConcurrencyLimit()))
+ * }</pre>
+ */
+public class ConcurrencyLimitLeaseSender
+    implements LeaseStats, Function<Optional<ConcurrencyLimitLeaseSender>, Flux<Lease>> {
+  private static final int TTL_RTT_MULTIPLIER = 10;
+
+  private final ConcurrencyLimit concurrencyLimit;
+  private final long minTtlNanos;
+  private final long maxTtlNanos;
+  private final Scheduler scheduler;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong rejected = new AtomicLong();
+  /* smoothed latency of sampled requests, guarded by this */
+  private long rttNanos;
+
+  /** @param concurrencyLimit limit of this connection, not shared with other connections */
+  public ConcurrencyLimitLeaseSender(ConcurrencyLimit concurrencyLimit) {
+    this(concurrencyLimit, Duration.ofMillis(50), Duration.ofSeconds(5), Schedulers.parallel());
+  }
+
+  /**
+   * @param concurrencyLimit limit of this connection, not shared with other connections
+   * @param minTtl lower bound of lease time-to-live
+   * @param maxTtl upper bound of lease time-to-live
+   * @param scheduler scheduler leases are renewed on
+   */
+  public ConcurrencyLimitLeaseSender(
+      ConcurrencyLimit concurrencyLimit, Duration minTtl, Duration maxTtl, Scheduler scheduler) {
+    this.concurrencyLimit = Objects.requireNonNull(concurrencyLimit, "concurrencyLimit");
+    this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+    this.minTtlNanos = minTtl.toNanos();
+    this.maxTtlNanos = maxTtl.toNanos();
+    if (minTtlNanos < TimeUnit.MILLISECONDS.toNanos(1) || maxTtlNanos < minTtlNanos) {
+      throw new IllegalArgumentException(
+          String.format("Invalid lease time-to-live bounds: [%s, %s]", minTtl, maxTtl));
+    }
+  }
+
+  /** @return leases of a connection, sent and sized by a new {@link ConcurrencyLimitLeaseSender} */
+  public static Leases<ConcurrencyLimitLeaseSender> leases(ConcurrencyLimit concurrencyLimit) {
+    ConcurrencyLimitLeaseSender sender = new ConcurrencyLimitLeaseSender(concurrencyLimit);
+    return Leases.<ConcurrencyLimitLeaseSender>create().sender(sender).stats(sender);
+  }
+
+  @Override
+  public Flux<Lease> apply(Optional<ConcurrencyLimitLeaseSender> stats) {
+    return Flux.defer(
+            () -> {
+              Lease lease = nextLease();
+              long renewMillis = Math.max(1, lease.getTimeToLiveMillis() * 3L / 4);
+              return Mono.just(lease)
+                  .concatWith(
+                      Mono.delay(Duration.ofMillis(renewMillis), scheduler)
+                          .then(Mono.<Lease>empty()));
+            })
+        .repeat();
+  }
+
+  /** @return lease sized from current limit, latency and in-flight requests */
+  Lease nextLease() {
+    int limit = concurrencyLimit.limit();
+    long rtt = rttNanos();
+    if (rtt == 0) {
+      return Lease.create(toMillis(minTtlNanos), limit);
+    }
+    long ttl = Math.max(minTtlNanos, Math.min(maxTtlNanos, rtt * TTL_RTT_MULTIPLIER));
+    long allowed = limit * ttl / rtt + limit - inFlight.get();
+    return Lease.create(toMillis(ttl), (int) Math.max(1, Math.min(Integer.MAX_VALUE, allowed)));
+  }
+
+  @Override
+  public void onEvent(EventType eventType) {
+    if (eventType == EventType.REJECT) {
+      rejected.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void onRequestStart(FrameType requestType) {
+    if (isSampled(requestType)) {
+      inFlight.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void onRequestEnd(FrameType requestType, long durationNanos, SignalType signal) {
+    if (!isSampled(requestType)) {
+      return;
+    }
+    int current = inFlight.getAndDecrement();
+    if (signal != SignalType.CANCEL) {
+      synchronized (this) {
+        long rtt = rttNanos;
+        rttNanos = rtt == 0 ? durationNanos : rtt + (durationNanos - rtt) / 8;
+      }
+      concurrencyLimit.onSample(durationNanos, current);
+    }
+  }
+
+  /** @return current concurrency limit */
+  public int limit() {
+    return concurrencyLimit.limit();
+  }
+
+  /** @return request-response and fire-and-forget requests currently handled */
+  public int inFlight() {
+    return inFlight.get();
+  }
+
+  /** @return requests rejected for lack of a valid lease */
+  public long rejected() {
+    return rejected.get();
+  }
+
+  /** @return smoothed latency of sampled requests, or zero before any completed */
+  public Duration rtt() {
+    return Duration.ofNanos(rttNanos());
+  }
+
+  private synchronized long rttNanos() {
+    return rttNanos;
+  }
+
+  private static boolean isSampled(FrameType requestType) {
+    return requestType == FrameType.REQUEST_RESPONSE || requestType == FrameType.REQUEST_FNF;
+  }
+
+  private static int toMillis(long nanos) {
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMillis(nanos)));
+  }
+}
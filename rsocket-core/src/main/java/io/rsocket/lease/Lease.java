@@ -19,6 +19,7 @@
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.rsocket.Availability;
+import io.rsocket.util.Clock;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -87,7 +88,7 @@ default int getRemainingTimeToLiveMillis(long now) {
    * @return {@code true} if the lease has expired.
    */
   default boolean isExpired() {
-    return isExpired(System.currentTimeMillis());
+    return isExpired(Clock.currentTimeMillis());
   }
 
   /**
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.lease;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Lease budget of a server, shared by all of its connections. Every interval the coordinator grants
+ * each connection a lease with a share of {@code capacity} requests, so that the server as a whole
+ * does not allow more than {@code capacity} requests per interval.
+ *
+ * <p>Shares follow demand: a connection asks for twice the requests it received during the previous
+ * interval, and at least one. If connections ask for more than the capacity, each is granted one
+ * request and the rest of the capacity is split among them in proportion to what they ask for.
+ * Otherwise the capacity left over is kept for connections established during the interval, which
+ * are granted a lease right away.
+ *
+ * <p>If there are more connections than the capacity, connections take turns: each interval {@code
+ * capacity} of them are granted one request and the others no lease.
+ *
+ * <pre>{@code
+ * LeaseCoordinator coordinator = new LeaseCoordinator(10_000, Duration.ofSeconds(1));
+ * RSocketFactory.receive().lease(coordinator)
+ * }</pre>
+ */
+public class LeaseCoordinator implements Disposable {
+  private final int capacity;
+  private final long intervalNanos;
+  private final Scheduler scheduler;
+  private final Disposable ticker;
+
+  /* guarded by this */
+  private final List<Connection> connections = new ArrayList<>();
+  private int remaining;
+  private long rebalancedAt;
+  private int turn;
+
+  /**
+   * @param capacity requests allowed across all connections per interval
+   * @param interval interval leases are granted at
+   */
+  public LeaseCoordinator(int capacity, Duration interval) {
+    this(capacity, interval, Schedulers.parallel());
+  }
+
+  /**
+   * @param capacity requests allowed across all connections per interval
+   * @param interval interval leases are granted at
+   * @param scheduler scheduler leases are granted on
+   */
+  public LeaseCoordinator(int capacity, Duration interval, Scheduler scheduler) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    if (interval.toMillis() <= 0) {
+      throw new IllegalArgumentException("interval must be at least 1 millisecond: " + interval);
+    }
+    this.capacity = capacity;
+    this.intervalNanos = interval.toNanos();
+    this.scheduler = scheduler;
+    this.remaining = capacity;
+    this.rebalancedAt = now();
+    this.ticker = Flux.interval(interval, scheduler).subscribe(tick -> rebalance(now()));
+  }
+
+  /** @return leases of a new connection, to be passed to {@code ServerRSocketFactory.lease} */
+  public Leases<ConnectionStats> leases() {
+    ConnectionStats stats = new ConnectionStats();
+    return Leases.<ConnectionStats>create().sender(new Connection(stats)).stats(stats);
+  }
+
+  /** @return number of connections leases are granted to */
+  public synchronized int connections() {
+    return connections.size();
+  }
+
+  @Override
+  public void dispose() {
+    ticker.dispose();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return ticker.isDisposed();
+  }
+
+  private long now() {
+    return scheduler.now(TimeUnit.NANOSECONDS);
+  }
+
+  void rebalance(long now) {
+    Connection[] granted;
+    int[] shares;
+    synchronized (this) {
+      rebalancedAt = now;
+      granted = connections.toArray(new Connection[0]);
+      shares = shares(granted);
+    }
+    /*leases are sent outside of the monitor*/
+    for (int i = 0; i < granted.length; i++) {
+      granted[i].grant(intervalNanos, shares[i]);
+    }
+  }
+
+  /* guarded by this */
+  private int[] shares(Connection[] granted) {
+    int count = granted.length;
+    int[] shares = new int[count];
+    long[] wanted = new long[count];
+    long total = 0;
+    for (int i = 0; i < count; i++) {
+      wanted[i] = Math.max(1, 2L * granted[i].stats.demand.getAndSet(0));
+      total += wanted[i];
+    }
+    if (count > capacity) {
+      for (int i = 0; i < capacity; i++) {
+        shares[(turn + i) % count] = 1;
+      }
+      turn = (turn + capacity) % count;
+      remaining = 0;
+      return shares;
+    }
+    long sum = 0;
+    for (int i = 0; i < count; i++) {
+      long share =
+          total <= capacity
+              ? wanted[i]
+              : 1 + (wanted[i] - 1) * (capacity - count) / (total - count);
+      sum += share;
+      shares[i] = (int) share;
+    }
+    remaining = (int) (capacity - sum);
+    return shares;
+  }
+
+  void register(Connection connection, long now) {
+    long ttlNanos;
+    int share;
+    synchronized (this) {
+      connections.add(connection);
+      ttlNanos = intervalNanos - (now - rebalancedAt);
+      share = Math.min(remaining, Math.max(1, capacity / connections.size()));
+      if (ttlNanos <= 0 || share <= 0) {
+        return;
+      }
+      remaining -= share;
+    }
+    connection.grant(ttlNanos, share);
+  }
+
+  synchronized void unregister(Connection connection) {
+    connections.remove(connection);
+  }
+
+  /** Requests received by a connection during the current interval */
+  public static final class ConnectionStats implements LeaseStats {
+    private final AtomicInteger demand = new AtomicInteger();
+
+    private ConnectionStats() {}
+
+    @Override
+    public void onEvent(EventType eventType) {
+      if (eventType != EventType.TERMINATE) {
+        demand.incrementAndGet();
+      }
+    }
+  }
+
+  final class Connection implements Function<Optional<ConnectionStats>, Flux<Lease>> {
+    final ConnectionStats stats;
+    private FluxSink<Lease> sink;
+
+    Connection(ConnectionStats stats) {
+      this.stats = stats;
+    }
+
+    @Override
+    public Flux<Lease> apply(Optional<ConnectionStats> connectionStats) {
+      return Flux.create(
+          sink -> {
+            this.sink = sink;
+            sink.onDispose(() -> unregister(this));
+            register(this, now());
+          });
+    }
+
+    void grant(long ttlNanos, int allowedRequests) {
+      if (allowedRequests > 0) {
+        int ttlMillis = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(ttlNanos));
+        sink.next(Lease.create(ttlMillis, allowedRequests));
+      }
+    }
+  }
+}
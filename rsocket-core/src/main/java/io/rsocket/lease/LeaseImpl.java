@@ -18,31 +18,64 @@
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.rsocket.util.Clock;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 public class LeaseImpl implements Lease {
+  /* ints per stripe, so that stripes are on separate cache lines */
+  private static final int STRIPE_PADDING = 16;
+
   private final int timeToLiveMillis;
   private final AtomicInteger allowedRequests;
+  /* allowed requests split among stripes, or null if not striped */
+  @Nullable private final AtomicIntegerArray stripedRequests;
+  private final int stripes;
   private final int startingAllowedRequests;
   private final ByteBuf metadata;
   private final long expiry;
 
   static LeaseImpl create(int timeToLiveMillis, int numberOfRequests, @Nullable ByteBuf metadata) {
+    return create(timeToLiveMillis, numberOfRequests, metadata, 1);
+  }
+
+  /**
+   * @param stripes number of counters allowed requests are split among, so that threads using the
+   *     lease concurrently do not contend on a single one
+   */
+  static LeaseImpl create(
+      int timeToLiveMillis, int numberOfRequests, @Nullable ByteBuf metadata, int stripes) {
     assertLease(timeToLiveMillis, numberOfRequests);
-    return new LeaseImpl(timeToLiveMillis, numberOfRequests, metadata);
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("Number of stripes must be positive");
+    }
+    return new LeaseImpl(
+        timeToLiveMillis, numberOfRequests, metadata, Math.min(stripes, numberOfRequests));
   }
 
   static LeaseImpl empty() {
-    return new LeaseImpl(0, 0, null);
+    return new LeaseImpl(0, 0, null, 1);
   }
 
-  private LeaseImpl(int timeToLiveMillis, int allowedRequests, @Nullable ByteBuf metadata) {
-    this.allowedRequests = new AtomicInteger(allowedRequests);
+  private LeaseImpl(
+      int timeToLiveMillis, int allowedRequests, @Nullable ByteBuf metadata, int stripes) {
     this.startingAllowedRequests = allowedRequests;
     this.timeToLiveMillis = timeToLiveMillis;
     this.metadata = metadata == null ? Unpooled.EMPTY_BUFFER : metadata;
+    this.stripes = stripes;
+    if (stripes > 1) {
+      this.allowedRequests = null;
+      this.stripedRequests = new AtomicIntegerArray(stripes * STRIPE_PADDING);
+      for (int i = 0; i < stripes; i++) {
+        int stripeRequests = allowedRequests / stripes + (i < allowedRequests % stripes ? 1 : 0);
+        stripedRequests.set(i * STRIPE_PADDING, stripeRequests);
+      }
+    } else {
+      this.allowedRequests = new AtomicInteger(allowedRequests);
+      this.stripedRequests = null;
+    }
     this.expiry = timeToLiveMillis == 0 ? 0 : now() + timeToLiveMillis;
   }
 
@@ -52,7 +85,15 @@ public int getTimeToLiveMillis() {
 
   @Override
   public int getAllowedRequests() {
-    return Math.max(0, allowedRequests.get());
+    AtomicIntegerArray striped = stripedRequests;
+    if (striped == null) {
+      return Math.max(0, allowedRequests.get());
+    }
+    int allowed = 0;
+    for (int i = 0; i < stripes; i++) {
+      allowed += Math.max(0, striped.get(i * STRIPE_PADDING));
+    }
+    return allowed;
   }
 
   @Override
@@ -85,11 +126,29 @@ public boolean use() {
     if (isExpired()) {
       return false;
     }
+    AtomicIntegerArray striped = stripedRequests;
+    if (striped != null) {
+      return useStripe(striped);
+    }
     int remaining =
         allowedRequests.accumulateAndGet(1, (cur, update) -> Math.max(-1, cur - update));
     return remaining >= 0;
   }
 
+  /* starts with the stripe of the current thread, and takes from others once it is used up */
+  private boolean useStripe(AtomicIntegerArray striped) {
+    int start = (int) (Thread.currentThread().getId() % stripes);
+    for (int i = 0; i < stripes; i++) {
+      int index = ((start + i) % stripes) * STRIPE_PADDING;
+      for (int cur = striped.get(index); cur > 0; cur = striped.get(index)) {
+        if (striped.compareAndSet(index, cur, cur - 1)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   @Override
   public double availability() {
     return isValid() ? getAllowedRequests() / (double) getStartingAllowedRequests() : 0.0;
@@ -113,7 +172,7 @@ public String toString() {
   }
 
   private static long now() {
-    return System.currentTimeMillis();
+    return Clock.currentTimeMillis();
   }
 
   private static void assertLease(int timeToLiveMillis, int numberOfRequests) {
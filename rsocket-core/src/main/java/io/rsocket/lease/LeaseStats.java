@@ -16,10 +16,29 @@
 
 package io.rsocket.lease;
 
+import io.rsocket.frame.FrameType;
+import reactor.core.publisher.SignalType;
+
 public interface LeaseStats {
 
   void onEvent(EventType eventType);
 
+  /**
+   * Called when the responder starts to handle a request accepted under the lease
+   *
+   * @param requestType type of the request frame
+   */
+  default void onRequestStart(FrameType requestType) {}
+
+  /**
+   * Called once the handling of a request accepted under the lease terminates
+   *
+   * @param requestType type of the request frame
+   * @param durationNanos time from {@link #onRequestStart(FrameType)} to termination
+   * @param signal how the response terminated, {@link SignalType#CANCEL} if the requester cancelled
+   */
+  default void onRequestEnd(FrameType requestType, long durationNanos, SignalType signal) {}
+
   enum EventType {
     ACCEPT,
     REJECT,
@@ -16,6 +16,7 @@
 
 package io.rsocket.lease;
 
+import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -29,6 +30,10 @@
   private Function<?, Flux<Lease>> leaseSender = noopLeaseSender;
   private Consumer<Flux<Lease>> leaseReceiver = noopLeaseReceiver;
   private Optional<T> stats = Optional.empty();
+  private int allowanceStripes = 1;
+  private int maxPendingRequests;
+  private Duration maxPendingTime = Duration.ZERO;
+  private Consumer<Duration> pendingTimeRecorder = pendingTime -> {};
 
   public static <T extends LeaseStats> Leases<T> create() {
     return new Leases<>();
@@ -49,6 +54,49 @@ public Leases<T> stats(T stats) {
     return this;
   }
 
+  /**
+   * Splits allowed requests of each lease sent among counters, so that requests handled
+   * concurrently by many threads of a connection do not contend on a single one. Leases check
+   * expiration with {@link io.rsocket.util.Clock}, which may be made cheaper to read with a {@link
+   * io.rsocket.util.CachedTimeSource}.
+   *
+   * @param stripes number of counters, e.g. the number of threads handling requests
+   */
+  public Leases<T> stripedAllowance(int stripes) {
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("stripes must be positive: " + stripes);
+    }
+    this.allowanceStripes = stripes;
+    return this;
+  }
+
+  /**
+   * Lets requests not allowed by the current lease wait for the next one, instead of failing with
+   * {@link io.rsocket.exceptions.MissingLeaseException} right away. Waiting requests are sent in
+   * FIFO order as leases arrive.
+   *
+   * @param maxPendingRequests number of requests waiting for a lease, further requests fail
+   * @param maxPendingTime time a request waits for a lease before it fails
+   */
+  public Leases<T> pendingRequests(int maxPendingRequests, Duration maxPendingTime) {
+    if (maxPendingRequests < 0) {
+      throw new IllegalArgumentException(
+          "maxPendingRequests must be non-negative: " + maxPendingRequests);
+    }
+    this.maxPendingRequests = maxPendingRequests;
+    this.maxPendingTime = Objects.requireNonNull(maxPendingTime);
+    return this;
+  }
+
+  /**
+   * @param pendingTimeRecorder called with the time each request waited for a lease, e.g. {@code
+   *     Timer::record} of a Micrometer timer
+   */
+  public Leases<T> pendingTime(Consumer<Duration> pendingTimeRecorder) {
+    this.pendingTimeRecorder = Objects.requireNonNull(pendingTimeRecorder);
+    return this;
+  }
+
   @SuppressWarnings("unchecked")
   public Function<Optional<LeaseStats>, Flux<Lease>> sender() {
     return (Function<Optional<LeaseStats>, Flux<Lease>>) leaseSender;
@@ -62,4 +110,20 @@ public Consumer<Flux<Lease>> receiver() {
   public Optional<LeaseStats> stats() {
     return (Optional<LeaseStats>) stats;
   }
+
+  public int allowanceStripes() {
+    return allowanceStripes;
+  }
+
+  public int maxPendingRequests() {
+    return maxPendingRequests;
+  }
+
+  public Duration maxPendingTime() {
+    return maxPendingTime;
+  }
+
+  public Consumer<Duration> pendingTimeRecorder() {
+    return pendingTimeRecorder;
+  }
 }
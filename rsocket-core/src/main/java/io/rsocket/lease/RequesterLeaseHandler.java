@@ -20,10 +20,20 @@
 import io.rsocket.Availability;
 import io.rsocket.exceptions.MissingLeaseException;
 import io.rsocket.frame.LeaseFrameFlyweight;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
 import reactor.core.publisher.ReplayProcessor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 public interface RequesterLeaseHandler extends Availability, Disposable {
 
@@ -35,20 +45,117 @@ public interface RequesterLeaseHandler extends Availability, Disposable {
 
   void dispose();
 
+  /** @return whether requests not allowed by {@link #useLease()} wait in {@link #awaitLease()} */
+  default boolean isQueueing() {
+    return false;
+  }
+
+  /**
+   * @return completes once an allowed request of the lease is used for the caller, or errors with
+   *     {@link #leaseError()} if requests are not queued
+   */
+  default Mono<Void> awaitLease() {
+    return Mono.error(leaseError());
+  }
+
+  /**
+   * Requester lease handler. Requests not allowed by the current lease fail right away, unless
+   * {@code maxPendingRequests} is positive: then they wait for the next lease in a queue of that
+   * size, for at most {@code maxPendingTime}, and are sent in FIFO order as leases arrive.
+   */
   final class Impl implements RequesterLeaseHandler {
     private final String tag;
     private final ReplayProcessor<Lease> receivedLease;
+    private final int maxPendingRequests;
+    private final long maxPendingNanos;
+    private final Consumer<Duration> pendingTimeRecorder;
+    private final Scheduler scheduler;
+    /* guarded by this */
+    private final ArrayDeque<PendingRequest> pending = new ArrayDeque<>();
+    private volatile int pendingCount;
     private volatile LeaseImpl currentLease = LeaseImpl.empty();
 
     public Impl(String tag, Consumer<Flux<Lease>> leaseReceiver) {
+      this(tag, leaseReceiver, 0, Duration.ZERO, t -> {});
+    }
+
+    /**
+     * @param maxPendingRequests number of requests waiting for a lease, 0 to fail them right away
+     * @param maxPendingTime time a request waits for a lease before it fails
+     * @param pendingTimeRecorder called with the time each request waited for a lease
+     */
+    public Impl(
+        String tag,
+        Consumer<Flux<Lease>> leaseReceiver,
+        int maxPendingRequests,
+        Duration maxPendingTime,
+        Consumer<Duration> pendingTimeRecorder) {
+      this(
+          tag,
+          leaseReceiver,
+          maxPendingRequests,
+          maxPendingTime,
+          pendingTimeRecorder,
+          Schedulers.parallel());
+    }
+
+    Impl(
+        String tag,
+        Consumer<Flux<Lease>> leaseReceiver,
+        int maxPendingRequests,
+        Duration maxPendingTime,
+        Consumer<Duration> pendingTimeRecorder,
+        Scheduler scheduler) {
       this.tag = tag;
+      this.maxPendingRequests = maxPendingRequests;
+      this.maxPendingNanos = maxPendingTime.toNanos();
+      this.pendingTimeRecorder = pendingTimeRecorder;
+      this.scheduler = scheduler;
       receivedLease = ReplayProcessor.create(1);
       leaseReceiver.accept(receivedLease);
     }
 
     @Override
     public boolean useLease() {
-      return currentLease.use();
+      /* requests waiting for a lease go first */
+      return pendingCount == 0 && currentLease.use();
+    }
+
+    @Override
+    public boolean isQueueing() {
+      return maxPendingRequests > 0;
+    }
+
+    @Override
+    public Mono<Void> awaitLease() {
+      if (!isQueueing()) {
+        return Mono.error(leaseError());
+      }
+      return Mono.create(
+          sink -> {
+            PendingRequest request = new PendingRequest(sink, scheduler.now(TimeUnit.NANOSECONDS));
+            synchronized (this) {
+              if (pending.isEmpty() && currentLease.use()) {
+                sink.success();
+                return;
+              }
+              if (pending.size() >= maxPendingRequests || receivedLease.isTerminated()) {
+                sink.error(leaseError());
+                return;
+              }
+              /*assigned before the request can be taken from the queue, which needs this monitor*/
+              request.timeout =
+                  scheduler.schedule(() -> expire(request), maxPendingNanos, TimeUnit.NANOSECONDS);
+              pending.addLast(request);
+              pendingCount = pending.size();
+            }
+            sink.onCancel(
+                () -> {
+                  if (remove(request)) {
+                    request.timeout.dispose();
+                  }
+                });
+          });
     }
 
     @Override
@@ -70,11 +177,22 @@ public void receive(ByteBuf leaseFrame) {
       LeaseImpl lease = LeaseImpl.create(timeToLiveMillis, numberOfRequests, metadata);
       currentLease = lease;
       receivedLease.onNext(lease);
+      drainPending();
     }
 
     @Override
     public void dispose() {
       receivedLease.onComplete();
+      List<PendingRequest> expired;
+      synchronized (this) {
+        expired = new ArrayList<>(pending);
+        pending.clear();
+        pendingCount = 0;
+      }
+      for (PendingRequest request : expired) {
+        request.timeout.dispose();
+        request.sink.error(leaseError());
+      }
     }
 
     @Override
@@ -86,6 +204,52 @@ public boolean isDisposed() {
     public double availability() {
       return currentLease.availability();
     }
+
+    /** @return number of requests waiting for a lease */
+    public int pendingRequests() {
+      return pendingCount;
+    }
+
+    private void drainPending() {
+      List<PendingRequest> allowed = new ArrayList<>();
+      synchronized (this) {
+        while (!pending.isEmpty() && currentLease.use()) {
+          allowed.add(pending.pollFirst());
+        }
+        pendingCount = pending.size();
+      }
+      long now = scheduler.now(TimeUnit.NANOSECONDS);
+      for (PendingRequest request : allowed) {
+        request.timeout.dispose();
+        pendingTimeRecorder.accept(Duration.ofNanos(now - request.enqueuedAt));
+        request.sink.success();
+      }
+    }
+
+    private void expire(PendingRequest request) {
+      if (remove(request)) {
+        long now = scheduler.now(TimeUnit.NANOSECONDS);
+        pendingTimeRecorder.accept(Duration.ofNanos(now - request.enqueuedAt));
+        request.sink.error(leaseError());
+      }
+    }
+
+    private synchronized boolean remove(PendingRequest request) {
+      boolean removed = pending.remove(request);
+      pendingCount = pending.size();
+      return removed;
+    }
+
+    private static final class PendingRequest {
+      final MonoSink<Void> sink;
+      final long enqueuedAt;
+      volatile Disposable timeout = Disposables.disposed();
+
+      PendingRequest(MonoSink<Void> sink, long enqueuedAt) {
+        this.sink = sink;
+        this.enqueuedAt = enqueuedAt;
+      }
+    }
   }
 
   RequesterLeaseHandler None =
@@ -20,7 +20,9 @@
 import io.netty.buffer.ByteBufAllocator;
 import io.rsocket.Availability;
 import io.rsocket.exceptions.MissingLeaseException;
+import io.rsocket.frame.FrameType;
 import io.rsocket.frame.LeaseFrameFlyweight;
+import io.rsocket.util.Clock;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -28,6 +30,8 @@
 import reactor.core.Disposable;
 import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
 public interface ResponderLeaseHandler extends Availability {
 
@@ -37,6 +41,20 @@ public interface ResponderLeaseHandler extends Availability {
 
   Disposable send(Consumer<ByteBuf> leaseFrameSender);
 
+  /**
+   * @return response to a request accepted by {@link #useLease()}, tracked for {@link LeaseStats}
+   */
+  default <T> Mono<T> track(FrameType requestType, Mono<T> response) {
+    return response;
+  }
+
+  /**
+   * @return response to a request accepted by {@link #useLease()}, tracked for {@link LeaseStats}
+   */
+  default <T> Flux<T> track(FrameType requestType, Flux<T> response) {
+    return response;
+  }
+
   final class Impl<T extends LeaseStats> implements ResponderLeaseHandler {
     private volatile LeaseImpl currentLease = LeaseImpl.empty();
     private final String tag;
@@ -45,6 +63,7 @@ public interface ResponderLeaseHandler extends Availability {
     private final Consumer<Throwable> errorConsumer;
     private final Optional<T> leaseStatsOption;
     private final T leaseStats;
+    private final int allowanceStripes;
 
     public Impl(
         String tag,
@@ -52,6 +71,25 @@ public Impl(
         Function<Optional<T>, Flux<Lease>> leaseSender,
         Consumer<Throwable> errorConsumer,
         Optional<T> leaseStatsOption) {
+      this(tag, allocator, leaseSender, errorConsumer, leaseStatsOption, 1);
+    }
+
+    /**
+     * @param allowanceStripes if greater than 1, allowed requests of each lease are split among as
+     *     many counters, so that requests handled on many threads do not contend on a single one
+     */
+    public Impl(
+        String tag,
+        ByteBufAllocator allocator,
+        Function<Optional<T>, Flux<Lease>> leaseSender,
+        Consumer<Throwable> errorConsumer,
+        Optional<T> leaseStatsOption,
+        int allowanceStripes) {
+      if (allowanceStripes <= 0) {
+        throw new IllegalArgumentException(
+            "allowanceStripes must be positive: " + allowanceStripes);
+      }
+      this.allowanceStripes = allowanceStripes;
       this.tag = tag;
       this.allocator = allocator;
       this.leaseSender = leaseSender;
@@ -85,12 +123,38 @@ public Disposable send(Consumer<ByteBuf> leaseFrameSender) {
           .doOnTerminate(this::onTerminateEvent)
           .subscribe(
               lease -> {
-                currentLease = create(lease);
+                currentLease = create(lease, allowanceStripes);
                 leaseFrameSender.accept(createLeaseFrame(lease));
               },
               errorConsumer);
     }
 
+    @Override
+    public <R> Mono<R> track(FrameType requestType, Mono<R> response) {
+      T ls = leaseStats;
+      if (ls == null) {
+        return response;
+      }
+      return Mono.defer(
+          () -> {
+            long start = onRequestStart(requestType, ls);
+            return response.doFinally(s -> onRequestEnd(requestType, start, s, ls));
+          });
+    }
+
+    @Override
+    public <R> Flux<R> track(FrameType requestType, Flux<R> response) {
+      T ls = leaseStats;
+      if (ls == null) {
+        return response;
+      }
+      return Flux.defer(
+          () -> {
+            long start = onRequestStart(requestType, ls);
+            return response.doFinally(s -> onRequestEnd(requestType, start, s, ls));
+          });
+    }
+
     @Override
     public double availability() {
       return currentLease.availability();
@@ -108,6 +172,16 @@ private void onTerminateEvent() {
       }
     }
 
+    private static long onRequestStart(FrameType requestType, LeaseStats ls) {
+      ls.onRequestStart(requestType);
+      return Clock.nanoTime();
+    }
+
+    private static void onRequestEnd(
+        FrameType requestType, long start, SignalType signal, LeaseStats ls) {
+      ls.onRequestEnd(requestType, Clock.nanoTime() - start, signal);
+    }
+
     private void onUseEvent(boolean success, @Nullable T ls) {
       if (ls != null) {
         LeaseStats.EventType eventType =
@@ -116,12 +190,12 @@ private void onUseEvent(boolean success, @Nullable T ls) {
       }
     }
 
-    private static LeaseImpl create(Lease lease) {
-      if (lease instanceof LeaseImpl) {
+    private static LeaseImpl create(Lease lease, int stripes) {
+      if (lease instanceof LeaseImpl && stripes == 1) {
         return (LeaseImpl) lease;
       } else {
         return LeaseImpl.create(
-            lease.getTimeToLiveMillis(), lease.getAllowedRequests(), lease.getMetadata());
+            lease.getTimeToLiveMillis(), lease.getAllowedRequests(), lease.getMetadata(), stripes);
       }
     }
   }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.lease;
+
+import io.rsocket.util.Clock;
+import java.time.Duration;
+
+/**
+ * Delay based {@link ConcurrencyLimit} modelled after TCP Vegas. The lowest latency observed is
+ * taken as the latency of the responder without load, and the queue building up is estimated as
+ * {@code limit * (1 - rttNoLoad / rtt)}. The limit grows quickly while the queue is short, and is
+ * reduced once it exceeds a threshold proportional to {@code log10(limit)}.
+ *
+ * <p>No load latency is forgotten periodically, so that the limit adapts to slower responders.
+ */
+public class VegasConcurrencyLimit implements ConcurrencyLimit {
+  private final int minLimit;
+  private final int maxLimit;
+  private final long probeIntervalNanos;
+
+  private volatile int limit;
+  /* guarded by this */
+  private long rttNoLoad;
+  private long probedAt = Clock.nanoTime();
+
+  /** Vegas limit starting at 20 requests, probing for no load latency every 30 seconds */
+  public VegasConcurrencyLimit() {
+    this(20, 1, 1000, Duration.ofSeconds(30));
+  }
+
+  /**
+   * @param initialLimit limit until samples are reported
+   * @param minLimit lower bound of the limit
+   * @param maxLimit upper bound of the limit
+   * @param probeInterval interval no load latency is reset at
+   */
+  public VegasConcurrencyLimit(
+      int initialLimit, int minLimit, int maxLimit, Duration probeInterval) {
+    if (minLimit < 1 || maxLimit < minLimit) {
+      throw new IllegalArgumentException(
+          String.format("Invalid limit bounds: [%d, %d]", minLimit, maxLimit));
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.probeIntervalNanos = probeInterval.toNanos();
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+  }
+
+  @Override
+  public int limit() {
+    return limit;
+  }
+
+  @Override
+  public synchronized void onSample(long rttNanos, int inFlight) {
+    if (rttNanos <= 0) {
+      return;
+    }
+    long now = Clock.nanoTime();
+    if (now - probedAt >= probeIntervalNanos) {
+      probedAt = now;
+      rttNoLoad = 0;
+    }
+    if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+      rttNoLoad = rttNanos;
+      return;
+    }
+    int current = limit;
+    /* latency of an application limited responder says nothing about the limit */
+    if (inFlight * 2 < current) {
+      return;
+    }
+    int queue = (int) Math.ceil(current * (1 - (double) rttNoLoad / rttNanos));
+    int log = Math.max(1, (int) Math.log10(current));
+    int alpha = 3 * log;
+    int beta = 6 * log;
+    int next;
+    if (queue <= log) {
+      next = current + beta;
+    } else if (queue < alpha) {
+      next = current + log;
+    } else if (queue > beta) {
+      next = current - log;
+    } else {
+      return;
+    }
+    limit = Math.max(minLimit, Math.min(maxLimit, next));
+  }
+
+  @Override
+  public String toString() {
+    return "VegasConcurrencyLimit{limit=" + limit + '}';
+  }
+}
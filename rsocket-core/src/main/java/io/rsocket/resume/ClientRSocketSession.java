@@ -35,7 +35,9 @@ public class ClientRSocketSession implements RSocketSession<Mono<DuplexConnectio
   private static final Logger logger = LoggerFactory.getLogger(ClientRSocketSession.class);
 
   private final ResumableDuplexConnection resumableConnection;
-  private volatile Mono<DuplexConnection> newConnection;
+  private final int racedConnections;
+  private final boolean standbyConnection;
+  private volatile ResumeConnections connections;
   private volatile ByteBuf resumeToken;
   private final ByteBufAllocator allocator;
 
@@ -47,27 +49,75 @@ public ClientRSocketSession(
       ResumableFramesStore resumableFramesStore,
       Duration resumeStreamTimeout,
       boolean cleanupStoreOnKeepAlive) {
+    this(
+        duplexConnection,
+        allocator,
+        resumeSessionDuration,
+        resumeStrategy,
+        resumableFramesStore,
+        resumeStreamTimeout,
+        cleanupStoreOnKeepAlive,
+        1,
+        false,
+        0);
+  }
+
+  /**
+   * @param racedConnections number of connections established concurrently for each resumption
+   *     attempt, resumption continues on the first one
+   * @param standbyConnection whether a connection is kept established while connected, so that
+   *     resumption starts on it right after a disconnect instead of waiting for the {@link
+   *     ResumeStrategy}
+   * @param resumeWindowBytes if positive, bytes of frames sent but not acknowledged by the server
+   *     before senders are blocked, see {@link ResumableDuplexConnection}
+   */
+  public ClientRSocketSession(
+      DuplexConnection duplexConnection,
+      ByteBufAllocator allocator,
+      Duration resumeSessionDuration,
+      Supplier<ResumeStrategy> resumeStrategy,
+      ResumableFramesStore resumableFramesStore,
+      Duration resumeStreamTimeout,
+      boolean cleanupStoreOnKeepAlive,
+      int racedConnections,
+      boolean standbyConnection,
+      long resumeWindowBytes) {
     this.allocator = allocator;
+    this.racedConnections = racedConnections;
+    this.standbyConnection = standbyConnection;
     this.resumableConnection =
         new ResumableDuplexConnection(
             "client",
             duplexConnection,
             resumableFramesStore,
             resumeStreamTimeout,
-            cleanupStoreOnKeepAlive);
+            cleanupStoreOnKeepAlive,
+            resumeWindowBytes);
 
     /*session completed: release token initially retained in resumeToken(ByteBuf)*/
-    onClose().doFinally(s -> resumeToken.release()).subscribe();
+    onClose()
+        .doFinally(
+            s -> {
+              resumeToken.release();
+              connections.dispose();
+            })
+        .subscribe();
 
     resumableConnection
         .connectionErrors()
         .flatMap(
             err -> {
+              DuplexConnection standby = connections.takeStandby();
+              if (standby != null) {
+                logger.debug("Client session connection error. Resuming on standby connection");
+                return Mono.just(standby);
+              }
               logger.debug("Client session connection error. Starting new connection");
               ResumeStrategy reconnectOnError = resumeStrategy.get();
               ClientResume clientResume = new ClientResume(resumeSessionDuration, resumeToken);
               AtomicBoolean once = new AtomicBoolean();
-              return newConnection
+              return connections
+                  .connect()
                   .delaySubscription(
                       once.compareAndSet(false, true)
                           ? reconnectOnError.apply(clientResume, err)
@@ -114,7 +164,13 @@ public ClientRSocketSession(
 
   @Override
   public ClientRSocketSession continueWith(Mono<DuplexConnection> connectionFactory) {
-    this.newConnection = connectionFactory;
+    ResumeConnections previous = this.connections;
+    if (previous != null) {
+      previous.dispose();
+    }
+    this.connections =
+        new ResumeConnections(connectionFactory, racedConnections, standbyConnection);
+    connections.warmStandby();
     return this;
   }
 
@@ -139,6 +195,7 @@ public ClientRSocketSession resumeWith(ByteBuf resumeOkFrame) {
                             .then(Mono.fromRunnable(resumableConnection::dispose))
                             /*Resumption is impossible: no need to return control to ResumableConnection*/
                             .then(Mono.never())));
+    connections.warmStandby();
     return this;
   }
 
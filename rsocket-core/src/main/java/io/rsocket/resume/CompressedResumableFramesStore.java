@@ -0,0 +1,406 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * {@link ResumableFramesStore} which keeps frames deflate compressed, so that a window of
+ * repetitive payloads takes a fraction of its size in memory.
+ *
+ * <p>Frames are copied into an open block, which is compressed once it holds {@code
+ * blockSizeBytes}. {@link #resumeStream()} decompresses one block at a time as frames are
+ * requested. {@code cacheSizeBytes} bounds the memory used by blocks, see {@link #storedBytes()},
+ * while positions and {@link #cacheSize()} are in uncompressed frame bytes as required by the
+ * protocol. Memory of a block is freed once all of its frames are released.
+ */
+public class CompressedResumableFramesStore implements ResumableFramesStore {
+  private static final Logger logger =
+      LoggerFactory.getLogger(CompressedResumableFramesStore.class);
+  private static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+  private final MonoProcessor<Void> disposed = MonoProcessor.create();
+  private final String tag;
+  private final long cacheLimit;
+  private final int blockSize;
+  private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+  /* compressed blocks, oldest first, guarded by this */
+  final ArrayDeque<Block> blocks = new ArrayDeque<>();
+  /* frames not compressed yet, newer than all blocks, guarded by this */
+  final OpenBlock open = new OpenBlock();
+  /* released frames of the oldest block, or of the open block if there is none, guarded by this */
+  private int tailFrames;
+
+  volatile long position;
+  volatile long impliedPosition;
+  volatile long cacheSize;
+  volatile long storedBytes;
+
+  /**
+   * @param tag used in log messages
+   * @param cacheSizeBytes maximum number of bytes used to keep frames for resumption
+   */
+  public CompressedResumableFramesStore(String tag, int cacheSizeBytes) {
+    this(tag, cacheSizeBytes, Math.max(1, Math.min(DEFAULT_BLOCK_SIZE, cacheSizeBytes / 4)));
+  }
+
+  /**
+   * @param tag used in log messages
+   * @param cacheSizeBytes maximum number of bytes used to keep frames for resumption
+   * @param blockSizeBytes uncompressed size of the blocks frames are compressed in. Larger blocks
+   *     compress better, but are freed later and decompressed as a whole on resumption
+   */
+  public CompressedResumableFramesStore(String tag, int cacheSizeBytes, int blockSizeBytes) {
+    if (blockSizeBytes <= 0 || blockSizeBytes > cacheSizeBytes) {
+      throw new IllegalArgumentException(
+          "blockSizeBytes must be positive and not exceed cacheSizeBytes: " + blockSizeBytes);
+    }
+    this.tag = Objects.requireNonNull(tag, "tag");
+    this.cacheLimit = cacheSizeBytes;
+    this.blockSize = blockSizeBytes;
+  }
+
+  @Override
+  public Mono<Void> saveFrames(Flux<ByteBuf> frames) {
+    MonoProcessor<Void> completed = MonoProcessor.create();
+    frames
+        .doFinally(s -> completed.onComplete())
+        .subscribe(
+            this::saveFrame,
+            t -> logger.info("unexpected onError signal: {}, {}", t.getClass(), t.getMessage()));
+    return completed;
+  }
+
+  @Override
+  public synchronized void releaseFrames(long remoteImpliedPos) {
+    long pos = position;
+    logger.debug(
+        "{} Removing frames for local: {}, remote implied: {}", tag, pos, remoteImpliedPos);
+    long removeSize = Math.max(0, remoteImpliedPos - pos);
+    while (removeSize > 0 && cacheSize > 0) {
+      removeSize -= releaseTailFrame();
+    }
+    if (removeSize > 0) {
+      throw new IllegalStateException(
+          String.format(
+              "Local and remote state disagreement: "
+                  + "need to remove additional %d bytes, but cache is empty",
+              removeSize));
+    } else if (removeSize < 0) {
+      throw new IllegalStateException(
+          "Local and remote state disagreement: " + "local and remote frame sizes are not equal");
+    } else {
+      logger.debug("{} Removed frames. Current cache size: {}", tag, cacheSize);
+    }
+  }
+
+  @Override
+  public Flux<ByteBuf> resumeStream() {
+    return Flux.generate(
+        this::resumeStreamState,
+        (state, sink) -> {
+          ByteBuf frame;
+          try {
+            frame = state.next();
+          } catch (DataFormatException e) {
+            sink.error(new IllegalStateException("Unable to decompress resumable frames", e));
+            return state;
+          }
+          if (frame != null) {
+            sink.next(frame);
+          } else {
+            sink.complete();
+            logger.debug("{} Resuming stream completed", tag);
+          }
+          return state;
+        },
+        ResumeStreamState::dispose);
+  }
+
+  @Override
+  public long framePosition() {
+    return position;
+  }
+
+  @Override
+  public long frameImpliedPosition() {
+    return impliedPosition;
+  }
+
+  /** @return uncompressed size in bytes of the frames kept for resumption */
+  @Override
+  public long cacheSize() {
+    return cacheSize;
+  }
+
+  /** @return bytes used to keep frames for resumption, once compressed */
+  public long storedBytes() {
+    return storedBytes;
+  }
+
+  @Override
+  public void resumableFrameReceived(ByteBuf frame) {
+    /*called on transport thread so non-atomic on volatile is safe*/
+    impliedPosition += frame.readableBytes();
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return disposed;
+  }
+
+  @Override
+  public void dispose() {
+    synchronized (this) {
+      if (!isDisposed()) {
+        blocks.clear();
+        open.release();
+        tailFrames = 0;
+        cacheSize = 0;
+        storedBytes = 0;
+        deflater.end();
+      }
+      disposed.onComplete();
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed.isTerminated();
+  }
+
+  synchronized void saveFrame(ByteBuf frame) {
+    int frameSize = frame.readableBytes();
+    if (frameSize > cacheLimit || isDisposed()) {
+      while (cacheSize > 0) {
+        releaseTailFrame();
+      }
+      position += frameSize;
+      return;
+    }
+    if (open.frameCount > 0 && open.length + frameSize > blockSize) {
+      compressOpenBlock();
+    }
+    while (storedBytes + frameSize > cacheLimit && cacheSize > 0) {
+      releaseTailFrame();
+    }
+    open.append(frame, frameSize);
+    cacheSize += frameSize;
+    storedBytes += frameSize;
+    if (open.length >= blockSize) {
+      compressOpenBlock();
+    }
+  }
+
+  private void compressOpenBlock() {
+    byte[] raw = open.bytes();
+    int[] frameSizes = Arrays.copyOf(open.frameSizes, open.frameCount);
+    Block block;
+    deflater.reset();
+    deflater.setInput(raw);
+    deflater.finish();
+    byte[] compressed = new byte[raw.length];
+    int length = deflater.deflate(compressed);
+    if (deflater.finished() && length < raw.length) {
+      block = new Block(Arrays.copyOf(compressed, length), true, raw.length, frameSizes);
+    } else {
+      /* incompressible, kept as is */
+      block = new Block(raw, false, raw.length, frameSizes);
+    }
+    blocks.addLast(block);
+    open.clear();
+    storedBytes += block.data.length - raw.length;
+  }
+
+  private int releaseTailFrame() {
+    Block block = blocks.peekFirst();
+    int frameSize;
+    if (block != null) {
+      frameSize = block.frameSizes[tailFrames++];
+      if (tailFrames == block.frameSizes.length) {
+        blocks.pollFirst();
+        storedBytes -= block.data.length;
+        tailFrames = 0;
+      }
+    } else {
+      frameSize = open.frameSizes[tailFrames++];
+      if (tailFrames == open.frameCount) {
+        storedBytes -= open.length;
+        open.clear();
+        tailFrames = 0;
+      }
+    }
+    cacheSize -= frameSize;
+    position += frameSize;
+    return frameSize;
+  }
+
+  private synchronized ResumeStreamState resumeStreamState() {
+    List<Block> snapshot = new ArrayList<>(blocks.size() + 1);
+    if (!isDisposed() && cacheSize > 0) {
+      snapshot.addAll(blocks);
+      if (open.frameCount > 0) {
+        int[] frameSizes = Arrays.copyOf(open.frameSizes, open.frameCount);
+        snapshot.add(new Block(open.bytes(), false, open.length, frameSizes));
+      }
+    }
+    return new ResumeStreamState(snapshot, tailFrames);
+  }
+
+  /** Frames compressed together, immutable so that resume streams may read it without locking */
+  static final class Block {
+    final byte[] data;
+    final boolean compressed;
+    final int length;
+    final int[] frameSizes;
+
+    Block(byte[] data, boolean compressed, int length, int[] frameSizes) {
+      this.data = data;
+      this.compressed = compressed;
+      this.length = length;
+      this.frameSizes = frameSizes;
+    }
+
+    ByteBuf decode() throws DataFormatException {
+      if (!compressed) {
+        return Unpooled.wrappedBuffer(data);
+      }
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(data);
+        byte[] raw = new byte[length];
+        int read = 0;
+        while (read < length && !inflater.finished()) {
+          int n = inflater.inflate(raw, read, length - read);
+          if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+            break;
+          }
+          read += n;
+        }
+        if (read != length) {
+          throw new DataFormatException("block decompressed to " + read + " of " + length);
+        }
+        return Unpooled.wrappedBuffer(raw);
+      } finally {
+        inflater.end();
+      }
+    }
+  }
+
+  /** Frames saved since the last block was compressed */
+  static final class OpenBlock {
+    private ByteBuf buffer;
+    int[] frameSizes = new int[16];
+    int frameCount;
+    int length;
+
+    void append(ByteBuf frame, int frameSize) {
+      if (buffer == null) {
+        buffer = Unpooled.buffer();
+      }
+      buffer.writeBytes(frame, frame.readerIndex(), frameSize);
+      if (frameCount == frameSizes.length) {
+        frameSizes = Arrays.copyOf(frameSizes, frameCount * 2);
+      }
+      frameSizes[frameCount++] = frameSize;
+      length += frameSize;
+    }
+
+    byte[] bytes() {
+      byte[] bytes = new byte[length];
+      if (length > 0) {
+        buffer.getBytes(buffer.readerIndex(), bytes);
+      }
+      return bytes;
+    }
+
+    void clear() {
+      if (buffer != null) {
+        buffer.clear();
+      }
+      frameCount = 0;
+      length = 0;
+    }
+
+    void release() {
+      clear();
+      if (buffer != null) {
+        buffer.release();
+        buffer = null;
+      }
+    }
+  }
+
+  /** Blocks stored when the resume stream was subscribed, decompressed one at a time */
+  static final class ResumeStreamState {
+    private final List<Block> blocks;
+    private int index;
+    private int frame;
+    private int offset;
+    private ByteBuf decoded;
+
+    ResumeStreamState(List<Block> blocks, int skipFrames) {
+      this.blocks = blocks;
+      this.frame = skipFrames;
+    }
+
+    ByteBuf next() throws DataFormatException {
+      while (index < blocks.size()) {
+        Block block = blocks.get(index);
+        if (frame < block.frameSizes.length) {
+          if (decoded == null) {
+            decoded = block.decode();
+            for (int i = 0; i < frame; i++) {
+              offset += block.frameSizes[i];
+            }
+          }
+          int frameSize = block.frameSizes[frame++];
+          ByteBuf slice = decoded.retainedSlice(offset, frameSize);
+          offset += frameSize;
+          return slice;
+        }
+        dispose();
+        index++;
+        frame = 0;
+        offset = 0;
+      }
+      return null;
+    }
+
+    void dispose() {
+      if (decoded != null) {
+        decoded.release();
+        decoded = null;
+      }
+    }
+  }
+}
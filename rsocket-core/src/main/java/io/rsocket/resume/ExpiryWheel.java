@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.util.internal.MathUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.Consumer;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Hashed timing wheel: items are scheduled to a bucket by their deadline, and {@link #sweep(long,
+ * Consumer)} collects the items of the buckets whose tick has passed. Items are never reported
+ * before their deadline, and at most one tick after it once sweeps run every tick.
+ *
+ * <p>{@link #schedule(Object, long)} may be called from any thread, sweeps must not run
+ * concurrently. There is no cancellation: whoever handles expired items checks if they are still
+ * due.
+ */
+final class ExpiryWheel<T> {
+  private final long startNanos;
+  private final long tickNanos;
+  private final int mask;
+  private final List<Entry<T>>[] buckets;
+  private final Queue<Entry<T>> scheduled = Queues.<Entry<T>>unboundedMultiproducer().get();
+  /* next tick to sweep, accessed by sweeps only */
+  private long tick;
+
+  @SuppressWarnings("unchecked")
+  ExpiryWheel(long startNanos, long tickNanos, int ticksPerWheel) {
+    if (tickNanos <= 0 || ticksPerWheel <= 0) {
+      throw new IllegalArgumentException("tickNanos and ticksPerWheel must be > 0");
+    }
+    int size = MathUtil.findNextPositivePowerOfTwo(ticksPerWheel);
+    this.startNanos = startNanos;
+    this.tickNanos = tickNanos;
+    this.mask = size - 1;
+    this.buckets = new List[size];
+    for (int i = 0; i < size; i++) {
+      buckets[i] = new ArrayList<>();
+    }
+  }
+
+  void schedule(T item, long deadlineNanos) {
+    scheduled.offer(new Entry<>(item, deadlineNanos));
+  }
+
+  /** Passes items whose deadline is not after {@code nowNanos} to {@code expired}, in bulk */
+  void sweep(long nowNanos, Consumer<? super T> expired) {
+    long lastTick = (nowNanos - startNanos) / tickNanos;
+    for (Entry<T> entry = scheduled.poll(); entry != null; entry = scheduled.poll()) {
+      long deadlineTick = -Math.floorDiv(startNanos - entry.deadline, tickNanos);
+      entry.tick = Math.max(deadlineTick, tick);
+      buckets[(int) entry.tick & mask].add(entry);
+    }
+
+    List<T> batch = null;
+    for (long t = Math.max(tick, lastTick - mask); t <= lastTick; t++) {
+      List<Entry<T>> bucket = buckets[(int) t & mask];
+      int kept = 0;
+      for (int i = 0; i < bucket.size(); i++) {
+        Entry<T> entry = bucket.get(i);
+        if (entry.tick <= lastTick) {
+          if (batch == null) {
+            batch = new ArrayList<>();
+          }
+          batch.add(entry.item);
+        } else {
+          bucket.set(kept++, entry);
+        }
+      }
+      bucket.subList(kept, bucket.size()).clear();
+    }
+    tick = Math.max(tick, lastTick + 1);
+
+    if (batch != null) {
+      batch.forEach(expired);
+    }
+  }
+
+  /** @return number of items waiting for their deadline */
+  int size() {
+    int size = scheduled.size();
+    for (List<Entry<T>> bucket : buckets) {
+      size += bucket.size();
+    }
+    return size;
+  }
+
+  static final class Entry<T> {
+    final T item;
+    final long deadline;
+    long tick;
+
+    Entry(T item, long deadline) {
+      this.item = item;
+      this.deadline = deadline;
+    }
+  }
+}
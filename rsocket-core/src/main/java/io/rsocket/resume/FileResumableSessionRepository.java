@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ResumableSessionRepository} which writes each session to a file of its own in a local
+ * directory, named after the hex encoded resume token. Files are written to a temporary file first
+ * and moved in place, so a session is either saved completely or not at all.
+ */
+public class FileResumableSessionRepository implements ResumableSessionRepository {
+  private static final Logger logger =
+      LoggerFactory.getLogger(FileResumableSessionRepository.class);
+  private static final int MAGIC = 0x52534d32;
+  private static final String SUFFIX = ".session";
+
+  private final Path directory;
+
+  /** @param directory where session files are kept, created if it does not exist */
+  public FileResumableSessionRepository(Path directory) {
+    this.directory = Objects.requireNonNull(directory, "directory");
+  }
+
+  @Override
+  public void save(ResumableSessionState state) {
+    try {
+      Files.createDirectories(directory);
+      Path tmp = Files.createTempFile(directory, "session-", ".tmp");
+      try {
+        try (DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+          out.writeInt(MAGIC);
+          out.writeLong(state.position());
+          out.writeLong(state.impliedPosition());
+          write(out, state.token());
+          write(out, state.setupFrame());
+          out.writeInt(state.frames().size());
+          for (ByteBuf frame : state.frames()) {
+            write(out, frame);
+          }
+          out.writeInt(state.lastStreamId());
+          out.writeInt(state.streamIds().length);
+          for (int streamId : state.streamIds()) {
+            out.writeInt(streamId);
+          }
+        }
+        Files.move(tmp, file(state.token()), StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
+      logger.debug("Saved resumable session {}", state);
+    } catch (IOException e) {
+      logger.error("Unable to save resumable session {}", state, e);
+    } finally {
+      state.release();
+    }
+  }
+
+  @Override
+  @Nullable
+  public ResumableSessionState take(ByteBuf resumeToken) {
+    Path file = file(resumeToken);
+    List<ByteBuf> buffers = new ArrayList<>();
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("not a resumable session file");
+      }
+      long position = in.readLong();
+      long impliedPosition = in.readLong();
+      ByteBuf token = read(in, buffers);
+      ByteBuf setupFrame = read(in, buffers);
+      int count = in.readInt();
+      List<ByteBuf> frames = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        frames.add(read(in, buffers));
+      }
+      int lastStreamId = in.readInt();
+      int streamCount = in.readInt();
+      if (streamCount < 0) {
+        throw new IOException("negative stream count: " + streamCount);
+      }
+      int[] streamIds = new int[streamCount];
+      for (int i = 0; i < streamIds.length; i++) {
+        streamIds[i] = in.readInt();
+      }
+      return new ResumableSessionState(
+          token, setupFrame, position, impliedPosition, frames, streamIds, lastStreamId);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      logger.error("Unable to read resumable session {}", file, e);
+      buffers.forEach(ByteBuf::release);
+      return null;
+    } finally {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        logger.warn("Unable to delete resumable session {}", file, e);
+      }
+    }
+  }
+
+  private Path file(ByteBuf token) {
+    return directory.resolve(ByteBufUtil.hexDump(token) + SUFFIX);
+  }
+
+  private static void write(DataOutputStream out, ByteBuf buf) throws IOException {
+    int length = buf.readableBytes();
+    out.writeInt(length);
+    buf.getBytes(buf.readerIndex(), out, length);
+  }
+
+  private static ByteBuf read(DataInputStream in, List<ByteBuf> buffers) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("negative length: " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    ByteBuf buf = Unpooled.wrappedBuffer(bytes);
+    buffers.add(buf);
+    return buf;
+  }
+}
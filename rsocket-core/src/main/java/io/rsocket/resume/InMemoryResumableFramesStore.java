@@ -17,7 +17,11 @@
 package io.rsocket.resume;
 
 import io.netty.buffer.ByteBuf;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
@@ -56,19 +60,26 @@ public Mono<Void> saveFrames(Flux<ByteBuf> frames) {
 
   @Override
   public void releaseFrames(long remoteImpliedPos) {
+    releaseFrames(remoteImpliedPos, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public boolean releaseFrames(long remoteImpliedPos, int maxFrames) {
     long pos = position;
     logger.debug(
         "{} Removing frames for local: {}, remote implied: {}", tag, pos, remoteImpliedPos);
     long removeSize = Math.max(0, remoteImpliedPos - pos);
-    while (removeSize > 0) {
+    int released = 0;
+    while (removeSize > 0 && released < maxFrames) {
       ByteBuf cachedFrame = cachedFrames.poll();
       if (cachedFrame != null) {
         removeSize -= releaseTailFrame(cachedFrame);
+        released++;
       } else {
         break;
       }
     }
-    if (removeSize > 0) {
+    if (removeSize > 0 && released < maxFrames) {
       throw new IllegalStateException(
           String.format(
               "Local and remote state disagreement: "
@@ -77,24 +88,49 @@ public void releaseFrames(long remoteImpliedPos) {
     } else if (removeSize < 0) {
       throw new IllegalStateException(
           "Local and remote state disagreement: " + "local and remote frame sizes are not equal");
+    } else if (removeSize > 0) {
+      logger.debug(
+          "{} Removed {} frames, {} bytes left to remove. Current cache size: {}",
+          tag,
+          released,
+          removeSize,
+          cacheSize);
+      return false;
     } else {
       logger.debug("{} Removed frames. Current cache size: {}", tag, cacheSize);
+      return true;
     }
   }
 
   @Override
   public Flux<ByteBuf> resumeStream() {
-    return Flux.generate(
+    return resumeBatches(() -> 1).concatMapIterable(Function.identity(), 1);
+  }
+
+  @Override
+  public Flux<List<ByteBuf>> resumeBatches(IntSupplier maxBatchSize) {
+    return Flux.<List<ByteBuf>, ResumeStreamState>generate(
         () -> new ResumeStreamState(cachedFrames.size(), upstreamFrameRefCnt),
         (state, sink) -> {
-          if (state.next()) {
+          int maxSize = maxBatchSize.getAsInt();
+          List<ByteBuf> batch = null;
+          while (state.next()) {
             /*spsc queue has no iterator - iterating by consuming*/
             ByteBuf frame = cachedFrames.poll();
             if (state.shouldRetain(frame)) {
               frame.retain();
             }
             cachedFrames.offer(frame);
-            sink.next(frame);
+            if (batch == null) {
+              batch = new ArrayList<>(Math.min(maxSize, state.remaining() + 1));
+            }
+            batch.add(frame);
+            if (batch.size() >= maxSize) {
+              break;
+            }
+          }
+          if (batch != null) {
+            sink.next(batch);
           } else {
             sink.complete();
             logger.debug("{} Resuming stream completed", tag);
@@ -113,6 +149,11 @@ public long frameImpliedPosition() {
     return impliedPosition;
   }
 
+  @Override
+  public long cacheSize() {
+    return cacheSize;
+  }
+
   @Override
   public void resumableFrameReceived(ByteBuf frame) {
     /*called on transport thread so non-atomic on volatile is safe*/
@@ -194,6 +235,10 @@ public boolean next() {
       }
     }
 
+    int remaining() {
+      return cacheSize - cacheCounter;
+    }
+
     public boolean shouldRetain(ByteBuf frame) {
       return frame.refCnt() == expectedRefCnt;
     }
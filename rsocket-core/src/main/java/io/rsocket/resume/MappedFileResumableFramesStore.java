@@ -0,0 +1,326 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.buffer.UnpooledDirectByteBuf;
+import io.netty.util.internal.PlatformDependent;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * {@link ResumableFramesStore} which keeps frames in memory-mapped segment files, so that large
+ * resume windows are backed by the page cache instead of heap or direct memory.
+ *
+ * <p>Frames are copied into the newest segment, each prefixed with its length, and a new segment
+ * is created when it is full. {@link #releaseFrames(long)} moves the tail forward and deletes the
+ * segments it has passed. {@link #resumeStream()} emits slices of the mappings, which keep their
+ * segment mapped until they are released.
+ *
+ * <p>Like {@link InMemoryResumableFramesStore}, the oldest frames are dropped once {@code
+ * cacheSizeBytes} is exceeded.
+ */
+public class MappedFileResumableFramesStore implements ResumableFramesStore {
+  private static final Logger logger =
+      LoggerFactory.getLogger(MappedFileResumableFramesStore.class);
+  private static final int FRAME_LENGTH_SIZE = Integer.BYTES;
+
+  private final MonoProcessor<Void> disposed = MonoProcessor.create();
+  private final String tag;
+  private final Path directory;
+  private final int segmentSize;
+  private final long cacheLimit;
+  /* oldest first, guarded by this */
+  final ArrayDeque<Segment> segments = new ArrayDeque<>();
+  /* offset of the oldest frame in the first segment, guarded by this */
+  private int tailOffset;
+
+  volatile long position;
+  volatile long impliedPosition;
+  volatile long cacheSize;
+
+  /**
+   * @param tag used in log messages and as prefix of the segment file names
+   * @param directory where segment files are created. They are deleted once released
+   * @param segmentSizeBytes size of each segment file. A frame larger than that gets a segment of
+   *     its own
+   * @param cacheSizeBytes maximum number of frame bytes kept for resumption
+   */
+  public MappedFileResumableFramesStore(
+      String tag, Path directory, int segmentSizeBytes, long cacheSizeBytes) {
+    if (segmentSizeBytes <= FRAME_LENGTH_SIZE) {
+      throw new IllegalArgumentException("segmentSizeBytes is too small: " + segmentSizeBytes);
+    }
+    this.tag = Objects.requireNonNull(tag, "tag");
+    this.directory = Objects.requireNonNull(directory, "directory");
+    this.segmentSize = segmentSizeBytes;
+    this.cacheLimit = cacheSizeBytes;
+  }
+
+  @Override
+  public Mono<Void> saveFrames(Flux<ByteBuf> frames) {
+    MonoProcessor<Void> completed = MonoProcessor.create();
+    frames
+        .doFinally(s -> completed.onComplete())
+        .subscribe(
+            this::saveFrame,
+            t -> logger.info("unexpected onError signal: {}, {}", t.getClass(), t.getMessage()));
+    return completed;
+  }
+
+  @Override
+  public synchronized void releaseFrames(long remoteImpliedPos) {
+    long pos = position;
+    logger.debug(
+        "{} Removing frames for local: {}, remote implied: {}", tag, pos, remoteImpliedPos);
+    long removeSize = Math.max(0, remoteImpliedPos - pos);
+    while (removeSize > 0 && cacheSize > 0) {
+      removeSize -= releaseTailFrame();
+    }
+    if (removeSize > 0) {
+      throw new IllegalStateException(
+          String.format(
+              "Local and remote state disagreement: "
+                  + "need to remove additional %d bytes, but cache is empty",
+              removeSize));
+    } else if (removeSize < 0) {
+      throw new IllegalStateException(
+          "Local and remote state disagreement: " + "local and remote frame sizes are not equal");
+    } else {
+      logger.debug("{} Removed frames. Current cache size: {}", tag, cacheSize);
+    }
+  }
+
+  @Override
+  public Flux<ByteBuf> resumeStream() {
+    return Flux.generate(
+        this::resumeStreamState,
+        (state, sink) -> {
+          ByteBuf frame = state.next();
+          if (frame != null) {
+            sink.next(frame);
+          } else {
+            sink.complete();
+            logger.debug("{} Resuming stream completed", tag);
+          }
+          return state;
+        },
+        ResumeStreamState::dispose);
+  }
+
+  @Override
+  public long framePosition() {
+    return position;
+  }
+
+  @Override
+  public long frameImpliedPosition() {
+    return impliedPosition;
+  }
+
+  @Override
+  public long cacheSize() {
+    return cacheSize;
+  }
+
+  @Override
+  public void resumableFrameReceived(ByteBuf frame) {
+    /*called on transport thread so non-atomic on volatile is safe*/
+    impliedPosition += frame.readableBytes();
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return disposed;
+  }
+
+  @Override
+  public void dispose() {
+    synchronized (this) {
+      cacheSize = 0;
+      tailOffset = 0;
+      Segment segment = segments.poll();
+      while (segment != null) {
+        segment.release();
+        segment = segments.poll();
+      }
+    }
+    disposed.onComplete();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed.isTerminated();
+  }
+
+  synchronized void saveFrame(ByteBuf frame) {
+    int frameSize = frame.readableBytes();
+    while (cacheLimit - cacheSize < frameSize && cacheSize > 0) {
+      releaseTailFrame();
+    }
+    if (cacheLimit - cacheSize >= frameSize && !isDisposed()) {
+      try {
+        append(frame, frameSize);
+        cacheSize += frameSize;
+        return;
+      } catch (IOException e) {
+        logger.error("{} Unable to store frame, dropping cached frames", tag, e);
+        while (cacheSize > 0) {
+          releaseTailFrame();
+        }
+      }
+    }
+    position += frameSize;
+  }
+
+  private void append(ByteBuf frame, int frameSize) throws IOException {
+    int required = FRAME_LENGTH_SIZE + frameSize;
+    Segment segment = segments.peekLast();
+    if (segment == null || segment.capacity() - segment.written < required) {
+      segment = Segment.create(directory, tag, Math.max(segmentSize, required));
+      if (segments.isEmpty()) {
+        tailOffset = 0;
+      }
+      segments.addLast(segment);
+    }
+    int offset = segment.written;
+    segment.setInt(offset, frameSize);
+    segment.setBytes(offset + FRAME_LENGTH_SIZE, frame, frame.readerIndex(), frameSize);
+    segment.written = offset + required;
+  }
+
+  private int releaseTailFrame() {
+    Segment segment = segments.peekFirst();
+    while (tailOffset == segment.written) {
+      /* left in place while it was being replayed */
+      segments.pollFirst().release();
+      tailOffset = 0;
+      segment = segments.peekFirst();
+    }
+    int frameSize = segment.getInt(tailOffset);
+    tailOffset += FRAME_LENGTH_SIZE + frameSize;
+    cacheSize -= frameSize;
+    position += frameSize;
+
+    if (tailOffset == segment.written) {
+      if (segments.size() > 1) {
+        segments.pollFirst().release();
+        tailOffset = 0;
+      } else if (segment.refCnt() == 1) {
+        /* empty and not being replayed, reuse it from the start */
+        segment.written = 0;
+        tailOffset = 0;
+      }
+    }
+    return frameSize;
+  }
+
+  private synchronized ResumeStreamState resumeStreamState() {
+    if (cacheSize == 0) {
+      return new ResumeStreamState(new Segment[0], new int[0], 0);
+    }
+    Segment[] snapshot = segments.toArray(new Segment[0]);
+    int[] ends = new int[snapshot.length];
+    for (int i = 0; i < snapshot.length; i++) {
+      snapshot[i].retain();
+      ends[i] = snapshot[i].written;
+    }
+    return new ResumeStreamState(snapshot, ends, tailOffset);
+  }
+
+  /** Frames stored when the resume stream was subscribed, with their segments retained */
+  static final class ResumeStreamState {
+    private final Segment[] segments;
+    private final int[] ends;
+    private int index;
+    private int offset;
+
+    ResumeStreamState(Segment[] segments, int[] ends, int offset) {
+      this.segments = segments;
+      this.ends = ends;
+      this.offset = offset;
+    }
+
+    ByteBuf next() {
+      while (index < segments.length) {
+        if (offset < ends[index]) {
+          Segment segment = segments[index];
+          int frameSize = segment.getInt(offset);
+          ByteBuf frame = segment.retainedSlice(offset + FRAME_LENGTH_SIZE, frameSize);
+          offset += FRAME_LENGTH_SIZE + frameSize;
+          return frame;
+        }
+        index++;
+        offset = 0;
+      }
+      return null;
+    }
+
+    void dispose() {
+      for (Segment segment : segments) {
+        segment.release();
+      }
+    }
+  }
+
+  /** Mapping of a segment file, unmapped and deleted when its last reference is released */
+  static final class Segment extends UnpooledDirectByteBuf {
+    private final Path file;
+    private final MappedByteBuffer mapped;
+    int written;
+
+    private Segment(Path file, MappedByteBuffer mapped) {
+      super(UnpooledByteBufAllocator.DEFAULT, mapped, mapped.capacity());
+      this.file = file;
+      this.mapped = mapped;
+    }
+
+    static Segment create(Path directory, String tag, int size) throws IOException {
+      Path file = Files.createTempFile(directory, tag + "-", ".segment");
+      try (FileChannel channel =
+          FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        return new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+      } catch (IOException | RuntimeException e) {
+        Files.deleteIfExists(file);
+        throw e;
+      }
+    }
+
+    @Override
+    protected void deallocate() {
+      super.deallocate();
+      try {
+        PlatformDependent.freeDirectBuffer(mapped);
+        Files.deleteIfExists(file);
+      } catch (Throwable e) {
+        logger.warn("Unable to delete resume store segment {}", file, e);
+      }
+    }
+  }
+}
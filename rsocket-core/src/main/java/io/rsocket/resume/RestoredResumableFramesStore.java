@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import java.util.List;
+import java.util.function.IntSupplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Store of a session restored from a {@link ResumableSessionRepository}. The positions of a new
+ * store start at zero, they are shifted by the positions the session had when it was saved.
+ */
+class RestoredResumableFramesStore implements ResumableFramesStore {
+  private final ResumableFramesStore delegate;
+  private final long positionOffset;
+  private final long impliedPositionOffset;
+
+  RestoredResumableFramesStore(
+      ResumableFramesStore delegate, long positionOffset, long impliedPositionOffset) {
+    this.delegate = delegate;
+    this.positionOffset = positionOffset;
+    this.impliedPositionOffset = impliedPositionOffset;
+  }
+
+  @Override
+  public Mono<Void> saveFrames(Flux<ByteBuf> frames) {
+    return delegate.saveFrames(frames);
+  }
+
+  @Override
+  public void releaseFrames(long remoteImpliedPos) {
+    delegate.releaseFrames(remoteImpliedPos - positionOffset);
+  }
+
+  @Override
+  public boolean releaseFrames(long remoteImpliedPos, int maxFrames) {
+    return delegate.releaseFrames(remoteImpliedPos - positionOffset, maxFrames);
+  }
+
+  @Override
+  public Flux<ByteBuf> resumeStream() {
+    return delegate.resumeStream();
+  }
+
+  @Override
+  public Flux<List<ByteBuf>> resumeBatches(IntSupplier maxBatchSize) {
+    return delegate.resumeBatches(maxBatchSize);
+  }
+
+  @Override
+  public long framePosition() {
+    return positionOffset + delegate.framePosition();
+  }
+
+  @Override
+  public long frameImpliedPosition() {
+    return impliedPositionOffset + delegate.frameImpliedPosition();
+  }
+
+  @Override
+  public long cacheSize() {
+    return delegate.cacheSize();
+  }
+
+  @Override
+  public void resumableFrameReceived(ByteBuf frame) {
+    delegate.resumableFrameReceived(frame);
+  }
+
+  @Override
+  public void windowBlocked(long blockedNanos) {
+    delegate.windowBlocked(blockedNanos);
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return delegate.onClose();
+  }
+
+  @Override
+  public void dispose() {
+    delegate.dispose();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return delegate.isDisposed();
+  }
+}
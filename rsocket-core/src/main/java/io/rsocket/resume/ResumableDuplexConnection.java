@@ -22,9 +22,12 @@
 import io.rsocket.frame.FrameHeaderFlyweight;
 import java.nio.channels.ClosedChannelException;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
@@ -32,16 +35,26 @@
 import reactor.core.Disposable;
 import reactor.core.Disposables;
 import reactor.core.publisher.*;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.concurrent.Queues;
 
 public class ResumableDuplexConnection implements DuplexConnection, ResumeStateHolder {
   private static final Logger logger = LoggerFactory.getLogger(ResumableDuplexConnection.class);
   private static final Throwable closedChannelException = new ClosedChannelException();
+  /*frames released from the store per action, so that a large acknowledged window
+  does not stall the thread which received the keep-alive*/
+  static final int RELEASE_FRAMES_BATCH = 256;
+  /*frames replayed per action on resume, handed to the transport in a row so they are flushed
+  together*/
+  static final int RESUME_FRAMES_BATCH = 256;
 
   private final String tag;
   private final ResumableFramesStore resumableFramesStore;
   private final Duration resumeStreamTimeout;
   private final boolean cleanupOnKeepAlive;
+  private final long windowBytes;
+  private final Scheduler releaseScheduler = Schedulers.parallel();
 
   private final ReplayProcessor<DuplexConnection> connections = ReplayProcessor.create(1);
   private final EmitterProcessor<Throwable> connectionErrors = EmitterProcessor.create();
@@ -58,17 +71,21 @@ public class ResumableDuplexConnection implements DuplexConnection, ResumeStateH
   private final RequestListener downStreamRequestListener = new RequestListener();
   private final RequestListener resumeSaveStreamRequestListener = new RequestListener();
   private final UnicastProcessor<Flux<ByteBuf>> upstreams = UnicastProcessor.create();
-  private final UpstreamFramesSubscriber upstreamSubscriber =
-      new UpstreamFramesSubscriber(
-          Queues.SMALL_BUFFER_SIZE,
-          downStreamRequestListener.requests(),
-          resumeSaveStreamRequestListener.requests(),
-          this::dispatch);
+  private final UpstreamFramesSubscriber upstreamSubscriber;
 
   private volatile Runnable onResume;
+  private volatile SessionStreams streams;
   private volatile Runnable onDisconnect;
   private volatile int state;
   private volatile Disposable resumedStreamDisposable = Disposables.disposed();
+  /*accessed by dispatched actions only*/
+  private long releaseTarget = -1;
+  private boolean releaseScheduled;
+  private long savedPosition;
+  private long acknowledgedPosition;
+  private long windowBlockedAt = -1;
+  private final Queue<ByteBuf> windowFrames = new ArrayDeque<>();
+  private volatile long windowBlockedNanos;
 
   public ResumableDuplexConnection(
       String tag,
@@ -76,10 +93,35 @@ public ResumableDuplexConnection(
       ResumableFramesStore resumableFramesStore,
       Duration resumeStreamTimeout,
       boolean cleanupOnKeepAlive) {
+    this(tag, duplexConnection, resumableFramesStore, resumeStreamTimeout, cleanupOnKeepAlive, 0);
+  }
+
+  /**
+   * @param windowBytes if positive, resumable frames are held back while frames of that many bytes
+   *     are sent but not acknowledged by the peer, instead of letting the store drop frames which
+   *     are still needed for resumption. Other frames, keep-alive frames carrying acknowledgements
+   *     among them, are sent regardless. 0 to not bound the window
+   */
+  public ResumableDuplexConnection(
+      String tag,
+      DuplexConnection duplexConnection,
+      ResumableFramesStore resumableFramesStore,
+      Duration resumeStreamTimeout,
+      boolean cleanupOnKeepAlive,
+      long windowBytes) {
     this.tag = tag;
     this.resumableFramesStore = resumableFramesStore;
     this.resumeStreamTimeout = resumeStreamTimeout;
     this.cleanupOnKeepAlive = cleanupOnKeepAlive;
+    this.windowBytes = windowBytes;
+    this.acknowledgedPosition = resumableFramesStore.framePosition();
+    this.savedPosition = acknowledgedPosition + Math.max(0, resumableFramesStore.cacheSize());
+    this.upstreamSubscriber =
+        new UpstreamFramesSubscriber(
+            Queues.SMALL_BUFFER_SIZE,
+            downStreamRequestListener.requests(),
+            resumeSaveStreamRequestListener.requests(),
+            this::dispatch);
 
     resumableFramesStore
         .saveFrames(resumeSaveStreamRequestListener.apply(resumeSaveFrames))
@@ -164,6 +206,10 @@ public Flux<ByteBuf> receive() {
                     f -> {
                       if (isResumableFrame(f)) {
                         resumableFramesStore.resumableFrameReceived(f);
+                        SessionStreams s = streams;
+                        if (s != null) {
+                          s.received(f);
+                        }
                       }
                     })
                 .onErrorResume(err -> Mono.never()));
@@ -173,6 +219,26 @@ public long position() {
     return resumableFramesStore.framePosition();
   }
 
+  ResumableFramesStore resumableFramesStore() {
+    return resumableFramesStore;
+  }
+
+  /*streams are tracked from frames sent and received after this call*/
+  void trackStreams(SessionStreams streams) {
+    this.streams = streams;
+  }
+
+  /*connection of a session restored after a server restart: suppress sending until resume() is
+  called, as for a reconnected session*/
+  void awaitResume() {
+    dispatch(
+        (Runnable)
+            () -> {
+              state = State.RESUME_STARTED;
+              upstreamSubscriber.resumeStart();
+            });
+  }
+
   @Override
   public long impliedPosition() {
     return resumableFramesStore.frameImpliedPosition();
@@ -182,10 +248,18 @@ public long impliedPosition() {
   public void onImpliedPosition(long remoteImpliedPos) {
     logger.debug("Got remote position from keep-alive: {}", remoteImpliedPos);
     if (cleanupOnKeepAlive) {
-      dispatch(new ReleaseFrames(remoteImpliedPos));
+      dispatch(new ReleaseFrames(remoteImpliedPos, false));
+    }
+    if (windowBytes > 0) {
+      dispatch((Runnable) () -> acknowledged(remoteImpliedPos));
     }
   }
 
+  /** @return total time resumable frames were held back because the resume window was full */
+  public Duration windowBlockedTime() {
+    return Duration.ofNanos(windowBlockedNanos);
+  }
+
   @Override
   public Mono<Void> onClose() {
     return Flux.merge(connections.last().flatMap(Closeable::onClose), resumeSaveCompleted).then();
@@ -203,6 +277,7 @@ public void dispose() {
       upstreamSubscriber.dispose();
       resumedStreamDisposable.dispose();
       resumableFramesStore.dispose();
+      dispatch((Runnable) this::releaseWindowFrames);
     }
   }
 
@@ -219,7 +294,18 @@ public boolean isDisposed() {
   private void sendFrame(ByteBuf f) {
     /*resuming from store so no need to save again*/
     if (state != State.RESUME && isResumableFrame(f)) {
-      resumeSaveFrames.onNext(f);
+      if (windowBytes > 0) {
+        /*held back in order while the window is full, frames on stream 0 are not*/
+        if (windowBlockedAt >= 0 || !windowFrames.isEmpty()) {
+          windowFrames.offer(f);
+          if (isDisposed()) {
+            releaseWindowFrames();
+          }
+          return;
+        }
+        saved(f.readableBytes());
+      }
+      saveFrame(f);
     }
     /*filter frames coming from upstream before actual resumption began,
      *  to preserve frames ordering*/
@@ -228,10 +314,51 @@ private void sendFrame(ByteBuf f) {
     }
   }
 
+  private void saveFrame(ByteBuf f) {
+    SessionStreams s = streams;
+    if (s != null) {
+      s.sent(f);
+    }
+    resumeSaveFrames.onNext(f);
+  }
+
+  private void sendFrames(List<ByteBuf> frames) {
+    for (int i = 0; i < frames.size(); i++) {
+      sendFrame(frames.get(i));
+    }
+  }
+
+  /*frames requested by the transport while resuming, turned into requests of one batch at a time
+  which never holds more frames than requested*/
+  static final class ResumeDemand {
+    private final AtomicLong frames = new AtomicLong();
+    private final DirectProcessor<Long> nextBatch = DirectProcessor.create();
+
+    Flux<Long> batchRequests(Flux<Long> frameRequests) {
+      return Flux.merge(frameRequests.filter(this::requested).map(n -> 1L), nextBatch);
+    }
+
+    /*a batch is requested once demand is no longer 0, and after a batch while demand is left*/
+    boolean requested(long n) {
+      return frames.getAndUpdate(f -> Operators.addCap(f, n)) == 0;
+    }
+
+    int batchSize() {
+      return (int) Math.max(1, Math.min(RESUME_FRAMES_BATCH, frames.get()));
+    }
+
+    void sent(int batchSize) {
+      if (frames.updateAndGet(f -> f == Long.MAX_VALUE ? f : f - batchSize) > 0) {
+        nextBatch.onNext(1L);
+      }
+    }
+  }
+
   Flux<Throwable> connectionErrors() {
     return connectionErrors;
   }
 
+  @SuppressWarnings("unchecked")
   private void dispatch(Object action) {
     actions.offer(action);
     if (actionsWip.getAndIncrement() == 0) {
@@ -239,6 +366,8 @@ private void dispatch(Object action) {
         Object a = actions.poll();
         if (a instanceof ByteBuf) {
           sendFrame((ByteBuf) a);
+        } else if (a instanceof List) {
+          sendFrames((List<ByteBuf>) a);
         } else {
           ((Runnable) a).run();
         }
@@ -286,6 +415,7 @@ private void doResume(
                   remotePosition, remoteImpliedPosition));
     }
 
+    ResumeDemand demand = new ResumeDemand();
     sendResumeFrame
         .apply(impliedPositionOrError)
         .doOnSuccess(
@@ -298,9 +428,10 @@ private void doResume(
         .then(
             streamResumedFrames(
                     resumableFramesStore
-                        .resumeStream()
+                        .resumeBatches(demand::batchSize)
                         .timeout(resumeStreamTimeout)
-                        .doFinally(s -> dispatch(new ResumeComplete())))
+                        .doFinally(s -> dispatch(new ResumeComplete())),
+                    demand)
                 .doOnError(err -> dispose()))
         .onErrorResume(err -> Mono.empty())
         .subscribe();
@@ -318,15 +449,23 @@ static long calculateRemoteImpliedPos(
   private void doResumeComplete() {
     logger.debug("Completing resumption");
     state = State.RESUME_COMPLETED;
+    /*frames held back by the window are older than frames cached during resumption*/
+    sendWindowFrames();
     upstreamSubscriber.resumeComplete();
   }
 
-  private Mono<Void> streamResumedFrames(Flux<ByteBuf> frames) {
+  private Mono<Void> streamResumedFrames(Flux<List<ByteBuf>> frames, ResumeDemand demand) {
     return Mono.create(
         s -> {
-          ResumeFramesSubscriber subscriber =
-              new ResumeFramesSubscriber(
-                  downStreamRequestListener.requests(), this::dispatch, s::error, s::success);
+          ResumeFramesSubscriber<List<ByteBuf>> subscriber =
+              new ResumeFramesSubscriber<>(
+                  demand.batchRequests(downStreamRequestListener.requests()),
+                  batch -> {
+                    dispatch(batch);
+                    demand.sent(batch.size());
+                  },
+                  s::error,
+                  s::success);
           s.onDispose(subscriber);
           resumedStreamDisposable = subscriber;
           frames.subscribe(subscriber);
@@ -360,6 +499,79 @@ private void disconnect(DuplexConnection connection) {
   set current pos accordingly*/
   private void releaseFramesToPosition(long remoteImpliedPos) {
     resumableFramesStore.releaseFrames(remoteImpliedPos);
+    if (windowBytes > 0) {
+      acknowledged(remoteImpliedPos);
+    }
+  }
+
+  /*frames of the window are counted from the store position, in the same bytes as implied
+  positions of the peer. Accessed by dispatched actions only*/
+  private void saved(int frameSize) {
+    savedPosition += frameSize;
+    if (windowBlockedAt < 0 && savedPosition - acknowledgedPosition >= windowBytes) {
+      logger.debug("{} Resume window is full, holding frames back", tag);
+      windowBlockedAt = System.nanoTime();
+    }
+  }
+
+  private void acknowledged(long remoteImpliedPos) {
+    acknowledgedPosition = Math.max(acknowledgedPosition, remoteImpliedPos);
+    if (windowBlockedAt >= 0 && savedPosition - acknowledgedPosition < windowBytes) {
+      long blockedNanos = System.nanoTime() - windowBlockedAt;
+      windowBlockedAt = -1;
+      windowBlockedNanos += blockedNanos;
+      logger.debug("{} Resume window acknowledged, sending held frames", tag);
+      resumableFramesStore.windowBlocked(blockedNanos);
+      sendWindowFrames();
+    }
+  }
+
+  /*frames held back are sent once resumption completed, replayed frames go first*/
+  private void sendWindowFrames() {
+    while (windowBlockedAt < 0 && state != State.RESUME_STARTED && state != State.RESUME) {
+      ByteBuf f = windowFrames.poll();
+      if (f == null) {
+        return;
+      }
+      saved(f.readableBytes());
+      saveFrame(f);
+      downStreamFrames.onNext(f);
+    }
+  }
+
+  private void releaseWindowFrames() {
+    ByteBuf f = windowFrames.poll();
+    while (f != null) {
+      f.release();
+      f = windowFrames.poll();
+    }
+  }
+
+  /*remove frames confirmed by keep-alive implied pos, at most RELEASE_FRAMES_BATCH per action.
+  The rest is released by actions dispatched later, interleaved with frames being saved*/
+  private void releaseFramesIncrementally(long remoteImpliedPos, boolean continuation) {
+    releaseTarget = Math.max(releaseTarget, remoteImpliedPos);
+    if (continuation) {
+      releaseScheduled = false;
+    } else if (releaseScheduled) {
+      return;
+    }
+    if (isDisposed()) {
+      return;
+    }
+    boolean released;
+    try {
+      released = resumableFramesStore.releaseFrames(releaseTarget, RELEASE_FRAMES_BATCH);
+    } catch (Throwable e) {
+      logger.error("{} Unable to release resumable frames", tag, e);
+      dispose();
+      return;
+    }
+    if (!released) {
+      long target = releaseTarget;
+      releaseScheduled = true;
+      releaseScheduler.schedule(() -> dispatch(new ReleaseFrames(target, true)));
+    }
   }
 
   static boolean isResumableFrame(ByteBuf frame) {
@@ -427,14 +639,16 @@ public void run() {
 
   private class ReleaseFrames implements Runnable {
     private final long remoteImpliedPos;
+    private final boolean continuation;
 
-    public ReleaseFrames(long remoteImpliedPos) {
+    public ReleaseFrames(long remoteImpliedPos, boolean continuation) {
       this.remoteImpliedPos = remoteImpliedPos;
+      this.continuation = continuation;
     }
 
     @Override
     public void run() {
-      releaseFramesToPosition(remoteImpliedPos);
+      releaseFramesIncrementally(remoteImpliedPos, continuation);
     }
   }
 }
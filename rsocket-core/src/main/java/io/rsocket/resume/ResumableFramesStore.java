@@ -18,6 +18,9 @@
 
 import io.netty.buffer.ByteBuf;
 import io.rsocket.Closeable;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntSupplier;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -35,18 +38,50 @@ public interface ResumableFramesStore extends Closeable {
   /** Release frames from tail of the store up to remote implied position */
   void releaseFrames(long remoteImpliedPos);
 
+  /**
+   * Release at most {@code maxFrames} frames from tail of the store towards remote implied
+   * position, so that releasing a large window can be split into bounded steps
+   *
+   * @return true once all frames up to remote implied position are released
+   */
+  default boolean releaseFrames(long remoteImpliedPos, int maxFrames) {
+    releaseFrames(remoteImpliedPos);
+    return true;
+  }
+
   /**
    * @return {@link Flux} of frames from store tail to head. It should terminate with error if
    *     frames are not continuous
    */
   Flux<ByteBuf> resumeStream();
 
+  /**
+   * @param maxBatchSize asked for the size limit of each batch right before the batch is emitted,
+   *     so that it can follow the demand of the transport
+   * @return frames of {@link #resumeStream()} in batches of consecutive frames, so that large
+   *     windows are replayed without handling frames one by one. Demand is counted in batches
+   */
+  default Flux<List<ByteBuf>> resumeBatches(IntSupplier maxBatchSize) {
+    return resumeStream().map(Collections::singletonList);
+  }
+
   /** @return Local frame position as defined by RSocket protocol */
   long framePosition();
 
   /** @return Implied frame position as defined by RSocket protocol */
   long frameImpliedPosition();
 
+  /** @return Size in bytes of the frames kept for resumption, or -1 if not known */
+  default long cacheSize() {
+    return -1;
+  }
+
+  /**
+   * Called each time senders stop being blocked because the resume window of the session was full,
+   * with the time they spent blocked
+   */
+  default void windowBlocked(long blockedNanos) {}
+
   /**
    * Received resumable frame as defined by RSocket protocol. Implementation must increment frame
    * implied position
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps resumable sessions across server restarts. Sessions still resumable when a server shuts
+ * down are saved, and a restarted server takes a session back when its client sends {@code
+ * RESUME}.
+ */
+public interface ResumableSessionRepository {
+
+  /**
+   * Saves the state of a session, replacing any previous state with the same token. The
+   * repository takes ownership of the buffers of {@code state}
+   */
+  void save(ResumableSessionState state);
+
+  /**
+   * Removes the state of a session
+   *
+   * @return state saved for {@code resumeToken}, owned by the caller, or null if there is none
+   */
+  @Nullable
+  ResumableSessionState take(ByteBuf resumeToken);
+}
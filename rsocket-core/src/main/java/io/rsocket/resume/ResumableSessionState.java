@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * What a server needs to accept {@code RESUME} for a session after a restart: the resume token,
+ * the {@code SETUP} frame the session was established with, the positions of the session, the
+ * frames sent but not acknowledged by the client and the streams which were open. Buffers are owned
+ * by the state until {@link #release()}.
+ */
+public final class ResumableSessionState {
+  private final ByteBuf token;
+  private final ByteBuf setupFrame;
+  private final long position;
+  private final long impliedPosition;
+  private final List<ByteBuf> frames;
+  private final int[] streamIds;
+  private final int lastStreamId;
+
+  public ResumableSessionState(
+      ByteBuf token,
+      ByteBuf setupFrame,
+      long position,
+      long impliedPosition,
+      List<ByteBuf> frames) {
+    this(token, setupFrame, position, impliedPosition, frames, new int[0], 0);
+  }
+
+  public ResumableSessionState(
+      ByteBuf token,
+      ByteBuf setupFrame,
+      long position,
+      long impliedPosition,
+      List<ByteBuf> frames,
+      int[] streamIds,
+      int lastStreamId) {
+    this.token = Objects.requireNonNull(token, "token");
+    this.setupFrame = Objects.requireNonNull(setupFrame, "setupFrame");
+    this.position = position;
+    this.impliedPosition = impliedPosition;
+    this.frames = Objects.requireNonNull(frames, "frames");
+    this.streamIds = Objects.requireNonNull(streamIds, "streamIds");
+    this.lastStreamId = lastStreamId;
+  }
+
+  public ByteBuf token() {
+    return token;
+  }
+
+  public ByteBuf setupFrame() {
+    return setupFrame;
+  }
+
+  /** @return position of the first of {@link #frames()} */
+  public long position() {
+    return position;
+  }
+
+  public long impliedPosition() {
+    return impliedPosition;
+  }
+
+  /** @return resumable frames sent to the client which it has not acknowledged, oldest first */
+  public List<ByteBuf> frames() {
+    return frames;
+  }
+
+  /**
+   * @return ids of the streams open when the session was saved. The server no longer has their
+   *     state, so it terminates them once the session is resumed
+   */
+  public int[] streamIds() {
+    return streamIds;
+  }
+
+  /**
+   * @return highest id of the streams requested by the server, ids of streams it requests after
+   *     resumption are higher
+   */
+  public int lastStreamId() {
+    return lastStreamId;
+  }
+
+  public void release() {
+    token.release();
+    setupFrame.release();
+    frames.forEach(ByteBuf::release);
+  }
+
+  @Override
+  public String toString() {
+    return "ResumableSessionState{"
+        + "position="
+        + position
+        + ", impliedPosition="
+        + impliedPosition
+        + ", frames="
+        + frames.size()
+        + ", streams="
+        + streamIds.length
+        + '}';
+  }
+}
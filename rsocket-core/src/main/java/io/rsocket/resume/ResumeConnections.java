@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.rsocket.DuplexConnection;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+/**
+ * Connections a {@link ClientRSocketSession} resumes on. Each attempt may race several candidate
+ * connections and keep the first one established, and a standby connection may be kept
+ * established while the session is connected, so that resumption starts right after a disconnect.
+ */
+final class ResumeConnections implements Disposable {
+  private static final Logger logger = LoggerFactory.getLogger(ResumeConnections.class);
+  static final Duration STANDBY_RETRY_DELAY = Duration.ofSeconds(1);
+
+  private final Mono<DuplexConnection> connectionFactory;
+  private final int candidates;
+  private final boolean standby;
+  private final AtomicReference<DuplexConnection> standbyConnection = new AtomicReference<>();
+  private final AtomicBoolean warming = new AtomicBoolean();
+  private final Disposable.Swap warmingAttempt = Disposables.swap();
+  private volatile boolean disposed;
+
+  /**
+   * @param connectionFactory subscribed once per candidate connection
+   * @param candidates number of connections raced for each attempt
+   * @param standby whether a standby connection is kept established
+   */
+  ResumeConnections(Mono<DuplexConnection> connectionFactory, int candidates, boolean standby) {
+    if (candidates < 1) {
+      throw new IllegalArgumentException("candidates must be positive: " + candidates);
+    }
+    this.connectionFactory = connectionFactory;
+    this.candidates = candidates;
+    this.standby = standby;
+  }
+
+  /** @return first of the candidate connections established, the others are disposed */
+  Mono<DuplexConnection> connect() {
+    if (candidates == 1) {
+      return connectionFactory;
+    }
+    return Mono.create(
+        sink -> {
+          AtomicBoolean won = new AtomicBoolean();
+          AtomicInteger failed = new AtomicInteger();
+          Disposable.Composite attempts = Disposables.composite();
+          sink.onCancel(attempts);
+          for (int i = 0; i < candidates; i++) {
+            attempts.add(
+                connectionFactory.subscribe(
+                    connection -> {
+                      if (won.compareAndSet(false, true)) {
+                        sink.success(connection);
+                      } else {
+                        connection.dispose();
+                      }
+                    },
+                    err -> {
+                      if (failed.incrementAndGet() == candidates) {
+                        sink.error(err);
+                      } else {
+                        logger.debug("Candidate connection failed", err);
+                      }
+                    }));
+          }
+        });
+  }
+
+  /** @return standby connection if one is established, owned by the caller */
+  @Nullable
+  DuplexConnection takeStandby() {
+    DuplexConnection connection = standbyConnection.getAndSet(null);
+    if (connection != null && connection.isDisposed()) {
+      return null;
+    }
+    return connection;
+  }
+
+  /** Establishes a standby connection unless there is one already */
+  void warmStandby() {
+    if (!standby || disposed || standbyConnection.get() != null) {
+      return;
+    }
+    if (!warming.compareAndSet(false, true)) {
+      return;
+    }
+    warmingAttempt.update(
+        connect()
+            .doFinally(s -> warming.set(false))
+            .subscribe(
+                this::standby,
+                err -> {
+                  logger.debug("Unable to establish standby connection", err);
+                  retryWarmStandby();
+                }));
+  }
+
+  private void standby(DuplexConnection connection) {
+    if (disposed || !standbyConnection.compareAndSet(null, connection)) {
+      connection.dispose();
+      return;
+    }
+    logger.debug("Standby connection established");
+    connection
+        .onClose()
+        .doFinally(
+            s -> {
+              if (standbyConnection.compareAndSet(connection, null)) {
+                logger.debug("Standby connection closed");
+                retryWarmStandby();
+              }
+            })
+        .subscribe(null, err -> {});
+    if (disposed && standbyConnection.compareAndSet(connection, null)) {
+      connection.dispose();
+    }
+  }
+
+  private void retryWarmStandby() {
+    if (!disposed) {
+      warmingAttempt.update(Mono.delay(STANDBY_RETRY_DELAY).subscribe(v -> warmStandby()));
+    }
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+    warmingAttempt.dispose();
+    DuplexConnection connection = standbyConnection.getAndSet(null);
+    if (connection != null) {
+      connection.dispose();
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed;
+  }
+}
@@ -16,7 +16,6 @@
 
 package io.rsocket.resume;
 
-import io.netty.buffer.ByteBuf;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import org.reactivestreams.Subscriber;
@@ -24,9 +23,9 @@
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 
-class ResumeFramesSubscriber implements Subscriber<ByteBuf>, Disposable {
+class ResumeFramesSubscriber<T> implements Subscriber<T>, Disposable {
   private final Flux<Long> requests;
-  private final Consumer<ByteBuf> onNext;
+  private final Consumer<T> onNext;
   private final Consumer<Throwable> onError;
   private final Runnable onComplete;
   private final AtomicBoolean disposed = new AtomicBoolean();
@@ -35,7 +34,7 @@ class ResumeFramesSubscriber implements Subscriber<ByteBuf>, Disposable {
 
   public ResumeFramesSubscriber(
       Flux<Long> requests,
-      Consumer<ByteBuf> onNext,
+      Consumer<T> onNext,
       Consumer<Throwable> onError,
       Runnable onComplete) {
     this.requests = requests;
@@ -55,8 +54,8 @@ public void onSubscribe(Subscription s) {
   }
 
   @Override
-  public void onNext(ByteBuf frame) {
-    this.onNext.accept(frame);
+  public void onNext(T frames) {
+    this.onNext.accept(frames);
   }
 
   @Override
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Byte budget shared by the {@link SharedResumableFramesStore}s of all sessions of a server, so
+ * that memory used for resumption is bounded by the budget rather than by the number of sessions
+ * times their window.
+ *
+ * <p>Quotas are elastic: a session may keep up to {@code maxSessionBytes} while the budget is not
+ * exhausted. Once it is, the frames of the sessions which have been idle for the longest time are
+ * dropped first. Such a session fails to resume only if its peer had not received those frames.
+ *
+ * <pre>{@code
+ * ResumeStoreManager manager = new ResumeStoreManager(512 * 1024 * 1024, 16 * 1024 * 1024);
+ * RSocketFactory.receive().resume().resumeStore(token -> manager.newStore("server"))
+ * }</pre>
+ */
+public class ResumeStoreManager {
+  private final long budget;
+  private final long maxSessionBytes;
+  private final AtomicLong used = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final Set<SharedResumableFramesStore> sessions = ConcurrentHashMap.newKeySet();
+  /* sessions holding frames, least recently active first. Never held while locking a store */
+  private final LinkedHashMap<SharedResumableFramesStore, Boolean> activity =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * @param budgetBytes frame bytes kept for resumption across all sessions
+   * @param maxSessionBytes frame bytes kept for resumption by a single session
+   */
+  public ResumeStoreManager(long budgetBytes, long maxSessionBytes) {
+    if (budgetBytes <= 0 || maxSessionBytes <= 0) {
+      throw new IllegalArgumentException("budgetBytes and maxSessionBytes must be > 0");
+    }
+    this.budget = budgetBytes;
+    this.maxSessionBytes = Math.min(maxSessionBytes, budgetBytes);
+  }
+
+  /** @return store of a new session, which leaves the manager once disposed */
+  public SharedResumableFramesStore newStore(String tag) {
+    SharedResumableFramesStore store = new SharedResumableFramesStore(tag, this);
+    sessions.add(store);
+    return store;
+  }
+
+  /** @return frame bytes kept by all sessions */
+  public long usedBytes() {
+    return used.get();
+  }
+
+  public long budgetBytes() {
+    return budget;
+  }
+
+  public long maxSessionBytes() {
+    return maxSessionBytes;
+  }
+
+  /** @return number of times sessions had their frames dropped to stay within the budget */
+  public long evictions() {
+    return evictions.get();
+  }
+
+  public int sessionCount() {
+    return sessions.size();
+  }
+
+  /** @return stores of the sessions, for their usage metrics */
+  public Collection<SharedResumableFramesStore> sessions() {
+    return Collections.unmodifiableCollection(new ArrayList<>(sessions));
+  }
+
+  /**
+   * Reserves {@code size} bytes for {@code store}, dropping the frames of the coldest other
+   * sessions while the budget is exhausted. Must not be called while holding the lock of a store.
+   *
+   * @return false if the budget is exhausted and only {@code store} holds frames
+   */
+  boolean reserve(SharedResumableFramesStore store, int size) {
+    for (; ; ) {
+      if (tryReserve(size)) {
+        return true;
+      }
+      SharedResumableFramesStore victim = coldest(store);
+      if (victim == null) {
+        return false;
+      }
+      if (victim.evict()) {
+        evictions.incrementAndGet();
+      }
+    }
+  }
+
+  boolean tryReserve(int size) {
+    for (; ; ) {
+      long u = used.get();
+      if (u + size > budget) {
+        return false;
+      }
+      if (used.compareAndSet(u, u + size)) {
+        return true;
+      }
+    }
+  }
+
+  void release(long size) {
+    used.addAndGet(-size);
+  }
+
+  /** Marks a store holding frames as the most recently active */
+  void touch(SharedResumableFramesStore store) {
+    synchronized (activity) {
+      activity.put(store, Boolean.TRUE);
+    }
+  }
+
+  /** Called once a store holds no frames */
+  void idle(SharedResumableFramesStore store) {
+    synchronized (activity) {
+      activity.remove(store);
+    }
+  }
+
+  void remove(SharedResumableFramesStore store) {
+    sessions.remove(store);
+    idle(store);
+  }
+
+  @Nullable
+  private SharedResumableFramesStore coldest(SharedResumableFramesStore except) {
+    synchronized (activity) {
+      for (SharedResumableFramesStore store : activity.keySet()) {
+        if (store != except) {
+          return store;
+        }
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import java.util.Arrays;
+
+/**
+ * Resume token bytes copied out of a frame, so that sessions are looked up by an array hash
+ * computed once instead of by {@link ByteBuf#hashCode()} and {@link ByteBuf#equals(Object)}, and
+ * without keeping the frame buffer alive.
+ */
+final class ResumeTokenKey {
+  private final byte[] bytes;
+  private final int hash;
+
+  private ResumeTokenKey(byte[] bytes) {
+    this.bytes = bytes;
+    this.hash = Arrays.hashCode(bytes);
+  }
+
+  static ResumeTokenKey of(ByteBuf token) {
+    return new ResumeTokenKey(
+        ByteBufUtil.getBytes(token, token.readerIndex(), token.readableBytes(), true));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ResumeTokenKey)) {
+      return false;
+    }
+    ResumeTokenKey that = (ResumeTokenKey) o;
+    return hash == that.hash && Arrays.equals(bytes, that.bytes);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return ByteBufUtil.hexDump(bytes);
+  }
+}
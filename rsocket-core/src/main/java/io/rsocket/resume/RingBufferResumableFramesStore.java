@@ -0,0 +1,335 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.util.internal.MathUtil;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * {@link ResumableFramesStore} which copies frames into a single off-heap ring of a power of two
+ * size, instead of retaining each frame as {@link InMemoryResumableFramesStore} does. Saved frames
+ * do not pin chunks of the pooled allocator, {@link #releaseFrames(long)} only moves the tail of
+ * the ring, and {@link #resumeStream()} emits slices of the ring.
+ *
+ * <p>Every frame is stored contiguously after its length, a frame which does not fit before the
+ * end of the ring is written at its start. The ring is allocated with the first saved frame and
+ * doubled while frames do not fit, up to {@code cacheSizeBytes} rounded up to a power of two. The
+ * oldest frames are dropped once {@code cacheSizeBytes} is exceeded or the ring is full.
+ */
+public class RingBufferResumableFramesStore implements ResumableFramesStore {
+  private static final Logger logger =
+      LoggerFactory.getLogger(RingBufferResumableFramesStore.class);
+  private static final int FRAME_LENGTH_SIZE = Integer.BYTES;
+  private static final int PADDING = -1;
+  private static final int INITIAL_CAPACITY = 4096;
+
+  private final MonoProcessor<Void> disposed = MonoProcessor.create();
+  private final String tag;
+  private final long cacheLimit;
+  final int capacity;
+
+  /* null until a frame is saved, guarded by this */
+  ByteBuf ring;
+  /* ring counters of the oldest frame and of the next write, guarded by this */
+  private long tail;
+  private long head;
+  /* lowest ring counter which slices emitted by resumeStream() may still read, guarded by this */
+  private long replayFloor = Long.MAX_VALUE;
+
+  volatile long position;
+  volatile long impliedPosition;
+  volatile long cacheSize;
+
+  /**
+   * @param tag used in log messages
+   * @param cacheSizeBytes maximum number of frame bytes kept for resumption. The ring grows up to
+   *     this size rounded up to a power of two, frame lengths are stored in it as well
+   */
+  public RingBufferResumableFramesStore(String tag, int cacheSizeBytes) {
+    if (cacheSizeBytes <= FRAME_LENGTH_SIZE || cacheSizeBytes > 1 << 30) {
+      throw new IllegalArgumentException("cacheSizeBytes is out of range: " + cacheSizeBytes);
+    }
+    this.tag = Objects.requireNonNull(tag, "tag");
+    this.cacheLimit = cacheSizeBytes;
+    this.capacity = MathUtil.findNextPositivePowerOfTwo(cacheSizeBytes);
+  }
+
+  @Override
+  public Mono<Void> saveFrames(Flux<ByteBuf> frames) {
+    MonoProcessor<Void> completed = MonoProcessor.create();
+    frames
+        .doFinally(s -> completed.onComplete())
+        .subscribe(
+            this::saveFrame,
+            t -> logger.info("unexpected onError signal: {}, {}", t.getClass(), t.getMessage()));
+    return completed;
+  }
+
+  @Override
+  public synchronized void releaseFrames(long remoteImpliedPos) {
+    long pos = position;
+    logger.debug(
+        "{} Removing frames for local: {}, remote implied: {}", tag, pos, remoteImpliedPos);
+    long removeSize = Math.max(0, remoteImpliedPos - pos);
+    while (removeSize > 0 && cacheSize > 0) {
+      removeSize -= releaseTailFrame();
+    }
+    if (removeSize > 0) {
+      throw new IllegalStateException(
+          String.format(
+              "Local and remote state disagreement: "
+                  + "need to remove additional %d bytes, but cache is empty",
+              removeSize));
+    } else if (removeSize < 0) {
+      throw new IllegalStateException(
+          "Local and remote state disagreement: " + "local and remote frame sizes are not equal");
+    } else {
+      logger.debug("{} Removed frames. Current cache size: {}", tag, cacheSize);
+    }
+  }
+
+  @Override
+  public Flux<ByteBuf> resumeStream() {
+    return Flux.generate(
+        this::resumeStreamState,
+        (state, sink) -> {
+          ByteBuf frame = state.next();
+          if (frame != null) {
+            sink.next(frame);
+          } else {
+            sink.complete();
+            logger.debug("{} Resuming stream completed", tag);
+          }
+          return state;
+        },
+        ResumeStreamState::dispose);
+  }
+
+  @Override
+  public long framePosition() {
+    return position;
+  }
+
+  @Override
+  public long frameImpliedPosition() {
+    return impliedPosition;
+  }
+
+  @Override
+  public long cacheSize() {
+    return cacheSize;
+  }
+
+  @Override
+  public void resumableFrameReceived(ByteBuf frame) {
+    /*called on transport thread so non-atomic on volatile is safe*/
+    impliedPosition += frame.readableBytes();
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return disposed;
+  }
+
+  @Override
+  public void dispose() {
+    synchronized (this) {
+      if (!isDisposed()) {
+        cacheSize = 0;
+        tail = head;
+        if (ring != null) {
+          ring.release();
+        }
+      }
+    }
+    disposed.onComplete();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed.isTerminated();
+  }
+
+  synchronized void saveFrame(ByteBuf frame) {
+    int frameSize = frame.readableBytes();
+    int required = FRAME_LENGTH_SIZE + frameSize;
+    if (frameSize > cacheLimit || required > capacity || isDisposed()) {
+      while (cacheSize > 0) {
+        releaseTailFrame();
+      }
+      position += frameSize;
+      return;
+    }
+
+    if (ring == null) {
+      int initialCapacity = MathUtil.findNextPositivePowerOfTwo(required);
+      ring = allocate(Math.min(capacity, Math.max(INITIAL_CAPACITY, initialCapacity)));
+    }
+
+    long start;
+    long end;
+    for (; ; ) {
+      int ringCapacity = ring.capacity();
+      int contiguous = ringCapacity - offset(ring, head);
+      long needed = required <= contiguous ? required : contiguous + required;
+      if (cacheSize == 0 && needed > ringCapacity && required <= ringCapacity) {
+        // empty, start over at the beginning of the ring
+        head = tail = head + contiguous;
+        continue;
+      }
+      boolean withinLimit = cacheLimit - cacheSize >= frameSize;
+      if (withinLimit && ringCapacity - (head - tail) < needed && ringCapacity < capacity) {
+        relocate(ringCapacity << 1);
+        continue;
+      }
+      if (withinLimit && ringCapacity - (head - tail) >= needed) {
+        start = head;
+        end = start + needed;
+        if (overwritesReplayedFrames(end)) {
+          relocate(ringCapacity);
+          continue;
+        }
+        break;
+      }
+      releaseTailFrame();
+    }
+
+    int contiguous = ring.capacity() - offset(ring, start);
+    if (required > contiguous) {
+      if (contiguous >= FRAME_LENGTH_SIZE) {
+        ring.setInt(offset(ring, start), PADDING);
+      }
+      start += contiguous;
+    }
+    int offset = offset(ring, start);
+    ring.setInt(offset, frameSize);
+    ring.setBytes(offset + FRAME_LENGTH_SIZE, frame, frame.readerIndex(), frameSize);
+    head = end;
+    cacheSize += frameSize;
+  }
+
+  /**
+   * Writing up to {@code end} overwrites the bytes of ring counters below {@code end - capacity},
+   * which slices emitted by a resume stream may still read.
+   */
+  private boolean overwritesReplayedFrames(long end) {
+    if (ring.refCnt() == 1) {
+      replayFloor = Long.MAX_VALUE;
+      return false;
+    }
+    return end - ring.capacity() > replayFloor;
+  }
+
+  /**
+   * Moves the stored frames to the start of a new ring, copying only the frames and their lengths.
+   * The old ring is left to slices emitted by resume streams.
+   */
+  private void relocate(int newCapacity) {
+    ByteBuf relocated = allocate(newCapacity);
+    long next = tail;
+    long remaining = cacheSize;
+    int written = 0;
+    while (remaining > 0) {
+      next = skipPadding(ring, next);
+      int offset = offset(ring, next);
+      int frameSize = ring.getInt(offset);
+      int length = FRAME_LENGTH_SIZE + frameSize;
+      relocated.setBytes(written, ring, offset, length);
+      written += length;
+      next += length;
+      remaining -= frameSize;
+    }
+    ring.release();
+    ring = relocated;
+    tail = 0;
+    head = written;
+    replayFloor = Long.MAX_VALUE;
+  }
+
+  private int releaseTailFrame() {
+    tail = skipPadding(ring, tail);
+    int frameSize = ring.getInt(offset(ring, tail));
+    tail += FRAME_LENGTH_SIZE + frameSize;
+    cacheSize -= frameSize;
+    position += frameSize;
+    return frameSize;
+  }
+
+  /** @return counter of the frame stored at or after {@code counter} */
+  private static long skipPadding(ByteBuf ring, long counter) {
+    int offset = offset(ring, counter);
+    int contiguous = ring.capacity() - offset;
+    if (contiguous < FRAME_LENGTH_SIZE || ring.getInt(offset) == PADDING) {
+      return counter + contiguous;
+    }
+    return counter;
+  }
+
+  private static int offset(ByteBuf ring, long counter) {
+    return (int) counter & (ring.capacity() - 1);
+  }
+
+  private static ByteBuf allocate(int capacity) {
+    return UnpooledByteBufAllocator.DEFAULT.directBuffer(capacity, capacity);
+  }
+
+  private synchronized ResumeStreamState resumeStreamState() {
+    if (isDisposed() || cacheSize == 0) {
+      return new ResumeStreamState(null, 0, 0);
+    }
+    tail = skipPadding(ring, tail);
+    replayFloor = Math.min(replayFloor, tail);
+    return new ResumeStreamState(ring.retain(), tail, head);
+  }
+
+  /** Frames stored when the resume stream was subscribed, with the ring retained */
+  static final class ResumeStreamState {
+    private final ByteBuf ring;
+    private final long end;
+    private long next;
+
+    ResumeStreamState(ByteBuf ring, long start, long end) {
+      this.ring = ring;
+      this.next = start;
+      this.end = end;
+    }
+
+    ByteBuf next() {
+      if (next >= end) {
+        return null;
+      }
+      next = skipPadding(ring, next);
+      int offset = offset(ring, next);
+      int frameSize = ring.getInt(offset);
+      next += FRAME_LENGTH_SIZE + frameSize;
+      return ring.retainedSlice(offset + FRAME_LENGTH_SIZE, frameSize);
+    }
+
+    void dispose() {
+      if (ring != null) {
+        ring.release();
+      }
+    }
+  }
+}
@@ -18,15 +18,22 @@
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.rsocket.DuplexConnection;
+import io.rsocket.exceptions.CanceledException;
 import io.rsocket.exceptions.RejectedResumeException;
+import io.rsocket.frame.CancelFrameFlyweight;
 import io.rsocket.frame.ErrorFrameFlyweight;
 import io.rsocket.frame.ResumeFrameFlyweight;
 import io.rsocket.frame.ResumeOkFrameFlyweight;
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxProcessor;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.ReplayProcessor;
@@ -40,6 +47,12 @@ public class ServerRSocketSession implements RSocketSession<DuplexConnection> {
       ReplayProcessor.create(0);
   private final ByteBufAllocator allocator;
   private final ByteBuf resumeToken;
+  private final long resumeSessionNanos;
+  /*written by SessionManager on disconnect, the session expires unless continued in time*/
+  private volatile long disconnectedAt;
+  private volatile boolean connected = true;
+  private volatile ByteBuf setupFrame;
+  private volatile SessionStreams streams;
 
   public ServerRSocketSession(
       DuplexConnection duplexConnection,
@@ -49,46 +62,92 @@ public ServerRSocketSession(
       Function<? super ByteBuf, ? extends ResumableFramesStore> resumeStoreFactory,
       ByteBuf resumeToken,
       boolean cleanupStoreOnKeepAlive) {
+    this(
+        duplexConnection,
+        allocator,
+        resumeSessionDuration,
+        resumeStreamTimeout,
+        resumeStoreFactory,
+        resumeToken,
+        cleanupStoreOnKeepAlive,
+        0);
+  }
+
+  /**
+   * @param resumeWindowBytes if positive, bytes of frames sent but not acknowledged by the client
+   *     before senders are blocked, see {@link ResumableDuplexConnection}
+   */
+  public ServerRSocketSession(
+      DuplexConnection duplexConnection,
+      ByteBufAllocator allocator,
+      Duration resumeSessionDuration,
+      Duration resumeStreamTimeout,
+      Function<? super ByteBuf, ? extends ResumableFramesStore> resumeStoreFactory,
+      ByteBuf resumeToken,
+      boolean cleanupStoreOnKeepAlive,
+      long resumeWindowBytes) {
     this.allocator = allocator;
     this.resumeToken = resumeToken;
+    this.resumeSessionNanos = resumeSessionDuration.toNanos();
     this.resumableConnection =
         new ResumableDuplexConnection(
             "server",
             duplexConnection,
             resumeStoreFactory.apply(resumeToken),
             resumeStreamTimeout,
-            cleanupStoreOnKeepAlive);
-
-    Mono<DuplexConnection> timeout =
-        resumableConnection
-            .connectionErrors()
-            .flatMap(
-                err -> {
-                  logger.debug("Starting session timeout due to error", err);
-                  return newConnections
-                      .next()
-                      .doOnNext(c -> logger.debug("Connection after error: {}", c))
-                      .timeout(resumeSessionDuration);
-                })
-            .then()
-            .cast(DuplexConnection.class);
-
-    newConnections
-        .mergeWith(timeout)
-        .subscribe(
-            connection -> {
-              reconnect(connection);
-              logger.debug("Server ResumableConnection reconnected: {}", connection);
-            },
-            err -> {
-              logger.debug("Server ResumableConnection reconnect timeout");
-              resumableConnection.dispose();
-            });
+            cleanupStoreOnKeepAlive,
+            resumeWindowBytes);
+
+    newConnections.subscribe(
+        connection -> {
+          reconnect(connection);
+          logger.debug("Server ResumableConnection reconnected: {}", connection);
+        });
+  }
+
+  /**
+   * Session saved to a {@link ResumableSessionRepository} by a previous server, which waits for
+   * {@link #resumeWith(ByteBuf)} on {@code duplexConnection}
+   */
+  public static ServerRSocketSession restore(
+      ResumableSessionState state,
+      DuplexConnection duplexConnection,
+      ByteBufAllocator allocator,
+      Duration resumeSessionDuration,
+      Duration resumeStreamTimeout,
+      Function<? super ByteBuf, ? extends ResumableFramesStore> resumeStoreFactory,
+      boolean cleanupStoreOnKeepAlive,
+      long resumeWindowBytes) {
+    ByteBuf resumeToken = Unpooled.copiedBuffer(state.token());
+    ResumableFramesStore store =
+        new RestoredResumableFramesStore(
+            resumeStoreFactory.apply(resumeToken), state.position(), state.impliedPosition());
+    store.saveFrames(Flux.fromIterable(state.frames())).subscribe();
+
+    ServerRSocketSession session =
+        new ServerRSocketSession(
+            duplexConnection,
+            allocator,
+            resumeSessionDuration,
+            resumeStreamTimeout,
+            token -> store,
+            resumeToken,
+            cleanupStoreOnKeepAlive,
+            resumeWindowBytes);
+    session.setupFrame(
+        Unpooled.copiedBuffer(state.setupFrame()),
+        new SessionStreams(state.streamIds(), state.lastStreamId()));
+    state.release();
+    session.resumableConnection.awaitResume();
+    session.terminateStreams(state.streamIds());
+    logger.debug("Restored session: {}", state);
+    return session;
   }
 
   @Override
   public ServerRSocketSession continueWith(DuplexConnection connectionFactory) {
     logger.debug("Server continued with connection: {}", connectionFactory);
+    connected = true;
     newConnections.onNext(connectionFactory);
     return this;
   }
@@ -131,6 +190,92 @@ public ByteBuf token() {
     return resumeToken;
   }
 
+  /**
+   * Keeps the SETUP frame of the session and tracks its open streams, so that it can be saved when
+   * the server shuts down
+   */
+  public void setupFrame(ByteBuf setupFrame) {
+    setupFrame(setupFrame, new SessionStreams());
+  }
+
+  private void setupFrame(ByteBuf setupFrame, SessionStreams streams) {
+    this.setupFrame = setupFrame;
+    this.streams = streams;
+    resumableConnection.trackStreams(streams);
+    onClose().doFinally(s -> setupFrame.release()).subscribe();
+  }
+
+  @Nullable
+  public ByteBuf setupFrame() {
+    return setupFrame;
+  }
+
+  /**
+   * @return state to save for this session, or null if it has no SETUP frame or its store does not
+   *     replay frames synchronously
+   */
+  @Nullable
+  ResumableSessionState snapshot() {
+    ByteBuf setup = setupFrame;
+    SessionStreams streams = this.streams;
+    if (setup == null || streams == null || isDisposed()) {
+      return null;
+    }
+    ResumableFramesStore store = resumableConnection.resumableFramesStore();
+    long position = store.framePosition();
+    long impliedPosition = store.frameImpliedPosition();
+    CompletableFuture<List<ByteBuf>> frames = store.resumeStream().collectList().toFuture();
+    if (!frames.isDone() || frames.isCompletedExceptionally()) {
+      frames.cancel(true);
+      return null;
+    }
+    return new ResumableSessionState(
+        Unpooled.copiedBuffer(resumeToken),
+        setup.retainedDuplicate(),
+        position,
+        impliedPosition,
+        frames.join(),
+        streams.streamIds(),
+        streams.lastStreamId());
+  }
+
+  /**
+   * Streams of the previous server are gone: requests of the client are answered with {@code
+   * ERROR}, requests of the server are cancelled. Sent once resumed frames are replayed
+   */
+  private void terminateStreams(int[] streamIds) {
+    if (streamIds.length == 0) {
+      return;
+    }
+    logger.debug("Terminating {} streams of the restored session", streamIds.length);
+    resumableConnection.send(
+        Flux.range(0, streamIds.length)
+            .map(
+                i -> {
+                  int streamId = streamIds[i];
+                  return (streamId & 1) == 1
+                      ? ErrorFrameFlyweight.encode(
+                          allocator, streamId, new CanceledException("server restarted"))
+                      : CancelFrameFlyweight.encode(allocator, streamId);
+                }));
+  }
+
+  /** @return deadline of the session, which is not continued with a new connection yet */
+  long disconnected(long nanos) {
+    disconnectedAt = nanos;
+    connected = false;
+    return nanos + resumeSessionNanos;
+  }
+
+  boolean isExpired(long nanos) {
+    return !connected && nanos - disconnectedAt >= resumeSessionNanos;
+  }
+
+  void expire() {
+    logger.debug("Server ResumableConnection reconnect timeout");
+    resumableConnection.dispose();
+  }
+
   private Mono<Void> sendFrame(ByteBuf frame) {
     logger.debug("Sending Resume frame: {}", frame);
     return resumableConnection.sendOne(frame).onErrorResume(e -> Mono.empty());
@@ -17,45 +17,141 @@
 package io.rsocket.resume;
 
 import io.netty.buffer.ByteBuf;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+/**
+ * Sessions of a server by resume token. Disconnected sessions are put on a timing wheel swept
+ * every {@link #EXPIRY_TICK}, rather than each scheduling a timer of its own, and expire if they
+ * are not continued with a new connection within their resume session duration.
+ *
+ * <p>With a {@link ResumableSessionRepository}, sessions still resumable when the manager is
+ * disposed are saved to it, and {@link #restore(ByteBuf)} takes them back after a restart.
+ */
 public class SessionManager {
+  private static final Logger logger = LoggerFactory.getLogger(SessionManager.class);
+  static final Duration EXPIRY_TICK = Duration.ofMillis(100);
+  static final int TICKS_PER_WHEEL = 512;
+
   private volatile boolean isDisposed;
-  private final Map<ByteBuf, ServerRSocketSession> sessions = new ConcurrentHashMap<>();
+  private final Map<ResumeTokenKey, ServerRSocketSession> sessions = new ConcurrentHashMap<>();
+  private final LongSupplier nanoClock;
+  private final ExpiryWheel<ServerRSocketSession> expiry;
+  private final Disposable sweeps;
+  @Nullable private final ResumableSessionRepository repository;
+
+  public SessionManager() {
+    this(null);
+  }
+
+  public SessionManager(@Nullable ResumableSessionRepository repository) {
+    this(repository, Schedulers.parallel(), System::nanoTime, EXPIRY_TICK);
+  }
+
+  SessionManager(
+      @Nullable ResumableSessionRepository repository,
+      Scheduler scheduler,
+      LongSupplier nanoClock,
+      Duration tick) {
+    long tickNanos = tick.toNanos();
+    this.repository = repository;
+    this.nanoClock = nanoClock;
+    this.expiry = new ExpiryWheel<>(now(), tickNanos, TICKS_PER_WHEEL);
+    this.sweeps =
+        scheduler.schedulePeriodically(this::sweep, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+  }
 
   public ServerRSocketSession save(ServerRSocketSession session) {
     if (isDisposed) {
       session.dispose();
     } else {
-      ByteBuf token = session.token().retain();
+      ResumeTokenKey token = ResumeTokenKey.of(session.token());
+      session.onClose().doOnSuccess(v -> sessions.remove(token, session)).subscribe();
       session
-          .onClose()
-          .doOnSuccess(
-              v -> {
-                if (isDisposed || sessions.get(token) == session) {
-                  sessions.remove(token);
-                }
-                token.release();
-              })
-          .subscribe();
-      ServerRSocketSession prevSession = sessions.remove(token);
+          .resumableConnection()
+          .connectionErrors()
+          .subscribe(
+              err -> {
+                logger.debug("Starting session timeout due to error", err);
+                expiry.schedule(session, session.disconnected(now()));
+              });
+      ServerRSocketSession prevSession = sessions.put(token, session);
       if (prevSession != null) {
         prevSession.dispose();
       }
-      sessions.put(token, session);
     }
     return session;
   }
 
   @Nullable
   public ServerRSocketSession get(ByteBuf resumeToken) {
-    return sessions.get(resumeToken);
+    return sessions.get(ResumeTokenKey.of(resumeToken));
+  }
+
+  /** @return whether sessions are saved to a {@link ResumableSessionRepository} on dispose */
+  public boolean isPersistent() {
+    return repository != null;
+  }
+
+  /** @return session saved by a previous server, owned by the caller, or null if there is none */
+  @Nullable
+  public ResumableSessionState restore(ByteBuf resumeToken) {
+    return repository != null && !isDisposed ? repository.take(resumeToken) : null;
   }
 
   public void dispose() {
     isDisposed = true;
-    sessions.values().forEach(ServerRSocketSession::dispose);
+    sweeps.dispose();
+    for (ServerRSocketSession session : sessions.values()) {
+      if (repository != null) {
+        save(repository, session);
+      }
+      session.dispose();
+    }
+  }
+
+  private static void save(ResumableSessionRepository repository, ServerRSocketSession session) {
+    try {
+      /*stop receiving first, so that the saved implied position is final*/
+      session.resumableConnection().disconnect();
+      ResumableSessionState state = session.snapshot();
+      if (state != null) {
+        repository.save(state);
+      }
+    } catch (Throwable e) {
+      logger.error("Unable to save session {}", session.token(), e);
+    }
+  }
+
+  int sessionCount() {
+    return sessions.size();
+  }
+
+  private void sweep() {
+    long now = now();
+    expiry.sweep(
+        now,
+        session -> {
+          if (!session.isDisposed() && session.isExpired(now)) {
+            try {
+              session.expire();
+            } catch (Throwable e) {
+              logger.error("Unable to expire session {}", session.token(), e);
+            }
+          }
+        });
+  }
+
+  private long now() {
+    return nanoClock.getAsLong();
   }
 }
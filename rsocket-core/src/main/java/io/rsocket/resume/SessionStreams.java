@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.FrameType;
+import java.util.Arrays;
+
+/**
+ * Streams open on a server session, tracked from the frames it sends and receives, so that a
+ * session restored after a restart of the server can terminate the streams of the previous server.
+ * Streams requested by the client have odd ids, streams requested by the server even ids. A stream
+ * is closed by {@code CANCEL} or {@code ERROR} in either direction, or once its responder
+ * completes.
+ */
+final class SessionStreams {
+  /* guarded by this */
+  private final IntObjectMap<FrameType> streams = new IntObjectHashMap<>();
+  private int lastStreamId;
+
+  SessionStreams() {}
+
+  SessionStreams(int[] streamIds, int lastStreamId) {
+    for (int streamId : streamIds) {
+      streams.put(streamId, FrameType.REQUEST_STREAM);
+    }
+    this.lastStreamId = lastStreamId;
+  }
+
+  synchronized void sent(ByteBuf frame) {
+    onFrame(frame, true);
+  }
+
+  synchronized void received(ByteBuf frame) {
+    onFrame(frame, false);
+  }
+
+  /** @return ids of open streams, in ascending order */
+  synchronized int[] streamIds() {
+    int[] streamIds = new int[streams.size()];
+    int i = 0;
+    for (int streamId : streams.keySet()) {
+      streamIds[i++] = streamId;
+    }
+    Arrays.sort(streamIds);
+    return streamIds;
+  }
+
+  /** @return highest id of the streams requested by the server */
+  synchronized int lastStreamId() {
+    return lastStreamId;
+  }
+
+  private void onFrame(ByteBuf frame, boolean sent) {
+    int streamId = FrameHeaderFlyweight.streamId(frame);
+    if (streamId == 0) {
+      return;
+    }
+    FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+    switch (frameType) {
+      case REQUEST_RESPONSE:
+      case REQUEST_STREAM:
+      case REQUEST_CHANNEL:
+        streams.put(streamId, frameType);
+        // fall through
+      case REQUEST_FNF:
+        if (sent) {
+          lastStreamId = Math.max(lastStreamId, streamId);
+        }
+        break;
+      case CANCEL:
+      case ERROR:
+        streams.remove(streamId);
+        break;
+      case NEXT:
+        /*requester of a channel sends payloads too, only responses complete a stream*/
+        if (isResponse(streamId, sent) && streams.get(streamId) == FrameType.REQUEST_RESPONSE) {
+          streams.remove(streamId);
+        }
+        break;
+      case COMPLETE:
+      case NEXT_COMPLETE:
+        if (isResponse(streamId, sent)) {
+          streams.remove(streamId);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  /* the server responds on odd ids, the client on even ids */
+  private static boolean isResponse(int streamId, boolean sent) {
+    return sent == ((streamId & 1) == 1);
+  }
+}
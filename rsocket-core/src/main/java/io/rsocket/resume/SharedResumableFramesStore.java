@@ -0,0 +1,226 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * {@link ResumableFramesStore} of a session whose frames count against the budget of a {@link
+ * ResumeStoreManager}. Frames are retained as by {@link InMemoryResumableFramesStore}.
+ *
+ * <p>Exposes the usage of the session: {@link #cacheSize()}, {@link #evictedBytes()} and {@link
+ * #evictions()}.
+ */
+public class SharedResumableFramesStore implements ResumableFramesStore {
+  private static final Logger logger = LoggerFactory.getLogger(SharedResumableFramesStore.class);
+  private static final long TOUCH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final MonoProcessor<Void> disposed = MonoProcessor.create();
+  private final String tag;
+  private final ResumeStoreManager manager;
+  /* guarded by this */
+  final ArrayDeque<ByteBuf> cachedFrames = new ArrayDeque<>();
+  private long lastTouched;
+
+  volatile long position;
+  volatile long impliedPosition;
+  volatile long cacheSize;
+  volatile long evictedBytes;
+  volatile int evictions;
+
+  SharedResumableFramesStore(String tag, ResumeStoreManager manager) {
+    this.tag = tag;
+    this.manager = manager;
+  }
+
+  @Override
+  public Mono<Void> saveFrames(Flux<ByteBuf> frames) {
+    MonoProcessor<Void> completed = MonoProcessor.create();
+    frames
+        .doFinally(s -> completed.onComplete())
+        .subscribe(
+            this::saveFrame,
+            t -> logger.info("unexpected onError signal: {}, {}", t.getClass(), t.getMessage()));
+    return completed;
+  }
+
+  @Override
+  public synchronized void releaseFrames(long remoteImpliedPos) {
+    long pos = position;
+    logger.debug(
+        "{} Removing frames for local: {}, remote implied: {}", tag, pos, remoteImpliedPos);
+    long removeSize = Math.max(0, remoteImpliedPos - pos);
+    while (removeSize > 0 && !cachedFrames.isEmpty()) {
+      removeSize -= releaseTailFrame();
+    }
+    if (cachedFrames.isEmpty()) {
+      manager.idle(this);
+    }
+    if (removeSize > 0) {
+      throw new IllegalStateException(
+          String.format(
+              "Local and remote state disagreement: "
+                  + "need to remove additional %d bytes, but cache is empty",
+              removeSize));
+    } else if (removeSize < 0) {
+      throw new IllegalStateException(
+          "Local and remote state disagreement: " + "local and remote frame sizes are not equal");
+    } else {
+      logger.debug("{} Removed frames. Current cache size: {}", tag, cacheSize);
+    }
+  }
+
+  @Override
+  public synchronized Flux<ByteBuf> resumeStream() {
+    ByteBuf[] frames = new ByteBuf[cachedFrames.size()];
+    int i = 0;
+    for (ByteBuf frame : cachedFrames) {
+      frames[i++] = frame.retainedDuplicate();
+    }
+    return Flux.fromArray(frames)
+        .doOnDiscard(ByteBuf.class, ByteBuf::release)
+        .doOnComplete(() -> logger.debug("{} Resuming stream completed", tag));
+  }
+
+  @Override
+  public long framePosition() {
+    return position;
+  }
+
+  @Override
+  public long frameImpliedPosition() {
+    return impliedPosition;
+  }
+
+  @Override
+  public void resumableFrameReceived(ByteBuf frame) {
+    /*called on transport thread so non-atomic on volatile is safe*/
+    impliedPosition += frame.readableBytes();
+  }
+
+  /** @return frame bytes kept by this session */
+  @Override
+  public long cacheSize() {
+    return cacheSize;
+  }
+
+  /** @return frame bytes dropped to keep other sessions within the budget */
+  public long evictedBytes() {
+    return evictedBytes;
+  }
+
+  /** @return number of times frames of this session were dropped for other sessions */
+  public int evictions() {
+    return evictions;
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return disposed;
+  }
+
+  @Override
+  public void dispose() {
+    synchronized (this) {
+      releaseAll();
+      disposed.onComplete();
+    }
+    manager.remove(this);
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed.isTerminated();
+  }
+
+  void saveFrame(ByteBuf frame) {
+    int frameSize = frame.readableBytes();
+    boolean reserved =
+        frameSize <= manager.maxSessionBytes() && !isDisposed() && manager.reserve(this, frameSize);
+
+    synchronized (this) {
+      if (isDisposed()) {
+        if (reserved) {
+          manager.release(frameSize);
+        }
+        position += frameSize;
+        return;
+      }
+
+      while (!reserved && !cachedFrames.isEmpty() && frameSize <= manager.maxSessionBytes()) {
+        // this session holds the rest of the budget, make room from its own frames
+        releaseTailFrame();
+        reserved = manager.tryReserve(frameSize);
+      }
+      if (!reserved) {
+        releaseAll();
+        position += frameSize;
+        return;
+      }
+
+      while (cacheSize + frameSize > manager.maxSessionBytes()) {
+        releaseTailFrame();
+      }
+      cachedFrames.offer(frame.retain());
+      cacheSize += frameSize;
+
+      long now = System.nanoTime();
+      if (cachedFrames.size() == 1 || now - lastTouched > TOUCH_INTERVAL_NANOS) {
+        lastTouched = now;
+        manager.touch(this);
+      }
+    }
+  }
+
+  /** Drops every frame of this session to make room for others */
+  synchronized boolean evict() {
+    if (cachedFrames.isEmpty()) {
+      return false;
+    }
+    long size = cacheSize;
+    releaseAll();
+    evictedBytes += size;
+    evictions++;
+    logger.debug("{} Evicted {} bytes of resumable frames", tag, size);
+    return true;
+  }
+
+  private void releaseAll() {
+    while (!cachedFrames.isEmpty()) {
+      releaseTailFrame();
+    }
+    manager.idle(this);
+  }
+
+  /* non-atomic on volatile is safe as callers hold the lock */
+  private int releaseTailFrame() {
+    ByteBuf frame = cachedFrames.poll();
+    int frameSize = frame.readableBytes();
+    cacheSize -= frameSize;
+    position += frameSize;
+    manager.release(frameSize);
+    frame.release();
+    return frameSize;
+  }
+}
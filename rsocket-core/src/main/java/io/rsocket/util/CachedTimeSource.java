@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.util;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link Clock.TimeSource} which caches {@link System#nanoTime()} and {@link
+ * System#currentTimeMillis()}, refreshed every tick by a single daemon thread. Reading time is a
+ * volatile read, and is behind by at most one tick.
+ *
+ * <pre>{@code
+ * Clock.use(Clock.TimeSource.cached(Duration.ofMillis(1)));
+ * }</pre>
+ */
+public final class CachedTimeSource implements Clock.TimeSource, Disposable {
+  private final Scheduler ticker;
+  private volatile long nanoTime;
+  private volatile long currentTimeMillis;
+
+  CachedTimeSource(Duration tick) {
+    long tickNanos = tick.toNanos();
+    if (tickNanos <= 0) {
+      throw new IllegalArgumentException("tick must be positive: " + tick);
+    }
+    tick();
+    this.ticker = Schedulers.newSingle("rsocket-clock", true);
+    ticker.schedulePeriodically(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public long nanoTime() {
+    return nanoTime;
+  }
+
+  @Override
+  public long currentTimeMillis() {
+    return currentTimeMillis;
+  }
+
+  @Override
+  public void dispose() {
+    ticker.dispose();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return ticker.isDisposed();
+  }
+
+  private void tick() {
+    nanoTime = System.nanoTime();
+    currentTimeMillis = System.currentTimeMillis();
+  }
+}
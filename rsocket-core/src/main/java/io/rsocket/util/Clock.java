@@ -1,5 +1,5 @@
 /*
- * Copyright 2015-2018 the original author or authors.
+ * Copyright 2015-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,17 +16,26 @@
 
 package io.rsocket.util;
 
+import java.time.Duration;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import reactor.core.scheduler.Scheduler;
 
-/** Abstraction to get current time and durations. */
+/**
+ * Abstraction to get current time and durations. Time is read from a pluggable {@link TimeSource},
+ * {@link TimeSource#SYSTEM} by default. Installing a {@link CachedTimeSource} makes reading time a
+ * volatile read for every subsystem using this clock, at the cost of the tick resolution.
+ */
 public final class Clock {
+  private static volatile TimeSource timeSource = TimeSource.SYSTEM;
 
   private Clock() {
     // No Instances.
   }
 
+  /** @return monotonic time in {@link #unit()} */
   public static long now() {
-    return System.nanoTime() / 1000;
+    return timeSource.nanoTime() / 1000;
   }
 
   public static long elapsedSince(long timestamp) {
@@ -37,4 +46,74 @@ public static long elapsedSince(long timestamp) {
   public static TimeUnit unit() {
     return TimeUnit.MICROSECONDS;
   }
+
+  /** @return monotonic time in nanoseconds */
+  public static long nanoTime() {
+    return timeSource.nanoTime();
+  }
+
+  /** @return wall clock time in milliseconds since epoch */
+  public static long currentTimeMillis() {
+    return timeSource.currentTimeMillis();
+  }
+
+  /** Makes this clock read time from {@code timeSource} */
+  public static void use(TimeSource timeSource) {
+    Clock.timeSource = Objects.requireNonNull(timeSource, "timeSource");
+  }
+
+  public static TimeSource timeSource() {
+    return timeSource;
+  }
+
+  /** Source of time of {@link Clock} */
+  public interface TimeSource {
+
+    /** Reads {@link System#nanoTime()} and {@link System#currentTimeMillis()} */
+    TimeSource SYSTEM =
+        new TimeSource() {
+          @Override
+          public long nanoTime() {
+            return System.nanoTime();
+          }
+
+          @Override
+          public long currentTimeMillis() {
+            return System.currentTimeMillis();
+          }
+        };
+
+    /** @return monotonic time in nanoseconds */
+    long nanoTime();
+
+    /** @return wall clock time in milliseconds since epoch */
+    long currentTimeMillis();
+
+    /**
+     * @return time source refreshed every {@code tick} by a single daemon thread, to be disposed
+     *     once no longer used
+     */
+    static CachedTimeSource cached(Duration tick) {
+      return new CachedTimeSource(tick);
+    }
+
+    /**
+     * @return time source reading {@link Scheduler#now(TimeUnit)} of {@code scheduler}, e.g. a
+     *     {@code VirtualTimeScheduler} in tests
+     */
+    static TimeSource from(Scheduler scheduler) {
+      Objects.requireNonNull(scheduler, "scheduler");
+      return new TimeSource() {
+        @Override
+        public long nanoTime() {
+          return scheduler.now(TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public long currentTimeMillis() {
+          return scheduler.now(TimeUnit.MILLISECONDS);
+        }
+      };
+    }
+  }
 }
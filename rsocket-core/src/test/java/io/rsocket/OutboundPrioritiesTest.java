@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.metadata.CompositeMetadataFlyweight;
+import io.rsocket.metadata.TaggingMetadataFlyweight;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.ByteBufPayload;
+import io.rsocket.util.DefaultPayload;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class OutboundPrioritiesTest {
+
+  @Test
+  public void noneHasSingleLane() {
+    assertThat(OutboundPriorities.NONE.classify(DefaultPayload.create("data"))).isZero();
+    assertThat(OutboundPriorities.NONE.newSendProcessor().lanes()).isEqualTo(1);
+  }
+
+  @Test
+  public void outOfRangeClassFallsBackToFirst() {
+    OutboundPriorities priorities = OutboundPriorities.of(p -> p.getDataUtf8().length(), 4, 1);
+
+    assertThat(priorities.newSendProcessor().lanes()).isEqualTo(2);
+    assertThat(priorities.classify(DefaultPayload.create("a"))).isEqualTo(1);
+    assertThat(priorities.classify(DefaultPayload.create("abc"))).isZero();
+  }
+
+  @Test
+  public void rejectsInvalidWeights() {
+    assertThatThrownBy(() -> OutboundPriorities.of(p -> 0))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> OutboundPriorities.of(p -> 0, 1, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void classifiesByRoute() {
+    Map<String, Integer> classes = new HashMap<>();
+    classes.put("bulk.download", 1);
+    OutboundPriorities priorities = OutboundPriorities.byRoute(classes, 8, 1);
+
+    Payload bulk = routed("bulk.download");
+    Payload interactive = routed("user.profile");
+    Payload unrouted = DefaultPayload.create("data", "not composite");
+
+    assertThat(priorities.classify(bulk)).isEqualTo(1);
+    assertThat(priorities.classify(interactive)).isZero();
+    assertThat(priorities.classify(unrouted)).isZero();
+    // the payload is left untouched for the handler
+    assertThat(priorities.classify(bulk)).isEqualTo(1);
+
+    bulk.release();
+    interactive.release();
+  }
+
+  static Payload routed(String route) {
+    ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+    CompositeByteBuf metadata = allocator.compositeBuffer();
+    CompositeMetadataFlyweight.encodeAndAddMetadata(
+        metadata,
+        allocator,
+        WellKnownMimeType.MESSAGE_RSOCKET_ROUTING,
+        TaggingMetadataFlyweight.createRoutingMetadata(allocator, Collections.singletonList(route))
+            .getContent());
+    return ByteBufPayload.create(Unpooled.EMPTY_BUFFER, metadata);
+  }
+}
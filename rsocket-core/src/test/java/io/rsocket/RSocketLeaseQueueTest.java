@@ -0,0 +1,149 @@
+package io.rsocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.exceptions.MissingLeaseException;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.LeaseFrameFlyweight;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.lease.RequesterLeaseHandler;
+import io.rsocket.test.util.TestDuplexConnection;
+import io.rsocket.util.DefaultPayload;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class RSocketLeaseQueueTest {
+  private static final Duration MAX_PENDING_TIME = Duration.ofMillis(300);
+
+  private final List<Duration> pendingTimes = new CopyOnWriteArrayList<>();
+  private TestDuplexConnection connection;
+  private RequesterLeaseHandler.Impl leaseHandler;
+  private RSocket rSocketRequester;
+
+  @BeforeEach
+  void setUp() {
+    connection = new TestDuplexConnection();
+    leaseHandler =
+        new RequesterLeaseHandler.Impl(
+            "test", leases -> {}, 2, MAX_PENDING_TIME, pendingTimes::add);
+    rSocketRequester =
+        new RSocketRequester(
+            ByteBufAllocator.DEFAULT,
+            connection,
+            PayloadDecoder.DEFAULT,
+            err -> {},
+            StreamIdSupplier.clientSupplier(),
+            0,
+            0,
+            null,
+            leaseHandler);
+  }
+
+  @ParameterizedTest
+  @MethodSource("interactions")
+  void pendingRequestIsSentOnLease(Function<RSocket, Publisher<?>> interaction) {
+    Flux.from(interaction.apply(rSocketRequester)).subscribe();
+    assertThat(connection.getSent()).isEmpty();
+    assertThat(leaseHandler.pendingRequests()).isEqualTo(1);
+
+    leaseHandler.receive(leaseFrame(5_000, 1));
+
+    assertThat(connection.getSent()).hasSize(1);
+    assertThat(leaseHandler.pendingRequests()).isZero();
+    assertThat(pendingTimes).hasSize(1);
+  }
+
+  @Test
+  void pendingRequestsAreSentInOrder() {
+    rSocketRequester.requestResponse(DefaultPayload.create("first")).subscribe();
+    rSocketRequester.requestResponse(DefaultPayload.create("second")).subscribe();
+
+    leaseHandler.receive(leaseFrame(5_000, 1));
+
+    assertThat(streamIds()).containsExactly(1);
+    assertThat(leaseHandler.pendingRequests()).isEqualTo(1);
+
+    leaseHandler.receive(leaseFrame(5_000, 5));
+
+    assertThat(streamIds()).containsExactly(1, 3);
+  }
+
+  @Test
+  void pendingRequestsGoBeforeNewOnes() {
+    rSocketRequester.requestResponse(DefaultPayload.create("first")).subscribe();
+    leaseHandler.receive(leaseFrame(5_000, 1));
+    rSocketRequester.requestResponse(DefaultPayload.create("second")).subscribe();
+
+    assertThat(streamIds()).containsExactly(1);
+    assertThat(leaseHandler.pendingRequests()).isEqualTo(1);
+  }
+
+  @Test
+  void requestsBeyondQueueSizeAreRejected() {
+    rSocketRequester.requestResponse(DefaultPayload.create("first")).subscribe();
+    rSocketRequester.requestResponse(DefaultPayload.create("second")).subscribe();
+
+    StepVerifier.create(rSocketRequester.requestResponse(DefaultPayload.create("third")))
+        .expectError(MissingLeaseException.class)
+        .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void pendingRequestExpires() {
+    StepVerifier.create(rSocketRequester.requestResponse(DefaultPayload.create("test")))
+        .expectError(MissingLeaseException.class)
+        .verify(Duration.ofSeconds(5));
+
+    assertThat(leaseHandler.pendingRequests()).isZero();
+    assertThat(pendingTimes).hasSize(1);
+    assertThat(pendingTimes.get(0)).isGreaterThanOrEqualTo(MAX_PENDING_TIME);
+  }
+
+  @Test
+  void cancelledRequestLeavesQueue() {
+    Disposable request =
+        rSocketRequester.requestResponse(DefaultPayload.create("test")).subscribe();
+    request.dispose();
+
+    assertThat(leaseHandler.pendingRequests()).isZero();
+    leaseHandler.receive(leaseFrame(5_000, 1));
+    assertThat(connection.getSent()).isEmpty();
+  }
+
+  private List<Integer> streamIds() {
+    return connection
+        .getSent()
+        .stream()
+        .map(FrameHeaderFlyweight::streamId)
+        .collect(Collectors.toList());
+  }
+
+  private static ByteBuf leaseFrame(int ttl, int requests) {
+    return LeaseFrameFlyweight.encode(
+        ByteBufAllocator.DEFAULT, ttl, requests, Unpooled.EMPTY_BUFFER);
+  }
+
+  static Stream<Function<RSocket, Publisher<?>>> interactions() {
+    return Stream.of(
+        rSocket -> rSocket.fireAndForget(DefaultPayload.create("test")),
+        rSocket -> rSocket.requestResponse(DefaultPayload.create("test")),
+        rSocket -> rSocket.requestStream(DefaultPayload.create("test")),
+        rSocket -> rSocket.requestChannel(Mono.just(DefaultPayload.create("test"))));
+  }
+}
@@ -30,6 +30,7 @@
 import io.rsocket.frame.*;
 import io.rsocket.lease.RequesterLeaseHandler;
 import io.rsocket.test.util.TestSubscriber;
+import io.rsocket.util.ByteBufPayload;
 import io.rsocket.util.DefaultPayload;
 import io.rsocket.util.EmptyPayload;
 import io.rsocket.util.MultiSubscriberRSocket;
@@ -48,6 +49,7 @@
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.MonoProcessor;
 import reactor.core.publisher.UnicastProcessor;
+import reactor.test.util.RaceTestUtils;
 
 public class RSocketRequesterTest {
 
@@ -157,6 +159,68 @@ public void testRequestReplyWithCancel() {
     assertThat("Unexpected frame sent on the connection.", frameType(sent.get(1)), is(CANCEL));
   }
 
+  @Test(timeout = 2_000)
+  public void testRequestReplySentOnlyOnceRequested() {
+    Payload payload = ByteBufPayload.create("test");
+    Mono<Payload> response = rule.socket.requestResponse(payload);
+
+    BaseSubscriber<Payload> subscriber =
+        new BaseSubscriber<Payload>() {
+          @Override
+          protected void hookOnSubscribe(Subscription subscription) {
+            // don't request here
+          }
+        };
+    response.subscribe(subscriber);
+
+    assertThat(
+        "Unexpected frame sent on the connection.",
+        rule.connection.getSent().stream().filter(f -> frameType(f) != KEEPALIVE).count(),
+        is(0L));
+
+    subscriber.cancel();
+
+    assertThat(
+        "Unexpected frame sent on the connection.",
+        rule.connection.getSent().stream().filter(f -> frameType(f) != KEEPALIVE).count(),
+        is(0L));
+    assertThat("Payload not released.", payload.refCnt(), is(0));
+  }
+
+  @Test(timeout = 10_000)
+  public void testRequestReplyRequestRacingCancel() {
+    for (int i = 0; i < 1_000; i++) {
+      rule.connection.clearSendReceiveBuffers();
+      Payload payload = ByteBufPayload.create("test");
+      BaseSubscriber<Payload> subscriber =
+          new BaseSubscriber<Payload>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+              // requested by the race
+            }
+          };
+      rule.socket.requestResponse(payload).subscribe(subscriber);
+
+      RaceTestUtils.race(() -> subscriber.request(1), subscriber::cancel);
+
+      List<ByteBuf> sent =
+          rule.connection
+              .getSent()
+              .stream()
+              .filter(f -> frameType(f) != KEEPALIVE)
+              .collect(Collectors.toList());
+      assertThat("Payload not released.", payload.refCnt(), is(0));
+      if (!sent.isEmpty()) {
+        assertThat("Unexpected frames sent.", sent, hasSize(2));
+        int streamId = FrameHeaderFlyweight.streamId(sent.get(0));
+        assertThat("Unexpected stream id.", streamId, greaterThan(0));
+        assertThat(frameType(sent.get(0)), is(REQUEST_RESPONSE));
+        assertThat(frameType(sent.get(1)), is(CANCEL));
+        assertThat(FrameHeaderFlyweight.streamId(sent.get(1)), is(streamId));
+      }
+    }
+  }
+
   @Test(timeout = 2_000)
   public void testRequestReplyErrorOnSend() {
     rule.connection.setAvailability(0); // Fails send
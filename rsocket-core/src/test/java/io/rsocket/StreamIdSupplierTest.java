@@ -20,42 +20,45 @@
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
-import io.netty.util.collection.IntObjectMap;
-import io.rsocket.internal.SynchronizedIntObjectHashMap;
 import org.junit.Test;
 
 public class StreamIdSupplierTest {
   @Test
   public void testClientSequence() {
-    IntObjectMap<Object> map = new SynchronizedIntObjectHashMap<>();
     StreamIdSupplier s = StreamIdSupplier.clientSupplier();
-    assertEquals(1, s.nextStreamId(map));
-    assertEquals(3, s.nextStreamId(map));
-    assertEquals(5, s.nextStreamId(map));
+    assertEquals(1, s.nextStreamId());
+    assertEquals(3, s.nextStreamId());
+    assertEquals(5, s.nextStreamId());
   }
 
   @Test
   public void testServerSequence() {
-    IntObjectMap<Object> map = new SynchronizedIntObjectHashMap<>();
     StreamIdSupplier s = StreamIdSupplier.serverSupplier();
-    assertEquals(2, s.nextStreamId(map));
-    assertEquals(4, s.nextStreamId(map));
-    assertEquals(6, s.nextStreamId(map));
+    assertEquals(2, s.nextStreamId());
+    assertEquals(4, s.nextStreamId());
+    assertEquals(6, s.nextStreamId());
+  }
+
+  @Test
+  public void testServerSequenceAfterLastStreamId() {
+    StreamIdSupplier s = StreamIdSupplier.serverSupplier(10);
+    assertTrue(s.isBeforeOrCurrent(10));
+    assertEquals(12, s.nextStreamId());
+    assertEquals(14, s.nextStreamId());
   }
 
   @Test
   public void testClientIsValid() {
-    IntObjectMap<Object> map = new SynchronizedIntObjectHashMap<>();
     StreamIdSupplier s = StreamIdSupplier.clientSupplier();
 
     assertFalse(s.isBeforeOrCurrent(1));
     assertFalse(s.isBeforeOrCurrent(3));
 
-    s.nextStreamId(map);
+    s.nextStreamId();
     assertTrue(s.isBeforeOrCurrent(1));
     assertFalse(s.isBeforeOrCurrent(3));
 
-    s.nextStreamId(map);
+    s.nextStreamId();
     assertTrue(s.isBeforeOrCurrent(3));
 
     // negative
@@ -68,17 +71,16 @@ public void testClientIsValid() {
 
   @Test
   public void testServerIsValid() {
-    IntObjectMap<Object> map = new SynchronizedIntObjectHashMap<>();
     StreamIdSupplier s = StreamIdSupplier.serverSupplier();
 
     assertFalse(s.isBeforeOrCurrent(2));
     assertFalse(s.isBeforeOrCurrent(4));
 
-    s.nextStreamId(map);
+    s.nextStreamId();
     assertTrue(s.isBeforeOrCurrent(2));
     assertFalse(s.isBeforeOrCurrent(4));
 
-    s.nextStreamId(map);
+    s.nextStreamId();
     assertTrue(s.isBeforeOrCurrent(4));
 
     // negative
@@ -91,29 +93,60 @@ public void testServerIsValid() {
 
   @Test
   public void testWrap() {
-    IntObjectMap<Object> map = new SynchronizedIntObjectHashMap<>();
     StreamIdSupplier s = new StreamIdSupplier(Integer.MAX_VALUE - 3);
 
-    assertEquals(2147483646, s.nextStreamId(map));
-    assertEquals(2, s.nextStreamId(map));
-    assertEquals(4, s.nextStreamId(map));
+    assertEquals(2147483646, s.nextStreamId());
+    assertEquals(2, s.nextStreamId());
+    assertEquals(4, s.nextStreamId());
 
     s = new StreamIdSupplier(Integer.MAX_VALUE - 2);
 
-    assertEquals(2147483647, s.nextStreamId(map));
-    assertEquals(1, s.nextStreamId(map));
-    assertEquals(3, s.nextStreamId(map));
+    assertEquals(2147483647, s.nextStreamId());
+    assertEquals(1, s.nextStreamId());
+    assertEquals(3, s.nextStreamId());
   }
 
   @Test
   public void testSkipFound() {
-    IntObjectMap<Object> map = new SynchronizedIntObjectHashMap<>();
-    map.put(5, new Object());
-    map.put(9, new Object());
-    StreamIdSupplier s = StreamIdSupplier.clientSupplier();
-    assertEquals(1, s.nextStreamId(map));
-    assertEquals(3, s.nextStreamId(map));
-    assertEquals(7, s.nextStreamId(map));
-    assertEquals(11, s.nextStreamId(map));
+    StreamIdBitmap inUse = new StreamIdBitmap();
+    inUse.tryAcquire(5);
+    inUse.tryAcquire(9);
+    StreamIdSupplier s = new StreamIdSupplier(-1, inUse);
+    assertEquals(1, s.nextStreamId());
+    assertEquals(3, s.nextStreamId());
+    assertEquals(7, s.nextStreamId());
+    assertEquals(11, s.nextStreamId());
+  }
+
+  @Test
+  public void testReleasedIsReused() {
+    StreamIdBitmap inUse = new StreamIdBitmap();
+    StreamIdSupplier s = new StreamIdSupplier(-1, inUse);
+    assertEquals(1, s.nextStreamId());
+    assertEquals(3, s.nextStreamId());
+    assertTrue(inUse.isInUse(1));
+
+    s.release(1);
+    assertFalse(inUse.isInUse(1));
+    assertTrue(inUse.isInUse(3));
+
+    s = new StreamIdSupplier(-1, inUse);
+    assertEquals(1, s.nextStreamId());
+    assertEquals(5, s.nextStreamId());
+  }
+
+  @Test
+  public void testSkipRunAfterWrap() {
+    StreamIdBitmap inUse = new StreamIdBitmap();
+    // a full page of long living streams followed by a partially used one
+    for (int i = 0; i < StreamIdBitmap.PAGE_BITS + 100; i++) {
+      assertTrue(inUse.tryAcquire(i * 2 + 1));
+    }
+    inUse.release(StreamIdBitmap.PAGE_BITS * 2 + 51);
+
+    StreamIdSupplier s = new StreamIdSupplier(Integer.MAX_VALUE - 2, inUse);
+    assertEquals(Integer.MAX_VALUE, s.nextStreamId());
+    assertEquals(StreamIdBitmap.PAGE_BITS * 2 + 51, s.nextStreamId());
+    assertEquals(StreamIdBitmap.PAGE_BITS * 2 + 201, s.nextStreamId());
   }
 }
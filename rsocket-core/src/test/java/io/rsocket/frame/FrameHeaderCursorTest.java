@@ -0,0 +1,70 @@
+package io.rsocket.frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.junit.jupiter.api.Test;
+
+class FrameHeaderCursorTest {
+
+  @Test
+  void readsHeaderOnce() {
+    int flags = FrameHeaderFlyweight.FLAGS_M | FrameHeaderFlyweight.FLAGS_F;
+    ByteBuf frame =
+        FrameHeaderFlyweight.encode(ByteBufAllocator.DEFAULT, 5, FrameType.REQUEST_STREAM, flags);
+    int readerIndex = frame.readerIndex();
+
+    FrameHeaderCursor cursor = new FrameHeaderCursor();
+    assertSame(cursor, cursor.read(frame));
+
+    assertEquals(5, cursor.streamId());
+    assertEquals(FrameType.REQUEST_STREAM, cursor.frameType());
+    assertEquals(flags, cursor.flags());
+    assertTrue(cursor.hasMetadata());
+    assertTrue(cursor.hasFollows());
+    assertFalse(cursor.canBeIgnored());
+    assertEquals(readerIndex, frame.readerIndex());
+    frame.release();
+  }
+
+  @Test
+  void resolvesSyntheticPayloadTypes() {
+    FrameHeaderCursor cursor = new FrameHeaderCursor();
+
+    assertEquals(FrameType.NEXT, read(cursor, FrameHeaderFlyweight.FLAGS_N));
+    assertEquals(FrameType.COMPLETE, read(cursor, FrameHeaderFlyweight.FLAGS_C));
+    assertEquals(
+        FrameType.NEXT_COMPLETE,
+        read(cursor, FrameHeaderFlyweight.FLAGS_N | FrameHeaderFlyweight.FLAGS_C));
+    assertThrows(IllegalArgumentException.class, () -> read(cursor, 0));
+  }
+
+  @Test
+  void agreesWithFlyweight() {
+    FrameHeaderCursor cursor = new FrameHeaderCursor();
+    for (FrameType frameType : FrameType.values()) {
+      if (frameType.getEncodedType() >= 0x40 || frameType == FrameType.PAYLOAD) {
+        continue;
+      }
+      ByteBuf frame = FrameHeaderFlyweight.encode(ByteBufAllocator.DEFAULT, 3, frameType, 0);
+      assertEquals(FrameHeaderFlyweight.frameType(frame), cursor.read(frame).frameType());
+      assertEquals(frameType, cursor.frameType());
+      frame.release();
+    }
+  }
+
+  private static FrameType read(FrameHeaderCursor cursor, int flags) {
+    ByteBuf frame =
+        FrameHeaderFlyweight.encode(ByteBufAllocator.DEFAULT, 1, FrameType.PAYLOAD, flags);
+    try {
+      return cursor.read(frame).frameType();
+    } finally {
+      frame.release();
+    }
+  }
+}
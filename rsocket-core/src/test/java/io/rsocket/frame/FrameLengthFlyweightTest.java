@@ -0,0 +1,108 @@
+package io.rsocket.frame;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.rsocket.util.DefaultPayload;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FrameLengthFlyweightTest {
+
+  @BeforeEach
+  void reserve() {
+    FrameHeaderFlyweight.reserveFrameLength = true;
+  }
+
+  @AfterEach
+  void restore() {
+    FrameHeaderFlyweight.reserveFrameLength =
+        Boolean.getBoolean(FrameHeaderFlyweight.RESERVE_FRAME_LENGTH);
+  }
+
+  @Test
+  void reservedFrameWithMetadataAndData() {
+    ByteBuf frame =
+        RequestResponseFrameFlyweight.encode(
+            ByteBufAllocator.DEFAULT,
+            1,
+            false,
+            Unpooled.copiedBuffer("md", StandardCharsets.UTF_8),
+            Unpooled.copiedBuffer("d", StandardCharsets.UTF_8));
+
+    assertThat(FrameLengthFlyweight.hasReservedLength(frame)).isTrue();
+    assertThat(FrameHeaderFlyweight.frameType(frame)).isEqualTo(FrameType.REQUEST_RESPONSE);
+    assertThat(RequestResponseFrameFlyweight.metadata(frame).toString(StandardCharsets.UTF_8))
+        .isEqualTo("md");
+    assertThat(RequestResponseFrameFlyweight.data(frame).toString(StandardCharsets.UTF_8))
+        .isEqualTo("d");
+
+    assertEncodedSameAsWrapped(frame);
+  }
+
+  @Test
+  void notReservedWhenDisabled() {
+    FrameHeaderFlyweight.reserveFrameLength = false;
+    ByteBuf frame = CancelFrameFlyweight.encode(ByteBufAllocator.DEFAULT, 1);
+
+    assertThat(FrameLengthFlyweight.hasReservedLength(frame)).isFalse();
+    frame.release();
+  }
+
+  @Test
+  void headerOnlyFrameIsNotReserved() {
+    ByteBuf frame = RequestNFrameFlyweight.encode(ByteBufAllocator.DEFAULT, 3, 5);
+
+    assertThat(FrameLengthFlyweight.hasReservedLength(frame)).isFalse();
+    assertThat(FrameHeaderFlyweight.streamId(frame)).isEqualTo(3);
+    assertThat(RequestNFrameFlyweight.requestN(frame)).isEqualTo(5);
+    frame.release();
+  }
+
+  @Test
+  void viewOfReservedFrameIsNotReserved() {
+    ByteBuf frame =
+        PayloadFrameFlyweight.encodeNext(ByteBufAllocator.DEFAULT, 1, DefaultPayload.create("d"));
+
+    assertThat(FrameLengthFlyweight.hasReservedLength(frame)).isTrue();
+    assertThat(FrameLengthFlyweight.hasReservedLength(frame.duplicate())).isFalse();
+    assertThat(FrameLengthFlyweight.hasReservedLength(frame.slice())).isFalse();
+    frame.release();
+  }
+
+  @Test
+  void bufferWithReadBytesIsLeftUntouched() {
+    ByteBuf shared = Unpooled.copiedBuffer("0123456789", StandardCharsets.UTF_8);
+    ByteBuf frame = shared.duplicate().readerIndex(4);
+
+    assertThat(FrameLengthFlyweight.hasReservedLength(frame)).isFalse();
+    ByteBuf encoded =
+        FrameLengthFlyweight.encode(ByteBufAllocator.DEFAULT, frame.readableBytes(), frame);
+
+    assertThat(FrameLengthFlyweight.length(encoded)).isEqualTo(6);
+    assertThat(FrameLengthFlyweight.frame(encoded).toString(StandardCharsets.UTF_8))
+        .isEqualTo("456789");
+    assertThat(shared.toString(StandardCharsets.UTF_8)).isEqualTo("0123456789");
+    encoded.release();
+  }
+
+  private static void assertEncodedSameAsWrapped(ByteBuf frame) {
+    ByteBuf wrapped =
+        FrameLengthFlyweight.encode(
+            ByteBufAllocator.DEFAULT, frame.readableBytes(), frame.retainedSlice());
+    ByteBuf reserved = FrameLengthFlyweight.encodeReserved(frame);
+
+    assertThat(ByteBufUtil.equals(wrapped, reserved)).isTrue();
+    assertThat(FrameLengthFlyweight.length(reserved)).isEqualTo(frame.readableBytes());
+    assertThat(FrameLengthFlyweight.frame(reserved)).isEqualTo(frame);
+
+    wrapped.release();
+    reserved.release();
+    assertThat(frame.refCnt()).isZero();
+  }
+}
@@ -0,0 +1,51 @@
+package io.rsocket.frame.decoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.frame.MetadataPushFrameFlyweight;
+import io.rsocket.frame.PayloadFrameFlyweight;
+import io.rsocket.util.DefaultPayload;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class PooledPayloadDecoderTest {
+
+  @Test
+  void copiesPayloadOutOfTheFrame() {
+    ByteBuf frame =
+        PayloadFrameFlyweight.encodeNextComplete(
+            ByteBufAllocator.DEFAULT, 1, DefaultPayload.create("data", "metadata"));
+
+    Payload payload = PayloadDecoder.POOLED.apply(frame);
+
+    assertThat(frame.refCnt()).isEqualTo(1);
+    frame.release();
+
+    assertThat(payload.getDataUtf8()).isEqualTo("data");
+    assertThat(payload.getMetadataUtf8()).isEqualTo("metadata");
+    assertThat(payload.data().isDirect()).isTrue();
+
+    ByteBuf data = payload.data();
+    assertThat(payload.release()).isTrue();
+    assertThat(data.refCnt()).isZero();
+  }
+
+  @Test
+  void emptyPartsAreNotAllocated() {
+    ByteBuf frame =
+        MetadataPushFrameFlyweight.encode(
+            ByteBufAllocator.DEFAULT,
+            Unpooled.wrappedBuffer("metadata".getBytes(StandardCharsets.UTF_8)));
+
+    Payload payload = PayloadDecoder.POOLED.apply(frame);
+    frame.release();
+
+    assertThat(payload.data()).isSameAs(Unpooled.EMPTY_BUFFER);
+    assertThat(payload.getMetadataUtf8()).isEqualTo("metadata");
+    payload.release();
+  }
+}
@@ -188,6 +188,61 @@ public void serverSplits() {
     assertEquals(3, setupFrames.get());
   }
 
+  @Test
+  public void framesBeforeSubscriptionAreDelivered() {
+    AtomicInteger serverFrames = new AtomicInteger();
+
+    source.addToReceivedBuffer(errorFrame(2));
+    source.addToReceivedBuffer(metadataPushFrame());
+
+    clientMultiplexer
+        .asServerConnection()
+        .receive()
+        .doOnNext(f -> serverFrames.incrementAndGet())
+        .subscribe();
+    assertEquals(2, serverFrames.get());
+
+    source.addToReceivedBuffer(errorFrame(4));
+    assertEquals(3, serverFrames.get());
+  }
+
+  @Test
+  public void setupConnectionCanBeSubscribedAgain() {
+    AtomicInteger setupFrames = new AtomicInteger();
+
+    serverMultiplexer
+        .asSetupConnection()
+        .receive()
+        .next()
+        .subscribe(f -> setupFrames.incrementAndGet());
+    source.addToReceivedBuffer(setupFrame());
+    source.addToReceivedBuffer(resumeFrame());
+    assertEquals(1, setupFrames.get());
+
+    serverMultiplexer
+        .asSetupConnection()
+        .receive()
+        .doOnNext(f -> setupFrames.incrementAndGet())
+        .subscribe();
+    assertEquals(2, setupFrames.get());
+  }
+
+  @Test
+  public void framesLeftAfterTerminationAreReleased() {
+    ClientServerInputMultiplexer.FrameSink frames = new ClientServerInputMultiplexer.FrameSink();
+    ByteBuf setup = setupFrame();
+    ByteBuf resume = resumeFrame();
+
+    frames.next().subscribe(ByteBuf::release);
+    frames.onNext(setup);
+    frames.onNext(resume);
+    assertEquals(0, setup.refCnt());
+    assertEquals(1, resume.refCnt());
+
+    frames.onComplete();
+    assertEquals(0, resume.refCnt());
+  }
+
   private ByteBuf resumeFrame() {
     return ResumeFrameFlyweight.encode(allocator, Unpooled.EMPTY_BUFFER, 0, 0);
   }
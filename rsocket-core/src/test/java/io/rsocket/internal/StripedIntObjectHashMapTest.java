@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class StripedIntObjectHashMapTest {
+
+  @Test
+  public void putGetRemove() {
+    StripedIntObjectHashMap<String> map = new StripedIntObjectHashMap<>();
+
+    assertThat(map.put(1, "one")).isNull();
+    assertThat(map.put(3, "three")).isNull();
+    assertThat(map.put(1, "uno")).isEqualTo("one");
+
+    assertThat(map.get(1)).isEqualTo("uno");
+    assertThat(map.containsKey(3)).isTrue();
+    assertThat(map.containsKey(5)).isFalse();
+    assertThat(map.size()).isEqualTo(2);
+
+    assertThat(map.remove(1)).isEqualTo("uno");
+    assertThat(map.remove(1)).isNull();
+    assertThat(map.size()).isEqualTo(1);
+
+    map.clear();
+    assertThat(map.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void putIfAbsentKeepsExistingValue() {
+    StripedIntObjectHashMap<String> map = new StripedIntObjectHashMap<>();
+
+    assertThat(map.putIfAbsent(2, "two")).isNull();
+    assertThat(map.putIfAbsent(2, "dos")).isEqualTo("two");
+    assertThat(map.get(2)).isEqualTo("two");
+  }
+
+  @Test
+  public void valuesAreDetachedCopy() {
+    StripedIntObjectHashMap<Integer> map = new StripedIntObjectHashMap<>(4, 2);
+    for (int i = 1; i < 100; i += 2) {
+      map.put(i, i);
+    }
+
+    // removing while iterating over a view must not fail
+    map.values().forEach(map::remove);
+
+    assertThat(map.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void concurrentWritersOnDistinctKeys() throws InterruptedException {
+    StripedIntObjectHashMap<Integer> map = new StripedIntObjectHashMap<>();
+    int threads = 8;
+    int keysPerThread = 10_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch latch = new CountDownLatch(threads);
+
+    for (int t = 0; t < threads; t++) {
+      int offset = t * keysPerThread * 2;
+      executor.execute(
+          () -> {
+            for (int i = 0; i < keysPerThread; i++) {
+              int key = offset + i * 2 + 1;
+              map.put(key, key);
+              if (i % 2 == 0) {
+                map.remove(key);
+              }
+            }
+            latch.countDown();
+          });
+    }
+
+    assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+    executor.shutdownNow();
+
+    assertThat(map.size()).isEqualTo(threads * keysPerThread / 2);
+    map.entries().forEach(e -> assertThat(e.value()).isEqualTo(e.key()));
+  }
+}
@@ -16,6 +16,8 @@
 
 package io.rsocket.internal;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.rsocket.Payload;
 import io.rsocket.util.ByteBufPayload;
 import io.rsocket.util.EmptyPayload;
@@ -113,6 +115,84 @@ public void testPrioritizedFused() {
     Assert.assertEquals(closestPayload.getDataUtf8(), "test");
   }
 
+  @Test
+  public void testWeightedLanesServeSmallFramesAheadOfBulk() {
+    UnboundedProcessor<ByteBuf> processor = new UnboundedProcessor<>(4, 1);
+
+    for (int i = 0; i < 10; i++) {
+      processor.onNext(frame(8192), 1);
+    }
+    for (int i = 0; i < 10; i++) {
+      processor.onNext(frame(64), 0);
+    }
+
+    // the bulk lane needs 8 rounds of credit for its first frame
+    for (int i = 0; i < 10; i++) {
+      ByteBuf polled = processor.poll();
+      Assert.assertEquals(64, polled.readableBytes());
+      polled.release();
+    }
+    Assert.assertEquals(10, processor.size());
+
+    processor.clear();
+    Assert.assertTrue(processor.isEmpty());
+  }
+
+  @Test
+  public void testWeightedLanesShareBytesByWeight() {
+    UnboundedProcessor<ByteBuf> processor = new UnboundedProcessor<>(3, 1);
+
+    for (int i = 0; i < 100; i++) {
+      processor.onNext(frame(UnboundedProcessor.QUANTUM), 0);
+      processor.onNext(frame(UnboundedProcessor.QUANTUM + 1), 1);
+    }
+
+    int lane0 = 0;
+    int lane1 = 0;
+    for (int i = 0; i < 80; i++) {
+      ByteBuf polled = processor.poll();
+      if (polled.readableBytes() == UnboundedProcessor.QUANTUM) {
+        lane0++;
+      } else {
+        lane1++;
+      }
+      polled.release();
+    }
+
+    Assert.assertEquals(60, lane0, 1);
+    Assert.assertEquals(20, lane1, 1);
+    processor.clear();
+  }
+
+  @Test
+  public void testWeightedLanesPrioritizedFirst() {
+    UnboundedProcessor<ByteBuf> processor = new UnboundedProcessor<>(1, 1);
+
+    processor.onNext(frame(10), 0);
+    processor.onNext(frame(20), 1);
+    processor.onNextPrioritized(frame(30));
+
+    Assert.assertEquals(30, processor.poll().readableBytes());
+    Assert.assertEquals(2, processor.size());
+    processor.clear();
+  }
+
+  @Test
+  public void testUnknownLaneFallsBackToFirst() {
+    UnboundedProcessor<Payload> processor = new UnboundedProcessor<>();
+
+    processor.onNext(EmptyPayload.INSTANCE, 3);
+    processor.onNext(ByteBufPayload.create("test"), -1);
+    processor.onComplete();
+
+    Assert.assertEquals(1, processor.lanes());
+    Assert.assertEquals(2L, (long) processor.count().block());
+  }
+
+  static ByteBuf frame(int size) {
+    return Unpooled.buffer(size).writerIndex(size);
+  }
+
   public void testOnNextAfterSubscribeN(int n) throws Exception {
     CountDownLatch latch = new CountDownLatch(n);
     UnboundedProcessor<Payload> processor = new UnboundedProcessor<>();
@@ -0,0 +1,87 @@
+package io.rsocket.lease;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.frame.FrameType;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class ConcurrencyLimitLeaseSenderTest {
+  private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+  private final ConcurrencyLimitLeaseSender sender =
+      new ConcurrencyLimitLeaseSender(
+          new AimdConcurrencyLimit(), Duration.ofMillis(50), Duration.ofSeconds(5), scheduler);
+
+  @Test
+  void firstLeaseAllowsInitialLimit() {
+    Lease lease = sender.nextLease();
+    assertThat(lease.getAllowedRequests()).isEqualTo(20);
+    assertThat(lease.getTimeToLiveMillis()).isEqualTo(50);
+  }
+
+  @Test
+  void leaseIsSizedFromLimitAndLatency() {
+    sender.onRequestStart(FrameType.REQUEST_RESPONSE);
+    sender.onRequestStart(FrameType.REQUEST_RESPONSE);
+    sender.onRequestEnd(
+        FrameType.REQUEST_RESPONSE, Duration.ofMillis(20).toNanos(), SignalType.ON_COMPLETE);
+
+    assertThat(sender.inFlight()).isEqualTo(1);
+    assertThat(sender.rtt()).isEqualTo(Duration.ofMillis(20));
+    Lease lease = sender.nextLease();
+    assertThat(lease.getTimeToLiveMillis()).isEqualTo(200);
+    /* 20 requests per 20 ms over 200 ms, plus the unused part of the limit */
+    assertThat(lease.getAllowedRequests()).isEqualTo(200 + 19);
+  }
+
+  @Test
+  void streamsAndCancelledRequestsAreNotSampled() {
+    sender.onRequestStart(FrameType.REQUEST_STREAM);
+    sender.onRequestStart(FrameType.REQUEST_RESPONSE);
+    sender.onRequestEnd(
+        FrameType.REQUEST_RESPONSE, Duration.ofMillis(20).toNanos(), SignalType.CANCEL);
+
+    assertThat(sender.inFlight()).isZero();
+    assertThat(sender.rtt()).isEqualTo(Duration.ZERO);
+  }
+
+  @Test
+  void rejectedRequestsAreCounted() {
+    sender.onEvent(LeaseStats.EventType.ACCEPT);
+    sender.onEvent(LeaseStats.EventType.REJECT);
+    assertThat(sender.rejected()).isEqualTo(1);
+  }
+
+  @Test
+  void leasesAreRenewedBeforeExpiration() {
+    StepVerifier.create(sender.apply(Optional.of(sender)).take(2))
+        .expectNextMatches(lease -> lease.getTimeToLiveMillis() == 50)
+        .then(() -> scheduler.advanceTimeBy(Duration.ofMillis(36)))
+        .expectNoEvent(Duration.ZERO)
+        .then(() -> scheduler.advanceTimeBy(Duration.ofMillis(1)))
+        .expectNextCount(1)
+        .verifyComplete();
+  }
+
+  @Test
+  void responderLeaseHandlerTracksRequests() {
+    ResponderLeaseHandler handler =
+        new ResponderLeaseHandler.Impl<>(
+            "test", ByteBufAllocator.DEFAULT, sender, err -> {}, Optional.of(sender));
+
+    Mono<Integer> response =
+        handler.track(
+            FrameType.REQUEST_RESPONSE, Mono.just(1).delayElement(Duration.ofMillis(10)));
+    assertThat(sender.inFlight()).isZero();
+
+    assertThat(response.block()).isEqualTo(1);
+    assertThat(sender.inFlight()).isZero();
+    assertThat(sender.rtt()).isGreaterThanOrEqualTo(Duration.ofMillis(10));
+  }
+}
@@ -0,0 +1,67 @@
+package io.rsocket.lease;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrencyLimitTest {
+  private static final long FAST = Duration.ofMillis(10).toNanos();
+  private static final long SLOW = Duration.ofMillis(200).toNanos();
+
+  @Test
+  void aimdIncreasesWhileUsed() {
+    AimdConcurrencyLimit limit = new AimdConcurrencyLimit();
+    limit.onSample(FAST, 10);
+    assertThat(limit.limit()).isEqualTo(21);
+
+    limit.onSample(FAST, 5);
+    assertThat(limit.limit()).isEqualTo(21);
+  }
+
+  @Test
+  void aimdBacksOffOnSlowRequests() {
+    AimdConcurrencyLimit limit = new AimdConcurrencyLimit();
+    limit.onSample(SLOW, 1);
+    assertThat(limit.limit()).isEqualTo(18);
+  }
+
+  @Test
+  void aimdIsBounded() {
+    AimdConcurrencyLimit limit = new AimdConcurrencyLimit(2, 1, 3, Duration.ofMillis(100), 0.5);
+    limit.onSample(FAST, 2);
+    limit.onSample(FAST, 3);
+    assertThat(limit.limit()).isEqualTo(3);
+
+    limit.onSample(SLOW, 3);
+    limit.onSample(SLOW, 3);
+    assertThat(limit.limit()).isEqualTo(1);
+  }
+
+  @Test
+  void vegasGrowsWithoutQueue() {
+    VegasConcurrencyLimit limit = new VegasConcurrencyLimit();
+    limit.onSample(FAST, 20);
+    assertThat(limit.limit()).isEqualTo(20);
+
+    limit.onSample(FAST, 20);
+    assertThat(limit.limit()).isEqualTo(26);
+  }
+
+  @Test
+  void vegasShrinksWhenQueueBuilds() {
+    VegasConcurrencyLimit limit = new VegasConcurrencyLimit();
+    limit.onSample(FAST, 20);
+    limit.onSample(SLOW, 20);
+    assertThat(limit.limit()).isEqualTo(19);
+  }
+
+  @Test
+  void vegasIgnoresApplicationLimitedSamples() {
+    VegasConcurrencyLimit limit = new VegasConcurrencyLimit();
+    limit.onSample(FAST, 1);
+    limit.onSample(SLOW, 1);
+    limit.onSample(FAST, 1);
+    assertThat(limit.limit()).isEqualTo(20);
+  }
+}
@@ -0,0 +1,153 @@
+package io.rsocket.lease;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class LeaseCoordinatorTest {
+  private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+  private final LeaseCoordinator coordinator =
+      new LeaseCoordinator(100, Duration.ofSeconds(1), scheduler);
+
+  @AfterEach
+  void tearDown() {
+    coordinator.dispose();
+  }
+
+  @Test
+  void firstConnectionIsGrantedCapacity() {
+    TestConnection connection = new TestConnection();
+
+    assertThat(connection.leases).hasSize(1);
+    assertThat(connection.lastLease().getAllowedRequests()).isEqualTo(100);
+    assertThat(connection.lastLease().getTimeToLiveMillis()).isEqualTo(1000);
+  }
+
+  @Test
+  void connectionsAreGrantedLeftOverCapacity() {
+    TestConnection first = new TestConnection();
+    scheduler.advanceTimeBy(Duration.ofMillis(1000));
+    assertThat(first.lastLease().getAllowedRequests()).isEqualTo(1);
+
+    scheduler.advanceTimeBy(Duration.ofMillis(400));
+    TestConnection second = new TestConnection();
+    assertThat(second.lastLease().getAllowedRequests()).isEqualTo(50);
+    assertThat(second.lastLease().getTimeToLiveMillis()).isEqualTo(600);
+  }
+
+  @Test
+  void noCapacityLeftForNewConnection() {
+    new TestConnection();
+    TestConnection second = new TestConnection();
+
+    assertThat(second.leases).isEmpty();
+    assertThat(coordinator.connections()).isEqualTo(2);
+  }
+
+  @Test
+  void sharesFollowDemand() {
+    TestConnection busy = new TestConnection();
+    TestConnection idle = new TestConnection();
+    busy.requests(30);
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(1));
+
+    assertThat(busy.lastLease().getAllowedRequests()).isEqualTo(60);
+    assertThat(idle.lastLease().getAllowedRequests()).isEqualTo(1);
+  }
+
+  @Test
+  void capacityIsSplitWithoutOvercommit() {
+    TestConnection first = new TestConnection();
+    TestConnection second = new TestConnection();
+    first.requests(100);
+    second.requests(50);
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(1));
+
+    int firstAllowed = first.lastLease().getAllowedRequests();
+    int secondAllowed = second.lastLease().getAllowedRequests();
+    assertThat(firstAllowed).isEqualTo(66);
+    assertThat(secondAllowed).isEqualTo(33);
+    assertThat(firstAllowed + secondAllowed).isLessThanOrEqualTo(100);
+  }
+
+  @Test
+  void idleConnectionIsGrantedMinimumShare() {
+    TestConnection busy = new TestConnection();
+    TestConnection idle = new TestConnection();
+    busy.requests(1000);
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(1));
+
+    assertThat(busy.lastLease().getAllowedRequests()).isEqualTo(99);
+    assertThat(idle.lastLease().getAllowedRequests()).isEqualTo(1);
+  }
+
+  @Test
+  void connectionsOutnumberingCapacityTakeTurns() {
+    LeaseCoordinator small = new LeaseCoordinator(2, Duration.ofSeconds(1), scheduler);
+    TestConnection first = new TestConnection(small);
+    TestConnection second = new TestConnection(small);
+    TestConnection third = new TestConnection(small);
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(1));
+    assertThat(first.leases).hasSize(2);
+    assertThat(second.leases).hasSize(1);
+    assertThat(third.leases).isEmpty();
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(1));
+    assertThat(first.leases).hasSize(3);
+    assertThat(second.leases).hasSize(1);
+    assertThat(third.lastLease().getAllowedRequests()).isEqualTo(1);
+    small.dispose();
+  }
+
+  @Test
+  void closedConnectionIsRemoved() {
+    TestConnection connection = new TestConnection();
+    connection.close();
+
+    assertThat(coordinator.connections()).isZero();
+    scheduler.advanceTimeBy(Duration.ofSeconds(1));
+    assertThat(connection.leases).hasSize(1);
+    assertThat(new TestConnection().lastLease().getAllowedRequests()).isEqualTo(100);
+  }
+
+  class TestConnection {
+    final List<Lease> leases = new ArrayList<>();
+    final Leases<?> connectionLeases;
+    final Disposable subscription;
+
+    TestConnection() {
+      this(coordinator);
+    }
+
+    TestConnection(LeaseCoordinator coordinator) {
+      connectionLeases = coordinator.leases();
+      subscription =
+          connectionLeases.sender().apply(connectionLeases.stats()).subscribe(leases::add);
+    }
+
+    void requests(int count) {
+      LeaseStats stats = connectionLeases.stats().get();
+      for (int i = 0; i < count; i++) {
+        stats.onEvent(LeaseStats.EventType.ACCEPT);
+      }
+    }
+
+    Lease lastLease() {
+      return leases.get(leases.size() - 1);
+    }
+
+    void close() {
+      subscription.dispose();
+    }
+  }
+}
@@ -19,10 +19,13 @@
 import static org.junit.Assert.*;
 
 import io.netty.buffer.Unpooled;
+import io.rsocket.util.Clock;
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
 
 public class LeaseImplTest {
 
@@ -83,4 +86,71 @@ public void useLeaseChangesAllowedRequests() {
     lease.use();
     assertEquals(numberOfRequests - 1, lease.getAllowedRequests());
   }
+
+  @Test
+  public void stripedLeaseAllowsAllRequests() {
+    LeaseImpl lease = LeaseImpl.create(30_000, 10, Unpooled.EMPTY_BUFFER, 4);
+    Assertions.assertEquals(10, lease.getAllowedRequests());
+    for (int i = 0; i < 10; i++) {
+      Assertions.assertTrue(lease.use());
+    }
+    Assertions.assertFalse(lease.use());
+    Assertions.assertEquals(0, lease.getAllowedRequests());
+    Assertions.assertEquals(0.0, lease.availability(), 1e-5);
+  }
+
+  @Test
+  public void stripedLeaseIsUsedConcurrently() throws InterruptedException {
+    int numberOfRequests = 10_000;
+    LeaseImpl lease = LeaseImpl.create(30_000, numberOfRequests, Unpooled.EMPTY_BUFFER, 8);
+    AtomicInteger used = new AtomicInteger();
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] =
+          new Thread(
+              () -> {
+                while (lease.use()) {
+                  used.incrementAndGet();
+                }
+              });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assertions.assertEquals(numberOfRequests, used.get());
+    Assertions.assertEquals(0, lease.getAllowedRequests());
+  }
+
+  @Test
+  public void stripedLeaseTimeout() {
+    LeaseImpl lease = LeaseImpl.create(1, 10, Unpooled.EMPTY_BUFFER, 4);
+    Mono.delay(Duration.ofMillis(100)).block();
+    Assertions.assertFalse(lease.use());
+    Assertions.assertEquals(10, lease.getAllowedRequests());
+  }
+
+  @Test
+  public void stripesDoNotExceedAllowedRequests() {
+    LeaseImpl lease = LeaseImpl.create(30_000, 2, Unpooled.EMPTY_BUFFER, 8);
+    Assertions.assertTrue(lease.use());
+    Assertions.assertTrue(lease.use());
+    Assertions.assertFalse(lease.use());
+  }
+
+  @Test
+  public void leaseExpiresOnClockTime() {
+    VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    Clock.use(Clock.TimeSource.from(scheduler));
+    try {
+      LeaseImpl lease = LeaseImpl.create(1_000, 10, Unpooled.EMPTY_BUFFER, 4);
+      scheduler.advanceTimeBy(Duration.ofMillis(1_000));
+      Assertions.assertTrue(lease.use());
+      scheduler.advanceTimeBy(Duration.ofMillis(1));
+      Assertions.assertFalse(lease.use());
+      Assertions.assertTrue(lease.isExpired());
+    } finally {
+      Clock.use(Clock.TimeSource.SYSTEM);
+    }
+  }
 }
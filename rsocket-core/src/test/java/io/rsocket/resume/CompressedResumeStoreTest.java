@@ -0,0 +1,129 @@
+package io.rsocket.resume;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+public class CompressedResumeStoreTest {
+
+  @Test
+  void framesAreCompressedInBlocks() {
+    CompressedResumableFramesStore store = store(1000, 100);
+    store.saveFrames(Flux.just(frame(40, 1), frame(40, 2), frame(40, 3))).block();
+
+    assertEquals(1, store.blocks.size());
+    assertEquals(1, store.open.frameCount);
+    assertEquals(120, store.cacheSize);
+    assertEquals(0, store.position);
+    assertTrue(store.storedBytes < 120);
+    assertFrames(
+        store.resumeStream().collectList().block(), frame(40, 1), frame(40, 2), frame(40, 3));
+  }
+
+  @Test
+  void positionsAreUncompressed() {
+    CompressedResumableFramesStore store = store(1000, 100);
+    store.saveFrames(Flux.just(frame(40, 1), frame(40, 2), frame(40, 3))).block();
+
+    store.releaseFrames(40);
+    assertEquals(40, store.position);
+    assertEquals(80, store.cacheSize);
+    assertEquals(1, store.blocks.size());
+    assertFrames(store.resumeStream().collectList().block(), frame(40, 2), frame(40, 3));
+
+    store.releaseFrames(80);
+    assertEquals(0, store.blocks.size());
+    assertFrames(store.resumeStream().collectList().block(), frame(40, 3));
+
+    assertThrows(IllegalStateException.class, () -> store.releaseFrames(100));
+  }
+
+  @Test
+  void windowExceedsMemoryLimit() {
+    CompressedResumableFramesStore store = store(200, 100);
+    for (int i = 0; i < 12; i++) {
+      store.saveFrame(frame(50, i));
+    }
+    assertEquals(0, store.position);
+    assertEquals(600, store.cacheSize);
+    assertTrue(store.storedBytes <= 200);
+    assertEquals(12, store.resumeStream().count().block());
+  }
+
+  @Test
+  void oldestBlocksAreDroppedOverLimit() {
+    CompressedResumableFramesStore store = store(200, 100);
+    for (int i = 0; i < 5; i++) {
+      store.saveFrame(randomFrame(50));
+    }
+    assertEquals(100, store.position);
+    assertEquals(150, store.cacheSize);
+    assertEquals(150, store.storedBytes);
+    assertEquals(3, store.resumeStream().count().block());
+  }
+
+  @Test
+  void saveBiggerThanStore() {
+    CompressedResumableFramesStore store = store(100, 50);
+    store.saveFrames(Flux.just(frame(10, 1), frame(10, 2), frame(110, 3))).block();
+    assertEquals(0, store.cacheSize);
+    assertEquals(0, store.storedBytes);
+    assertEquals(130, store.position);
+    assertEquals(0, store.resumeStream().count().block());
+  }
+
+  @Test
+  void replayedFramesSurviveRelease() {
+    CompressedResumableFramesStore store = store(1000, 100);
+    store.saveFrames(Flux.just(frame(60, 1), frame(60, 2))).block();
+    List<ByteBuf> replayed = store.resumeStream().collectList().block();
+
+    store.releaseFrames(120);
+    store.saveFrames(Flux.just(frame(60, 3))).block();
+
+    assertFrames(replayed, frame(60, 1), frame(60, 2));
+    replayed.forEach(ByteBuf::release);
+    assertFrames(store.resumeStream().collectList().block(), frame(60, 3));
+  }
+
+  @Test
+  void disposeDropsFrames() {
+    CompressedResumableFramesStore store = store(1000, 100);
+    store.saveFrames(Flux.just(frame(60, 1), frame(60, 2))).block();
+
+    store.dispose();
+    assertTrue(store.isDisposed());
+    assertEquals(0, store.storedBytes);
+    assertEquals(0, store.resumeStream().count().block());
+    assertFalse(store.blocks.iterator().hasNext());
+  }
+
+  private static CompressedResumableFramesStore store(int size, int blockSize) {
+    return new CompressedResumableFramesStore("test", size, blockSize);
+  }
+
+  private static void assertFrames(List<ByteBuf> actual, ByteBuf... expected) {
+    assertEquals(Arrays.asList(expected), actual);
+  }
+
+  private static ByteBuf frame(int size, int value) {
+    byte[] bytes = new byte[size];
+    Arrays.fill(bytes, (byte) value);
+    return Unpooled.wrappedBuffer(bytes);
+  }
+
+  private static ByteBuf randomFrame(int size) {
+    byte[] bytes = new byte[size];
+    ThreadLocalRandom.current().nextBytes(bytes);
+    return Unpooled.wrappedBuffer(bytes);
+  }
+}
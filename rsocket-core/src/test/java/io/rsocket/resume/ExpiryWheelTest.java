@@ -0,0 +1,54 @@
+package io.rsocket.resume;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ExpiryWheelTest {
+  private static final long TICK = 10;
+
+  private final ExpiryWheel<String> wheel = new ExpiryWheel<>(1_000, TICK, 4);
+  private final List<String> expired = new ArrayList<>();
+
+  @Test
+  void notExpiredBeforeDeadline() {
+    wheel.schedule("a", 1_025);
+    wheel.sweep(1_024, expired::add);
+    assertThat(expired).isEmpty();
+    wheel.sweep(1_030, expired::add);
+    assertThat(expired).containsExactly("a");
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  void deadlineBeyondWheelWaitsForItsRound() {
+    wheel.schedule("a", 1_095);
+    for (long now = 1_000; now < 1_100; now += TICK) {
+      wheel.sweep(now, expired::add);
+      assertThat(expired).isEmpty();
+    }
+    wheel.sweep(1_100, expired::add);
+    assertThat(expired).containsExactly("a");
+  }
+
+  @Test
+  void expiredInBatchAfterMissedTicks() {
+    wheel.schedule("a", 1_010);
+    wheel.schedule("b", 1_020);
+    wheel.schedule("c", 1_070);
+    wheel.schedule("d", 1_500);
+    wheel.sweep(1_200, expired::add);
+    assertThat(expired).containsExactlyInAnyOrder("a", "b", "c");
+    assertThat(wheel.size()).isOne();
+  }
+
+  @Test
+  void pastDeadlineExpiresOnNextSweep() {
+    wheel.sweep(1_100, expired::add);
+    wheel.schedule("a", 1_050);
+    wheel.sweep(1_110, expired::add);
+    assertThat(expired).containsExactly("a");
+  }
+}
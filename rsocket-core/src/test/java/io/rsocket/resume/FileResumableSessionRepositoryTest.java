@@ -0,0 +1,95 @@
+package io.rsocket.resume;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileResumableSessionRepositoryTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void saveAndTake() throws Exception {
+    FileResumableSessionRepository repository = new FileResumableSessionRepository(directory);
+    ByteBuf token = buf("token");
+    ResumableSessionState saved =
+        new ResumableSessionState(
+            token.retain(),
+            buf("setup"),
+            10,
+            20,
+            Arrays.asList(buf("frame1"), buf("frame2")),
+            new int[] {3, 4},
+            6);
+
+    repository.save(saved);
+
+    assertThat(saved.token().refCnt()).isEqualTo(1);
+    assertThat(saved.frames()).allMatch(f -> f.refCnt() == 0);
+    assertThat(files()).hasSize(1);
+
+    ResumableSessionState restored = repository.take(token);
+    assertThat(restored).isNotNull();
+    assertThat(restored.position()).isEqualTo(10);
+    assertThat(restored.impliedPosition()).isEqualTo(20);
+    assertThat(string(restored.token())).isEqualTo("token");
+    assertThat(string(restored.setupFrame())).isEqualTo("setup");
+    assertThat(restored.frames())
+        .extracting(FileResumableSessionRepositoryTest::string)
+        .containsExactly("frame1", "frame2");
+    assertThat(restored.streamIds()).containsExactly(3, 4);
+    assertThat(restored.lastStreamId()).isEqualTo(6);
+    assertThat(files()).isEmpty();
+
+    assertThat(repository.take(token)).isNull();
+    restored.release();
+    token.release();
+  }
+
+  @Test
+  void takeUnknownToken() {
+    FileResumableSessionRepository repository = new FileResumableSessionRepository(directory);
+    ByteBuf token = buf("unknown");
+    assertThat(repository.take(token)).isNull();
+    token.release();
+  }
+
+  @Test
+  void takeCorruptedSession() throws Exception {
+    FileResumableSessionRepository repository = new FileResumableSessionRepository(directory);
+    ByteBuf token = buf("token");
+    repository.save(
+        new ResumableSessionState(token.retain(), buf("setup"), 0, 0, Collections.emptyList()));
+    try (Stream<Path> files = Files.list(directory)) {
+      Path file = files.findFirst().get();
+      Files.write(file, Arrays.copyOf(Files.readAllBytes(file), 10));
+    }
+
+    assertThat(repository.take(token)).isNull();
+    assertThat(files()).isEmpty();
+    token.release();
+  }
+
+  private Object[] files() throws Exception {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.toArray();
+    }
+  }
+
+  private static ByteBuf buf(String s) {
+    return Unpooled.copiedBuffer(s, StandardCharsets.UTF_8);
+  }
+
+  private static String string(ByteBuf buf) {
+    return buf.toString(StandardCharsets.UTF_8);
+  }
+}
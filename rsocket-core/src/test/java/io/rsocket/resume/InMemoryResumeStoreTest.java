@@ -2,9 +2,12 @@
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.DirectProcessor;
 import reactor.core.publisher.Flux;
 
 public class InMemoryResumeStoreTest {
@@ -67,6 +70,64 @@ void releaseFrames() {
     Assert.assertEquals(size(frame1, frame2), store.position);
   }
 
+  @Test
+  void releaseFramesInBatches() {
+    InMemoryResumableFramesStore store = inMemoryStore(100);
+    ByteBuf frame1 = frameMock(10);
+    ByteBuf frame2 = frameMock(10);
+    ByteBuf frame3 = frameMock(30);
+    store.saveFrames(Flux.just(frame1, frame2, frame3)).block();
+    Assert.assertFalse(store.releaseFrames(50, 2));
+    Assert.assertEquals(1, store.cachedFrames.size());
+    Assert.assertEquals(size(frame1, frame2), store.position);
+    Assert.assertTrue(store.releaseFrames(50, 2));
+    Assert.assertEquals(0, store.cachedFrames.size());
+    Assert.assertEquals(0, store.cacheSize());
+    Assert.assertEquals(size(frame1, frame2, frame3), store.position);
+  }
+
+  @Test
+  void resumeBatches() {
+    InMemoryResumableFramesStore store = inMemoryStore(100);
+    ByteBuf frame1 = frameMock(10);
+    ByteBuf frame2 = frameMock(10);
+    ByteBuf frame3 = frameMock(30);
+    store.saveFrames(Flux.just(frame1, frame2, frame3)).block();
+    List<List<ByteBuf>> batches = store.resumeBatches(() -> 2).collectList().block();
+    Assert.assertEquals(
+        Arrays.asList(Arrays.asList(frame1, frame2), Arrays.asList(frame3)), batches);
+    Assert.assertEquals(3, store.cachedFrames.size());
+    Assert.assertEquals(0, store.position);
+  }
+
+  @Test
+  void resumeBatchesFollowFrameDemand() {
+    InMemoryResumableFramesStore store = inMemoryStore(100);
+    store.saveFrames(Flux.range(0, 10).map(i -> frameMock(5))).block();
+    ResumableDuplexConnection.ResumeDemand demand = new ResumableDuplexConnection.ResumeDemand();
+    DirectProcessor<Long> frameRequests = DirectProcessor.create();
+    List<Integer> batchSizes = new ArrayList<>();
+    store
+        .resumeBatches(demand::batchSize)
+        .subscribe(
+            new ResumeFramesSubscriber<>(
+                demand.batchRequests(frameRequests),
+                batch -> {
+                  batchSizes.add(batch.size());
+                  demand.sent(batch.size());
+                },
+                t -> {},
+                () -> {}));
+
+    frameRequests.onNext(1L);
+    frameRequests.onNext(1L);
+    Assert.assertEquals(Arrays.asList(1, 1), batchSizes);
+    frameRequests.onNext(3L);
+    Assert.assertEquals(Arrays.asList(1, 1, 3), batchSizes);
+    frameRequests.onNext(Long.MAX_VALUE);
+    Assert.assertEquals(Arrays.asList(1, 1, 3, 5), batchSizes);
+  }
+
   @Test
   void receiveImpliedPosition() {
     InMemoryResumableFramesStore store = inMemoryStore(100);
@@ -0,0 +1,131 @@
+package io.rsocket.resume;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+
+public class MappedFileResumeStoreTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void saveWithoutTailRemoval() {
+    MappedFileResumableFramesStore store = store(64, 25);
+    store.saveFrames(Flux.just(frame(10, 1))).block();
+    assertEquals(10, store.cacheSize);
+    assertEquals(0, store.position);
+    assertEquals(1, store.segments.size());
+  }
+
+  @Test
+  void saveRemoveTwoFromTail() {
+    MappedFileResumableFramesStore store = store(64, 25);
+    store.saveFrames(Flux.just(frame(10, 1), frame(10, 2), frame(20, 3))).block();
+    assertEquals(20, store.cacheSize);
+    assertEquals(20, store.position);
+    assertFrames(store.resumeStream().collectList().block(), frame(20, 3));
+  }
+
+  @Test
+  void saveBiggerThanStore() {
+    MappedFileResumableFramesStore store = store(64, 25);
+    store.saveFrames(Flux.just(frame(10, 1), frame(10, 2), frame(30, 3))).block();
+    assertEquals(0, store.cacheSize);
+    assertEquals(50, store.position);
+    assertEquals(0, store.resumeStream().count().block());
+  }
+
+  @Test
+  void framesSpanSegments() throws IOException {
+    MappedFileResumableFramesStore store = store(32, 1000);
+    store
+        .saveFrames(Flux.just(frame(10, 1), frame(10, 2), frame(10, 3), frame(100, 4)))
+        .block();
+    assertEquals(130, store.cacheSize);
+    assertEquals(3, store.segments.size());
+    assertEquals(3, segmentFiles());
+
+    assertFrames(
+        store.resumeStream().collectList().block(),
+        frame(10, 1),
+        frame(10, 2),
+        frame(10, 3),
+        frame(100, 4));
+  }
+
+  @Test
+  void releaseFramesDeletesSegments() throws IOException {
+    MappedFileResumableFramesStore store = store(32, 1000);
+    store
+        .saveFrames(Flux.just(frame(10, 1), frame(10, 2), frame(10, 3), frame(10, 4)))
+        .block();
+    assertEquals(2, segmentFiles());
+
+    store.releaseFrames(30);
+    assertEquals(10, store.cacheSize);
+    assertEquals(30, store.position);
+    assertEquals(1, segmentFiles());
+    assertFrames(store.resumeStream().collectList().block(), frame(10, 4));
+
+    assertThrows(IllegalStateException.class, () -> store.releaseFrames(45));
+  }
+
+  @Test
+  void replayedFramesKeepSegmentMapped() throws IOException {
+    MappedFileResumableFramesStore store = store(32, 1000);
+    store.saveFrames(Flux.just(frame(10, 1), frame(10, 2), frame(10, 3))).block();
+    List<ByteBuf> replayed = store.resumeStream().collectList().block();
+
+    store.releaseFrames(30);
+    store.saveFrames(Flux.just(frame(10, 5))).block();
+    assertFrames(replayed, frame(10, 1), frame(10, 2), frame(10, 3));
+    List<ByteBuf> resumed = store.resumeStream().collectList().block();
+    assertFrames(resumed, frame(10, 5));
+
+    replayed.forEach(ByteBuf::release);
+    resumed.forEach(ByteBuf::release);
+    store.dispose();
+    assertEquals(0, segmentFiles());
+  }
+
+  @Test
+  void disposeDeletesSegments() throws IOException {
+    MappedFileResumableFramesStore store = store(32, 1000);
+    store.saveFrames(Flux.just(frame(10, 1), frame(30, 2))).block();
+    assertEquals(2, segmentFiles());
+
+    store.dispose();
+    assertEquals(0, segmentFiles());
+  }
+
+  private long segmentFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  private MappedFileResumableFramesStore store(int segmentSize, long cacheSize) {
+    return new MappedFileResumableFramesStore("test", directory, segmentSize, cacheSize);
+  }
+
+  private static void assertFrames(List<ByteBuf> actual, ByteBuf... expected) {
+    assertEquals(Arrays.asList(expected), actual);
+  }
+
+  private static ByteBuf frame(int size, int value) {
+    byte[] bytes = new byte[size];
+    Arrays.fill(bytes, (byte) value);
+    return Unpooled.wrappedBuffer(bytes);
+  }
+}
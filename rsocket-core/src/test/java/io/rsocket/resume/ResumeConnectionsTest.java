@@ -0,0 +1,115 @@
+package io.rsocket.resume;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.rsocket.DuplexConnection;
+import io.rsocket.test.util.TestDuplexConnection;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+public class ResumeConnectionsTest {
+
+  private final List<MonoProcessor<DuplexConnection>> attempts = new ArrayList<>();
+  private final Mono<DuplexConnection> connectionFactory =
+      Mono.defer(
+          () -> {
+            MonoProcessor<DuplexConnection> attempt = MonoProcessor.create();
+            attempts.add(attempt);
+            return attempt;
+          });
+
+  @Test
+  void firstCandidateWins() {
+    ResumeConnections connections = new ResumeConnections(connectionFactory, 3, false);
+    MonoProcessor<DuplexConnection> connected = connections.connect().toProcessor();
+    assertThat(attempts).hasSize(3);
+
+    TestDuplexConnection fast = new TestDuplexConnection();
+    TestDuplexConnection slow = new TestDuplexConnection();
+    attempts.get(0).onError(new IOException("refused"));
+    attempts.get(2).onNext(fast);
+    attempts.get(1).onNext(slow);
+
+    assertThat(connected.peek()).isSameAs(fast);
+    assertThat(fast.isDisposed()).isFalse();
+    assertThat(slow.isDisposed()).isTrue();
+  }
+
+  @Test
+  void failsOnceAllCandidatesFail() {
+    ResumeConnections connections = new ResumeConnections(connectionFactory, 2, false);
+    Mono<DuplexConnection> connected = connections.connect();
+
+    StepVerifier.create(connected)
+        .then(() -> attempts.get(0).onError(new IOException("first")))
+        .then(() -> attempts.get(1).onError(new IOException("second")))
+        .expectErrorMessage("second")
+        .verify();
+  }
+
+  @Test
+  void singleCandidateIsNotRaced() {
+    ResumeConnections connections = new ResumeConnections(connectionFactory, 1, false);
+    assertThat(connections.connect()).isSameAs(connectionFactory);
+  }
+
+  @Test
+  void standbyConnection() {
+    ResumeConnections connections = new ResumeConnections(connectionFactory, 1, true);
+    connections.warmStandby();
+    connections.warmStandby();
+    assertThat(attempts).hasSize(1);
+
+    TestDuplexConnection standby = new TestDuplexConnection();
+    attempts.get(0).onNext(standby);
+    connections.warmStandby();
+    assertThat(attempts).hasSize(1);
+
+    assertThat(connections.takeStandby()).isSameAs(standby);
+    assertThat(connections.takeStandby()).isNull();
+
+    connections.warmStandby();
+    assertThat(attempts).hasSize(2);
+  }
+
+  @Test
+  void closedStandbyIsNotTaken() {
+    ResumeConnections connections = new ResumeConnections(connectionFactory, 1, true);
+    connections.warmStandby();
+    TestDuplexConnection standby = new TestDuplexConnection();
+    attempts.get(0).onNext(standby);
+
+    standby.dispose();
+
+    assertThat(connections.takeStandby()).isNull();
+    connections.dispose();
+  }
+
+  @Test
+  void noStandbyUnlessEnabled() {
+    ResumeConnections connections = new ResumeConnections(connectionFactory, 1, false);
+    connections.warmStandby();
+    assertThat(attempts).isEmpty();
+    assertThat(connections.takeStandby()).isNull();
+  }
+
+  @Test
+  void disposeClosesStandby() {
+    ResumeConnections connections = new ResumeConnections(connectionFactory, 1, true);
+    connections.warmStandby();
+    TestDuplexConnection standby = new TestDuplexConnection();
+    attempts.get(0).onNext(standby);
+
+    connections.dispose();
+
+    assertThat(standby.isDisposed()).isTrue();
+    assertThat(connections.takeStandby()).isNull();
+    connections.warmStandby();
+    assertThat(attempts).hasSize(1);
+  }
+}
@@ -0,0 +1,109 @@
+package io.rsocket.resume;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+public class ResumeStoreManagerTest {
+
+  @Test
+  void sessionsShareBudget() {
+    ResumeStoreManager manager = new ResumeStoreManager(100, 80);
+    SharedResumableFramesStore first = manager.newStore("first");
+    SharedResumableFramesStore second = manager.newStore("second");
+
+    first.saveFrames(Flux.just(frame(30), frame(30))).block();
+    second.saveFrames(Flux.just(frame(30))).block();
+
+    assertEquals(2, manager.sessionCount());
+    assertEquals(90, manager.usedBytes());
+    assertEquals(60, first.cacheSize());
+    assertEquals(30, second.cacheSize());
+  }
+
+  @Test
+  void sessionIsBoundedByMaxSessionBytes() {
+    ResumeStoreManager manager = new ResumeStoreManager(100, 50);
+    SharedResumableFramesStore store = manager.newStore("store");
+
+    store.saveFrames(Flux.just(frame(20), frame(20), frame(20))).block();
+    assertEquals(40, store.cacheSize());
+    assertEquals(20, store.position);
+    assertEquals(0, store.evictions());
+
+    store.saveFrames(Flux.just(frame(60))).block();
+    assertEquals(0, store.cacheSize());
+    assertEquals(120, store.position);
+    assertEquals(0, manager.usedBytes());
+  }
+
+  @Test
+  void coldestSessionIsEvictedFirst() {
+    ResumeStoreManager manager = new ResumeStoreManager(100, 100);
+    SharedResumableFramesStore cold = manager.newStore("cold");
+    SharedResumableFramesStore warm = manager.newStore("warm");
+    SharedResumableFramesStore hot = manager.newStore("hot");
+
+    cold.saveFrames(Flux.just(frame(30))).block();
+    warm.saveFrames(Flux.just(frame(30))).block();
+    hot.saveFrames(Flux.just(frame(30), frame(30))).block();
+
+    assertEquals(0, cold.cacheSize());
+    assertEquals(30, cold.position);
+    assertEquals(30, cold.evictedBytes());
+    assertEquals(1, cold.evictions());
+    assertEquals(30, warm.cacheSize());
+    assertEquals(60, hot.cacheSize());
+    assertEquals(90, manager.usedBytes());
+    assertEquals(1, manager.evictions());
+  }
+
+  @Test
+  void lastSessionMakesRoomFromItsOwnFrames() {
+    ResumeStoreManager manager = new ResumeStoreManager(50, 50);
+    SharedResumableFramesStore store = manager.newStore("store");
+
+    store.saveFrames(Flux.just(frame(20), frame(20), frame(20))).block();
+    assertEquals(40, store.cacheSize());
+    assertEquals(20, store.position);
+    assertEquals(40, manager.usedBytes());
+    assertEquals(0, store.evictions());
+  }
+
+  @Test
+  void releasedAndDisposedFramesReturnToBudget() {
+    ResumeStoreManager manager = new ResumeStoreManager(100, 100);
+    SharedResumableFramesStore first = manager.newStore("first");
+    SharedResumableFramesStore second = manager.newStore("second");
+
+    first.saveFrames(Flux.just(frame(30), frame(30))).block();
+    second.saveFrames(Flux.just(frame(30))).block();
+
+    first.releaseFrames(30);
+    assertEquals(60, manager.usedBytes());
+
+    second.dispose();
+    assertEquals(30, manager.usedBytes());
+    assertEquals(1, manager.sessionCount());
+  }
+
+  @Test
+  void resumeStreamReplaysSessionFrames() {
+    ResumeStoreManager manager = new ResumeStoreManager(100, 100);
+    SharedResumableFramesStore store = manager.newStore("store");
+    ByteBuf frame = frame(10);
+
+    store.saveFrames(Flux.just(frame)).block();
+    assertEquals(Arrays.asList(frame), store.resumeStream().collectList().block());
+  }
+
+  private static ByteBuf frame(int size) {
+    byte[] bytes = new byte[size];
+    Arrays.fill(bytes, (byte) 7);
+    return Unpooled.wrappedBuffer(bytes);
+  }
+}
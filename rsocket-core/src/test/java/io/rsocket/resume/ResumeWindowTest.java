@@ -0,0 +1,90 @@
+package io.rsocket.resume;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.FrameType;
+import io.rsocket.frame.KeepAliveFrameFlyweight;
+import io.rsocket.frame.PayloadFrameFlyweight;
+import io.rsocket.test.util.TestDuplexConnection;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+public class ResumeWindowTest {
+  private static final int FRAMES = 200;
+  private static final int WINDOW_BYTES = 10_000;
+
+  private final TestDuplexConnection transport = new TestDuplexConnection();
+  private final InMemoryResumableFramesStore store =
+      new InMemoryResumableFramesStore("test", 100_000);
+  private final int frameSize = frameSize();
+
+  @Test
+  void framesAreHeldUntilWindowIsAcknowledged() {
+    ResumableDuplexConnection connection =
+        new ResumableDuplexConnection(
+            "test", transport, store, Duration.ofSeconds(10), false, WINDOW_BYTES);
+    connection.send(Flux.range(0, FRAMES).map(i -> frame())).subscribe();
+
+    int windowFrames = (WINDOW_BYTES + frameSize - 1) / frameSize;
+    int sent = transport.getSent().size();
+    assertThat(sent).isEqualTo(windowFrames);
+    assertThat(connection.windowBlockedTime()).isEqualTo(Duration.ZERO);
+
+    connection.onImpliedPosition((long) sent * frameSize);
+
+    assertThat(transport.getSent().size()).isGreaterThan(sent);
+    assertThat(connection.windowBlockedTime()).isGreaterThan(Duration.ZERO);
+
+    connection.onImpliedPosition((long) FRAMES * frameSize);
+    assertThat(transport.getSent()).hasSize(FRAMES);
+    connection.dispose();
+  }
+
+  @Test
+  void keepAlivesAreSentWhileWindowIsFull() {
+    ResumableDuplexConnection connection =
+        new ResumableDuplexConnection(
+            "test", transport, store, Duration.ofSeconds(10), false, WINDOW_BYTES);
+    connection.send(Flux.range(0, FRAMES).map(i -> frame())).subscribe();
+    int sent = transport.getSent().size();
+
+    ByteBuf keepAlive =
+        KeepAliveFrameFlyweight.encode(ByteBufAllocator.DEFAULT, true, 0, Unpooled.EMPTY_BUFFER);
+    connection.send(Flux.just(keepAlive)).subscribe();
+
+    assertThat(transport.getSent()).hasSize(sent + 1).last().isSameAs(keepAlive);
+    assertThat(FrameHeaderFlyweight.frameType(keepAlive)).isEqualTo(FrameType.KEEPALIVE);
+    connection.dispose();
+  }
+
+  @Test
+  void unboundedWindowDoesNotBlock() {
+    ResumableDuplexConnection connection =
+        new ResumableDuplexConnection("test", transport, store, Duration.ofSeconds(10), false);
+    connection.send(Flux.range(0, FRAMES).map(i -> frame())).subscribe();
+
+    assertThat(transport.getSent()).hasSize(FRAMES);
+    assertThat(connection.windowBlockedTime()).isEqualTo(Duration.ZERO);
+    connection.dispose();
+  }
+
+  private static ByteBuf frame() {
+    ByteBuf data = Unpooled.wrappedBuffer(new byte[100]);
+    return PayloadFrameFlyweight.encode(
+        ByteBufAllocator.DEFAULT, 1, false, false, true, null, data);
+  }
+
+  private static int frameSize() {
+    ByteBuf frame = frame();
+    try {
+      return frame.readableBytes();
+    } finally {
+      frame.release();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package io.rsocket.resume;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+public class RingBufferResumeStoreTest {
+
+  @Test
+  void capacityIsPowerOfTwo() {
+    assertEquals(128, new RingBufferResumableFramesStore("test", 100).capacity);
+    assertEquals(64, new RingBufferResumableFramesStore("test", 64).capacity);
+  }
+
+  @Test
+  void saveRemoveTwoFromTail() {
+    RingBufferResumableFramesStore store = store(64);
+    store.saveFrames(Flux.just(frame(10, 1), frame(10, 2), frame(50, 3))).block();
+    assertEquals(50, store.cacheSize);
+    assertEquals(20, store.position);
+    assertFrames(store.resumeStream().collectList().block(), frame(50, 3));
+  }
+
+  @Test
+  void saveBiggerThanStore() {
+    RingBufferResumableFramesStore store = store(64);
+    store.saveFrames(Flux.just(frame(10, 1), frame(10, 2), frame(70, 3))).block();
+    assertEquals(0, store.cacheSize);
+    assertEquals(90, store.position);
+    assertEquals(0, store.resumeStream().count().block());
+  }
+
+  @Test
+  void framesWrapAroundRing() {
+    RingBufferResumableFramesStore store = store(64);
+    store.saveFrames(Flux.just(frame(20, 1), frame(20, 2))).block();
+    store.releaseFrames(20);
+    // does not fit before the end of the ring, stored at its start
+    store.saveFrames(Flux.just(frame(16, 3))).block();
+
+    assertEquals(36, store.cacheSize);
+    assertEquals(20, store.position);
+    assertFrames(store.resumeStream().collectList().block(), frame(20, 2), frame(16, 3));
+
+    store.releaseFrames(56);
+    assertEquals(0, store.cacheSize);
+    assertThrows(IllegalStateException.class, () -> store.releaseFrames(60));
+  }
+
+  @Test
+  void replayedFramesSurviveOverwrite() {
+    RingBufferResumableFramesStore store = store(64);
+    store.saveFrames(Flux.just(frame(20, 1), frame(20, 2))).block();
+    ByteBuf ring = store.ring;
+    List<ByteBuf> replayed = store.resumeStream().collectList().block();
+
+    store.releaseFrames(40);
+    store.saveFrames(Flux.just(frame(20, 3), frame(20, 4))).block();
+
+    assertNotSame(ring, store.ring);
+    assertFrames(replayed, frame(20, 1), frame(20, 2));
+    assertFrames(store.resumeStream().collectList().block(), frame(20, 3), frame(20, 4));
+
+    replayed.forEach(ByteBuf::release);
+    assertEquals(0, ring.refCnt());
+  }
+
+  @Test
+  void ringIsReusedWithoutReplay() {
+    RingBufferResumableFramesStore store = store(64);
+    store.saveFrames(Flux.just(frame(20, 0))).block();
+    store.releaseFrames(20);
+    ByteBuf ring = store.ring;
+    for (int i = 1; i < 10; i++) {
+      store.saveFrames(Flux.just(frame(20, i))).block();
+      store.releaseFrames(store.position + 20);
+    }
+    assertSame(ring, store.ring);
+    assertEquals(200, store.position);
+  }
+
+  @Test
+  void ringGrowsWithSavedFrames() {
+    RingBufferResumableFramesStore store = store(1 << 20);
+    assertNull(store.ring);
+
+    store.saveFrames(Flux.just(frame(3000, 1))).block();
+    ByteBuf ring = store.ring;
+    assertEquals(4096, ring.capacity());
+
+    store.saveFrames(Flux.just(frame(3000, 2), frame(3000, 3))).block();
+    assertEquals(16384, store.ring.capacity());
+    assertEquals(0, ring.refCnt());
+    assertEquals(9000, store.cacheSize);
+    assertEquals(0, store.position);
+    assertFrames(
+        store.resumeStream().collectList().block(),
+        frame(3000, 1),
+        frame(3000, 2),
+        frame(3000, 3));
+  }
+
+  @Test
+  void disposeReleasesRing() {
+    RingBufferResumableFramesStore store = store(64);
+    store.saveFrames(Flux.just(frame(20, 1))).block();
+    ByteBuf ring = store.ring;
+
+    store.dispose();
+    assertEquals(0, ring.refCnt());
+    assertEquals(0, store.resumeStream().count().block());
+  }
+
+  private static RingBufferResumableFramesStore store(int size) {
+    return new RingBufferResumableFramesStore("test", size);
+  }
+
+  private static void assertFrames(List<ByteBuf> actual, ByteBuf... expected) {
+    assertEquals(Arrays.asList(expected), actual);
+  }
+
+  private static ByteBuf frame(int size, int value) {
+    byte[] bytes = new byte[size];
+    Arrays.fill(bytes, (byte) value);
+    return Unpooled.wrappedBuffer(bytes);
+  }
+}
@@ -0,0 +1,91 @@
+package io.rsocket.resume;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.test.util.TestDuplexConnection;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class SessionManagerTest {
+  private static final Duration SESSION_DURATION = Duration.ofSeconds(10);
+
+  private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+  private final SessionManager sessionManager =
+      new SessionManager(
+          null,
+          scheduler,
+          () -> scheduler.now(TimeUnit.NANOSECONDS),
+          SessionManager.EXPIRY_TICK);
+
+  @AfterEach
+  void tearDown() {
+    sessionManager.dispose();
+  }
+
+  @Test
+  void sessionFoundByTokenBytes() {
+    ServerRSocketSession session = sessionManager.save(session(new TestDuplexConnection(), 1, 2));
+
+    ByteBuf token = Unpooled.buffer().writeByte(0).writeBytes(new byte[] {1, 2}).skipBytes(1);
+    assertThat(sessionManager.get(token)).isSameAs(session);
+    assertThat(sessionManager.get(Unpooled.wrappedBuffer(new byte[] {1}))).isNull();
+  }
+
+  @Test
+  void sessionWithSameTokenReplacesPrevious() {
+    ServerRSocketSession first = sessionManager.save(session(new TestDuplexConnection(), 1));
+    ServerRSocketSession second = sessionManager.save(session(new TestDuplexConnection(), 1));
+
+    assertThat(first.isDisposed()).isTrue();
+    assertThat(sessionManager.get(Unpooled.wrappedBuffer(new byte[] {1}))).isSameAs(second);
+    assertThat(sessionManager.sessionCount()).isOne();
+  }
+
+  @Test
+  void disconnectedSessionExpires() {
+    TestDuplexConnection connection = new TestDuplexConnection();
+    ServerRSocketSession session = sessionManager.save(session(connection, 1));
+
+    connection.dispose();
+    scheduler.advanceTimeBy(SESSION_DURATION.minusMillis(1));
+    assertThat(session.isDisposed()).isFalse();
+
+    scheduler.advanceTimeBy(SessionManager.EXPIRY_TICK);
+    assertThat(session.isDisposed()).isTrue();
+    assertThat(sessionManager.sessionCount()).isZero();
+  }
+
+  @Test
+  void continuedSessionDoesNotExpire() {
+    TestDuplexConnection connection = new TestDuplexConnection();
+    ServerRSocketSession session = sessionManager.save(session(connection, 1));
+
+    connection.dispose();
+    scheduler.advanceTimeBy(SESSION_DURATION.dividedBy(2));
+    session.continueWith(new TestDuplexConnection());
+    scheduler.advanceTimeBy(SESSION_DURATION.multipliedBy(2));
+
+    assertThat(session.isDisposed()).isFalse();
+  }
+
+  private static ServerRSocketSession session(TestDuplexConnection connection, int... token) {
+    ByteBuf resumeToken = Unpooled.buffer();
+    for (int b : token) {
+      resumeToken.writeByte(b);
+    }
+    return new ServerRSocketSession(
+        connection,
+        ByteBufAllocator.DEFAULT,
+        SESSION_DURATION,
+        Duration.ofSeconds(1),
+        t -> new InMemoryResumableFramesStore("server", 1024),
+        resumeToken,
+        false);
+  }
+}
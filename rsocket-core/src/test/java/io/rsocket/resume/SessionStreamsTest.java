@@ -0,0 +1,77 @@
+package io.rsocket.resume;
+
+import static io.rsocket.frame.FrameHeaderFlyweight.FLAGS_C;
+import static io.rsocket.frame.FrameHeaderFlyweight.FLAGS_N;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.FrameType;
+import org.junit.jupiter.api.Test;
+
+public class SessionStreamsTest {
+  private final SessionStreams streams = new SessionStreams();
+
+  @Test
+  void clientStreamsCloseOnServerResponse() {
+    received(1, FrameType.REQUEST_RESPONSE, 0);
+    received(3, FrameType.REQUEST_STREAM, 0);
+    received(5, FrameType.REQUEST_CHANNEL, 0);
+    received(7, FrameType.REQUEST_FNF, 0);
+    assertThat(streams.streamIds()).containsExactly(1, 3, 5);
+
+    sent(1, FrameType.PAYLOAD, FLAGS_N);
+    sent(3, FrameType.PAYLOAD, FLAGS_N);
+    received(5, FrameType.PAYLOAD, FLAGS_N | FLAGS_C);
+    assertThat(streams.streamIds()).containsExactly(3, 5);
+
+    sent(3, FrameType.PAYLOAD, FLAGS_C);
+    sent(5, FrameType.ERROR, 0);
+    assertThat(streams.streamIds()).isEmpty();
+    assertThat(streams.lastStreamId()).isEqualTo(0);
+  }
+
+  @Test
+  void serverStreamsCloseOnClientResponse() {
+    sent(2, FrameType.REQUEST_STREAM, 0);
+    sent(4, FrameType.REQUEST_RESPONSE, 0);
+    sent(6, FrameType.REQUEST_FNF, 0);
+    assertThat(streams.streamIds()).containsExactly(2, 4);
+    assertThat(streams.lastStreamId()).isEqualTo(6);
+
+    sent(4, FrameType.PAYLOAD, FLAGS_C);
+    received(4, FrameType.PAYLOAD, FLAGS_N);
+    sent(2, FrameType.CANCEL, 0);
+    assertThat(streams.streamIds()).isEmpty();
+    assertThat(streams.lastStreamId()).isEqualTo(6);
+  }
+
+  @Test
+  void restoredStreams() {
+    SessionStreams restored = new SessionStreams(new int[] {3, 8}, 10);
+    assertThat(restored.streamIds()).containsExactly(3, 8);
+    assertThat(restored.lastStreamId()).isEqualTo(10);
+
+    ByteBuf error = frame(3, FrameType.ERROR, 0);
+    restored.sent(error);
+    error.release();
+    assertThat(restored.streamIds()).containsExactly(8);
+  }
+
+  private void sent(int streamId, FrameType frameType, int flags) {
+    ByteBuf frame = frame(streamId, frameType, flags);
+    streams.sent(frame);
+    frame.release();
+  }
+
+  private void received(int streamId, FrameType frameType, int flags) {
+    ByteBuf frame = frame(streamId, frameType, flags);
+    streams.received(frame);
+    frame.release();
+  }
+
+  private static ByteBuf frame(int streamId, FrameType frameType, int flags) {
+    return FrameHeaderFlyweight.encode(ByteBufAllocator.DEFAULT, streamId, frameType, flags);
+  }
+}
@@ -0,0 +1,60 @@
+package io.rsocket.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+class ClockTest {
+
+  @AfterEach
+  void tearDown() {
+    Clock.use(Clock.TimeSource.SYSTEM);
+  }
+
+  @Test
+  void virtualTimeSource() {
+    VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    Clock.use(Clock.TimeSource.from(scheduler));
+    long start = Clock.now();
+    long startMillis = Clock.currentTimeMillis();
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(3));
+
+    assertThat(Clock.elapsedSince(start)).isEqualTo(TimeUnit.SECONDS.toMicros(3));
+    assertThat(Clock.currentTimeMillis() - startMillis).isEqualTo(3_000);
+  }
+
+  @Test
+  void cachedTimeSourceIsRefreshed() {
+    CachedTimeSource timeSource = Clock.TimeSource.cached(Duration.ofMillis(1));
+    try {
+      Clock.use(timeSource);
+      long start = Clock.nanoTime();
+
+      Mono.delay(Duration.ofMillis(50)).block();
+
+      assertThat(Clock.nanoTime()).isGreaterThan(start);
+      assertThat(Clock.currentTimeMillis()).isCloseTo(System.currentTimeMillis(), offset(50L));
+    } finally {
+      timeSource.dispose();
+    }
+  }
+
+  @Test
+  void cachedTimeSourceStopsOnDispose() {
+    CachedTimeSource timeSource = Clock.TimeSource.cached(Duration.ofMillis(1));
+    timeSource.dispose();
+    long nanoTime = timeSource.nanoTime();
+
+    Mono.delay(Duration.ofMillis(20)).block();
+
+    assertThat(timeSource.isDisposed()).isTrue();
+    assertThat(timeSource.nanoTime()).isEqualTo(nanoTime);
+  }
+}
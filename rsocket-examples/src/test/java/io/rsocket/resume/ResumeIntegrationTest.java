@@ -20,6 +20,7 @@
 import io.rsocket.Payload;
 import io.rsocket.RSocket;
 import io.rsocket.RSocketFactory;
+import io.rsocket.exceptions.CanceledException;
 import io.rsocket.exceptions.RejectedResumeException;
 import io.rsocket.exceptions.UnsupportedSetupException;
 import io.rsocket.test.SlowTest;
@@ -31,11 +32,15 @@
 import io.rsocket.util.DefaultPayload;
 import java.net.InetSocketAddress;
 import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -157,6 +162,65 @@ void serverMissingResume() {
     Assertions.assertThat(rSocket.isDisposed()).isTrue();
   }
 
+  @Test
+  void resumeAfterServerRestart(@TempDir Path sessions) throws Exception {
+    ResumableSessionRepository repository = new FileResumableSessionRepository(sessions);
+    AtomicInteger accepted = new AtomicInteger();
+    CloseableChannel server = newPersistentServerRSocket(repository, SERVER_PORT, accepted).block();
+    int port = server.address().getPort();
+
+    RSocket rSocket =
+        RSocketFactory.connect()
+            .resume()
+            .resumeSessionDuration(Duration.ofSeconds(30))
+            .resumeStrategy(() -> new PeriodicResumeStrategy(Duration.ofMillis(200)))
+            .setupPayload(DefaultPayload.create("setup"))
+            .transport(clientTransport(server.address()))
+            .start()
+            .block();
+
+    StepVerifier.create(echo(rSocket, "before"))
+        .expectNext("before")
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+
+    ReplayProcessor<String> streamed = ReplayProcessor.create();
+    rSocket
+        .requestStream(DefaultPayload.create("stream"))
+        .map(Payload::getDataUtf8)
+        .subscribe(streamed);
+    StepVerifier.create(streamed.next())
+        .expectNext("0")
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+
+    server.dispose();
+    server.onClose().block(Duration.ofSeconds(5));
+    awaitSessionFile(sessions);
+
+    Mono<String> inFlight = echo(rSocket, "during").cache();
+    inFlight.subscribe();
+
+    CloseableChannel restarted = newPersistentServerRSocket(repository, port, accepted).block();
+    try {
+      StepVerifier.create(inFlight)
+          .expectNext("during")
+          .expectComplete()
+          .verify(Duration.ofSeconds(10));
+      StepVerifier.create(streamed.then())
+          .expectError(CanceledException.class)
+          .verify(Duration.ofSeconds(5));
+      StepVerifier.create(echo(rSocket, "after"))
+          .expectNext("after")
+          .expectComplete()
+          .verify(Duration.ofSeconds(5));
+      Assertions.assertThat(accepted).hasValue(2);
+    } finally {
+      rSocket.dispose();
+      restarted.dispose();
+    }
+  }
+
   static ClientTransport clientTransport(InetSocketAddress address) {
     return TcpClientTransport.create(address);
   }
@@ -236,10 +300,59 @@ private static Mono<CloseableChannel> newServerRSocket(int sessionDurationSecond
         .start();
   }
 
+  private static Mono<CloseableChannel> newPersistentServerRSocket(
+      ResumableSessionRepository repository, int port, AtomicInteger accepted) {
+    return RSocketFactory.receive()
+        .resume()
+        .resumeSessionRepository(repository)
+        .acceptor(
+            (setupPayload, rSocket) -> {
+              Assertions.assertThat(setupPayload.getDataUtf8()).isEqualTo("setup");
+              accepted.incrementAndGet();
+              return Mono.just(new TestResponderRSocket());
+            })
+        .transport(serverTransport(SERVER_HOST, port))
+        .start();
+  }
+
+  private static Mono<String> echo(RSocket rSocket, String data) {
+    return rSocket.requestResponse(DefaultPayload.create(data)).map(Payload::getDataUtf8);
+  }
+
+  private static void awaitSessionFile(Path sessions) throws Exception {
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (System.nanoTime() < deadline) {
+      try (Stream<Path> files = Files.list(sessions)) {
+        if (files.anyMatch(f -> f.toString().endsWith(".session"))) {
+          return;
+        }
+      }
+      Thread.sleep(10);
+    }
+    throw new AssertionError("session was not saved");
+  }
+
   private static class TestResponderRSocket extends AbstractRSocket {
 
     AtomicInteger counter = new AtomicInteger();
 
+    @Override
+    public Mono<Payload> requestResponse(Payload payload) {
+      try {
+        return Mono.just(DefaultPayload.create(payload.getDataUtf8()));
+      } finally {
+        payload.release();
+      }
+    }
+
+    @Override
+    public Flux<Payload> requestStream(Payload payload) {
+      payload.release();
+      return Flux.interval(Duration.ofMillis(100))
+          .onBackpressureDrop()
+          .map(v -> DefaultPayload.create(String.valueOf(v)));
+    }
+
     @Override
     public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
       return duplicate(
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.transport.local.LocalClientTransport;
+import io.rsocket.transport.local.LocalServerTransport;
+import io.rsocket.util.DefaultPayload;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class ResumeWindowIntegrationTest {
+  private static final int WINDOW_BYTES = 16 * 1024;
+  private static final int PAYLOADS = 1000;
+  private static final int PAYLOAD_SIZE = 1024;
+
+  /*
+   * the client sends many times its window, which is acknowledged only by keep-alive frames of the
+   * server in response to its own keep-alive frames, sent while the window is full
+   */
+  @Test
+  void windowIsAcknowledgedByKeepAlives() {
+    Closeable server =
+        RSocketFactory.receive()
+            .resume()
+            .acceptor((setup, rSocket) -> Mono.just(new CountingResponder()))
+            .transport(LocalServerTransport.create("resume-window"))
+            .start()
+            .block();
+
+    AtomicInteger disconnects = new AtomicInteger();
+    RSocket client =
+        RSocketFactory.connect()
+            .resume()
+            .resumeWindow(WINDOW_BYTES)
+            .resumeStrategy(
+                () -> {
+                  disconnects.incrementAndGet();
+                  return new PeriodicResumeStrategy(Duration.ofMillis(100));
+                })
+            .keepAliveTickPeriod(Duration.ofMillis(20))
+            .keepAliveAckTimeout(Duration.ofSeconds(2))
+            .transport(LocalClientTransport.create("resume-window"))
+            .start()
+            .block();
+
+    try {
+      Flux<Payload> payloads =
+          Flux.range(0, PAYLOADS).map(i -> DefaultPayload.create(new byte[PAYLOAD_SIZE]));
+      StepVerifier.create(client.requestChannel(payloads).map(Payload::getDataUtf8))
+          .expectNext(String.valueOf(PAYLOADS))
+          .expectComplete()
+          .verify(Duration.ofSeconds(20));
+      assertThat(disconnects).hasValue(0);
+    } finally {
+      client.dispose();
+      server.dispose();
+    }
+  }
+
+  private static class CountingResponder extends AbstractRSocket {
+
+    @Override
+    public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+      return Flux.from(payloads)
+          .doOnNext(Payload::release)
+          .count()
+          .map(count -> DefaultPayload.create(String.valueOf(count)))
+          .flux();
+    }
+  }
+}
@@ -764,7 +764,7 @@ private synchronized long instantaneous(long now) {
 
     private synchronized long incr() {
       long now = Clock.now();
-      interArrivalTime.insert(now - stamp);
+      interArrivalTime.insert(now - stamp, now);
       duration += Math.max(0, now - stamp0) * pending;
       pending += 1;
       stamp = now;
@@ -38,8 +38,12 @@ public Ewma(long halfLife, TimeUnit unit, double initialValue) {
     ewma = initialValue;
   }
 
-  public synchronized void insert(double x) {
-    long now = Clock.now();
+  public void insert(double x) {
+    insert(x, Clock.now());
+  }
+
+  /** @param now time of insertion, as read from {@link Clock#now()} */
+  public synchronized void insert(double x, long now) {
     double elapsed = Math.max(0, now - stamp);
     stamp = now;
 
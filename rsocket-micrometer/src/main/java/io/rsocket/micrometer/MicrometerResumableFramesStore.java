@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.micrometer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.netty.buffer.ByteBuf;
+import io.rsocket.resume.ResumableFramesStore;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.ToDoubleFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * An implementation of {@link ResumableFramesStore} that exposes the state of the resume window
+ * of a session as Micrometer gauges.
+ *
+ * <p>The gauges are called {@code rsocket.resume.position}, {@code rsocket.resume.implied.position}
+ * and {@code rsocket.resume.cache.size}. The time senders spend blocked on a full resume window is
+ * recorded by the timer {@code rsocket.resume.window.blocked}. Meters are tagged with any
+ * additional configured tags, which should identify the session. The gauges hold the delegate
+ * weakly, so they do not keep the frames of a disposed session from being collected.
+ *
+ * <pre>{@code
+ * RSocketFactory.receive()
+ *     .resume()
+ *     .resumeStore(
+ *         token ->
+ *             new MicrometerResumableFramesStore(
+ *                 new InMemoryResumableFramesStore("server", 100_000),
+ *                 meterRegistry,
+ *                 Tag.of("session", ByteBufUtil.hexDump(token))))
+ * }</pre>
+ *
+ * @see <a href="https://micrometer.io">Micrometer</a>
+ */
+public final class MicrometerResumableFramesStore implements ResumableFramesStore {
+
+  private final ResumableFramesStore delegate;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Timer windowBlocked;
+
+  /**
+   * Creates a new {@link ResumableFramesStore}.
+   *
+   * @param delegate the {@link ResumableFramesStore} to delegate to
+   * @param meterRegistry the {@link MeterRegistry} to use
+   * @param tags additional tags to attach to {@link Meter}s
+   * @throws NullPointerException if {@code delegate} or {@code meterRegistry} is {@code null}
+   */
+  public MicrometerResumableFramesStore(
+      ResumableFramesStore delegate, MeterRegistry meterRegistry, Tag... tags) {
+    this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+    this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry must not be null");
+
+    this.windowBlocked =
+        Timer.builder("rsocket.resume.window.blocked").tags(Tags.of(tags)).register(meterRegistry);
+    gauge("rsocket.resume.position", ResumableFramesStore::framePosition, tags);
+    gauge("rsocket.resume.implied.position", ResumableFramesStore::frameImpliedPosition, tags);
+    gauge("rsocket.resume.cache.size", ResumableFramesStore::cacheSize, tags);
+  }
+
+  @Override
+  public Mono<Void> saveFrames(Flux<ByteBuf> frames) {
+    return delegate.saveFrames(frames);
+  }
+
+  @Override
+  public void releaseFrames(long remoteImpliedPos) {
+    delegate.releaseFrames(remoteImpliedPos);
+  }
+
+  @Override
+  public boolean releaseFrames(long remoteImpliedPos, int maxFrames) {
+    return delegate.releaseFrames(remoteImpliedPos, maxFrames);
+  }
+
+  @Override
+  public Flux<ByteBuf> resumeStream() {
+    return delegate.resumeStream();
+  }
+
+  @Override
+  public Flux<List<ByteBuf>> resumeBatches(IntSupplier maxBatchSize) {
+    return delegate.resumeBatches(maxBatchSize);
+  }
+
+  @Override
+  public long framePosition() {
+    return delegate.framePosition();
+  }
+
+  @Override
+  public long frameImpliedPosition() {
+    return delegate.frameImpliedPosition();
+  }
+
+  @Override
+  public long cacheSize() {
+    return delegate.cacheSize();
+  }
+
+  @Override
+  public void resumableFrameReceived(ByteBuf frame) {
+    delegate.resumableFrameReceived(frame);
+  }
+
+  @Override
+  public void windowBlocked(long blockedNanos) {
+    windowBlocked.record(blockedNanos, TimeUnit.NANOSECONDS);
+    delegate.windowBlocked(blockedNanos);
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return delegate.onClose();
+  }
+
+  @Override
+  public void dispose() {
+    delegate.dispose();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return delegate.isDisposed();
+  }
+
+  private void gauge(String name, ToDoubleFunction<ResumableFramesStore> value, Tag... tags) {
+    Gauge.builder(name, delegate, value).tags(Tags.of(tags)).register(meterRegistry);
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.micrometer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.rsocket.resume.ResumableFramesStore;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+final class MicrometerResumableFramesStoreTest {
+
+  private final ResumableFramesStore delegate =
+      mock(ResumableFramesStore.class, RETURNS_SMART_NULLS);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @DisplayName("constructor throws NullPointerException with null delegate")
+  @Test
+  void constructorNullDelegate() {
+    assertThatNullPointerException()
+        .isThrownBy(() -> new MicrometerResumableFramesStore(null, meterRegistry))
+        .withMessage("delegate must not be null");
+  }
+
+  @DisplayName("constructor throws NullPointerException with null meterRegistry")
+  @Test
+  void constructorNullMeterRegistry() {
+    assertThatNullPointerException()
+        .isThrownBy(() -> new MicrometerResumableFramesStore(delegate, null))
+        .withMessage("meterRegistry must not be null");
+  }
+
+  @DisplayName("gauges report the state of the delegate")
+  @Test
+  void gauges() {
+    when(delegate.framePosition()).thenReturn(10L, 20L);
+    when(delegate.frameImpliedPosition()).thenReturn(30L);
+    when(delegate.cacheSize()).thenReturn(40L);
+
+    new MicrometerResumableFramesStore(delegate, meterRegistry, Tag.of("test-key", "test-value"));
+
+    assertThat(position()).isEqualTo(10);
+    assertThat(position()).isEqualTo(20);
+    assertThat(
+            meterRegistry
+                .get("rsocket.resume.implied.position")
+                .tag("test-key", "test-value")
+                .gauge()
+                .value())
+        .isEqualTo(30);
+    assertThat(
+            meterRegistry
+                .get("rsocket.resume.cache.size")
+                .tag("test-key", "test-value")
+                .gauge()
+                .value())
+        .isEqualTo(40);
+  }
+
+  @DisplayName("releaseFrames delegates")
+  @Test
+  void releaseFrames() {
+    when(delegate.releaseFrames(100, 8)).thenReturn(false);
+
+    MicrometerResumableFramesStore store =
+        new MicrometerResumableFramesStore(delegate, meterRegistry);
+
+    assertThat(store.releaseFrames(100, 8)).isFalse();
+    verify(delegate).releaseFrames(100, 8);
+  }
+
+  @DisplayName("windowBlocked records blocked time and delegates")
+  @Test
+  void windowBlocked() {
+    new MicrometerResumableFramesStore(delegate, meterRegistry, Tag.of("test-key", "test-value"))
+        .windowBlocked(TimeUnit.MILLISECONDS.toNanos(5));
+
+    verify(delegate).windowBlocked(TimeUnit.MILLISECONDS.toNanos(5));
+    Timer timer =
+        meterRegistry.get("rsocket.resume.window.blocked").tag("test-key", "test-value").timer();
+    assertThat(timer.count()).isEqualTo(1);
+    assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(5);
+  }
+
+  @DisplayName("dispose delegates")
+  @Test
+  void dispose() {
+    new MicrometerResumableFramesStore(delegate, meterRegistry).dispose();
+
+    verify(delegate).dispose();
+  }
+
+  private double position() {
+    return meterRegistry
+        .get("rsocket.resume.position")
+        .tag("test-key", "test-value")
+        .gauge()
+        .value();
+  }
+}
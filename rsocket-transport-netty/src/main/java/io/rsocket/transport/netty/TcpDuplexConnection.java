@@ -18,6 +18,7 @@
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.rsocket.DuplexConnection;
 import io.rsocket.frame.FrameLengthFlyweight;
 import io.rsocket.internal.BaseDuplexConnection;
@@ -33,6 +34,10 @@ public final class TcpDuplexConnection extends BaseDuplexConnection {
   private final Connection connection;
   private final ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
   private final boolean encodeLength;
+  private final int maxBatchBytes;
+
+  /** bytes written since the last forced flush, only accessed from the event loop */
+  private int batchedBytes;
 
   /**
    * Creates a new instance
@@ -50,9 +55,38 @@ public TcpDuplexConnection(Connection connection) {
    * @param connection the {@link Connection} to for managing the server
    */
   public TcpDuplexConnection(Connection connection, boolean encodeLength) {
+    this(connection, encodeLength, 0);
+  }
+
+  /**
+   * Creates a new instance which coalesces outgoing frames into batched writes. Flushes requested
+   * while draining queued frames are consolidated, so that all frames drained in one event loop
+   * iteration go out as a single gathering write. A flush is forced whenever {@code maxBatchBytes}
+   * have been written since the previous forced one.
+   *
+   * @param connection the {@link Connection} to for managing the server
+   * @param encodeLength indicates if this connection should encode the length or not.
+   * @param maxBatchBytes the number of bytes after which a flush is forced, or {@code 0} to write
+   *     and flush frames as they come
+   */
+  public TcpDuplexConnection(Connection connection, boolean encodeLength, int maxBatchBytes) {
+    if (maxBatchBytes < 0) {
+      throw new IllegalArgumentException("maxBatchBytes must be >= 0");
+    }
     this.encodeLength = encodeLength;
+    this.maxBatchBytes = maxBatchBytes;
     this.connection = Objects.requireNonNull(connection, "connection must not be null");
 
+    if (maxBatchBytes > 0) {
+      connection
+          .channel()
+          .pipeline()
+          .addFirst(
+              FlushConsolidationHandler.class.getSimpleName(),
+              new FlushConsolidationHandler(
+                  FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, true));
+    }
+
     connection
         .channel()
         .closeFuture()
@@ -79,11 +113,30 @@ public Mono<Void> send(Publisher<ByteBuf> frames) {
     if (frames instanceof Mono) {
       return connection.outbound().sendObject(((Mono<ByteBuf>) frames).map(this::encode)).then();
     }
+    if (maxBatchBytes > 0) {
+      return connection
+          .outbound()
+          .send(Flux.from(frames).map(this::encode), this::isBatchFull)
+          .then();
+    }
     return connection.outbound().send(Flux.from(frames).map(this::encode)).then();
   }
 
+  private boolean isBatchFull(ByteBuf frame) {
+    int batched = batchedBytes + frame.readableBytes();
+    if (batched >= maxBatchBytes) {
+      batchedBytes = 0;
+      return true;
+    }
+    batchedBytes = batched;
+    return false;
+  }
+
   private ByteBuf encode(ByteBuf frame) {
     if (encodeLength) {
+      if (FrameLengthFlyweight.hasReservedLength(frame)) {
+        return FrameLengthFlyweight.encodeReserved(frame);
+      }
       return FrameLengthFlyweight.encode(allocator, frame.readableBytes(), frame);
     } else {
       return frame;
@@ -34,9 +34,11 @@
 public final class TcpClientTransport implements ClientTransport {
 
   private final TcpClient client;
+  private final int maxBatchBytes;
 
-  private TcpClientTransport(TcpClient client) {
+  private TcpClientTransport(TcpClient client, int maxBatchBytes) {
     this.client = client;
+    this.maxBatchBytes = maxBatchBytes;
   }
 
   /**
@@ -89,7 +91,25 @@ public static TcpClientTransport create(InetSocketAddress address) {
   public static TcpClientTransport create(TcpClient client) {
     Objects.requireNonNull(client, "client must not be null");
 
-    return new TcpClientTransport(client);
+    return new TcpClientTransport(client, 0);
+  }
+
+  /**
+   * Returns a copy of this transport which coalesces outgoing frames into batched writes, trading
+   * a little latency for fewer write and flush system calls under small-frame load. All frames
+   * drained in one event loop iteration are flushed together, and a flush is forced every {@code
+   * maxBatchBytes}.
+   *
+   * @param maxBatchBytes the number of bytes after which a flush is forced
+   * @return a new instance with write batching enabled
+   * @throws IllegalArgumentException if {@code maxBatchBytes} is not positive
+   */
+  public TcpClientTransport writeBatching(int maxBatchBytes) {
+    if (maxBatchBytes <= 0) {
+      throw new IllegalArgumentException("maxBatchBytes must be > 0");
+    }
+
+    return new TcpClientTransport(client, maxBatchBytes);
   }
 
   @Override
@@ -104,13 +124,13 @@ public Mono<DuplexConnection> connect(int mtu) {
                 c -> {
                   if (mtu > 0) {
                     return new FragmentationDuplexConnection(
-                        new TcpDuplexConnection(c, false),
+                        new TcpDuplexConnection(c, false, maxBatchBytes),
                         ByteBufAllocator.DEFAULT,
                         mtu,
                         true,
                         "client");
                   } else {
-                    return new TcpDuplexConnection(c);
+                    return new TcpDuplexConnection(c, true, maxBatchBytes);
                   }
                 });
   }
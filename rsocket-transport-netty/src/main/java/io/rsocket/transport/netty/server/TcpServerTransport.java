@@ -34,9 +34,11 @@
 public final class TcpServerTransport implements ServerTransport<CloseableChannel> {
 
   private final TcpServer server;
+  private final int maxBatchBytes;
 
-  private TcpServerTransport(TcpServer server) {
+  private TcpServerTransport(TcpServer server, int maxBatchBytes) {
     this.server = server;
+    this.maxBatchBytes = maxBatchBytes;
   }
 
   /**
@@ -88,7 +90,25 @@ public static TcpServerTransport create(InetSocketAddress address) {
   public static TcpServerTransport create(TcpServer server) {
     Objects.requireNonNull(server, "server must not be null");
 
-    return new TcpServerTransport(server);
+    return new TcpServerTransport(server, 0);
+  }
+
+  /**
+   * Returns a copy of this transport which coalesces outgoing frames into batched writes, trading
+   * a little latency for fewer write and flush system calls under small-frame load. All frames
+   * drained in one event loop iteration are flushed together, and a flush is forced every {@code
+   * maxBatchBytes}.
+   *
+   * @param maxBatchBytes the number of bytes after which a flush is forced
+   * @return a new instance with write batching enabled
+   * @throws IllegalArgumentException if {@code maxBatchBytes} is not positive
+   */
+  public TcpServerTransport writeBatching(int maxBatchBytes) {
+    if (maxBatchBytes <= 0) {
+      throw new IllegalArgumentException("maxBatchBytes must be > 0");
+    }
+
+    return new TcpServerTransport(server, maxBatchBytes);
   }
 
   @Override
@@ -105,13 +125,13 @@ public Mono<CloseableChannel> start(ConnectionAcceptor acceptor, int mtu) {
                   if (mtu > 0) {
                     connection =
                         new FragmentationDuplexConnection(
-                            new TcpDuplexConnection(c, false),
+                            new TcpDuplexConnection(c, false, maxBatchBytes),
                             ByteBufAllocator.DEFAULT,
                             mtu,
                             true,
                             "server");
                   } else {
-                    connection = new TcpDuplexConnection(c);
+                    connection = new TcpDuplexConnection(c, true, maxBatchBytes);
                   }
                   acceptor
                       .apply(connection)
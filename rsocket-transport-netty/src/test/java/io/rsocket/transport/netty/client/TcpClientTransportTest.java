@@ -17,6 +17,7 @@
 package io.rsocket.transport.netty.client;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatNullPointerException;
 
 import io.rsocket.transport.netty.server.TcpServerTransport;
@@ -44,6 +45,31 @@ void connect() {
         .verifyComplete();
   }
 
+  @DisplayName("connects to server with write batching")
+  @Test
+  void connectWriteBatching() {
+    InetSocketAddress address = InetSocketAddress.createUnresolved("localhost", 0);
+
+    TcpServerTransport serverTransport = TcpServerTransport.create(address).writeBatching(1024);
+
+    serverTransport
+        .start(duplexConnection -> Mono.empty(), 0)
+        .flatMap(
+            context ->
+                TcpClientTransport.create(context.address()).writeBatching(1024).connect(0))
+        .as(StepVerifier::create)
+        .expectNextCount(1)
+        .verifyComplete();
+  }
+
+  @DisplayName("writeBatching throws IllegalArgumentException with non positive maxBatchBytes")
+  @Test
+  void writeBatchingNonPositive() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> TcpClientTransport.create(8000).writeBatching(0))
+        .withMessage("maxBatchBytes must be > 0");
+  }
+
   @DisplayName("create generates error if server not started")
   @Test
   void connectNoServer() {